@@ -120,6 +120,8 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 * <li>tcpclient: At startup the agent connects to the TCP port specified by
 	 * the {@link #address} and {@link #port}. Execution data is written to this
 	 * TCP connection.</li>
+	 * <li>mmap: Execution data is kept in a memory-mapped file which is updated
+	 * on every dump.</li>
 	 * <li>none: Do not produce any output.</li>
 	 * </ul>
 	 */
@@ -153,6 +155,65 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.jmx")
 	Boolean jmx;
+	/**
+	 * If set to true the agent writes execution data in compressed blocks.
+	 * Compressed execution data can only be read by JaCoCo 0.8.16 and later.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.compress")
+	Boolean compress;
+	/**
+	 * Maximum number of concurrent client connections if the output method is
+	 * <code>tcpserver</code>. With more than one connection a non-blocking
+	 * server is used, which sends the same snapshot to all clients requesting
+	 * a dump at the same time.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.maxConnections")
+	Integer maxConnections;
+	/**
+	 * Interval in seconds in which the agent periodically dumps execution data
+	 * in the background through the configured output. By default no periodic
+	 * dumps are written.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.dumpInterval")
+	Integer dumpInterval;
+	/**
+	 * Maximum random delay in seconds added to every periodic dump interval.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.dumpJitter")
+	Integer dumpJitter;
+	/**
+	 * If set to true execution data is reset after every periodic dump.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.dumpReset")
+	Boolean dumpReset;
+	/**
+	 * If a directory is specified for this parameter the JaCoCo agent caches
+	 * instrumented class files in this directory. Subsequent JVMs using the
+	 * same directory load unchanged classes from the cache instead of
+	 * instrumenting them again.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.cacheDir")
+	File cacheDir;
+	/**
+	 * Maximum size of the class file cache in megabytes. The least recently
+	 * used class files are removed if the cache exceeds this size.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.cacheSize")
+	Integer cacheSize;
 
 	@Override
 	public void executeMojo() {
@@ -228,6 +289,27 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (jmx != null) {
 			agentOptions.setJmx(jmx.booleanValue());
 		}
+		if (compress != null) {
+			agentOptions.setCompress(compress.booleanValue());
+		}
+		if (maxConnections != null) {
+			agentOptions.setMaxConnections(maxConnections.intValue());
+		}
+		if (dumpInterval != null) {
+			agentOptions.setDumpInterval(dumpInterval.intValue());
+		}
+		if (dumpJitter != null) {
+			agentOptions.setDumpJitter(dumpJitter.intValue());
+		}
+		if (dumpReset != null) {
+			agentOptions.setDumpReset(dumpReset.booleanValue());
+		}
+		if (cacheDir != null) {
+			agentOptions.setCacheDir(cacheDir.getAbsolutePath());
+		}
+		if (cacheSize != null) {
+			agentOptions.setCacheSize(cacheSize.intValue());
+		}
 		return agentOptions;
 	}
 
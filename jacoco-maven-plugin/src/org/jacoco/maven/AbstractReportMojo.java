@@ -86,6 +86,19 @@ public abstract class AbstractReportMojo extends AbstractMojo
 	@Parameter
 	List<String> excludes;
 
+	/**
+	 * Directory where the analysis results of class files are cached. Reports
+	 * for unchanged class files then only need to apply the execution data to
+	 * the cached results. The directory may be shared between modules and
+	 * builds. Outdated entries are not removed, so the directory should be
+	 * deleted from time to time, e.g. by placing it in the build directory.
+	 * When not specified no cache is used.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.analysisCache")
+	File analysisCache;
+
 	/**
 	 * Flag used to suppress execution.
 	 */
@@ -188,6 +201,7 @@ public abstract class AbstractReportMojo extends AbstractMojo
 			throws MavenReportException {
 		try {
 			final ReportSupport support = new ReportSupport(getLog());
+			support.setAnalysisCache(analysisCache);
 			loadExecutionData(support);
 			addFormatters(support, locale);
 			final IReportVisitor visitor = support.initRootVisitor();
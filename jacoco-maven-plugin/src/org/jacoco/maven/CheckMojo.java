@@ -143,6 +143,19 @@ public class CheckMojo extends AbstractJacocoMojo implements IViolationsOutput {
 	@Parameter
 	private List<String> excludes;
 
+	/**
+	 * Directory where the analysis results of class files are cached. Reports
+	 * for unchanged class files then only need to apply the execution data to
+	 * the cached results. The directory may be shared between modules and
+	 * builds. Outdated entries are not removed, so the directory should be
+	 * deleted from time to time, e.g. by placing it in the build directory.
+	 * When not specified no cache is used.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.analysisCache")
+	private File analysisCache;
+
 	private boolean violations;
 
 	private boolean canCheckCoverage() {
@@ -173,6 +186,7 @@ public class CheckMojo extends AbstractJacocoMojo implements IViolationsOutput {
 		violations = false;
 
 		final ReportSupport support = new ReportSupport(getLog());
+		support.setAnalysisCache(analysisCache);
 
 		final List<Rule> checkerrules = new ArrayList<Rule>();
 		for (final RuleConfiguration r : rules) {
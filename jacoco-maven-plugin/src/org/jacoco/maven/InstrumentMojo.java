@@ -18,7 +18,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -29,6 +37,7 @@ import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.jacoco.core.tools.InstrumentationManifest;
 
 /**
  * Performs offline instrumentation. Note that after execution of test you must
@@ -63,6 +72,27 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 	@Parameter
 	private List<String> excludes;
 
+	/**
+	 * Number of threads used to instrument the class files in parallel.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.threads", defaultValue = "1")
+	private int threads;
+
+	/**
+	 * If set to <code>true</code> class files which have not changed since the
+	 * previous execution are not instrumented again. Instead the instrumented
+	 * class file of the previous execution is used. For this a copy of every
+	 * instrumented class file and a manifest with the checksums of the
+	 * original and the instrumented class files is kept in the build
+	 * directory.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.incremental", defaultValue = "false")
+	private boolean incremental;
+
 	@Override
 	public void executeMojo()
 			throws MojoExecutionException, MojoFailureException {
@@ -88,27 +118,172 @@ public class InstrumentMojo extends AbstractJacocoMojo {
 					"Unable to get list of files to instrument.", e1);
 		}
 
+		final File generatedDir = new File(
+				getProject().getBuild().getDirectory(), "generated-classes");
+		final File instrumentedClassesDir = new File(generatedDir,
+				"jacoco-instrumented");
+		final File manifestFile = new File(generatedDir,
+				"jacoco-instrumented.manifest");
+		final InstrumentationManifest previous = new InstrumentationManifest();
+		final InstrumentationManifest current;
+		if (incremental) {
+			try {
+				previous.load(manifestFile);
+			} catch (final IOException e) {
+				getLog().warn("Ignoring instrumentation manifest: "
+						+ e.getMessage());
+			}
+			current = new InstrumentationManifest();
+		} else {
+			current = null;
+		}
+		final AtomicInteger skipped = new AtomicInteger();
+
+		final long start = System.currentTimeMillis();
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
-		for (final String fileName : fileNames) {
-			if (fileName.endsWith(".class")) {
-				final File source = new File(classesDir, fileName);
-				final File backup = new File(originalClassesDir, fileName);
-				InputStream input = null;
-				OutputStream output = null;
-				try {
-					FileUtils.copyFile(source, backup);
-					input = new FileInputStream(backup);
-					output = new FileOutputStream(source);
-					instrumenter.instrument(input, output, source.getPath());
-				} catch (final IOException e2) {
-					throw new MojoExecutionException(
-							"Unable to instrument file.", e2);
-				} finally {
-					IOUtil.close(input);
-					IOUtil.close(output);
+		final ExecutorService executor = threads > 1
+				? Executors.newFixedThreadPool(threads)
+				: null;
+		final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+		final AtomicLong bytes = new AtomicLong();
+		try {
+			for (final String fileName : fileNames) {
+				if (fileName.endsWith(".class")) {
+					final File source = new File(classesDir, fileName);
+					final File backup = new File(originalClassesDir, fileName);
+					final FutureTask<Void> task;
+					if (current == null) {
+						task = new FutureTask<Void>(new Callable<Void>() {
+							public Void call() throws IOException {
+								bytes.addAndGet(source.length());
+								instrument(instrumenter, source, backup);
+								return null;
+							}
+						});
+					} else {
+						final String name = fileName.replace('\\', '/');
+						final File copy = new File(instrumentedClassesDir,
+								fileName);
+						task = new FutureTask<Void>(new Callable<Void>() {
+							public Void call() throws IOException {
+								final long length = source.length();
+								if (instrument(instrumenter, source, backup,
+										copy, name, previous, current)) {
+									bytes.addAndGet(length);
+								} else {
+									skipped.incrementAndGet();
+								}
+								return null;
+							}
+						});
+					}
+					tasks.add(task);
+					if (executor != null) {
+						executor.execute(task);
+					}
 				}
 			}
+			for (final FutureTask<Void> task : tasks) {
+				// Instrument in this thread if not started yet
+				task.run();
+				get(task);
+			}
+		} finally {
+			for (final FutureTask<Void> task : tasks) {
+				task.cancel(false);
+			}
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+		if (current != null) {
+			try {
+				current.save(manifestFile);
+			} catch (final IOException e) {
+				throw new MojoExecutionException(
+						"Unable to write instrumentation manifest.", e);
+			}
+		}
+		final long time = Math.max(1, System.currentTimeMillis() - start);
+		final int instrumented = tasks.size() - skipped.get();
+		getLog().info(String.format(
+				"Instrumented %d classes (%d bytes) in %d ms, %d classes/s, %d bytes/s",
+				Integer.valueOf(instrumented), Long.valueOf(bytes.get()),
+				Long.valueOf(time), Long.valueOf(instrumented * 1000L / time),
+				Long.valueOf(bytes.get() * 1000L / time)));
+		if (current != null) {
+			getLog().info(String.format(
+					"Reused %d unchanged instrumented classes",
+					Integer.valueOf(skipped.get())));
+		}
+	}
+
+	private static void instrument(final Instrumenter instrumenter,
+			final File source, final File backup) throws IOException {
+		InputStream input = null;
+		OutputStream output = null;
+		try {
+			FileUtils.copyFile(source, backup);
+			input = new FileInputStream(backup);
+			output = new FileOutputStream(source);
+			instrumenter.instrument(input, output, source.getPath());
+		} finally {
+			IOUtil.close(input);
+			IOUtil.close(output);
+		}
+	}
+
+	/**
+	 * Instruments the given class file unless it has not changed since the
+	 * previous execution.
+	 *
+	 * @return <code>false</code> if the class file has not changed
+	 */
+	private static boolean instrument(final Instrumenter instrumenter,
+			final File source, final File backup, final File copy,
+			final String name, final InstrumentationManifest previous,
+			final InstrumentationManifest current) throws IOException {
+		final long sourceId = InstrumentationManifest.id(source);
+		// Original class file, e.g. after restore-instrumented-classes
+		if (copy.isFile()) {
+			final long copyId = InstrumentationManifest.id(copy);
+			if (previous.contains(name, sourceId, copyId)) {
+				FileUtils.copyFile(source, backup);
+				FileUtils.copyFile(copy, source);
+				current.put(name, sourceId, copyId);
+				return false;
+			}
+		}
+		// Class file which is still instrumented
+		if (backup.isFile()) {
+			final long backupId = InstrumentationManifest.id(backup);
+			if (previous.contains(name, backupId, sourceId)) {
+				current.put(name, backupId, sourceId);
+				return false;
+			}
+		}
+		instrument(instrumenter, source, backup);
+		FileUtils.copyFile(source, copy);
+		current.put(name, sourceId, InstrumentationManifest.id(source));
+		return true;
+	}
+
+	private static void get(final FutureTask<Void> task)
+			throws MojoExecutionException {
+		try {
+			task.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Instrumentation interrupted.",
+					e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new MojoExecutionException("Unable to instrument file.",
+					cause);
 		}
 	}
 
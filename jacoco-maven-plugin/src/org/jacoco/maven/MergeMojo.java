@@ -12,9 +12,18 @@
  *******************************************************************************/
 package org.jacoco.maven;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -23,7 +32,9 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.shared.model.fileset.FileSet;
 import org.apache.maven.shared.model.fileset.util.FileSetManager;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.tools.ExecFileCompactor;
+import org.jacoco.core.tools.ExecFileMerger;
 
 /**
  * Mojo for merging a set of execution data files (*.exec) into a single file
@@ -60,6 +71,26 @@ public class MergeMojo extends AbstractJacocoMojo {
 	@Parameter(required = true)
 	private List<FileSet> fileSets;
 
+	/**
+	 * Number of threads used to read and merge the execution data files in
+	 * parallel.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.threads", defaultValue = "1")
+	private int threads;
+
+	/**
+	 * If set to true the merged execution data is appended to the output
+	 * file, which is then compacted in place. Only data appended since the
+	 * last compaction is read, and only changed probes and the index of the
+	 * file are written. Otherwise the output file is overwritten.
+	 *
+	 * @since 0.8.16
+	 */
+	@Parameter(property = "jacoco.compact", defaultValue = "false")
+	private boolean compact;
+
 	@Override
 	protected void executeMojo()
 			throws MojoExecutionException, MojoFailureException {
@@ -78,14 +109,55 @@ public class MergeMojo extends AbstractJacocoMojo {
 	}
 
 	private void executeMerge() throws MojoExecutionException {
-		final ExecFileLoader loader = new ExecFileLoader();
+		final long start = System.currentTimeMillis();
+		// Data is written to a temporary file first, so the output file is
+		// not modified if a file can not be read and can itself be an input
+		final File temp = createTempFile();
+		final ExecFileMerger merger = new ExecFileMerger();
+		final ExecutorService executor = threads > 1
+				? Executors.newFixedThreadPool(threads)
+				: null;
+		if (executor != null) {
+			merger.setExecutor(executor, threads);
+		}
+		try {
+			try {
+				merge(merger, temp);
+			} finally {
+				if (executor != null) {
+					executor.shutdown();
+				}
+			}
+			save(merger, temp);
+		} finally {
+			temp.delete();
+		}
+		final long time = Math.max(1, System.currentTimeMillis() - start);
+		getLog().info(String.format(
+				"Merged %d sessions and %d classes from %d files (%d bytes) in %d ms, %d files/s, %d KB/s",
+				Integer.valueOf(merger.getSessionCount()),
+				Integer.valueOf(merger.getClassCount()),
+				Integer.valueOf(merger.getFileCount()),
+				Long.valueOf(merger.getByteCount()), Long.valueOf(time),
+				Long.valueOf(merger.getFileCount() * 1000L / time),
+				Long.valueOf(merger.getByteCount() * 1000L / 1024L / time)));
+	}
 
-		load(loader);
-		save(loader);
+	private File createTempFile() throws MojoExecutionException {
+		final File folder = destFile.getAbsoluteFile().getParentFile();
+		folder.mkdirs();
+		try {
+			return File.createTempFile(destFile.getName(), ".tmp", folder);
+		} catch (final IOException e) {
+			throw new MojoExecutionException(
+					"Unable to write merged file " + destFile.getAbsolutePath(),
+					e);
+		}
 	}
 
-	private void load(final ExecFileLoader loader)
+	private void merge(final ExecFileMerger merger, final File temp)
 			throws MojoExecutionException {
+		final List<File> inputFiles = new ArrayList<File>();
 		final FileSetManager fileSetManager = new FileSetManager();
 		for (final FileSet fileSet : fileSets) {
 			for (final String includedFilename : fileSetManager
@@ -95,33 +167,99 @@ public class MergeMojo extends AbstractJacocoMojo {
 				if (inputFile.isDirectory()) {
 					continue;
 				}
-				try {
-					getLog().info("Loading execution data file "
-							+ inputFile.getAbsolutePath());
-					loader.load(inputFile);
-				} catch (final IOException e) {
-					throw new MojoExecutionException(
-							"Unable to read " + inputFile.getAbsolutePath(), e);
-				}
+				getLog().info("Loading execution data file "
+						+ inputFile.getAbsolutePath());
+				inputFiles.add(inputFile);
+			}
+		}
+		try {
+			final OutputStream out = new BufferedOutputStream(
+					new FileOutputStream(temp));
+			try {
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						out);
+				merger.load(inputFiles, writer);
+				merger.accept(writer);
+			} finally {
+				out.close();
 			}
+		} catch (final IOException e) {
+			throw new MojoExecutionException(
+					"Unable to read execution data files", e);
 		}
 	}
 
-	private void save(final ExecFileLoader loader)
+	private void save(final ExecFileMerger merger, final File temp)
 			throws MojoExecutionException {
-		if (loader.getExecutionDataStore().getContents().isEmpty()) {
+		if (merger.getClassCount() == 0) {
 			getLog().info(MSG_SKIPPING);
 			return;
 		}
 		getLog().info("Writing merged execution data to "
 				+ destFile.getAbsolutePath());
 		try {
-			loader.save(destFile, false);
+			if (compact) {
+				append(temp);
+			} else {
+				replace(temp);
+			}
 		} catch (final IOException e) {
 			throw new MojoExecutionException(
 					"Unable to write merged file " + destFile.getAbsolutePath(),
 					e);
 		}
+		if (compact) {
+			compact();
+		}
+	}
+
+	private void append(final File temp) throws IOException {
+		final FileOutputStream fileStream = new FileOutputStream(destFile,
+				true);
+		// Avoid concurrent writes from other processes, see ExecFileLoader
+		final FileLock lock = fileStream.getChannel().lock();
+		try {
+			final InputStream in = new FileInputStream(temp);
+			try {
+				final byte[] buffer = new byte[0x2000];
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					fileStream.write(buffer, 0, len);
+				}
+			} finally {
+				in.close();
+			}
+		} finally {
+			lock.channel().close();
+		}
+	}
+
+	private void replace(final File temp) throws IOException {
+		if (!temp.renameTo(destFile)) {
+			// Some platforms do not replace existing files on rename
+			destFile.delete();
+			if (!temp.renameTo(destFile)) {
+				throw new IOException(String.format(
+						"Can't write execution data file %s.",
+						destFile.getAbsolutePath()));
+			}
+		}
+	}
+
+	private void compact() throws MojoExecutionException {
+		final ExecFileCompactor compactor = new ExecFileCompactor();
+		try {
+			compactor.compact(destFile);
+		} catch (final IOException e) {
+			throw new MojoExecutionException(
+					"Unable to compact " + destFile.getAbsolutePath(), e);
+		}
+		getLog().info(String.format(
+				"Compacted %d bytes with %d sessions, %d classes updated in place, %d classes added",
+				Long.valueOf(compactor.getAppendedBytes()),
+				Integer.valueOf(compactor.getAppendedSessionCount()),
+				Integer.valueOf(compactor.getUpdatedClassCount()),
+				Integer.valueOf(compactor.getAddedClassCount())));
 	}
 
 }
@@ -57,6 +57,7 @@ final class ReportSupport {
 	private final Log log;
 	private final ExecFileLoader loader;
 	private final List<IReportVisitor> formatters;
+	private File analysisCache;
 
 	/**
 	 * Construct a new instance with the given log output.
@@ -83,6 +84,17 @@ final class ReportSupport {
 		loader.load(execFile);
 	}
 
+	/**
+	 * Sets the directory where analysis results of class files are cached
+	 * across builds.
+	 *
+	 * @param analysisCache
+	 *            cache directory or <code>null</code> for no cache
+	 */
+	public void setAnalysisCache(final File analysisCache) {
+		this.analysisCache = analysisCache;
+	}
+
 	public void addVisitor(final IReportVisitor visitor) {
 		formatters.add(visitor);
 	}
@@ -161,6 +173,7 @@ final class ReportSupport {
 		if (classesDir.isDirectory()) {
 			final Analyzer analyzer = new Analyzer(
 					loader.getExecutionDataStore(), builder);
+			analyzer.setCacheDirectory(analysisCache);
 			final FileFilter filter = new FileFilter(includes, excludes);
 			for (final File file : filter.getFiles(classesDir)) {
 				analyzer.analyzeAll(file);
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AgentStatistics}.
+ */
+public class AgentStatisticsTest {
+
+	private AgentStatistics statistics;
+
+	@Before
+	public void setup() {
+		statistics = new AgentStatistics();
+	}
+
+	@Test
+	public void should_count_classes() {
+		statistics.classSeen(false);
+		statistics.classSeen(true);
+		statistics.classSeen(false);
+		statistics.classInstrumented(100, 150, 2500);
+		statistics.classInstrumented(200, 250, 3000);
+		statistics.classFailed();
+
+		assertEquals(3, statistics.getClassesSeen());
+		assertEquals(1, statistics.getClassesFiltered());
+		assertEquals(2, statistics.getClassesInstrumented());
+		assertEquals(1, statistics.getClassesFailed());
+		assertEquals(300, statistics.getBytesIn());
+		assertEquals(400, statistics.getBytesOut());
+		assertEquals(5500, statistics.getInstrumentationNanos());
+		final long[] histogram = statistics.getInstrumentationHistogram();
+		assertEquals(AgentStatistics.HISTOGRAM_BUCKETS, histogram.length);
+		assertEquals(2, histogram[AgentStatistics.bucket(3000)]);
+	}
+
+	@Test
+	public void should_count_dumps() {
+		statistics.dump(1000, 2000000);
+		statistics.dump(500, 1000);
+
+		assertEquals(2, statistics.getDumpCount());
+		assertEquals(1500, statistics.getDumpBytes());
+		assertEquals(2001000, statistics.getDumpNanos());
+		final long[] histogram = statistics.getDumpHistogram();
+		assertEquals(1, histogram[1]);
+		assertEquals(1, histogram[11]);
+	}
+
+	@Test
+	public void bucket_should_use_powers_of_two_in_microseconds() {
+		assertEquals(0, AgentStatistics.bucket(-1));
+		assertEquals(0, AgentStatistics.bucket(999));
+		assertEquals(1, AgentStatistics.bucket(1000));
+		assertEquals(1, AgentStatistics.bucket(1999));
+		assertEquals(2, AgentStatistics.bucket(2000));
+		assertEquals(2, AgentStatistics.bucket(3999));
+		assertEquals(3, AgentStatistics.bucket(4000));
+		assertEquals(AgentStatistics.HISTOGRAM_BUCKETS - 1,
+				AgentStatistics.bucket(Long.MAX_VALUE));
+	}
+
+}
@@ -28,8 +28,10 @@ import javax.management.ObjectName;
 
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MmapOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
+import org.jacoco.agent.rt.internal.output.TcpServerChannelOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.runtime.AgentOptions;
@@ -47,7 +49,7 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 
 	private AgentOptions options;
 
-	private Boolean writeExecutionDataReset;
+	private volatile Boolean writeExecutionDataReset;
 
 	private Exception loggedException;
 
@@ -114,10 +116,17 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertEquals(TcpServerOutput.class,
 				agent.createAgentOutput().getClass());
 
+		options.setMaxConnections(8);
+		assertEquals(TcpServerChannelOutput.class,
+				agent.createAgentOutput().getClass());
+
 		options.setOutput(OutputMode.tcpclient);
 		assertEquals(TcpClientOutput.class,
 				agent.createAgentOutput().getClass());
 
+		options.setOutput(OutputMode.mmap);
+		assertEquals(MmapOutput.class, agent.createAgentOutput().getClass());
+
 		options.setOutput(OutputMode.none);
 		assertEquals(NoneOutput.class, agent.createAgentOutput().getClass());
 	}
@@ -191,6 +200,11 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
 		assertEquals(JaCoCo.VERSION,
 				server.getAttribute(objectName, "Version"));
+		ObjectName statisticsName = new ObjectName(
+				"org.jacoco:type=Statistics");
+		agent.getExecutionData(false);
+		assertEquals(Long.valueOf(1),
+				server.getAttribute(statisticsName, "DumpCount"));
 
 		// cleanup as MBean is registered globally
 		agent.shutdown();
@@ -237,6 +251,26 @@ public class AgentTest implements IExceptionLogger, IAgentOutput {
 		assertNull(loggedException);
 	}
 
+	@Test
+	public void startup_should_start_periodic_dump_when_enabled()
+			throws Exception {
+		options.setDumpInterval(1);
+		options.setDumpReset(true);
+		options.setDumpOnExit(false);
+		Agent agent = createAgent();
+		agent.startup();
+
+		final long timeout = System.currentTimeMillis() + 10000;
+		while (writeExecutionDataReset == null
+				&& System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		agent.shutdown();
+
+		assertEquals(Boolean.TRUE, writeExecutionDataReset);
+		assertNull(loggedException);
+	}
+
 	@Test
 	public void shutdown_should_log_exception() throws Exception {
 		final Exception expected = new Exception();
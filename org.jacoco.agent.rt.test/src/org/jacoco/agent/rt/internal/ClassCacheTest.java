@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jacoco.core.JaCoCo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ClassCache}.
+ */
+public class ClassCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String location;
+
+	private byte[] a, b, c;
+
+	@Before
+	public void setup() {
+		location = new File(folder.getRoot(), "cache").toString();
+		a = createBytes('A');
+		b = createBytes('B');
+		c = createBytes('C');
+	}
+
+	@Test
+	public void should_do_nothing_without_location() throws IOException {
+		final ClassCache cache = new ClassCache(null, 1024 * 1024, "Runtime");
+		cache.put(a, instrumented(a));
+		cache.store();
+
+		assertNull(cache.get(a));
+		assertEquals(0, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void should_not_serve_added_classes_before_store()
+			throws IOException {
+		final ClassCache cache = open();
+		cache.put(a, instrumented(a));
+
+		assertNull(cache.get(a));
+		assertFalse(new File(location).exists());
+	}
+
+	@Test
+	public void should_serve_stored_classes() throws IOException {
+		final ClassCache cache = open();
+		cache.put(a, instrumented(a));
+		cache.put(b, instrumented(b));
+		cache.store();
+
+		final ClassCache reopened = open();
+		assertArrayEquals(instrumented(a), reopened.get(a));
+		assertArrayEquals(instrumented(b), reopened.get(b));
+		assertNull(reopened.get(c));
+		assertTrue(cacheFile(1).isFile());
+	}
+
+	@Test
+	public void should_write_new_generation_and_delete_previous()
+			throws IOException {
+		final ClassCache cache1 = open();
+		cache1.put(a, instrumented(a));
+		cache1.store();
+		final ClassCache reader = open();
+		final ClassCache cache2 = open();
+		cache2.put(b, instrumented(b));
+		cache2.store();
+
+		assertFalse(cacheFile(1).exists());
+		assertTrue(cacheFile(2).isFile());
+		assertArrayEquals(instrumented(a), reader.get(a));
+		assertArrayEquals(instrumented(b), open().get(b));
+	}
+
+	@Test
+	public void should_not_serve_classes_with_different_content()
+			throws IOException {
+		final ClassCache cache = open();
+		cache.put(a, instrumented(a));
+		cache.store();
+
+		final byte[] modified = a.clone();
+		modified[50] = 'X';
+		assertNull(open().get(modified));
+	}
+
+	@Test
+	public void should_keep_separate_files_per_runtime_type()
+			throws IOException {
+		final ClassCache cache = open();
+		cache.put(a, instrumented(a));
+		cache.store();
+
+		assertNull(new ClassCache(location, 1024 * 1024, "OtherRuntime")
+				.get(a));
+	}
+
+	@Test
+	public void should_merge_updates_of_other_agents() throws IOException {
+		final ClassCache cache1 = open();
+		final ClassCache cache2 = open();
+		cache1.put(a, instrumented(a));
+		cache2.put(b, instrumented(b));
+		cache2.put(a, instrumented(a));
+		cache1.store();
+		cache2.store();
+
+		final ClassCache reopened = open();
+		assertArrayEquals(instrumented(a), reopened.get(a));
+		assertArrayEquals(instrumented(b), reopened.get(b));
+	}
+
+	@Test
+	public void should_evict_least_recently_used_classes() throws Exception {
+		final long maxSize = ClassCache.HEADER_SIZE
+				+ 2 * (ClassCache.ENTRY_SIZE + instrumented(a).length);
+
+		final ClassCache cache1 = new ClassCache(location, maxSize, "Runtime");
+		cache1.put(a, instrumented(a));
+		cache1.store();
+		Thread.sleep(20);
+		final ClassCache cache2 = new ClassCache(location, maxSize, "Runtime");
+		cache2.put(b, instrumented(b));
+		cache2.store();
+		Thread.sleep(20);
+		final ClassCache cache3 = new ClassCache(location, maxSize, "Runtime");
+		assertArrayEquals(instrumented(a), cache3.get(a));
+		cache3.put(c, instrumented(c));
+		cache3.store();
+
+		final ClassCache reopened = new ClassCache(location, maxSize,
+				"Runtime");
+		assertArrayEquals(instrumented(a), reopened.get(a));
+		assertNull(reopened.get(b));
+		assertArrayEquals(instrumented(c), reopened.get(c));
+	}
+
+	@Test
+	public void should_not_keep_more_new_classes_than_max_size()
+			throws IOException {
+		final long maxSize = ClassCache.HEADER_SIZE + ClassCache.ENTRY_SIZE
+				+ instrumented(a).length;
+		final ClassCache cache = new ClassCache(location, maxSize, "Runtime");
+		cache.put(a, instrumented(a));
+		cache.put(b, instrumented(b));
+		cache.store();
+
+		final ClassCache reopened = new ClassCache(location, maxSize,
+				"Runtime");
+		assertArrayEquals(instrumented(a), reopened.get(a));
+		assertNull(reopened.get(b));
+	}
+
+	@Test
+	public void should_replace_invalid_cache_file() throws IOException {
+		cacheFile(1).getParentFile().mkdirs();
+		final OutputStream out = new FileOutputStream(cacheFile(1));
+		out.write(new byte[] { (byte) 0xC0, (byte) 0xCA, 0x10, 0x01, 0x7f,
+				0x00, 0x00, 0x00, 0x00 });
+		out.close();
+
+		final ClassCache cache = open();
+		assertNull(cache.get(a));
+		cache.put(a, instrumented(a));
+		cache.store();
+
+		assertArrayEquals(instrumented(a), open().get(a));
+	}
+
+	@Test
+	public void should_ignore_unrelated_files() throws IOException {
+		cacheFile(1).getParentFile().mkdirs();
+		new File(cacheFile(1).getParentFile(), "Runtime.x.cache")
+				.createNewFile();
+		final ClassCache cache = open();
+		cache.put(a, instrumented(a));
+		cache.store();
+
+		assertArrayEquals(instrumented(a), open().get(a));
+	}
+
+	private File cacheFile(final int generation) {
+		return new File(location, JaCoCo.VERSION + "/" + JaCoCo.COMMITID
+				+ "/Runtime." + generation + ".cache");
+	}
+
+	private ClassCache open() {
+		return new ClassCache(location, 1024 * 1024, "Runtime");
+	}
+
+	private static byte[] createBytes(final char c) {
+		final byte[] bytes = new byte[100];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (c + i);
+		}
+		return bytes;
+	}
+
+	private static byte[] instrumented(final byte[] original) {
+		final byte[] bytes = new byte[original.length + 20];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (original[i % original.length] ^ 0x55);
+		}
+		return bytes;
+	}
+
+}
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -19,6 +20,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.instrument.IllegalClassFormatException;
@@ -33,7 +35,9 @@ import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.test.validation.JavaVersion;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.MethodVisitor;
 
 /**
@@ -41,6 +45,9 @@ import org.objectweb.asm.MethodVisitor;
  */
 public class CoverageTransformerTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private ExceptionRecorder recorder;
 
 	private AgentOptions options;
@@ -51,8 +58,11 @@ public class CoverageTransformerTest {
 
 	private StubRuntime runtime;
 
+	private AgentStatistics statistics;
+
 	@Before
 	public void setup() {
+		statistics = new AgentStatistics();
 		recorder = new ExceptionRecorder();
 		options = new AgentOptions();
 		classLoader = getClass().getClassLoader();
@@ -245,6 +255,41 @@ public class CoverageTransformerTest {
 				protectionDomain, new byte[0]));
 	}
 
+	@Test
+	public void transform_should_record_statistics() throws Exception {
+		CoverageTransformer t = createTransformer();
+		final byte[] original = getClassData(JaCoCo.class);
+
+		final byte[] instrumented = t.transform(classLoader,
+				"org/jacoco/core/JaCoCo", null, protectionDomain, original);
+		t.transform(classLoader, "org/jacoco/core/Foo", null, null,
+				new byte[0]);
+
+		assertEquals(2, statistics.getClassesSeen());
+		assertEquals(1, statistics.getClassesFiltered());
+		assertEquals(1, statistics.getClassesInstrumented());
+		assertEquals(0, statistics.getClassesFailed());
+		assertEquals(original.length, statistics.getBytesIn());
+		assertEquals(instrumented.length, statistics.getBytesOut());
+		assertTrue(statistics.getInstrumentationNanos() > 0);
+	}
+
+	@Test
+	public void transform_should_use_class_cache() throws Exception {
+		options.setCacheDir(folder.getRoot().getAbsolutePath());
+		final byte[] original = getClassData(JaCoCo.class);
+		final CoverageTransformer t1 = createTransformer();
+		final byte[] instrumented = t1.transform(classLoader,
+				"org/jacoco/core/JaCoCo", null, protectionDomain, original);
+		t1.shutdown();
+
+		final CoverageTransformer t2 = createTransformer();
+		assertArrayEquals(instrumented, t2.transform(classLoader,
+				"org/jacoco/core/JaCoCo", null, protectionDomain, original));
+		assertTrue(new File(folder.getRoot(), JaCoCo.VERSION + "/"
+				+ JaCoCo.COMMITID + "/StubRuntime.1.cache").isFile());
+	}
+
 	@Test
 	public void testTransformFailure() {
 		CoverageTransformer t = createTransformer();
@@ -258,6 +303,7 @@ public class CoverageTransformerTest {
 					"org.jacoco.Sample", JaCoCo.VERSION, JaCoCo.COMMITID_SHORT),
 					e.getMessage());
 		}
+		assertEquals(1, statistics.getClassesFailed());
 		recorder.assertException(IllegalClassFormatException.class,
 				String.format("Error while instrumenting %s with JaCoCo %s/%s.",
 						"org.jacoco.Sample", JaCoCo.VERSION,
@@ -276,7 +322,7 @@ public class CoverageTransformerTest {
 	}
 
 	private CoverageTransformer createTransformer() {
-		return new CoverageTransformer(runtime, options, recorder);
+		return new CoverageTransformer(runtime, options, recorder, statistics);
 	}
 
 	private static byte[] getClassData(Class<?> clazz) throws IOException {
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PeriodicDump}.
+ */
+public class PeriodicDumpTest implements IAgentOutput {
+
+	private ExceptionRecorder logger;
+
+	private List<Boolean> dumps;
+
+	private CountDownLatch latch;
+
+	private IOException failure;
+
+	@Before
+	public void setup() {
+		logger = new ExceptionRecorder();
+		dumps = new ArrayList<Boolean>();
+		latch = new CountDownLatch(3);
+	}
+
+	@Test
+	public void should_dump_periodically() throws Exception {
+		final PeriodicDump dump = new PeriodicDump(this, 10, 0, false, logger);
+		dump.start();
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		dump.stop();
+
+		final int count = getDumps().size();
+		Thread.sleep(50);
+		assertEquals(count, getDumps().size());
+		assertEquals(Boolean.FALSE, getDumps().get(0));
+		logger.assertNoException();
+	}
+
+	@Test
+	public void should_pass_reset_flag() throws Exception {
+		final PeriodicDump dump = new PeriodicDump(this, 10, 5, true, logger);
+		dump.start();
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		dump.stop();
+
+		for (final Boolean reset : getDumps()) {
+			assertEquals(Boolean.TRUE, reset);
+		}
+	}
+
+	@Test
+	public void should_log_exceptions_and_continue() throws Exception {
+		failure = new IOException("expected");
+		final PeriodicDump dump = new PeriodicDump(this, 10, 0, false,
+				new IExceptionLogger() {
+					public void logException(final Exception ex) {
+						assertEquals("expected", ex.getMessage());
+					}
+				});
+		dump.start();
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		dump.stop();
+	}
+
+	@Test
+	public void stop_should_not_wait_for_next_interval() throws Exception {
+		final PeriodicDump dump = new PeriodicDump(this, 3600000, 3600000,
+				false, logger);
+		dump.start();
+
+		final long start = System.currentTimeMillis();
+		dump.stop();
+
+		assertTrue(System.currentTimeMillis() - start < 10000);
+		assertEquals(0, getDumps().size());
+	}
+
+	private synchronized List<Boolean> getDumps() {
+		return new ArrayList<Boolean>(dumps);
+	}
+
+	// === IAgentOutput ===
+
+	public void startup(final AgentOptions options, final RuntimeData data) {
+	}
+
+	public void shutdown() {
+	}
+
+	public void writeExecutionData(final boolean reset) throws IOException {
+		synchronized (this) {
+			dumps.add(Boolean.valueOf(reset));
+		}
+		latch.countDown();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+}
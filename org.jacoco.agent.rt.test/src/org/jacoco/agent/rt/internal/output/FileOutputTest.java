@@ -17,15 +17,19 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 
+import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 import org.jacoco.core.test.validation.JavaVersion;
+import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.AssumptionViolatedException;
 import org.junit.Rule;
 import org.junit.Test;
@@ -69,6 +73,30 @@ public class FileOutputTest {
 				destFile.length() > 0);
 	}
 
+	@Test
+	public void writeExecutionData_should_write_compressed_execdata()
+			throws Exception {
+		File destFile = folder.newFile("jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setCompress(true);
+		RuntimeData data = new RuntimeData();
+		data.getExecutionData(Long.valueOf(42), "Foo", 1).getProbes()[0] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.load(destFile);
+		assertEquals("Foo", loader.getExecutionDataStore().get(42).getName());
+		InputStream in = new FileInputStream(destFile);
+		in.skip(ExecutionDataWriter.getFileHeader().length);
+		assertEquals(ExecutionDataWriter.BLOCK_COMPRESSED, (byte) in.read());
+		in.close();
+	}
+
 	@Test
 	public void startup_should_throw_IOException_when_execfile_cannot_be_created()
 			throws Exception {
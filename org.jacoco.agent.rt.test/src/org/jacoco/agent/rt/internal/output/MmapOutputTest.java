@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.MappedExecutionDataReader;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MmapOutput}.
+ */
+public class MmapOutputTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destFile;
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private boolean[] probes;
+
+	@Before
+	public void setup() throws Exception {
+		destFile = new File(folder.getRoot(), "sub/jacoco.mmap");
+		options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		data = new RuntimeData();
+		data.setSessionId("stubid");
+		probes = data.getExecutionData(Long.valueOf(42), "Foo", 2)
+				.getProbes();
+	}
+
+	@Test
+	public void startup_should_write_session() throws Exception {
+		probes[0] = true;
+		final MmapOutput controller = new MmapOutput();
+		controller.startup(options, data);
+
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(sessions, store);
+		assertEquals("stubid", sessions.getInfos().get(0).getId());
+		assertTrue(store.get(42).getProbes()[0]);
+
+		controller.shutdown();
+	}
+
+	@Test
+	public void writeExecutionData_should_update_probes() throws Exception {
+		final MmapOutput controller = new MmapOutput();
+		controller.startup(options, data);
+		probes[1] = true;
+		controller.writeExecutionData(false);
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(new SessionInfoStore(), store);
+		assertFalse(store.get(42).getProbes()[0]);
+		assertTrue(store.get(42).getProbes()[1]);
+
+		controller.shutdown();
+	}
+
+	@Test
+	public void writeExecutionData_should_reset_probes() throws Exception {
+		probes[0] = true;
+		final MmapOutput controller = new MmapOutput();
+		controller.startup(options, data);
+		controller.writeExecutionData(true);
+
+		assertFalse(probes[0]);
+		final ExecutionDataStore before = new ExecutionDataStore();
+		read(new SessionInfoStore(), before);
+		assertTrue(before.get(42).getProbes()[0]);
+
+		controller.writeExecutionData(false);
+		final ExecutionDataStore after = new ExecutionDataStore();
+		read(new SessionInfoStore(), after);
+		assertFalse(after.get(42).getProbes()[0]);
+
+		controller.shutdown();
+	}
+
+	@Test
+	public void file_should_be_readable_after_shutdown() throws Exception {
+		final MmapOutput controller = new MmapOutput();
+		controller.startup(options, data);
+		probes[1] = true;
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(new SessionInfoStore(), store);
+		assertTrue(store.get(42).getProbes()[1]);
+	}
+
+	@Test
+	public void startup_should_fail_when_file_is_used_by_another_agent()
+			throws Exception {
+		final MmapOutput first = new MmapOutput();
+		first.startup(options, data);
+
+		try {
+			new MmapOutput().startup(options, data);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(String.format("File %s is used by another agent.",
+					destFile.getAbsoluteFile()), e.getMessage());
+		}
+
+		first.shutdown();
+	}
+
+	private void read(final SessionInfoStore sessions,
+			final ExecutionDataStore store) throws IOException {
+		final RandomAccessFile file = new RandomAccessFile(destFile, "r");
+		try {
+			final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+					file.getChannel());
+			reader.setSessionInfoVisitor(sessions);
+			reader.setExecutionDataVisitor(store);
+			reader.read();
+		} finally {
+			file.close();
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.agent.rt.internal.AgentStatistics;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.DeltaTracker;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SnapshotBuffers}.
+ */
+public class SnapshotBuffersTest {
+
+	private RuntimeData data;
+
+	private boolean[] probes;
+
+	private AgentStatistics statistics;
+
+	@Before
+	public void setup() {
+		statistics = new AgentStatistics();
+		data = new RuntimeData();
+		data.setSessionId("stubid");
+		probes = data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes();
+		probes[0] = true;
+	}
+
+	@Test
+	public void should_write_self_contained_snapshots() throws IOException {
+		final SnapshotBuffers buffers = new SnapshotBuffers(true, statistics);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		buffers.write(data, false, null, out);
+		buffers.write(data, true, null, out);
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(out.toByteArray()));
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(sessions);
+		reader.read();
+		assertEquals("Foo", store.get(0x12345678).getName());
+		assertEquals(2, sessions.getInfos().size());
+		assertFalse(probes[0]);
+	}
+
+	@Test
+	public void should_record_dumps() throws IOException {
+		final SnapshotBuffers buffers = new SnapshotBuffers(false, statistics);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		buffers.write(data, false, null, out);
+		buffers.write(data, false, null, out);
+
+		assertEquals(2, statistics.getDumpCount());
+		assertEquals(out.size(), statistics.getDumpBytes());
+	}
+
+	@Test
+	public void should_allocate_new_buffers_without_reuse()
+			throws IOException {
+		final SnapshotBuffers buffers = new SnapshotBuffers(false, statistics,
+				false);
+
+		// Would block with reused buffers as none is released:
+		final ByteArrayOutputStream s1 = buffers.encode(data, false, null);
+		final ByteArrayOutputStream s2 = buffers.encode(data, false, null);
+		final ByteArrayOutputStream s3 = buffers.encode(data, false, null);
+
+		assertNotSame(s1, s2);
+		assertNotSame(s2, s3);
+		assertEquals(s1.size(), s3.size());
+		assertEquals(3, statistics.getDumpCount());
+	}
+
+	@Test
+	public void should_write_delta() throws IOException {
+		final SnapshotBuffers buffers = new SnapshotBuffers(false, statistics);
+		final DeltaTracker delta = new DeltaTracker();
+		buffers.write(data, false, delta, new ByteArrayOutputStream());
+
+		buffers.write(data, false, delta, new ByteArrayOutputStream());
+
+		assertEquals(0, delta.getClassCount());
+	}
+
+	@Test
+	public void should_collect_while_other_snapshot_is_written()
+			throws Exception {
+		final SnapshotBuffers buffers = new SnapshotBuffers(false, statistics);
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Thread slow = new Thread() {
+			@Override
+			public void run() {
+				try {
+					buffers.write(data, false, null, new OutputStream() {
+						@Override
+						public void write(final int b) {
+						}
+
+						@Override
+						public void write(final byte[] b, final int off,
+								final int len) {
+							writing.countDown();
+							try {
+								release.await();
+							} catch (final InterruptedException e) {
+								throw new RuntimeException(e);
+							}
+						}
+					});
+				} catch (final IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		slow.start();
+		assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+		// Neither the runtime data nor the second buffer is blocked
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		buffers.write(data, true, null, out);
+		assertTrue(out.size() > 0);
+		assertFalse(probes[0]);
+
+		release.countDown();
+		slow.join();
+	}
+
+}
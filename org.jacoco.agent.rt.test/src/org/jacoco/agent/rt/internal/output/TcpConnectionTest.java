@@ -169,6 +169,49 @@ public class TcpConnectionTest extends ExecutorTestBase {
 		f.get();
 	}
 
+	@Test
+	public void testRemoteDeltaDump() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0] = true;
+		data.setSessionId("stubid");
+
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(mockConnection.getSocketA(),
+				data);
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+
+		assertBlocks(f);
+
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				mockConnection.getSocketB().getInputStream());
+		remoteReader.setSessionInfoVisitor(new SessionInfoStore());
+
+		remoteWriter.visitDeltaDumpCommand(false);
+		ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		assertTrue(remoteReader.read());
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+
+		// Unchanged classes are not sent again:
+		remoteWriter.visitDeltaDumpCommand(false);
+		execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		assertTrue(remoteReader.read());
+		assertEquals(0, execStore.size());
+
+		con.close();
+		f.get();
+	}
+
 	@Test
 	public void testLocalDump() throws Exception {
 		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.agent.rt.internal.AgentStatistics;
+import org.jacoco.agent.rt.internal.ExceptionRecorder;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RemoteControlReader;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TcpServerChannelOutput}.
+ */
+public class TcpServerChannelOutputTest {
+
+	private ExceptionRecorder logger;
+
+	private AgentOptions options;
+
+	private ServerSocketChannel serverChannel;
+
+	private TcpServerChannelOutput controller;
+
+	private RuntimeData data;
+
+	private final List<Socket> sockets = new ArrayList<Socket>();
+
+	@Before
+	public void setup() throws Exception {
+		options = new AgentOptions();
+		options.setMaxConnections(2);
+		logger = new ExceptionRecorder();
+		controller = createController(Integer.MAX_VALUE, 2000);
+		data = new RuntimeData();
+		data.setSessionId("stubid");
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0] = true;
+	}
+
+	private TcpServerChannelOutput createController(final int maxPendingBytes,
+			final long flushTimeout) {
+		return new TcpServerChannelOutput(logger, new AgentStatistics(),
+				maxPendingBytes, flushTimeout) {
+			@Override
+			protected ServerSocketChannel createServerChannel(
+					final AgentOptions options) throws IOException {
+				serverChannel = ServerSocketChannel.open();
+				serverChannel.socket().bind(new InetSocketAddress(
+						InetAddress.getByName(null), 0),
+						options.getMaxConnections());
+				return serverChannel;
+			}
+		};
+	}
+
+	@After
+	public void teardown() throws Exception {
+		for (final Socket socket : sockets) {
+			socket.close();
+		}
+	}
+
+	@Test
+	public void testShutdownWithoutConnection() throws Exception {
+		controller.startup(options, data);
+		controller.shutdown();
+		assertFalse(serverChannel.isOpen());
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testShutdownWithConnection() throws Exception {
+		controller.startup(options, data);
+		final Client client = new Client();
+		client.command(false, false);
+		controller.shutdown();
+		assertFalse(client.reader.read());
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testDumpToMultipleClients() throws Exception {
+		controller.startup(options, data);
+		final Client c1 = new Client();
+		final Client c2 = new Client();
+
+		c1.writer.visitDumpCommand(true, false);
+		c2.writer.visitDumpCommand(true, false);
+
+		c1.assertDump();
+		c2.assertDump();
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testDumpWithCompression() throws Exception {
+		options.setCompress(true);
+		controller.startup(options, data);
+		final Client client = new Client();
+
+		// Every snapshot must be readable on its own
+		client.writer.visitDumpCommand(true, false);
+		client.assertDump();
+		client.writer.visitDumpCommand(true, false);
+		client.assertDump();
+
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		controller.startup(options, data);
+		final Client client = new Client();
+
+		client.command(false, true);
+
+		assertFalse(data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0]);
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testDumpWithReset() throws Exception {
+		controller.startup(options, data);
+		final Client client = new Client();
+
+		client.writer.visitDumpCommand(true, true);
+		client.assertDump();
+
+		assertFalse(data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0]);
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testDeltaDump() throws Exception {
+		controller.startup(options, data);
+		final Client c1 = new Client();
+		final Client c2 = new Client();
+
+		c1.writer.visitDeltaDumpCommand(false);
+		c1.assertDump();
+
+		// Every client receives its own delta
+		c2.writer.visitDeltaDumpCommand(false);
+		c2.assertDump();
+		c1.writer.visitDeltaDumpCommand(false);
+		assertEquals(0, c1.readDump().size());
+
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testDeltaDumpWithReset() throws Exception {
+		controller.startup(options, data);
+		final Client client = new Client();
+
+		client.writer.visitDeltaDumpCommand(true);
+		client.assertDump();
+
+		assertFalse(data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42)
+				.getProbes()[0]);
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testWriteExecutionData() throws Exception {
+		controller.startup(options, data);
+		final Client c1 = new Client();
+		final Client c2 = new Client();
+		// First process a NOP command to ensure the connections are accepted:
+		c1.command(false, false);
+		c2.command(false, false);
+
+		controller.writeExecutionData(false);
+
+		c1.assertDump();
+		c2.assertDump();
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testWriteExecutionDataOnShutdown() throws Exception {
+		controller.startup(options, data);
+		final Client client = new Client();
+		client.command(false, false);
+
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		client.assertDump();
+		assertFalse(client.reader.read());
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testDisconnectClientWhichDoesNotRead() throws Exception {
+		controller = createController(1024, 2000);
+		addLargeExecutionData();
+		controller.startup(options, data);
+		final Client client = new Client();
+		client.command(false, false);
+
+		// Exceeds the socket buffers, as the client does not read
+		for (int i = 0; i < 20; i++) {
+			controller.writeExecutionData(false);
+		}
+		waitForClose(client.socket);
+
+		logger.assertException(IOException.class,
+				"Client does not read pending execution data.");
+		controller.shutdown();
+	}
+
+	@Test(timeout = 10000)
+	public void testShutdownWithClientWhichDoesNotRead() throws Exception {
+		controller = createController(Integer.MAX_VALUE, 100);
+		addLargeExecutionData();
+		controller.startup(options, data);
+		final Client client = new Client();
+		client.command(false, false);
+
+		for (int i = 0; i < 20; i++) {
+			controller.writeExecutionData(false);
+		}
+		controller.shutdown();
+
+		assertFalse(serverChannel.isOpen());
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testMaxConnections() throws Exception {
+		controller.startup(options, data);
+		final Client c1 = new Client();
+		final Client c2 = new Client();
+		c1.command(false, false);
+		c2.command(false, false);
+
+		// The third connection is kept in the backlog
+		final Client c3 = new Client();
+		c3.writer.visitDumpCommand(false, false);
+		c1.socket.close();
+
+		assertTrue(c3.reader.read());
+		controller.shutdown();
+		logger.assertNoException();
+	}
+
+	@Test
+	public void testInvalidHeader() throws Exception {
+		controller.startup(options, data);
+		final Socket socket = connect();
+		final OutputStream out = socket.getOutputStream();
+		out.write(0xca);
+		out.write(0xfe);
+		out.write(0xba);
+		out.write(0xbe);
+		waitForClose(socket);
+		logger.assertException(IOException.class,
+				"Invalid execution data file.");
+		controller.shutdown();
+	}
+
+	@Test
+	public void testUnknownBlock() throws Exception {
+		controller.startup(options, data);
+		final Socket socket = connect();
+		final OutputStream out = socket.getOutputStream();
+		new ExecutionDataWriter(out);
+		out.write(0x11);
+		waitForClose(socket);
+		logger.assertException(IOException.class, "Unknown block type 11.");
+		controller.shutdown();
+	}
+
+	@Test
+	public void testGetInetAddressLoopback() throws UnknownHostException {
+		final InetAddress addr = controller.getInetAddress(null);
+		assertTrue(addr.isLoopbackAddress());
+	}
+
+	@Test
+	public void testGetInetAddressAny() throws UnknownHostException {
+		final InetAddress addr = controller.getInetAddress("*");
+		assertNull(addr);
+	}
+
+	/**
+	 * Adds execution data with a size of several megabytes per dump.
+	 */
+	private void addLargeExecutionData() {
+		for (int i = 0; i < 2000; i++) {
+			data.getExecutionData(Long.valueOf(i), "Large" + i, 10000)
+					.getProbes()[0] = true;
+		}
+	}
+
+	private Socket connect() throws IOException {
+		final Socket socket = new Socket(InetAddress.getByName(null),
+				serverChannel.socket().getLocalPort());
+		sockets.add(socket);
+		return socket;
+	}
+
+	private void waitForClose(final Socket socket) throws IOException {
+		while (socket.getInputStream().read() != -1) {
+		}
+	}
+
+	private class Client {
+
+		final Socket socket;
+
+		final RemoteControlWriter writer;
+
+		final RemoteControlReader reader;
+
+		Client() throws IOException {
+			socket = connect();
+			writer = new RemoteControlWriter(socket.getOutputStream());
+			reader = new RemoteControlReader(socket.getInputStream());
+		}
+
+		void command(final boolean dump, final boolean reset)
+				throws IOException {
+			writer.visitDumpCommand(dump, reset);
+			assertTrue(reader.read());
+		}
+
+		void assertDump() throws IOException {
+			final ExecutionDataStore execStore = readDump();
+			assertEquals("Foo", execStore.get(0x12345678).getName());
+		}
+
+		ExecutionDataStore readDump() throws IOException {
+			final ExecutionDataStore execStore = new ExecutionDataStore();
+			reader.setExecutionDataVisitor(execStore);
+			final SessionInfoStore infoStore = new SessionInfoStore();
+			reader.setSessionInfoVisitor(infoStore);
+			assertTrue(reader.read());
+
+			assertEquals(1, infoStore.getInfos().size());
+			assertEquals("stubid", infoStore.getInfos().get(0).getId());
+			return execStore;
+		}
+
+	}
+
+}
@@ -20,8 +20,10 @@ import java.util.concurrent.Callable;
 import org.jacoco.agent.rt.IAgent;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MmapOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
+import org.jacoco.agent.rt.internal.output.TcpServerChannelOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.data.ExecutionDataWriter;
@@ -85,10 +87,14 @@ public class Agent implements IAgent {
 
 	private final RuntimeData data;
 
+	private final AgentStatistics statistics;
+
 	private IAgentOutput output;
 
 	private Callable<Void> jmxRegistration;
 
+	private PeriodicDump periodicDump;
+
 	/**
 	 * Creates a new agent with the given agent options.
 	 *
@@ -101,6 +107,7 @@ public class Agent implements IAgent {
 		this.options = options;
 		this.logger = logger;
 		this.data = new RuntimeData();
+		this.statistics = new AgentStatistics();
 	}
 
 	/**
@@ -112,6 +119,15 @@ public class Agent implements IAgent {
 		return data;
 	}
 
+	/**
+	 * Returns the statistics recorded by this agent.
+	 *
+	 * @return statistics of this agent instance
+	 */
+	public AgentStatistics getStatistics() {
+		return statistics;
+	}
+
 	/**
 	 * Initializes this agent.
 	 *
@@ -127,8 +143,15 @@ public class Agent implements IAgent {
 			data.setSessionId(sessionId);
 			output = createAgentOutput();
 			output.startup(options, data);
+			if (options.getDumpInterval() > 0) {
+				periodicDump = new PeriodicDump(output,
+						options.getDumpInterval() * 1000L,
+						options.getDumpJitter() * 1000L,
+						options.getDumpReset(), logger);
+				periodicDump.start();
+			}
 			if (options.getJmx()) {
-				jmxRegistration = new JmxRegistration(this);
+				jmxRegistration = new JmxRegistration(this, statistics);
 			}
 		} catch (final Exception e) {
 			logger.logException(e);
@@ -141,6 +164,9 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
+			if (periodicDump != null) {
+				periodicDump.stop();
+			}
 			if (options.getDumpOnExit()) {
 				output.writeExecutionData(false);
 			}
@@ -162,11 +188,16 @@ public class Agent implements IAgent {
 		final OutputMode controllerType = options.getOutput();
 		switch (controllerType) {
 		case file:
-			return new FileOutput();
+			return new FileOutput(statistics);
 		case tcpserver:
-			return new TcpServerOutput(logger);
+			if (options.getMaxConnections() > 1) {
+				return new TcpServerChannelOutput(logger, statistics);
+			}
+			return new TcpServerOutput(logger, statistics);
 		case tcpclient:
-			return new TcpClientOutput(logger);
+			return new TcpClientOutput(logger, statistics);
+		case mmap:
+			return new MmapOutput(statistics);
 		case none:
 			return new NoneOutput();
 		default:
@@ -205,6 +236,7 @@ public class Agent implements IAgent {
 	}
 
 	public byte[] getExecutionData(final boolean reset) {
+		final long start = System.nanoTime();
 		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 		try {
 			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
@@ -213,6 +245,7 @@ public class Agent implements IAgent {
 			// Must not happen with ByteArrayOutputStream
 			throw new AssertionError(e);
 		}
+		statistics.dump(buffer.size(), System.nanoTime() - start);
 		return buffer.toByteArray();
 	}
 
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe counters and histograms about the work of the agent. Recording
+ * an event only updates a few atomic counters, it never blocks.
+ */
+public class AgentStatistics implements IAgentStatistics {
+
+	/** Number of buckets of every histogram */
+	public static final int HISTOGRAM_BUCKETS = 32;
+
+	private final AtomicLong classesSeen = new AtomicLong();
+
+	private final AtomicLong classesFiltered = new AtomicLong();
+
+	private final AtomicLong classesInstrumented = new AtomicLong();
+
+	private final AtomicLong classesFailed = new AtomicLong();
+
+	private final AtomicLong bytesIn = new AtomicLong();
+
+	private final AtomicLong bytesOut = new AtomicLong();
+
+	private final AtomicLong instrumentationNanos = new AtomicLong();
+
+	private final AtomicLongArray instrumentationHistogram = new AtomicLongArray(
+			HISTOGRAM_BUCKETS);
+
+	private final AtomicLong dumpCount = new AtomicLong();
+
+	private final AtomicLong dumpBytes = new AtomicLong();
+
+	private final AtomicLong dumpNanos = new AtomicLong();
+
+	private final AtomicLongArray dumpHistogram = new AtomicLongArray(
+			HISTOGRAM_BUCKETS);
+
+	/**
+	 * Records a class which has been passed to the agent.
+	 *
+	 * @param filtered
+	 *            <code>true</code> if the class is excluded from
+	 *            instrumentation
+	 */
+	public void classSeen(final boolean filtered) {
+		classesSeen.incrementAndGet();
+		if (filtered) {
+			classesFiltered.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Records a successfully instrumented class.
+	 *
+	 * @param in
+	 *            size of the original class file in bytes
+	 * @param out
+	 *            size of the instrumented class file in bytes
+	 * @param nanos
+	 *            time spent for instrumentation in nanoseconds
+	 */
+	public void classInstrumented(final int in, final int out,
+			final long nanos) {
+		classesInstrumented.incrementAndGet();
+		bytesIn.addAndGet(in);
+		bytesOut.addAndGet(out);
+		instrumentationNanos.addAndGet(nanos);
+		instrumentationHistogram.incrementAndGet(bucket(nanos));
+	}
+
+	/**
+	 * Records a class for which instrumentation failed.
+	 */
+	public void classFailed() {
+		classesFailed.incrementAndGet();
+	}
+
+	/**
+	 * Records a dump of execution data.
+	 *
+	 * @param bytes
+	 *            size of the encoded execution data in bytes
+	 * @param nanos
+	 *            duration of the dump in nanoseconds
+	 */
+	public void dump(final long bytes, final long nanos) {
+		dumpCount.incrementAndGet();
+		dumpBytes.addAndGet(bytes);
+		dumpNanos.addAndGet(nanos);
+		dumpHistogram.incrementAndGet(bucket(nanos));
+	}
+
+	/**
+	 * Returns the histogram bucket for the given duration.
+	 *
+	 * @param nanos
+	 *            duration in nanoseconds
+	 * @return bucket index
+	 */
+	static int bucket(final long nanos) {
+		final long micros = Math.max(nanos, 0) / 1000;
+		return Math.min(64 - Long.numberOfLeadingZeros(micros),
+				HISTOGRAM_BUCKETS - 1);
+	}
+
+	private static long[] toArray(final AtomicLongArray histogram) {
+		final long[] result = new long[histogram.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = histogram.get(i);
+		}
+		return result;
+	}
+
+	// === IAgentStatistics ===
+
+	public long getClassesSeen() {
+		return classesSeen.get();
+	}
+
+	public long getClassesFiltered() {
+		return classesFiltered.get();
+	}
+
+	public long getClassesInstrumented() {
+		return classesInstrumented.get();
+	}
+
+	public long getClassesFailed() {
+		return classesFailed.get();
+	}
+
+	public long getBytesIn() {
+		return bytesIn.get();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.get();
+	}
+
+	public long getInstrumentationNanos() {
+		return instrumentationNanos.get();
+	}
+
+	public long[] getInstrumentationHistogram() {
+		return toArray(instrumentationHistogram);
+	}
+
+	public long getDumpCount() {
+		return dumpCount.get();
+	}
+
+	public long getDumpBytes() {
+		return dumpBytes.get();
+	}
+
+	public long getDumpNanos() {
+		return dumpNanos.get();
+	}
+
+	public long[] getDumpHistogram() {
+		return toArray(dumpHistogram);
+	}
+
+}
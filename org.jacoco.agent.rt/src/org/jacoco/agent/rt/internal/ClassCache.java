@@ -0,0 +1,488 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Internal persistent cache for instrumented class files. All agents using the
+ * same cache directory share the cache. Class files are identified by their
+ * class id, their length and a CRC32 checksum of the original class file.
+ * There is a separate cache file for every JaCoCo build and runtime type, as
+ * the instrumented class files depend on both.
+ *
+ * On startup the latest generation of the cache file is memory-mapped
+ * read-only, hits are served from the mapped memory. Newly instrumented class
+ * files are kept in memory and merged into the cache by {@link #store()}. The
+ * least recently used class files are removed when the cache file would
+ * exceed its maximum size. Cache files are never modified or replaced, every
+ * update is written to a new generation while holding a lock. Previous
+ * generations are deleted once they are no longer mapped, so agents reading
+ * them are not affected. Files which can not be deleted yet, as they are
+ * still mapped on some platforms, are deleted with a later update.
+ *
+ * The file has the following layout (big endian):
+ *
+ * <pre>
+ * char   magic number 0xC0CA
+ * char   format version
+ * int    number of entries
+ * entry  index entries sorted by key:
+ *          long   class id
+ *          int    length of the original class file
+ *          int    CRC32 of the original class file
+ *          int    offset of the instrumented class file
+ *          int    length of the instrumented class file
+ *          long   time of last use in milliseconds
+ * byte[] instrumented class files
+ * </pre>
+ */
+class ClassCache {
+
+	static final char MAGIC_NUMBER = 0xC0CA;
+
+	static final char FORMAT_VERSION = 0x1001;
+
+	static final int HEADER_SIZE = 8;
+
+	static final int ENTRY_SIZE = 32;
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final File dir;
+
+	private final String name;
+
+	private final File lockFile;
+
+	private final long maxSize;
+
+	private final ByteBuffer contents;
+
+	private final int count;
+
+	private final Map<Key, byte[]> added = new HashMap<Key, byte[]>();
+
+	private final Set<Key> used = new HashSet<Key>();
+
+	private long addedSize;
+
+	/**
+	 * Opens the cache in the given location.
+	 *
+	 * @param location
+	 *            path to the cache directory. <code>null</code> if no cache
+	 *            should be used
+	 * @param maxSize
+	 *            maximum size of the cache file in bytes
+	 * @param runtimeType
+	 *            identifier of the runtime which generates the code of the
+	 *            instrumented class files
+	 */
+	ClassCache(final String location, final long maxSize,
+			final String runtimeType) {
+		if (location == null) {
+			this.dir = null;
+			this.name = null;
+			this.lockFile = null;
+			this.contents = EMPTY;
+		} else {
+			this.dir = new File(location,
+					JaCoCo.VERSION + "/" + JaCoCo.COMMITID);
+			this.name = runtimeType;
+			this.lockFile = new File(dir, name + ".lock");
+			this.contents = map(getFile(getLatestGeneration()));
+		}
+		this.maxSize = Math.min(maxSize, Integer.MAX_VALUE);
+		this.count = contents.capacity() == 0 ? 0 : contents.getInt(4);
+	}
+
+	/**
+	 * Returns the cached instrumented version of the given class file.
+	 *
+	 * @param original
+	 *            original class file
+	 * @return instrumented class file or <code>null</code> if the class file
+	 *         is not in the cache
+	 */
+	byte[] get(final byte[] original) {
+		if (count == 0) {
+			return null;
+		}
+		final Key key = new Key(original);
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int pos = HEADER_SIZE + mid * ENTRY_SIZE;
+			final int c = key.compareTo(contents.getLong(pos),
+					contents.getInt(pos + 8), contents.getInt(pos + 12));
+			if (c > 0) {
+				low = mid + 1;
+			} else if (c < 0) {
+				high = mid - 1;
+			} else {
+				final byte[] instrumented = new byte[contents.getInt(pos + 20)];
+				final ByteBuffer buffer = contents.duplicate();
+				((Buffer) buffer).position(contents.getInt(pos + 16));
+				buffer.get(instrumented);
+				synchronized (this) {
+					used.add(key);
+				}
+				return instrumented;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a newly instrumented class file to the cache. The class file is
+	 * written to the cache file with the next call of {@link #store()}.
+	 *
+	 * @param original
+	 *            original class file
+	 * @param instrumented
+	 *            instrumented class file
+	 */
+	void put(final byte[] original, final byte[] instrumented) {
+		if (dir == null) {
+			return;
+		}
+		final Key key = new Key(original);
+		synchronized (this) {
+			if (addedSize + ENTRY_SIZE + instrumented.length > maxSize
+					|| added.containsKey(key)) {
+				return;
+			}
+			added.put(key, instrumented);
+			addedSize += ENTRY_SIZE + instrumented.length;
+		}
+	}
+
+	/**
+	 * Merges all added class files and the usage of cached class files into
+	 * the cache file. Other agents may have updated the cache file in the
+	 * meantime, their updates are preserved.
+	 *
+	 * @throws IOException
+	 *             in case of problems while writing the cache file
+	 */
+	void store() throws IOException {
+		final Map<Key, byte[]> newEntries;
+		final Set<Key> usedEntries;
+		synchronized (this) {
+			if (added.isEmpty() && used.isEmpty()) {
+				return;
+			}
+			newEntries = new HashMap<Key, byte[]>(added);
+			usedEntries = new HashSet<Key>(used);
+			added.clear();
+			used.clear();
+			addedSize = 0;
+		}
+		final long now = System.currentTimeMillis();
+		dir.mkdirs();
+		final RandomAccessFile lockRaf = new RandomAccessFile(lockFile, "rw");
+		try {
+			final FileLock lock = lockRaf.getChannel().lock();
+			try {
+				final long generation = getLatestGeneration();
+				final List<Entry> entries = read(map(getFile(generation)));
+				for (final Entry e : entries) {
+					if (usedEntries.contains(e.key)) {
+						e.lastUsed = now;
+					}
+					newEntries.remove(e.key);
+				}
+				for (final Map.Entry<Key, byte[]> e : newEntries.entrySet()) {
+					entries.add(new Entry(e.getKey(), now,
+							ByteBuffer.wrap(e.getValue())));
+				}
+				write(evict(entries), getFile(generation + 1));
+				deletePreviousGenerations(generation + 1);
+			} finally {
+				lock.release();
+			}
+		} finally {
+			lockRaf.close();
+		}
+	}
+
+	private List<Entry> evict(final List<Entry> entries) {
+		Collections.sort(entries, new Comparator<Entry>() {
+			public int compare(final Entry e1, final Entry e2) {
+				return e1.lastUsed > e2.lastUsed ? -1
+						: (e1.lastUsed < e2.lastUsed ? 1 : 0);
+			}
+		});
+		final List<Entry> retained = new ArrayList<Entry>();
+		long size = HEADER_SIZE;
+		for (final Entry e : entries) {
+			size += ENTRY_SIZE + e.data.remaining();
+			if (size > maxSize) {
+				break;
+			}
+			retained.add(e);
+		}
+		Collections.sort(retained, new Comparator<Entry>() {
+			public int compare(final Entry e1, final Entry e2) {
+				return e1.key.compareTo(e2.key.id, e2.key.length,
+						e2.key.checksum);
+			}
+		});
+		return retained;
+	}
+
+	private File getFile(final long generation) {
+		return new File(dir, String.format("%s.%s.cache", name,
+				Long.valueOf(generation)));
+	}
+
+	/**
+	 * @return latest generation of the cache file or 0 if there is none
+	 */
+	private long getLatestGeneration() {
+		long latest = 0;
+		for (final long generation : getGenerations()) {
+			latest = Math.max(latest, generation);
+		}
+		return latest;
+	}
+
+	private List<Long> getGenerations() {
+		final List<Long> generations = new ArrayList<Long>();
+		final String[] files = dir.list();
+		if (files == null) {
+			return generations;
+		}
+		final String prefix = name + ".";
+		for (final String f : files) {
+			if (f.startsWith(prefix) && f.endsWith(".cache")) {
+				try {
+					generations.add(Long.valueOf(f.substring(prefix.length(),
+							f.length() - ".cache".length())));
+				} catch (final NumberFormatException e) {
+					// not a cache file of this runtime type
+				}
+			}
+		}
+		return generations;
+	}
+
+	/**
+	 * Deletes all generations before the given one. Deletion fails for files
+	 * which are still mapped on some platforms, they are deleted later.
+	 */
+	private void deletePreviousGenerations(final long current) {
+		for (final long generation : getGenerations()) {
+			if (generation < current) {
+				getFile(generation).delete();
+			}
+		}
+	}
+
+	private static void write(final List<Entry> entries, final File file)
+			throws IOException {
+		final File tmp = File.createTempFile(file.getName(), ".tmp",
+				file.getParentFile());
+		try {
+			final RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+			try {
+				final FileChannel channel = out.getChannel();
+				final ByteBuffer index = ByteBuffer
+						.allocate(HEADER_SIZE + entries.size() * ENTRY_SIZE);
+				index.putChar(MAGIC_NUMBER);
+				index.putChar(FORMAT_VERSION);
+				index.putInt(entries.size());
+				int offset = index.capacity();
+				for (final Entry e : entries) {
+					index.putLong(e.key.id);
+					index.putInt(e.key.length);
+					index.putInt(e.key.checksum);
+					index.putInt(offset);
+					index.putInt(e.data.remaining());
+					index.putLong(e.lastUsed);
+					offset += e.data.remaining();
+				}
+				((Buffer) index).flip();
+				writeFully(channel, index);
+				for (final Entry e : entries) {
+					writeFully(channel, e.data);
+				}
+			} finally {
+				out.close();
+			}
+			if (!tmp.renameTo(file)) {
+				throw new IOException(
+						String.format("Can't create cache file %s.", file));
+			}
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	private static void writeFully(final FileChannel channel,
+			final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Maps the given cache file. Missing or invalid files result in an empty
+	 * buffer, as the cache file is simply replaced with the next update.
+	 */
+	private static ByteBuffer map(final File file) {
+		try {
+			final RandomAccessFile in = new RandomAccessFile(file, "r");
+			try {
+				final long size = in.length();
+				if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+					return EMPTY;
+				}
+				final ByteBuffer buffer = in.getChannel()
+						.map(FileChannel.MapMode.READ_ONLY, 0, size);
+				return isValid(buffer) ? buffer : EMPTY;
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			return EMPTY;
+		}
+	}
+
+	private static boolean isValid(final ByteBuffer buffer) {
+		if (buffer.getChar(0) != MAGIC_NUMBER
+				|| buffer.getChar(2) != FORMAT_VERSION) {
+			return false;
+		}
+		final int count = buffer.getInt(4);
+		final long indexEnd = HEADER_SIZE + (long) count * ENTRY_SIZE;
+		if (count < 0 || indexEnd > buffer.capacity()) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			final int pos = HEADER_SIZE + i * ENTRY_SIZE;
+			final int offset = buffer.getInt(pos + 16);
+			final int length = buffer.getInt(pos + 20);
+			if (offset < indexEnd || length < 0
+					|| (long) offset + length > buffer.capacity()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static List<Entry> read(final ByteBuffer buffer) {
+		final List<Entry> entries = new ArrayList<Entry>();
+		final int count = buffer.capacity() == 0 ? 0 : buffer.getInt(4);
+		for (int i = 0; i < count; i++) {
+			final int pos = HEADER_SIZE + i * ENTRY_SIZE;
+			final ByteBuffer data = buffer.duplicate();
+			final int offset = buffer.getInt(pos + 16);
+			((Buffer) data).position(offset);
+			((Buffer) data).limit(offset + buffer.getInt(pos + 20));
+			entries.add(new Entry(new Key(buffer.getLong(pos),
+					buffer.getInt(pos + 8), buffer.getInt(pos + 12)),
+					buffer.getLong(pos + 24), data));
+		}
+		return entries;
+	}
+
+	private static class Key {
+
+		final long id;
+
+		final int length;
+
+		final int checksum;
+
+		Key(final byte[] original) {
+			this.id = CRC64.classId(original);
+			this.length = original.length;
+			final CRC32 crc = new CRC32();
+			crc.update(original);
+			this.checksum = (int) crc.getValue();
+		}
+
+		Key(final long id, final int length, final int checksum) {
+			this.id = id;
+			this.length = length;
+			this.checksum = checksum;
+		}
+
+		int compareTo(final long otherId, final int otherLength,
+				final int otherChecksum) {
+			if (id != otherId) {
+				return id < otherId ? -1 : 1;
+			}
+			if (length != otherLength) {
+				return length < otherLength ? -1 : 1;
+			}
+			if (checksum != otherChecksum) {
+				return checksum < otherChecksum ? -1 : 1;
+			}
+			return 0;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return compareTo(other.id, other.length, other.checksum) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (id ^ (id >>> 32)) ^ checksum;
+		}
+
+	}
+
+	private static class Entry {
+
+		final Key key;
+
+		final ByteBuffer data;
+
+		long lastUsed;
+
+		Entry(final Key key, final long lastUsed, final ByteBuffer data) {
+			this.key = key;
+			this.lastUsed = lastUsed;
+			this.data = data;
+		}
+
+	}
+
+}
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.reflect.InvocationTargetException;
@@ -52,10 +53,14 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 	private final ClassFileDumper classFileDumper;
 
+	private final ClassCache classCache;
+
 	private final boolean inclBootstrapClasses;
 
 	private final boolean inclNoLocationClasses;
 
+	private final AgentStatistics statistics;
+
 	/**
 	 * New transformer with the given delegates.
 	 *
@@ -68,13 +73,36 @@ public class CoverageTransformer implements ClassFileTransformer {
 	 */
 	public CoverageTransformer(final IRuntime runtime,
 			final AgentOptions options, final IExceptionLogger logger) {
+		this(runtime, options, logger, new AgentStatistics());
+	}
+
+	/**
+	 * New transformer with the given delegates.
+	 *
+	 * @param runtime
+	 *            coverage runtime
+	 * @param options
+	 *            configuration options for the generator
+	 * @param logger
+	 *            logger for exceptions during instrumentation
+	 * @param statistics
+	 *            statistics to record instrumented classes to
+	 */
+	public CoverageTransformer(final IRuntime runtime,
+			final AgentOptions options, final IExceptionLogger logger,
+			final AgentStatistics statistics) {
 		this.instrumenter = new Instrumenter(runtime);
 		this.logger = logger;
+		this.statistics = statistics;
 		// Class names will be reported in VM notation:
 		includes = new WildcardMatcher(toVMName(options.getIncludes()));
 		excludes = new WildcardMatcher(toVMName(options.getExcludes()));
 		exclClassloader = new WildcardMatcher(options.getExclClassloader());
 		classFileDumper = new ClassFileDumper(options.getClassDumpDir());
+		// The cached class files contain code generated by the runtime:
+		classCache = new ClassCache(options.getCacheDir(),
+				options.getCacheSize() * 1024L * 1024L,
+				runtime.getClass().getSimpleName());
 		inclBootstrapClasses = options.getInclBootstrapClasses();
 		inclNoLocationClasses = options.getInclNoLocationClasses();
 	}
@@ -89,14 +117,26 @@ public class CoverageTransformer implements ClassFileTransformer {
 			return null;
 		}
 
-		if (!filter(loader, classname, protectionDomain)) {
+		final boolean filtered = !filter(loader, classname, protectionDomain);
+		statistics.classSeen(filtered);
+		if (filtered) {
 			return null;
 		}
 
 		try {
 			classFileDumper.dump(classname, classfileBuffer);
-			return instrumenter.instrument(classfileBuffer, classname);
+			final long start = System.nanoTime();
+			byte[] instrumented = classCache.get(classfileBuffer);
+			if (instrumented == null) {
+				instrumented = instrumenter.instrument(classfileBuffer,
+						classname);
+				classCache.put(classfileBuffer, instrumented);
+			}
+			statistics.classInstrumented(classfileBuffer.length,
+					instrumented.length, System.nanoTime() - start);
+			return instrumented;
 		} catch (final Exception ex) {
+			statistics.classFailed();
 			final IllegalClassFormatException wrapper = new IllegalClassFormatException(
 					ex.getMessage());
 			wrapper.initCause(ex);
@@ -106,6 +146,17 @@ public class CoverageTransformer implements ClassFileTransformer {
 		}
 	}
 
+	/**
+	 * Writes newly instrumented classes to the class file cache, if configured.
+	 */
+	public void shutdown() {
+		try {
+			classCache.store();
+		} catch (final IOException e) {
+			logger.logException(e);
+		}
+	}
+
 	/**
 	 * Checks whether this class should be instrumented.
 	 *
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+/**
+ * MBean interface for the statistics of the agent. All values are totals since
+ * the start of the agent. Histograms contain the number of events per duration
+ * bucket: Bucket 0 counts durations below 1 microsecond, bucket <i>i</i>
+ * counts durations below 2<sup><i>i</i></sup> microseconds but not below
+ * 2<sup><i>i</i>-1</sup> microseconds. The last bucket also counts all longer
+ * durations.
+ */
+public interface IAgentStatistics {
+
+	/**
+	 * @return number of classes passed to the agent for instrumentation
+	 */
+	long getClassesSeen();
+
+	/**
+	 * @return number of classes excluded from instrumentation
+	 */
+	long getClassesFiltered();
+
+	/**
+	 * @return number of successfully instrumented classes
+	 */
+	long getClassesInstrumented();
+
+	/**
+	 * @return number of classes for which instrumentation failed
+	 */
+	long getClassesFailed();
+
+	/**
+	 * @return total size of the original class files of instrumented classes
+	 *         in bytes
+	 */
+	long getBytesIn();
+
+	/**
+	 * @return total size of the instrumented class files in bytes
+	 */
+	long getBytesOut();
+
+	/**
+	 * @return total time spent for instrumentation in nanoseconds
+	 */
+	long getInstrumentationNanos();
+
+	/**
+	 * @return histogram of the instrumentation time per class
+	 */
+	long[] getInstrumentationHistogram();
+
+	/**
+	 * @return number of execution data dumps
+	 */
+	long getDumpCount();
+
+	/**
+	 * @return total size of the encoded execution data of all dumps in bytes
+	 */
+	long getDumpBytes();
+
+	/**
+	 * @return total time spent for dumps in nanoseconds
+	 */
+	long getDumpNanos();
+
+	/**
+	 * @return histogram of the latency of dumps
+	 */
+	long[] getDumpHistogram();
+
+}
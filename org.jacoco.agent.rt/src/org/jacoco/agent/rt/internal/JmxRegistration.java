@@ -29,19 +29,28 @@ class JmxRegistration implements Callable<Void> {
 
 	private static final String JMX_NAME = "org.jacoco:type=Runtime";
 
+	private static final String JMX_STATISTICS_NAME = "org.jacoco:type=Statistics";
+
 	private final MBeanServer server;
 	private final ObjectName name;
+	private final ObjectName statisticsName;
 
-	JmxRegistration(final IAgent agent) throws Exception {
+	JmxRegistration(final IAgent agent, final IAgentStatistics statistics)
+			throws Exception {
 		server = ManagementFactory.getPlatformMBeanServer();
 		name = new ObjectName(JMX_NAME);
+		statisticsName = new ObjectName(JMX_STATISTICS_NAME);
 		server.registerMBean(new StandardMBean(agent, IAgent.class), name);
+		server.registerMBean(
+				new StandardMBean(statistics, IAgentStatistics.class),
+				statisticsName);
 	}
 
 	/**
 	 * De-register the agent again.
 	 */
 	public Void call() throws Exception {
+		server.unregisterMBean(statisticsName);
 		server.unregisterMBean(name);
 		return null;
 	}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.jacoco.agent.rt.internal.output.IAgentOutput;
+
+/**
+ * Background thread which periodically writes execution data through the agent
+ * output, so that the coverage of long running processes is not lost when the
+ * process is killed without running shutdown hooks. The dumps happen on a
+ * daemon thread of its own, application threads are never blocked by them.
+ */
+class PeriodicDump implements Runnable {
+
+	private final IAgentOutput output;
+
+	private final long interval;
+
+	private final long jitter;
+
+	private final boolean reset;
+
+	private final IExceptionLogger logger;
+
+	private final Random random = new Random();
+
+	private Thread worker;
+
+	private boolean stopped;
+
+	/**
+	 * Creates a new periodic dump which is not started yet.
+	 *
+	 * @param output
+	 *            output to write execution data to
+	 * @param interval
+	 *            interval between two dumps in milliseconds
+	 * @param jitter
+	 *            maximum random delay added to every interval in milliseconds
+	 * @param reset
+	 *            if <code>true</code> execution data is cleared after every
+	 *            dump
+	 * @param logger
+	 *            logger for exceptions while writing execution data
+	 */
+	PeriodicDump(final IAgentOutput output, final long interval,
+			final long jitter, final boolean reset,
+			final IExceptionLogger logger) {
+		this.output = output;
+		this.interval = interval;
+		this.jitter = jitter;
+		this.reset = reset;
+		this.logger = logger;
+	}
+
+	/**
+	 * Starts the background thread.
+	 */
+	void start() {
+		worker = new Thread(this);
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stops the background thread. A dump which is currently written is
+	 * completed before this method returns.
+	 *
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting
+	 */
+	void stop() throws InterruptedException {
+		synchronized (this) {
+			stopped = true;
+			notifyAll();
+		}
+		worker.join();
+	}
+
+	public void run() {
+		while (awaitNextDump()) {
+			try {
+				output.writeExecutionData(reset);
+			} catch (final IOException e) {
+				logger.logException(e);
+			}
+		}
+	}
+
+	private synchronized boolean awaitNextDump() {
+		long delay = nextDelay();
+		final long end = System.currentTimeMillis() + delay;
+		while (!stopped && delay > 0) {
+			try {
+				wait(delay);
+			} catch (final InterruptedException e) {
+				return false;
+			}
+			delay = end - System.currentTimeMillis();
+		}
+		return !stopped;
+	}
+
+	private long nextDelay() {
+		if (jitter == 0) {
+			return interval;
+		}
+		return interval + (long) (random.nextDouble() * jitter);
+	}
+
+}
@@ -48,8 +48,18 @@ public final class PreMain {
 
 		final IRuntime runtime = createRuntime(inst);
 		runtime.startup(agent.getData());
-		inst.addTransformer(new CoverageTransformer(runtime, agentOptions,
-				IExceptionLogger.SYSTEM_ERR));
+		final CoverageTransformer transformer = new CoverageTransformer(runtime,
+				agentOptions, IExceptionLogger.SYSTEM_ERR,
+				agent.getStatistics());
+		inst.addTransformer(transformer);
+		if (agentOptions.getCacheDir() != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				@Override
+				public void run() {
+					transformer.shutdown();
+				}
+			});
+		}
 	}
 
 	private static IRuntime createRuntime(final Instrumentation inst)
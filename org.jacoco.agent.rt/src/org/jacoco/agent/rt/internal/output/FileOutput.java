@@ -13,6 +13,7 @@
 package org.jacoco.agent.rt.internal.output;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -22,7 +23,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 
-import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.agent.rt.internal.AgentStatistics;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 
@@ -46,11 +47,33 @@ public class FileOutput implements IAgentOutput {
 
 	private boolean append;
 
+	private SnapshotBuffers buffers;
+
+	private final AgentStatistics statistics;
+
+	/**
+	 * New controller instance.
+	 */
+	public FileOutput() {
+		this(new AgentStatistics());
+	}
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param statistics
+	 *            statistics to record dumps to
+	 */
+	public FileOutput(final AgentStatistics statistics) {
+		this.statistics = statistics;
+	}
+
 	public final void startup(final AgentOptions options,
 			final RuntimeData data) throws IOException {
 		this.data = data;
 		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
 		this.append = options.getAppend();
+		this.buffers = new SnapshotBuffers(options.getCompress(), statistics);
 		final File folder = destFile.getParentFile();
 		if (folder != null) {
 			folder.mkdirs();
@@ -60,12 +83,18 @@ public class FileOutput implements IAgentOutput {
 	}
 
 	public void writeExecutionData(final boolean reset) throws IOException {
-		final OutputStream output = openFile();
+		// Encode first, so the file is only locked while writing:
+		final ByteArrayOutputStream snapshot = buffers.encode(data, reset,
+				null);
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
-			data.collect(writer, writer, reset);
+			final OutputStream output = openFile();
+			try {
+				snapshot.writeTo(output);
+			} finally {
+				output.close();
+			}
 		} finally {
-			output.close();
+			buffers.release(snapshot);
 		}
 	}
 
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+import org.jacoco.agent.rt.internal.AgentStatistics;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Local only agent output that keeps the execution data in a memory-mapped
+ * file. Other processes can read the file at any time without interaction with
+ * the agent. On every dump only the probes of the classes are copied into the
+ * mapped memory, no encoding or I/O happens. This controller uses the following
+ * agent options:
+ * <ul>
+ * <li>destfile</li>
+ * </ul>
+ */
+public class MmapOutput implements IAgentOutput {
+
+	/**
+	 * The lock is placed behind the content of the file, so that readers are
+	 * not affected by it on platforms with mandatory locks.
+	 */
+	private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+	private RuntimeData data;
+
+	private File destFile;
+
+	private RandomAccessFile file;
+
+	private FileLock lock;
+
+	private MappedExecutionDataWriter writer;
+
+	private final AgentStatistics statistics;
+
+	/**
+	 * New controller instance.
+	 */
+	public MmapOutput() {
+		this(new AgentStatistics());
+	}
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param statistics
+	 *            statistics to record dumps to
+	 */
+	public MmapOutput(final AgentStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	public final void startup(final AgentOptions options,
+			final RuntimeData data) throws IOException {
+		this.data = data;
+		this.destFile = new File(options.getDestfile()).getAbsoluteFile();
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		file = new RandomAccessFile(destFile, "rw");
+		try {
+			lock = tryLock();
+			if (lock == null) {
+				throw new IOException(String.format(
+						"File %s is used by another agent.", destFile));
+			}
+			writer = new MappedExecutionDataWriter(file.getChannel());
+		} catch (final IOException e) {
+			file.close();
+			throw e;
+		}
+		writeExecutionData(false);
+	}
+
+	private FileLock tryLock() throws IOException {
+		try {
+			return file.getChannel().tryLock(LOCK_POSITION, 1, false);
+		} catch (final OverlappingFileLockException e) {
+			// Another JaCoCo runtime in the same VM
+			return null;
+		}
+	}
+
+	public synchronized void writeExecutionData(final boolean reset)
+			throws IOException {
+		final long start = System.nanoTime();
+		data.collect(writer, writer, reset);
+		writer.flush();
+		// No execution data is encoded for the memory-mapped file
+		statistics.dump(0, System.nanoTime() - start);
+	}
+
+	public synchronized void shutdown() throws IOException {
+		lock.release();
+		file.close();
+	}
+
+}
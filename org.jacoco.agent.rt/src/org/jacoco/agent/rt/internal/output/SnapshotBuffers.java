@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.agent.rt.internal.AgentStatistics;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.runtime.DeltaTracker;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Buffers to encode execution data in memory before it is written to a file or
+ * socket. The runtime data is only locked while the snapshot is encoded, not
+ * while it is written. By default two reusable buffers are kept: While one
+ * snapshot is written to its destination the next one can already be encoded
+ * into the other buffer, for example when a periodic dump and a dump requested
+ * via JMX overlap. The buffers keep their capacity, so repeated dumps do not
+ * allocate new memory. Destinations with rare dumps can instead use a new
+ * buffer for every snapshot, so no memory is retained between dumps.
+ */
+class SnapshotBuffers {
+
+	private final List<ByteArrayOutputStream> free = new ArrayList<ByteArrayOutputStream>();
+
+	private final boolean reuse;
+
+	private final boolean compress;
+
+	private final AgentStatistics statistics;
+
+	/**
+	 * Creates two new reusable buffers.
+	 *
+	 * @param compress
+	 *            <code>true</code> if execution data should be written in
+	 *            compressed blocks
+	 * @param statistics
+	 *            statistics to record dumps to
+	 */
+	SnapshotBuffers(final boolean compress, final AgentStatistics statistics) {
+		this(compress, statistics, true);
+	}
+
+	/**
+	 * Creates new buffers.
+	 *
+	 * @param compress
+	 *            <code>true</code> if execution data should be written in
+	 *            compressed blocks
+	 * @param statistics
+	 *            statistics to record dumps to
+	 * @param reuse
+	 *            if <code>true</code> two buffers are kept for reuse,
+	 *            otherwise a new buffer is allocated for every snapshot
+	 */
+	SnapshotBuffers(final boolean compress, final AgentStatistics statistics,
+			final boolean reuse) {
+		this.compress = compress;
+		this.statistics = statistics;
+		this.reuse = reuse;
+		if (reuse) {
+			free.add(new ByteArrayOutputStream());
+			free.add(new ByteArrayOutputStream());
+		}
+	}
+
+	/**
+	 * Collects the current execution data and writes it to the given stream.
+	 * The snapshot starts with a header, so it is self-contained even with
+	 * compressed blocks.
+	 *
+	 * @param data
+	 *            runtime data to collect
+	 * @param reset
+	 *            if <code>true</code> execution data is cleared afterwards
+	 * @param delta
+	 *            state of previous delta dumps or <code>null</code> for a full
+	 *            snapshot
+	 * @param out
+	 *            stream to write the snapshot to
+	 * @throws IOException
+	 *             in case writing fails
+	 */
+	void write(final RuntimeData data, final boolean reset,
+			final DeltaTracker delta, final OutputStream out)
+			throws IOException {
+		final ByteArrayOutputStream snapshot = encode(data, reset, delta);
+		try {
+			snapshot.writeTo(out);
+		} finally {
+			release(snapshot);
+		}
+	}
+
+	/**
+	 * Collects the current execution data into a buffer. The buffer has to be
+	 * passed to {@link #release(ByteArrayOutputStream)} once the snapshot has
+	 * been written. As the snapshot is written by the caller, only the time
+	 * for collecting and encoding is recorded as dump latency.
+	 *
+	 * @param data
+	 *            runtime data to collect
+	 * @param reset
+	 *            if <code>true</code> execution data is cleared afterwards
+	 * @param delta
+	 *            state of previous delta dumps or <code>null</code> for a full
+	 *            snapshot
+	 * @return buffer containing the snapshot
+	 * @throws IOException
+	 *             in case encoding fails
+	 */
+	ByteArrayOutputStream encode(final RuntimeData data, final boolean reset,
+			final DeltaTracker delta) throws IOException {
+		final long start = System.nanoTime();
+		final ByteArrayOutputStream buffer = acquire();
+		boolean encoded = false;
+		try {
+			buffer.reset();
+			final ExecutionDataWriter writer = new ExecutionDataWriter(buffer,
+					compress);
+			data.collect(writer, writer, reset, delta);
+			writer.flush();
+			encoded = true;
+		} finally {
+			if (!encoded) {
+				release(buffer);
+			}
+		}
+		statistics.dump(buffer.size(), System.nanoTime() - start);
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer obtained from
+	 * {@link #encode(RuntimeData, boolean, DeltaTracker)} for reuse.
+	 *
+	 * @param buffer
+	 *            buffer which is not used any more
+	 */
+	synchronized void release(final ByteArrayOutputStream buffer) {
+		if (reuse) {
+			free.add(buffer);
+			notifyAll();
+		}
+	}
+
+	private synchronized ByteArrayOutputStream acquire()
+			throws InterruptedIOException {
+		if (!reuse) {
+			return new ByteArrayOutputStream();
+		}
+		while (free.isEmpty()) {
+			try {
+				wait();
+			} catch (final InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+		return free.remove(free.size() - 1);
+	}
+
+}
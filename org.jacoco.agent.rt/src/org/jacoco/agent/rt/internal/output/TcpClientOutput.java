@@ -15,6 +15,7 @@ package org.jacoco.agent.rt.internal.output;
 import java.io.IOException;
 import java.net.Socket;
 
+import org.jacoco.agent.rt.internal.AgentStatistics;
 import org.jacoco.agent.rt.internal.IExceptionLogger;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
@@ -31,6 +32,8 @@ public class TcpClientOutput implements IAgentOutput {
 
 	private final IExceptionLogger logger;
 
+	private final AgentStatistics statistics;
+
 	private TcpConnection connection;
 
 	private Thread worker;
@@ -42,13 +45,28 @@ public class TcpClientOutput implements IAgentOutput {
 	 *            logger to use in case of exceptions is spawned threads
 	 */
 	public TcpClientOutput(final IExceptionLogger logger) {
+		this(logger, new AgentStatistics());
+	}
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 * @param statistics
+	 *            statistics to record dumps to
+	 */
+	public TcpClientOutput(final IExceptionLogger logger,
+			final AgentStatistics statistics) {
 		this.logger = logger;
+		this.statistics = statistics;
 	}
 
 	public void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
 		final Socket socket = createSocket(options);
-		connection = new TcpConnection(socket, data);
+		connection = new TcpConnection(socket, data, options.getCompress(),
+				statistics);
 		connection.init();
 		worker = new Thread(new Runnable() {
 			public void run() {
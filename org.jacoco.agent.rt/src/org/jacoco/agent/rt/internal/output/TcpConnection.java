@@ -14,9 +14,12 @@ package org.jacoco.agent.rt.internal.output;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
 
+import org.jacoco.agent.rt.internal.AgentStatistics;
+import org.jacoco.core.runtime.DeltaTracker;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
@@ -31,21 +34,43 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	private final Socket socket;
 
+	private OutputStream output;
+
 	private RemoteControlWriter writer;
 
 	private RemoteControlReader reader;
 
+	private final boolean compressed;
+
+	private final SnapshotBuffers buffers;
+
 	private boolean initialized;
 
+	private DeltaTracker delta;
+
 	public TcpConnection(final Socket socket, final RuntimeData data) {
+		this(socket, data, false);
+	}
+
+	public TcpConnection(final Socket socket, final RuntimeData data,
+			final boolean compressed) {
+		this(socket, data, compressed, new AgentStatistics());
+	}
+
+	public TcpConnection(final Socket socket, final RuntimeData data,
+			final boolean compressed, final AgentStatistics statistics) {
 		this.socket = socket;
 		this.data = data;
+		this.compressed = compressed;
+		// Dumps are serialized by this connection and usually rare, so no
+		// buffer is kept between dumps:
+		this.buffers = new SnapshotBuffers(compressed, statistics, false);
 		this.initialized = false;
 	}
 
 	public void init() throws IOException {
-		this.writer = new RemoteControlWriter(
-				new BufferedOutputStream(socket.getOutputStream()));
+		this.output = new BufferedOutputStream(socket.getOutputStream());
+		this.writer = new RemoteControlWriter(output, compressed);
 		this.reader = new RemoteControlReader(
 				// BufferedInputStream will not improve performance here
 				// while will add memory overhead because commands are short
@@ -102,10 +127,10 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	// === IRemoteCommandVisitor ===
 
-	public void visitDumpCommand(final boolean dump, final boolean reset)
-			throws IOException {
+	public synchronized void visitDumpCommand(final boolean dump,
+			final boolean reset) throws IOException {
 		if (dump) {
-			data.collect(writer, writer, reset);
+			buffers.write(data, reset, null, output);
 		} else {
 			if (reset) {
 				data.reset();
@@ -115,4 +140,14 @@ class TcpConnection implements IRemoteCommandVisitor {
 		writer.flush();
 	}
 
+	public synchronized void visitDeltaDumpCommand(final boolean reset)
+			throws IOException {
+		if (delta == null) {
+			delta = new DeltaTracker();
+		}
+		buffers.write(data, reset, delta, output);
+		writer.sendCmdOk();
+		writer.flush();
+	}
+
 }
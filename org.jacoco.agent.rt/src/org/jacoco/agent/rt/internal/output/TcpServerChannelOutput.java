@@ -0,0 +1,614 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.jacoco.agent.rt.internal.AgentStatistics;
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IncompatibleExecDataVersionException;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.DeltaTracker;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Output that opens a non-blocking TCP server socket which serves multiple
+ * clients concurrently from a single thread. Dump commands received from
+ * different clients at the same time are answered with the same snapshot,
+ * which is collected and encoded only once. Delta dumps are encoded for every
+ * client separately. Clients which do not read their data in time are
+ * disconnected, so pending data can not exhaust the memory of the application.
+ * On shutdown pending data is sent until a deadline, so clients can not block
+ * the termination of the JVM. This controller uses the following
+ * agent options:
+ * <ul>
+ * <li>address</li>
+ * <li>port</li>
+ * <li>maxconnections</li>
+ * </ul>
+ */
+public class TcpServerChannelOutput implements IAgentOutput {
+
+	private static final byte[] HEADER = ExecutionDataWriter.getFileHeader();
+
+	private static final byte[] CMDOK = { RemoteControlWriter.BLOCK_CMDOK };
+
+	private static final int DUMP = 1;
+
+	private static final int RESET = 2;
+
+	private static final int DELTA = 4;
+
+	/** Default limit for the pending output of a single client */
+	private static final int MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+	/** Default time to send pending output on shutdown */
+	private static final long FLUSH_TIMEOUT_MS = 2000;
+
+	/** Time to wait while a client does not accept output on shutdown */
+	private static final long FLUSH_RETRY_WAIT_TIME_MS = 10;
+
+	private final IExceptionLogger logger;
+
+	private final AgentStatistics statistics;
+
+	private final int maxPendingBytes;
+
+	private final long flushTimeout;
+
+	/** Dumps requested by the agent, guarded by itself */
+	private final List<Boolean> requests = new ArrayList<Boolean>();
+
+	/** Connected clients, only accessed by the worker thread */
+	private final List<Client> clients = new ArrayList<Client>();
+
+	private RuntimeData data;
+
+	private boolean compress;
+
+	private int maxConnections;
+
+	private ServerSocketChannel serverChannel;
+
+	private Selector selector;
+
+	private SelectionKey serverKey;
+
+	private volatile boolean running;
+
+	private Thread worker;
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 */
+	public TcpServerChannelOutput(final IExceptionLogger logger) {
+		this(logger, new AgentStatistics());
+	}
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 * @param statistics
+	 *            statistics to record dumps to
+	 */
+	public TcpServerChannelOutput(final IExceptionLogger logger,
+			final AgentStatistics statistics) {
+		this(logger, statistics, MAX_PENDING_BYTES, FLUSH_TIMEOUT_MS);
+	}
+
+	/**
+	 * New controller instance with custom limits.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 * @param statistics
+	 *            statistics to record dumps to
+	 * @param maxPendingBytes
+	 *            maximum number of bytes queued for a client which does not
+	 *            read, before the client is disconnected
+	 * @param flushTimeout
+	 *            time in milliseconds to send pending output on shutdown
+	 */
+	TcpServerChannelOutput(final IExceptionLogger logger,
+			final AgentStatistics statistics, final int maxPendingBytes,
+			final long flushTimeout) {
+		this.logger = logger;
+		this.statistics = statistics;
+		this.maxPendingBytes = maxPendingBytes;
+		this.flushTimeout = flushTimeout;
+	}
+
+	public void startup(final AgentOptions options, final RuntimeData data)
+			throws IOException {
+		this.data = data;
+		this.compress = options.getCompress();
+		this.maxConnections = options.getMaxConnections();
+		serverChannel = createServerChannel(options);
+		serverChannel.configureBlocking(false);
+		selector = Selector.open();
+		serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		running = true;
+		worker = new Thread(new Runnable() {
+			public void run() {
+				try {
+					serve();
+				} catch (final IOException e) {
+					logger.logException(e);
+				}
+			}
+		});
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stops the server. Data which has already been requested, for example by
+	 * a final {@link #writeExecutionData(boolean)} call, is still sent to the
+	 * connected clients before their connections are closed. Data which the
+	 * clients do not accept within the flush timeout is dropped.
+	 */
+	public void shutdown() throws Exception {
+		running = false;
+		selector.wakeup();
+		worker.join();
+	}
+
+	/**
+	 * Requests a dump to all currently connected clients. The data is sent
+	 * asynchronously by the worker thread.
+	 */
+	public void writeExecutionData(final boolean reset) {
+		synchronized (requests) {
+			requests.add(Boolean.valueOf(reset));
+		}
+		selector.wakeup();
+	}
+
+	/**
+	 * Open a non-blocking server channel based on the given configuration.
+	 * Connections exceeding <code>maxconnections</code> are kept in the
+	 * backlog.
+	 *
+	 * @param options
+	 *            address, port and connection configuration
+	 * @return opened server channel
+	 * @throws IOException
+	 */
+	protected ServerSocketChannel createServerChannel(
+			final AgentOptions options) throws IOException {
+		final InetAddress inetAddr = getInetAddress(options.getAddress());
+		final ServerSocketChannel channel = ServerSocketChannel.open();
+		channel.socket().bind(
+				new InetSocketAddress(inetAddr, options.getPort()),
+				options.getMaxConnections());
+		return channel;
+	}
+
+	/**
+	 * Returns the {@link InetAddress} object to open the server socket on.
+	 *
+	 * @param address
+	 *            address specified as a string
+	 * @return address to open the server socket
+	 * @throws UnknownHostException
+	 */
+	protected InetAddress getInetAddress(final String address)
+			throws UnknownHostException {
+		if ("*".equals(address)) {
+			return null;
+		} else {
+			return InetAddress.getByName(address);
+		}
+	}
+
+	private void serve() throws IOException {
+		try {
+			while (running) {
+				selector.select();
+				final Iterator<SelectionKey> i = selector.selectedKeys()
+						.iterator();
+				while (i.hasNext()) {
+					final SelectionKey key = i.next();
+					i.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key == serverKey) {
+						accept();
+					} else {
+						final Client client = (Client) key.attachment();
+						try {
+							if (key.isReadable() && !client.read()) {
+								close(client);
+								continue;
+							}
+							if (key.isWritable()) {
+								client.write();
+							}
+						} catch (final IOException e) {
+							logger.logException(e);
+							close(client);
+						}
+					}
+				}
+				processRequests();
+				processCommands();
+			}
+		} finally {
+			processRequests();
+			selector.close();
+			serverChannel.close();
+			final long deadline = System.currentTimeMillis() + flushTimeout;
+			for (final Client client : clients) {
+				try {
+					client.flushAndClose(deadline);
+				} catch (final IOException e) {
+					logger.logException(e);
+				}
+			}
+			clients.clear();
+		}
+	}
+
+	private void accept() throws IOException {
+		final SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		final Client client = new Client(channel, maxPendingBytes);
+		client.key = channel.register(selector, SelectionKey.OP_READ, client);
+		clients.add(client);
+		if (clients.size() >= maxConnections) {
+			// Further connections wait in the backlog
+			serverKey.interestOps(0);
+		}
+		try {
+			client.send(HEADER);
+		} catch (final IOException e) {
+			logger.logException(e);
+			close(client);
+		}
+	}
+
+	private void close(final Client client) {
+		clients.remove(client);
+		client.key.cancel();
+		try {
+			client.channel.close();
+		} catch (final IOException e) {
+			logger.logException(e);
+		}
+		if (serverKey.isValid()) {
+			serverKey.interestOps(SelectionKey.OP_ACCEPT);
+		}
+	}
+
+	/**
+	 * Sends the dumps requested by the agent to all connected clients.
+	 */
+	private void processRequests() throws IOException {
+		final List<Boolean> pending;
+		synchronized (requests) {
+			if (requests.isEmpty()) {
+				return;
+			}
+			pending = new ArrayList<Boolean>(requests);
+			requests.clear();
+		}
+		for (final Boolean reset : pending) {
+			if (!clients.isEmpty()) {
+				sendToAll(clients, encode(null, reset.booleanValue()));
+			}
+		}
+	}
+
+	/**
+	 * Answers the commands received from the clients. In every round the next
+	 * command of all clients is processed together, so that a single snapshot
+	 * is sent to all clients requesting a full dump. Only the last collection
+	 * of a round resets the execution data if any client requested a reset.
+	 */
+	private void processCommands() throws IOException {
+		while (true) {
+			final List<Client> dumping = new ArrayList<Client>();
+			final List<Client> delta = new ArrayList<Client>();
+			final List<Client> confirming = new ArrayList<Client>();
+			boolean reset = false;
+			for (final Client client : new ArrayList<Client>(clients)) {
+				final int command;
+				try {
+					command = client.nextCommand();
+				} catch (final IOException e) {
+					logger.logException(e);
+					close(client);
+					continue;
+				}
+				if (command == -1) {
+					continue;
+				}
+				if ((command & DELTA) != 0) {
+					delta.add(client);
+				} else if ((command & DUMP) != 0) {
+					dumping.add(client);
+				} else {
+					confirming.add(client);
+				}
+				reset |= (command & RESET) != 0;
+			}
+			if (dumping.isEmpty() && delta.isEmpty() && confirming.isEmpty()) {
+				break;
+			}
+			if (!dumping.isEmpty()) {
+				sendToAll(dumping, encode(null, reset && delta.isEmpty()));
+			}
+			for (int i = 0; i < delta.size(); i++) {
+				final Client client = delta.get(i);
+				sendToAll(Collections.singletonList(client), encode(
+						client.getDeltaTracker(),
+						reset && i == delta.size() - 1));
+			}
+			if (reset && dumping.isEmpty() && delta.isEmpty()) {
+				data.reset();
+			}
+			sendToAll(confirming, CMDOK);
+		}
+		for (final Client client : clients) {
+			client.updateInterest();
+		}
+	}
+
+	/**
+	 * Collects the current execution data. The encoded snapshot starts with a
+	 * header, so it is self-contained even with compressed blocks. As the
+	 * snapshot is sent asynchronously, only the time for collecting and
+	 * encoding is recorded as dump latency.
+	 */
+	private byte[] encode(final DeltaTracker delta, final boolean reset)
+			throws IOException {
+		final long start = System.nanoTime();
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final RemoteControlWriter writer = new RemoteControlWriter(buffer,
+				compress);
+		data.collect(writer, writer, reset, delta);
+		writer.sendCmdOk();
+		statistics.dump(buffer.size(), System.nanoTime() - start);
+		return buffer.toByteArray();
+	}
+
+	private void sendToAll(final List<Client> targets, final byte[] bytes) {
+		for (final Client client : new ArrayList<Client>(targets)) {
+			try {
+				client.send(bytes);
+			} catch (final IOException e) {
+				logger.logException(e);
+				close(client);
+			}
+		}
+	}
+
+	private static class Client {
+
+		final SocketChannel channel;
+
+		SelectionKey key;
+
+		/** Received bytes which have not been processed yet */
+		private final ByteBuffer input = ByteBuffer.allocate(64);
+
+		/** Pending responses, which share their content between clients */
+		private final LinkedList<ByteBuffer> output = new LinkedList<ByteBuffer>();
+
+		private final int maxPendingBytes;
+
+		/** Total size of the pending responses */
+		private long pendingBytes;
+
+		private boolean header;
+
+		private DeltaTracker delta;
+
+		Client(final SocketChannel channel, final int maxPendingBytes) {
+			this.channel = channel;
+			this.maxPendingBytes = maxPendingBytes;
+		}
+
+		/**
+		 * Reads available bytes from the channel.
+		 *
+		 * @return <code>false</code> if the client has closed the connection
+		 */
+		boolean read() throws IOException {
+			if (channel.read(input) == -1) {
+				return false;
+			}
+			if (!input.hasRemaining()) {
+				// Wait until the buffered commands are processed
+				key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+			}
+			return true;
+		}
+
+		/**
+		 * Parses the next command from the received bytes.
+		 *
+		 * @return combination of {@link #DUMP}, {@link #DELTA} and
+		 *         {@link #RESET} or -1 if no complete command has been
+		 *         received yet
+		 */
+		int nextCommand() throws IOException {
+			((Buffer) input).flip();
+			try {
+				while (input.hasRemaining()) {
+					final byte type = input.get(input.position());
+					if (!header && type != ExecutionDataWriter.BLOCK_HEADER) {
+						throw new IOException("Invalid execution data file.");
+					}
+					switch (type) {
+					case ExecutionDataWriter.BLOCK_HEADER:
+						if (input.remaining() < HEADER.length) {
+							return -1;
+						}
+						input.get();
+						if (input.getChar() != ExecutionDataWriter.MAGIC_NUMBER) {
+							throw new IOException(
+									"Invalid execution data file.");
+						}
+						final char version = input.getChar();
+						if (version != ExecutionDataWriter.FORMAT_VERSION
+								&& version != ExecutionDataWriter.FORMAT_VERSION_EXTENDED) {
+							throw new IncompatibleExecDataVersionException(
+									version);
+						}
+						header = true;
+						break;
+					case RemoteControlWriter.BLOCK_CMDDUMP:
+						if (input.remaining() < 3) {
+							return -1;
+						}
+						input.get();
+						final int dump = input.get() != 0 ? DUMP : 0;
+						final int reset = input.get() != 0 ? RESET : 0;
+						return dump | reset;
+					case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+						if (input.remaining() < 2) {
+							return -1;
+						}
+						input.get();
+						return DELTA | (input.get() != 0 ? RESET : 0);
+					default:
+						throw new IOException(format("Unknown block type %x.",
+								Byte.valueOf(type)));
+					}
+				}
+				return -1;
+			} finally {
+				input.compact();
+			}
+		}
+
+		DeltaTracker getDeltaTracker() {
+			if (delta == null) {
+				delta = new DeltaTracker();
+			}
+			return delta;
+		}
+
+		/**
+		 * Queues the given bytes and writes as much as possible. A single
+		 * response is always accepted, but if the client has not read
+		 * previous responses the pending bytes must not exceed the limit.
+		 *
+		 * @throws IOException
+		 *             if the limit is exceeded or writing fails
+		 */
+		void send(final byte[] bytes) throws IOException {
+			if (!output.isEmpty()
+					&& pendingBytes + bytes.length > maxPendingBytes) {
+				throw new IOException(
+						"Client does not read pending execution data.");
+			}
+			output.add(ByteBuffer.wrap(bytes));
+			pendingBytes += bytes.length;
+			write();
+		}
+
+		/**
+		 * Writes as much pending output as the channel accepts without
+		 * blocking.
+		 */
+		void write() throws IOException {
+			while (!output.isEmpty()) {
+				final ByteBuffer buffer = output.getFirst();
+				channel.write(buffer);
+				if (buffer.hasRemaining()) {
+					break;
+				}
+				output.removeFirst();
+				pendingBytes -= buffer.limit();
+			}
+			updateInterest();
+		}
+
+		void updateInterest() {
+			int ops = 0;
+			if (input.hasRemaining()) {
+				ops |= SelectionKey.OP_READ;
+			}
+			if (!output.isEmpty()) {
+				ops |= SelectionKey.OP_WRITE;
+			}
+			if (key.isValid()) {
+				key.interestOps(ops);
+			}
+		}
+
+		/**
+		 * Writes pending output until the given deadline and closes the
+		 * channel. Output which has not been written until then is dropped.
+		 * Must only be called after the selector has been closed.
+		 *
+		 * @param deadline
+		 *            system time in milliseconds
+		 */
+		void flushAndClose(final long deadline) throws IOException {
+			try {
+				while (!output.isEmpty()
+						&& System.currentTimeMillis() < deadline) {
+					final ByteBuffer buffer = output.getFirst();
+					if (channel.write(buffer) == 0) {
+						try {
+							Thread.sleep(FLUSH_RETRY_WAIT_TIME_MS);
+						} catch (final InterruptedException e) {
+							Thread.currentThread().interrupt();
+							break;
+						}
+					}
+					if (!buffer.hasRemaining()) {
+						output.removeFirst();
+					}
+				}
+				output.clear();
+			} finally {
+				channel.close();
+			}
+		}
+
+	}
+
+}
@@ -17,6 +17,7 @@ import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.UnknownHostException;
 
+import org.jacoco.agent.rt.internal.AgentStatistics;
 import org.jacoco.agent.rt.internal.IExceptionLogger;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
@@ -35,6 +36,8 @@ public class TcpServerOutput implements IAgentOutput {
 
 	private final IExceptionLogger logger;
 
+	private final AgentStatistics statistics;
+
 	private ServerSocket serverSocket;
 
 	private Thread worker;
@@ -46,19 +49,35 @@ public class TcpServerOutput implements IAgentOutput {
 	 *            logger to use in case of exceptions is spawned threads
 	 */
 	public TcpServerOutput(final IExceptionLogger logger) {
+		this(logger, new AgentStatistics());
+	}
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 * @param statistics
+	 *            statistics to record dumps to
+	 */
+	public TcpServerOutput(final IExceptionLogger logger,
+			final AgentStatistics statistics) {
 		this.logger = logger;
+		this.statistics = statistics;
 	}
 
 	public void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
 		serverSocket = createServerSocket(options);
+		final boolean compress = options.getCompress();
 		worker = new Thread(new Runnable() {
 			public void run() {
 				while (!serverSocket.isClosed()) {
 					try {
 						synchronized (serverSocket) {
 							connection = new TcpConnection(
-									serverSocket.accept(), data);
+									serverSocket.accept(), data, compress,
+									statistics);
 						}
 						connection.init();
 						connection.run();
@@ -212,6 +212,77 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setJmx(jmx);
 	}
 
+	/**
+	 * Sets whether the agent should write execution data in compressed blocks.
+	 *
+	 * @param compress
+	 *            <code>true</code> if execution data should be compressed
+	 */
+	public void setCompress(final boolean compress) {
+		agentOptions.setCompress(compress);
+	}
+
+	/**
+	 * Sets the maximum number of concurrent client connections in
+	 * <code>tcpserver</code> mode.
+	 *
+	 * @param maxConnections
+	 *            maximum number of connections
+	 */
+	public void setMaxConnections(final int maxConnections) {
+		agentOptions.setMaxConnections(maxConnections);
+	}
+
+	/**
+	 * Sets the interval of periodic dumps.
+	 *
+	 * @param interval
+	 *            interval in seconds, 0 to disable periodic dumps
+	 */
+	public void setDumpInterval(final int interval) {
+		agentOptions.setDumpInterval(interval);
+	}
+
+	/**
+	 * Sets the maximum random delay added to every periodic dump interval.
+	 *
+	 * @param jitter
+	 *            maximum delay in seconds
+	 */
+	public void setDumpJitter(final int jitter) {
+		agentOptions.setDumpJitter(jitter);
+	}
+
+	/**
+	 * Sets whether execution data should be reset after every periodic dump.
+	 *
+	 * @param reset
+	 *            <code>true</code> if execution data should be reset
+	 */
+	public void setDumpReset(final boolean reset) {
+		agentOptions.setDumpReset(reset);
+	}
+
+	/**
+	 * Sets the directory where instrumented class files are cached.
+	 *
+	 * @param dir
+	 *            cache directory
+	 */
+	public void setCachedir(final File dir) {
+		agentOptions.setCacheDir(dir.getAbsolutePath());
+	}
+
+	/**
+	 * Sets the maximum size of the class file cache.
+	 *
+	 * @param size
+	 *            maximum size in megabytes
+	 */
+	public void setCacheSize(final int size) {
+		agentOptions.setCacheSize(size);
+	}
+
 	/**
 	 * Creates JVM argument to launch with the specified JaCoCo agent jar and
 	 * the current options
@@ -18,7 +18,14 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
@@ -40,6 +47,8 @@ public class InstrumentTask extends Task {
 
 	private boolean removesignatures = true;
 
+	private int threads = 1;
+
 	/**
 	 * Sets the location of the instrumented classes.
 	 *
@@ -60,6 +69,17 @@ public class InstrumentTask extends Task {
 		this.removesignatures = removesignatures;
 	}
 
+	/**
+	 * Sets the number of threads used to instrument the resources and the
+	 * entries of archives in parallel.
+	 *
+	 * @param threads
+	 *            number of threads, default is 1
+	 */
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
 	/**
 	 * This task accepts any number of class file resources.
 	 *
@@ -76,20 +96,73 @@ public class InstrumentTask extends Task {
 			throw new BuildException("Destination directory must be supplied",
 					getLocation());
 		}
-		int total = 0;
+		final long start = System.currentTimeMillis();
 		final Instrumenter instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
 		instrumenter.setRemoveSignatures(removesignatures);
-		final Iterator<?> resourceIterator = files.iterator();
-		while (resourceIterator.hasNext()) {
-			final Resource resource = (Resource) resourceIterator.next();
-			if (resource.isDirectory()) {
-				continue;
+		final ExecutorService executor = threads > 1
+				? Executors.newFixedThreadPool(threads)
+				: null;
+		instrumenter.setExecutor(executor);
+		final List<FutureTask<Integer>> tasks = new ArrayList<FutureTask<Integer>>();
+		int total = 0;
+		long bytes = 0;
+		try {
+			final Iterator<?> resourceIterator = files.iterator();
+			while (resourceIterator.hasNext()) {
+				final Resource resource = (Resource) resourceIterator.next();
+				if (resource.isDirectory()) {
+					continue;
+				}
+				bytes += Math.max(resource.getSize(), 0);
+				final FutureTask<Integer> task = new FutureTask<Integer>(
+						new Callable<Integer>() {
+							public Integer call() {
+								return Integer.valueOf(
+										instrument(instrumenter, resource));
+							}
+						});
+				tasks.add(task);
+				if (executor != null) {
+					executor.execute(task);
+				}
+			}
+			for (final FutureTask<Integer> task : tasks) {
+				// Instrument in this thread if not started yet
+				task.run();
+				total += get(task);
+			}
+		} finally {
+			for (final FutureTask<Integer> task : tasks) {
+				task.cancel(false);
+			}
+			if (executor != null) {
+				executor.shutdown();
 			}
-			total += instrument(instrumenter, resource);
 		}
 		log(format("Instrumented %s classes to %s", Integer.valueOf(total),
 				destdir.getAbsolutePath()));
+		final long time = Math.max(1, System.currentTimeMillis() - start);
+		log(format("Instrumented %s bytes in %s ms, %s classes/s, %s bytes/s",
+				Long.valueOf(bytes), Long.valueOf(time),
+				Long.valueOf(total * 1000L / time),
+				Long.valueOf(bytes * 1000L / time)));
+	}
+
+	private int get(final FutureTask<Integer> task) {
+		try {
+			return task.get().intValue();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BuildException("Instrumentation interrupted", e,
+					getLocation());
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		}
 	}
 
 	private int instrument(final Instrumenter instrumenter,
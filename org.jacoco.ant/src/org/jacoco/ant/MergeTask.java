@@ -25,6 +25,7 @@ import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceCollection;
 import org.apache.tools.ant.types.resources.Union;
 import org.apache.tools.ant.util.FileUtils;
+import org.jacoco.core.tools.ExecFileCompactor;
 import org.jacoco.core.tools.ExecFileLoader;
 
 /**
@@ -34,6 +35,8 @@ public class MergeTask extends Task {
 
 	private File destfile;
 
+	private boolean compact = false;
+
 	private final Union files = new Union();
 
 	/**
@@ -46,6 +49,18 @@ public class MergeTask extends Task {
 		this.destfile = destfile;
 	}
 
+	/**
+	 * Sets whether the merged data is appended to the destination file, which
+	 * is then compacted in place. Otherwise the destination file is
+	 * overwritten.
+	 *
+	 * @param compact
+	 *            <code>true</code> if the destination file should be compacted
+	 */
+	public void setCompact(final boolean compact) {
+		this.compact = compact;
+	}
+
 	/**
 	 * This task accepts any number of execution data resources.
 	 *
@@ -97,11 +112,30 @@ public class MergeTask extends Task {
 		log(format("Writing merged execution data to %s",
 				destfile.getAbsolutePath()));
 		try {
-			loader.save(destfile, false);
+			loader.save(destfile, compact);
 		} catch (final IOException e) {
 			throw new BuildException(format("Unable to write merged file %s",
 					destfile.getAbsolutePath()), e, getLocation());
 		}
+		if (compact) {
+			compact();
+		}
+	}
+
+	private void compact() {
+		final ExecFileCompactor compactor = new ExecFileCompactor();
+		try {
+			compactor.compact(destfile);
+		} catch (final IOException e) {
+			throw new BuildException(format("Unable to compact %s",
+					destfile.getAbsolutePath()), e, getLocation());
+		}
+		log(format(
+				"Compacted %d bytes with %d sessions, %d classes updated in place, %d classes added",
+				Long.valueOf(compactor.getAppendedBytes()),
+				Integer.valueOf(compactor.getAppendedSessionCount()),
+				Integer.valueOf(compactor.getUpdatedClassCount()),
+				Integer.valueOf(compactor.getAddedClassCount())));
 	}
 
 }
@@ -424,6 +424,19 @@ public class ReportTask extends Task {
 
 	private final List<FormatterElement> formatters = new ArrayList<FormatterElement>();
 
+	private File analysiscache;
+
+	/**
+	 * Sets the directory where analysis results of class files are cached
+	 * across runs. By default no cache is used.
+	 *
+	 * @param analysiscache
+	 *            cache directory
+	 */
+	public void setAnalysiscache(final File analysiscache) {
+		this.analysiscache = analysiscache;
+	}
+
 	/**
 	 * Returns the nested resource collection for execution data files.
 	 *
@@ -564,6 +577,7 @@ public class ReportTask extends Task {
 			throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final Analyzer analyzer = new Analyzer(executionDataStore, builder);
+		analyzer.setCacheDirectory(analysiscache);
 		for (final Iterator<?> i = group.classfiles.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			if (resource.isDirectory() && resource instanceof FileResource) {
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.InputStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Benchmark for the analysis of real world libraries with {@link Analyzer},
+ * which is dominated by the application of filters for Java, Kotlin and Scala
+ * class files.
+ *
+ * The libraries are specified as Maven coordinates
+ * <code>groupId:artifactId:version</code> which are resolved in the local
+ * Maven repository, or as paths of JAR files. The class files are extracted
+ * in advance so that only the analysis is measured.
+ */
+@State(Scope.Thread)
+public class AnalyzerBenchmark {
+
+	@Param({ "org.jetbrains.kotlin:kotlin-stdlib:1.8.21",
+			"org.scala-lang:scala-library:2.13.12",
+			"com.google.guava:guava:30.0-jre" })
+	private String library;
+
+	private List<byte[]> classes;
+
+	@Setup
+	public void setup() throws IOException {
+		classes = new ArrayList<byte[]>();
+		final ZipInputStream zip = new ZipInputStream(
+				new FileInputStream(resolve(library)));
+		try {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				final String name = entry.getName();
+				if (name.endsWith(".class")
+						&& !name.startsWith("META-INF/versions/")) {
+					classes.add(InputStreams.readFully(zip));
+				}
+			}
+		} finally {
+			zip.close();
+		}
+	}
+
+	/**
+	 * Analyzes all classes of the library without execution data.
+	 */
+	@Benchmark
+	public int analyze() throws IOException {
+		final int[] methods = new int[1];
+		final Analyzer analyzer = new Analyzer(new ExecutionDataStore(),
+				new ICoverageVisitor() {
+					public void visitCoverage(final IClassCoverage coverage) {
+						methods[0] += coverage.getMethods().size();
+					}
+				});
+		for (final byte[] c : classes) {
+			analyzer.analyzeClass(c, library);
+		}
+		return methods[0];
+	}
+
+	private static File resolve(final String library) {
+		final String[] coordinates = library.split(":");
+		if (coordinates.length != 3) {
+			return new File(library);
+		}
+		final String repository = System.getProperty("maven.repo.local",
+				System.getProperty("user.home") + "/.m2/repository");
+		return new File(repository,
+				coordinates[0].replace('.', '/') + "/" + coordinates[1] + "/"
+						+ coordinates[2] + "/" + coordinates[1] + "-"
+						+ coordinates[2] + ".jar");
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(AnalyzerBenchmark.class.getName()) //
+				.mode(Mode.AverageTime) //
+				.timeUnit(TimeUnit.MILLISECONDS) //
+				.warmupIterations(5) //
+				.warmupTime(TimeValue.seconds(1)) //
+				.measurementIterations(10) //
+				.measurementTime(TimeValue.seconds(1)) //
+				.forks(2) //
+				.build()).run();
+	}
+
+}
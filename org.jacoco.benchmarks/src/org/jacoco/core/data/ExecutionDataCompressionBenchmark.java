@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.tools.ExecFileLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Benchmark for writing and reading execution data with and without
+ * compression, see
+ * {@link ExecutionDataWriter#ExecutionDataWriter(java.io.OutputStream, boolean)}.
+ *
+ * Execution data is generated in memory like the output of a long-running
+ * agent in <code>tcpclient</code> mode, i.e. many sessions with the same
+ * classes where most of the probes are not executed. The size of the
+ * execution data is printed during setup.
+ */
+@State(Scope.Thread)
+public class ExecutionDataCompressionBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean compressed;
+
+	@Param({ "100" })
+	private int sessions;
+
+	@Param({ "1000" })
+	private int classes;
+
+	@Param({ "64" })
+	private int probes;
+
+	private List<SessionInfo> sessionInfos;
+
+	private List<ExecutionData> data;
+
+	private byte[] execFile;
+
+	@Setup
+	public void setup() throws Exception {
+		final Random random = new Random(42);
+		sessionInfos = new ArrayList<SessionInfo>();
+		data = new ArrayList<ExecutionData>();
+		for (int s = 0; s < sessions; s++) {
+			sessionInfos.add(new SessionInfo("session" + s, s, s));
+			for (int c = 0; c < classes; c++) {
+				final boolean[] p = new boolean[probes];
+				for (int i = 0; i < probes; i++) {
+					p[i] = random.nextInt(10) == 0;
+				}
+				data.add(new ExecutionData(c,
+						"org/example/package" + (c % 20) + "/Class" + c, p));
+			}
+		}
+		execFile = write().toByteArray();
+	}
+
+	/**
+	 * Writes all sessions with all classes.
+	 */
+	@Benchmark
+	public ByteArrayOutputStream write() throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out,
+				compressed);
+		int index = 0;
+		for (final SessionInfo info : sessionInfos) {
+			writer.visitSessionInfo(info);
+			for (int c = 0; c < classes; c++) {
+				writer.visitClassExecution(data.get(index++));
+			}
+		}
+		writer.flush();
+		return out;
+	}
+
+	/**
+	 * Reads the execution data with {@link ExecutionDataReader}.
+	 */
+	@Benchmark
+	public ExecutionDataStore readStream() throws Exception {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(execFile));
+		reader.setSessionInfoVisitor(new SessionInfoStore());
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+		return store;
+	}
+
+	/**
+	 * Loads the execution data with {@link ExecFileLoader}.
+	 */
+	@Benchmark
+	public ExecFileLoader load() throws Exception {
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(new ByteArrayInputStream(execFile));
+		return loader;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(ExecutionDataCompressionBenchmark.class.getName()) //
+				.mode(Mode.AverageTime) //
+				.timeUnit(TimeUnit.MILLISECONDS) //
+				.warmupIterations(5) //
+				.warmupTime(TimeValue.seconds(1)) //
+				.measurementIterations(10) //
+				.measurementTime(TimeValue.seconds(1)) //
+				.forks(2) //
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.tools.ExecFileLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Benchmark for merging of execution data from many exec files, i.e. for
+ * {@link ExecutionData#merge(ExecutionData)} and
+ * {@link ExecutionData#hasHits()} which is used by {@link ExecutionDataWriter}.
+ *
+ * Exec files are generated in memory, each with the same classes and random
+ * probes, where most of the probes are not executed as typical for
+ * partitioned test runs.
+ */
+@State(Scope.Thread)
+public class ExecutionDataMergeBenchmark {
+
+	@Param({ "1000" })
+	private int files;
+
+	@Param({ "200" })
+	private int classes;
+
+	@Param({ "16", "256" })
+	private int probes;
+
+	private byte[][] execFiles;
+
+	private List<ExecutionData> data;
+
+	private ExecutionDataStore merged;
+
+	@Setup
+	public void setup() throws Exception {
+		final Random random = new Random(42);
+		execFiles = new byte[files][];
+		data = new ArrayList<ExecutionData>();
+		for (int f = 0; f < files; f++) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			writer.visitSessionInfo(new SessionInfo("session" + f, 0, 0));
+			for (int c = 0; c < classes; c++) {
+				final boolean[] p = new boolean[probes];
+				for (int i = 0; i < probes; i++) {
+					p[i] = random.nextInt(10) == 0;
+				}
+				final ExecutionData d = new ExecutionData(c, "Class" + c, p);
+				writer.visitClassExecution(d);
+				data.add(d);
+			}
+			execFiles[f] = out.toByteArray();
+		}
+		merged = new ExecutionDataStore();
+		for (final ExecutionData d : data) {
+			merged.put(new ExecutionData(d.getId(), d.getName(),
+					new boolean[probes]));
+		}
+	}
+
+	/**
+	 * Loads all exec files into one {@link ExecFileLoader}.
+	 */
+	@Benchmark
+	public ExecFileLoader loadFiles() throws Exception {
+		final ExecFileLoader loader = new ExecFileLoader();
+		for (final byte[] execFile : execFiles) {
+			loader.load(new ByteArrayInputStream(execFile));
+		}
+		return loader;
+	}
+
+	/**
+	 * Reads all exec files with {@link ExecutionDataReader} and counts the
+	 * executed probes.
+	 */
+	@Benchmark
+	public int readStream() throws Exception {
+		final int[] count = new int[1];
+		for (final byte[] execFile : execFiles) {
+			final ExecutionDataReader reader = new ExecutionDataReader(
+					new ByteArrayInputStream(execFile));
+			reader.setSessionInfoVisitor(new SessionInfoStore());
+			reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData data) {
+					for (final boolean p : data.getProbes()) {
+						if (p) {
+							count[0]++;
+						}
+					}
+				}
+			});
+			reader.read();
+		}
+		return count[0];
+	}
+
+	/**
+	 * Reads all exec files with {@link ExecutionDataBufferReader} and counts
+	 * the executed probes without decoding them.
+	 */
+	@Benchmark
+	public int readBuffer() throws Exception {
+		final int[] count = new int[1];
+		for (final byte[] execFile : execFiles) {
+			final ExecutionDataBufferReader reader = new ExecutionDataBufferReader(
+					ByteBuffer.wrap(execFile));
+			reader.setSessionInfoVisitor(new SessionInfoStore());
+			reader.setPackedExecutionDataVisitor(
+					new IPackedExecutionDataVisitor() {
+						public void visitClassExecution(final long id,
+								final String name, final int probeCount,
+								final ByteBuffer probes) {
+							final int end = probes.limit();
+							for (int i = probes.position(); i < end; i++) {
+								count[0] += Integer.bitCount(probes.get(i) & 0xFF);
+							}
+						}
+					});
+			reader.read();
+		}
+		return count[0];
+	}
+
+	/**
+	 * Merges already decoded execution data of all exec files.
+	 */
+	@Benchmark
+	public ExecutionDataStore merge() {
+		for (final ExecutionData d : data) {
+			merged.put(d);
+		}
+		return merged;
+	}
+
+	/**
+	 * Subtracts already decoded execution data of all exec files.
+	 */
+	@Benchmark
+	public ExecutionDataStore subtract() {
+		for (final ExecutionData d : data) {
+			merged.subtract(d);
+		}
+		return merged;
+	}
+
+	/**
+	 * Checks classes without any executed probe for hits, which is the worst
+	 * case for {@link ExecutionData#hasHits()}.
+	 */
+	@Benchmark
+	public int hasHits() {
+		int count = 0;
+		for (final ExecutionData d : merged.getContents()) {
+			if (d.hasHits()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes already decoded execution data of all exec files, which checks
+	 * every class for hits.
+	 */
+	@Benchmark
+	public void write() throws Exception {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(
+				new OutputStream() {
+					@Override
+					public void write(final int b) {
+					}
+
+					@Override
+					public void write(final byte[] b, final int off,
+							final int len) {
+					}
+				});
+		for (final ExecutionData d : data) {
+			writer.visitClassExecution(d);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(ExecutionDataMergeBenchmark.class.getName()) //
+				.mode(Mode.AverageTime) //
+				.timeUnit(TimeUnit.MILLISECONDS) //
+				.warmupIterations(5) //
+				.warmupTime(TimeValue.seconds(1)) //
+				.measurementIterations(10) //
+				.measurementTime(TimeValue.seconds(1)) //
+				.forks(2) //
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.instr;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Benchmark for the instrumentation of interfaces with {@link Instrumenter}.
+ *
+ * Interfaces are generated in memory in the following flavors:
+ *
+ * <ul>
+ * <li><code>abstract</code>: only abstract methods, like most Kotlin
+ * interfaces which keep their default implementations in separate
+ * <code>DefaultImpls</code> classes</li>
+ * <li><code>default8</code>: Java 8 interfaces with default methods</li>
+ * <li><code>default11</code>: Java 11 interfaces with default methods</li>
+ * <li><code>clinit</code>: interfaces with constants initialized in a static
+ * initializer</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+public class InterfaceInstrumentationBenchmark {
+
+	@Param({ "abstract", "default8", "default11", "clinit" })
+	private String flavor;
+
+	@Param({ "500" })
+	private int interfaces;
+
+	@Param({ "10" })
+	private int methods;
+
+	private Instrumenter instrumenter;
+
+	private byte[][] classes;
+
+	@Setup
+	public void setup() {
+		instrumenter = new Instrumenter(
+				new OfflineInstrumentationAccessGenerator());
+		classes = new byte[interfaces][];
+		for (int i = 0; i < interfaces; i++) {
+			classes[i] = createInterface("Interface" + i);
+		}
+	}
+
+	/**
+	 * Instruments all interfaces.
+	 */
+	@Benchmark
+	public int instrument() throws Exception {
+		int size = 0;
+		for (int i = 0; i < classes.length; i++) {
+			size += instrumenter.instrument(classes[i],
+					"Interface" + i).length;
+		}
+		return size;
+	}
+
+	private byte[] createInterface(final String name) {
+		final int version = "default11".equals(flavor) ? Opcodes.V11
+				: Opcodes.V1_8;
+		final ClassWriter writer = new ClassWriter(
+				ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		writer.visit(version,
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_INTERFACE
+						| Opcodes.ACC_ABSTRACT,
+				name, null, "java/lang/Object", null);
+		if ("clinit".equals(flavor)) {
+			createClinit(writer, name);
+		}
+		for (int m = 0; m < methods; m++) {
+			if (flavor.startsWith("default")) {
+				createDefaultMethod(writer, "method" + m);
+			}
+			writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT,
+					"abstract" + m, "(I)I", null, null).visitEnd();
+		}
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+	private void createClinit(final ClassWriter writer, final String name) {
+		final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_STATIC,
+				"<clinit>", "()V", null, null);
+		mv.visitCode();
+		for (int m = 0; m < methods; m++) {
+			writer.visitField(
+					Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC
+							| Opcodes.ACC_FINAL,
+					"CONSTANT" + m, "Ljava/lang/String;", null, null)
+					.visitEnd();
+			mv.visitLdcInsn(Integer.valueOf(m));
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/String",
+					"valueOf", "(I)Ljava/lang/String;", false);
+			mv.visitFieldInsn(Opcodes.PUTSTATIC, name,
+					"CONSTANT" + m, "Ljava/lang/String;");
+		}
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	/**
+	 * Creates a method with a branch and a loop:
+	 * <code>int m(int x) { int s = 0; for (int i = 0; i &lt; x; i++) { if (i % 2 == 0) s += i; } return s; }</code>
+	 */
+	private static void createDefaultMethod(final ClassWriter writer,
+			final String name) {
+		final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, name,
+				"(I)I", null, null);
+		mv.visitCode();
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 2);
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitVarInsn(Opcodes.ISTORE, 3);
+		final Label condition = new Label();
+		final Label next = new Label();
+		final Label body = new Label();
+		mv.visitJumpInsn(Opcodes.GOTO, condition);
+		mv.visitLabel(body);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitInsn(Opcodes.ICONST_2);
+		mv.visitInsn(Opcodes.IREM);
+		mv.visitJumpInsn(Opcodes.IFNE, next);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitInsn(Opcodes.IADD);
+		mv.visitVarInsn(Opcodes.ISTORE, 2);
+		mv.visitLabel(next);
+		mv.visitIincInsn(3, 1);
+		mv.visitLabel(condition);
+		mv.visitVarInsn(Opcodes.ILOAD, 3);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		mv.visitJumpInsn(Opcodes.IF_ICMPLT, body);
+		mv.visitVarInsn(Opcodes.ILOAD, 2);
+		mv.visitInsn(Opcodes.IRETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(InterfaceInstrumentationBenchmark.class.getName()) //
+				.mode(Mode.AverageTime) //
+				.timeUnit(TimeUnit.MILLISECONDS) //
+				.warmupIterations(5) //
+				.warmupTime(TimeValue.seconds(1)) //
+				.measurementIterations(10) //
+				.measurementTime(TimeValue.seconds(1)) //
+				.forks(2) //
+				.build()).run();
+	}
+
+}
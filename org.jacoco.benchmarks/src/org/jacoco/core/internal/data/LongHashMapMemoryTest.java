@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Evgeny Mandrikov - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.test.validation.JavaVersion;
+import org.junit.AssumptionViolatedException;
+import org.junit.Before;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Test of memory required per entry of {@link LongHashMap} which is used by
+ * {@link org.jacoco.core.data.ExecutionDataStore} and by the index of HTML
+ * report, compared to {@link HashMap} with boxed {@link Long} keys that was
+ * used before.
+ *
+ * All entries share the same value, so only the memory required by the map
+ * structure itself is measured. Expected values are for 64-bit VM with heap
+ * size below 32 GB, i.e. with compressed references.
+ */
+public class LongHashMapMemoryTest {
+
+	private static final int ENTRIES = 1 << 16;
+
+	private static final ExecutionData VALUE = new ExecutionData(0, "Foo", 0);
+
+	@Before
+	public void requireCompressedReferences() {
+		if ("32".equals(System.getProperty("sun.arch.data.model"))) {
+			throw new AssumptionViolatedException(
+					"this test does not support 32-bit architecture");
+		}
+		if (GraphLayout.parseInstance((Object) new Object[2]).totalSize() > 24) {
+			throw new AssumptionViolatedException(
+					"this test requires compressed references");
+		}
+	}
+
+	@Test
+	public void longHashMap() {
+		final LongHashMap<ExecutionData> map = new LongHashMap<ExecutionData>();
+		for (int i = 0; i < ENTRIES; i++) {
+			map.put(id(i), VALUE);
+		}
+
+		// 8 bytes per key and 4 bytes per reference in tables filled by half
+		assertEquals(24, bytesPerEntry(map));
+	}
+
+	@Test
+	public void hashMap() {
+		final Map<Long, ExecutionData> map = new HashMap<Long, ExecutionData>();
+		for (int i = 0; i < ENTRIES; i++) {
+			map.put(Long.valueOf(id(i)), VALUE);
+		}
+
+		if (JavaVersion.current().isBefore("27")) {
+			// 32 bytes per HashMap.Node, 24 bytes per Long and 8 bytes in table
+			assertEquals(64, bytesPerEntry(map));
+		} else {
+			// https://openjdk.org/jeps/534
+			// 24 bytes per HashMap.Node, 16 bytes per Long and 8 bytes in table
+			assertEquals(48, bytesPerEntry(map));
+		}
+	}
+
+	private static long id(final int i) {
+		return 0x5A5A5A5A00000000L | i;
+	}
+
+	private static long bytesPerEntry(final Object map) {
+		final long valueSize = GraphLayout.parseInstance(VALUE).totalSize();
+		return (GraphLayout.parseInstance(map).totalSize() - valueSize)
+				/ ENTRIES;
+	}
+
+}
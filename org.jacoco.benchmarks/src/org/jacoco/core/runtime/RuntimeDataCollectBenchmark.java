@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark for the latency of {@link RuntimeData} operations while another
+ * thread continuously collects the execution data into a slow visitor, like a
+ * dump over a slow network connection.
+ *
+ * {@link #classInit()} registers a new class like every instrumented class
+ * does in its static initializer. {@link #reset()} needs the lock of the
+ * runtime data and therefore shows how long a concurrent dump holds it.
+ *
+ * Every iteration starts with a new {@link RuntimeData} instance and runs a
+ * fixed batch of operations, so that the number of registered classes does not
+ * grow without limit.
+ */
+@State(Scope.Thread)
+public class RuntimeDataCollectBenchmark {
+
+	/**
+	 * Time in microseconds the concurrent dump spends for every class.
+	 */
+	@Param({ "0", "10" })
+	private int dumpDelay;
+
+	@Param({ "1000" })
+	private int classes;
+
+	private RuntimeData data;
+
+	private long nextId;
+
+	private volatile boolean running;
+
+	private Thread dumper;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		data = new RuntimeData();
+		for (int i = 0; i < classes; i++) {
+			data.getExecutionData(Long.valueOf(i), "Class" + i, 20)
+					.getProbes()[0] = true;
+		}
+		nextId = classes;
+		final IExecutionDataVisitor slowVisitor = new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				if (dumpDelay > 0) {
+					LockSupport.parkNanos(
+							TimeUnit.MICROSECONDS.toNanos(dumpDelay));
+				}
+			}
+		};
+		final ISessionInfoVisitor sessionVisitor = new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+			}
+		};
+		running = true;
+		dumper = new Thread() {
+			@Override
+			public void run() {
+				while (running) {
+					data.collect(slowVisitor, sessionVisitor, false);
+				}
+			}
+		};
+		dumper.start();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws InterruptedException {
+		running = false;
+		dumper.join();
+	}
+
+	@Benchmark
+	public ExecutionData classInit() {
+		final long id = nextId++;
+		return data.getExecutionData(Long.valueOf(id), "NewClass", 20);
+	}
+
+	@Benchmark
+	public void reset() {
+		data.reset();
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder() //
+				.include(RuntimeDataCollectBenchmark.class.getName()) //
+				.mode(Mode.SingleShotTime) //
+				.timeUnit(TimeUnit.MICROSECONDS) //
+				.warmupIterations(10) //
+				.warmupBatchSize(1000) //
+				.measurementIterations(50) //
+				.measurementBatchSize(1000) //
+				.forks(1) //
+				.build()).run();
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.net.ServerSocket;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link AgentStats}.
+ */
+public class AgentStatsTest extends CommandTestBase {
+
+	private int port;
+
+	private Registry registry;
+
+	private JMXConnectorServer server;
+
+	@Before
+	public void setup() throws Exception {
+		final ServerSocket socket = new ServerSocket(0);
+		port = socket.getLocalPort();
+		socket.close();
+		registry = LocateRegistry.createRegistry(port);
+
+		final MBeanServer mbeanServer = MBeanServerFactory.newMBeanServer();
+		mbeanServer.registerMBean(
+				new StandardMBean(new Statistics(), StatisticsMBean.class),
+				new ObjectName("org.jacoco:type=Statistics"));
+		server = JMXConnectorServerFactory.newJMXConnectorServer(
+				new JMXServiceURL(
+						"service:jmx:rmi:///jndi/rmi://localhost:" + port
+								+ "/jmxrmi"),
+				null, mbeanServer);
+		server.start();
+	}
+
+	@After
+	public void teardown() throws Exception {
+		server.stop();
+		UnicastRemoteObject.unexportObject(registry, true);
+	}
+
+	@Test
+	public void should_print_usage_when_no_argument_is_given()
+			throws Exception {
+		execute("agentstats");
+		assertFailure();
+		assertContains("\"--port\"", err);
+		assertContains("java -jar jacococli.jar agentstats", err);
+	}
+
+	@Test
+	public void should_print_statistics() throws Exception {
+		execute("agentstats", "--port", String.valueOf(port));
+
+		assertOk();
+		assertContains("[INFO] Connecting to service:jmx:rmi:///jndi/rmi://"
+				+ "localhost:" + port + "/jmxrmi.", out);
+		assertContains("Classes seen:            10", out);
+		assertContains("Classes filtered:        3", out);
+		assertContains("Classes instrumented:    6", out);
+		assertContains("Classes failed:          1", out);
+		assertContains("Bytes in:                1000", out);
+		assertContains("Bytes out:               1200", out);
+		assertContains("Instrumentation time:    2.500 ms", out);
+		assertContains("  < 1 us         4", out);
+		assertContains("  < 4 us         2", out);
+		assertContains("Dumps:                   2", out);
+		assertContains("Dump bytes:              500", out);
+		assertContains("Dump time:               0.004 ms", out);
+		assertContains("  >= 1073741824 us 2", out);
+	}
+
+	/**
+	 * Same attributes as the statistics MBean of the agent.
+	 */
+	public interface StatisticsMBean {
+
+		long getClassesSeen();
+
+		long getClassesFiltered();
+
+		long getClassesInstrumented();
+
+		long getClassesFailed();
+
+		long getBytesIn();
+
+		long getBytesOut();
+
+		long getInstrumentationNanos();
+
+		long[] getInstrumentationHistogram();
+
+		long getDumpCount();
+
+		long getDumpBytes();
+
+		long getDumpNanos();
+
+		long[] getDumpHistogram();
+
+	}
+
+	static class Statistics implements StatisticsMBean {
+
+		public long getClassesSeen() {
+			return 10;
+		}
+
+		public long getClassesFiltered() {
+			return 3;
+		}
+
+		public long getClassesInstrumented() {
+			return 6;
+		}
+
+		public long getClassesFailed() {
+			return 1;
+		}
+
+		public long getBytesIn() {
+			return 1000;
+		}
+
+		public long getBytesOut() {
+			return 1200;
+		}
+
+		public long getInstrumentationNanos() {
+			return 2500000;
+		}
+
+		public long[] getInstrumentationHistogram() {
+			final long[] histogram = new long[32];
+			histogram[0] = 4;
+			histogram[2] = 2;
+			return histogram;
+		}
+
+		public long getDumpCount() {
+			return 2;
+		}
+
+		public long getDumpBytes() {
+			return 500;
+		}
+
+		public long getDumpNanos() {
+			return 4000;
+		}
+
+		public long[] getDumpHistogram() {
+			final long[] histogram = new long[32];
+			histogram[31] = 2;
+			return histogram;
+		}
+
+	}
+
+}
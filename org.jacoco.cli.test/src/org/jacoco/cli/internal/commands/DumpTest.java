@@ -118,6 +118,11 @@ public class DumpTest extends CommandTestBase {
 					throws IOException {
 				writer.sendCmdOk();
 			}
+
+			public void visitDeltaDumpCommand(boolean reset)
+					throws IOException {
+				writer.sendCmdOk();
+			}
 		});
 		while (reader.read()) {
 		}
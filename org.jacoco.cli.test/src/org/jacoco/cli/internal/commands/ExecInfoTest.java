@@ -19,6 +19,7 @@ import java.io.IOException;
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IndexedExecutionDataWriter;
 import org.jacoco.core.data.SessionInfo;
 import org.junit.Rule;
 import org.junit.Test;
@@ -66,6 +67,41 @@ public class ExecInfoTest extends CommandTestBase {
 		assertContains("0000000000001234    2 of   3   foo/MyClass", out);
 	}
 
+	@Test
+	public void should_print_summary() throws Exception {
+		File execfile = createExecFile();
+
+		execute("execinfo", "--summary", execfile.getAbsolutePath());
+
+		assertOk();
+		assertContains("Sessions: 1", out);
+		assertContains("Classes:  1", out);
+	}
+
+	@Test
+	public void should_print_summary_from_index() throws Exception {
+		File execfile = new File(tmp.getRoot(), "test.exec");
+		final FileOutputStream execout = new FileOutputStream(execfile);
+		final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				execout);
+		writer.visitSessionInfo(new SessionInfo("a", 1, 2));
+		writer.visitSessionInfo(new SessionInfo("b", 1, 2));
+		writer.visitClassExecution(new ExecutionData(0x1234, "foo/MyClass",
+				new boolean[] { true }));
+		writer.visitClassExecution(new ExecutionData(0x1234, "foo/MyClass",
+				new boolean[] { true }));
+		writer.visitClassExecution(new ExecutionData(0x5678, "foo/Other",
+				new boolean[] { true }));
+		writer.finish();
+		execout.close();
+
+		execute("execinfo", "--summary", execfile.getAbsolutePath());
+
+		assertOk();
+		assertContains("Sessions: 2", out);
+		assertContains("Classes:  2", out);
+	}
+
 	private File createExecFile() throws IOException {
 		File f = new File(tmp.getRoot(), "test.exec");
 		final FileOutputStream out = new FileOutputStream(f);
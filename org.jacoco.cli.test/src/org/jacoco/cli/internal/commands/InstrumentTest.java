@@ -23,6 +23,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -64,7 +66,7 @@ public class InstrumentTest extends CommandTestBase {
 				getClassPath());
 
 		assertOk();
-		assertContains("[INFO] 14 classes instrumented to "
+		assertContains("[INFO] 18 classes instrumented to "
 				+ destdir.getAbsolutePath(), out);
 
 		// non class-file resources are copied:
@@ -95,6 +97,60 @@ public class InstrumentTest extends CommandTestBase {
 		assertInstrumented(new File(destdir, "InstrumentTest.class"));
 	}
 
+	@Test
+	public void should_instrument_in_parallel_when_threads_option_is_provided()
+			throws Exception {
+		File sequential = new File(tmp.getRoot(), "sequential");
+		File parallel = new File(tmp.getRoot(), "parallel");
+		execute("instrument", "--dest", sequential.getAbsolutePath(),
+				getClassPath());
+
+		execute("instrument", "--dest", parallel.getAbsolutePath(),
+				"--threads", "4", getClassPath());
+
+		assertOk();
+		assertContains("[INFO] 18 classes instrumented to "
+				+ parallel.getAbsolutePath(), out);
+		assertContains(" classes/s, ", out);
+		assertContains(" bytes/s.", out);
+		assertSameFiles(sequential, parallel);
+	}
+
+	@Test
+	public void should_skip_unchanged_files_when_manifest_option_is_provided()
+			throws Exception {
+		File destdir = new File(tmp.getRoot(), "dest");
+		File manifest = new File(tmp.getRoot(), "manifest.txt");
+		execute("instrument", "--dest", destdir.getAbsolutePath(),
+				"--manifest", manifest.getAbsolutePath(), getClassPath());
+		assertOk();
+		assertContains("[INFO] 18 classes instrumented to "
+				+ destdir.getAbsolutePath(), out);
+		assertContains("[INFO] 0 unchanged files skipped.", out);
+		assertTrue(manifest.isFile());
+		File classfile = new File(destdir,
+				"org/jacoco/cli/internal/commands/InstrumentTest.class");
+		byte[] instrumented = readFile(classfile);
+
+		out = new StringWriter();
+		execute("instrument", "--dest", destdir.getAbsolutePath(),
+				"--manifest", manifest.getAbsolutePath(), getClassPath());
+		assertOk();
+		assertContains("[INFO] 0 classes instrumented to "
+				+ destdir.getAbsolutePath(), out);
+		assertContains("[INFO] 0 classes/s, 0 bytes/s.", out);
+
+		// modified output files are instrumented again:
+		classfile.delete();
+		out = new StringWriter();
+		execute("instrument", "--dest", destdir.getAbsolutePath(),
+				"--manifest", manifest.getAbsolutePath(), getClassPath());
+		assertOk();
+		assertContains("[INFO] 1 classes instrumented to "
+				+ destdir.getAbsolutePath(), out);
+		assertArrayEquals(instrumented, readFile(classfile));
+	}
+
 	@Test
 	public void should_not_instrument_anything_when_no_source_is_given()
 			throws Exception {
@@ -136,6 +192,32 @@ public class InstrumentTest extends CommandTestBase {
 		assertFalse(new File(destdir, "Broken.class").exists());
 	}
 
+	private void assertSameFiles(File expected, File actual)
+			throws IOException {
+		if (expected.isDirectory()) {
+			final String[] names = expected.list();
+			Arrays.sort(names);
+			final String[] actualNames = actual.list();
+			Arrays.sort(actualNames);
+			assertArrayEquals(names, actualNames);
+			for (final String name : names) {
+				assertSameFiles(new File(expected, name),
+						new File(actual, name));
+			}
+		} else {
+			assertArrayEquals(readFile(expected), readFile(actual));
+		}
+	}
+
+	private static byte[] readFile(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return InputStreams.readFully(in);
+		} finally {
+			in.close();
+		}
+	}
+
 	private void assertInstrumented(File classfile) throws IOException {
 		InputStream in = new FileInputStream(classfile);
 		final ClassReader reader = InstrSupport
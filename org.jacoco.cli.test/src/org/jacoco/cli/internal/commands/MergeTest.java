@@ -13,10 +13,13 @@
 package org.jacoco.cli.internal.commands;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -24,6 +27,7 @@ import java.util.Set;
 
 import org.jacoco.cli.internal.CommandTestBase;
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataIndex;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.Rule;
@@ -75,6 +79,230 @@ public class MergeTest extends CommandTestBase {
 		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), names);
 	}
 
+	@Test
+	public void should_merge_exec_files_in_parallel() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File c = createExecFile("c");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--threads", "2", "--destfile",
+				dest.getAbsolutePath(), a.getAbsolutePath(),
+				b.getAbsolutePath(), c.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), names);
+	}
+
+	@Test
+	public void should_merge_exec_files_with_memory_limit() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--maxmemory", "1", "--destfile",
+				dest.getAbsolutePath(), a.getAbsolutePath(),
+				b.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+	}
+
+	@Test
+	public void should_append_to_existing_file() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath());
+		execute("merge", "--destfile", dest.getAbsolutePath(),
+				b.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+	}
+
+	@Test
+	public void should_include_dest_file_as_input() throws Exception {
+		File a = createExecFile("a");
+		File dest = createExecFile("b");
+
+		execute("merge", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath(), dest.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+	}
+
+	@Test
+	public void should_not_write_dest_file_when_exec_file_is_invalid()
+			throws Exception {
+		File a = createExecFile("a");
+		File invalid = new File(tmp.getRoot(), "invalid.exec");
+		FileOutputStream invalidout = new FileOutputStream(invalid);
+		invalidout.write(new byte[] { 0x01, (byte) 0xC0, (byte) 0xC0 });
+		invalidout.close();
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		try {
+			execute("merge", "--destfile", dest.getAbsolutePath(),
+					a.getAbsolutePath(), invalid.getAbsolutePath());
+			fail("IOException expected");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertFalse(dest.exists());
+	}
+
+	@Test
+	public void should_keep_dest_file_when_exec_file_is_invalid()
+			throws Exception {
+		File a = createExecFile("a");
+		File invalid = new File(tmp.getRoot(), "invalid.exec");
+		FileOutputStream invalidout = new FileOutputStream(invalid);
+		invalidout.write(new byte[] { 0x01, (byte) 0xC0, (byte) 0xC0 });
+		invalidout.close();
+		File dest = createExecFile("b");
+		long length = dest.length();
+
+		try {
+			execute("merge", "--indexed", "--destfile",
+					dest.getAbsolutePath(), a.getAbsolutePath(),
+					invalid.getAbsolutePath());
+			fail("IOException expected");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertEquals(length, dest.length());
+		assertEquals(Collections.singleton("b"), loadExecFile(dest));
+		assertEquals(3, tmp.getRoot().list().length);
+	}
+
+	@Test
+	public void should_print_statistics() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath(), b.getAbsolutePath());
+
+		assertOk();
+		assertContains(String.format(
+				"[INFO] Merged 0 sessions and 2 classes from 2 files (%d bytes) in ",
+				Long.valueOf(a.length() + b.length())), out);
+	}
+
+	@Test
+	public void should_merge_exec_files_with_packed_probes() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--packedprobes", "--destfile",
+				dest.getAbsolutePath(), a.getAbsolutePath(),
+				b.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+	}
+
+	@Test
+	public void should_merge_exec_files_into_compressed_file()
+			throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--compress", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath(), b.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+	}
+
+	@Test
+	public void should_not_allow_compressed_indexed_file() throws Exception {
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--compress", "--indexed", "--destfile",
+				dest.getAbsolutePath());
+
+		assertFailure();
+		assertContains("--indexed", err);
+	}
+
+	@Test
+	public void should_merge_exec_files_into_indexed_file() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--indexed", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath());
+		execute("merge", "--indexed", "--destfile", dest.getAbsolutePath(),
+				b.getAbsolutePath());
+
+		assertOk();
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+		RandomAccessFile file = new RandomAccessFile(dest, "r");
+		try {
+			ExecutionDataIndex index = ExecutionDataIndex
+					.read(file.getChannel());
+			assertEquals(2, index.getClassCount());
+			assertEquals("b", index.get("b".hashCode()).getName());
+		} finally {
+			file.close();
+		}
+	}
+
+	@Test
+	public void should_compact_dest_file() throws Exception {
+		File a = createExecFile("a");
+		File b = createExecFile("b");
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--compact", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath());
+		execute("merge", "--compact", "--destfile", dest.getAbsolutePath(),
+				a.getAbsolutePath(), b.getAbsolutePath());
+
+		assertOk();
+		assertContains(
+				"sessions, 0 classes updated in place, 1 classes added.", out);
+		Set<String> names = loadExecFile(dest);
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b")), names);
+		RandomAccessFile file = new RandomAccessFile(dest, "r");
+		try {
+			ExecutionDataIndex index = ExecutionDataIndex
+					.read(file.getChannel());
+			assertEquals(2, index.getClassCount());
+		} finally {
+			file.close();
+		}
+	}
+
+	@Test
+	public void should_not_allow_compact_with_indexed() throws Exception {
+		File dest = new File(tmp.getRoot(), "merged.exec");
+
+		execute("merge", "--compact", "--indexed", "--destfile",
+				dest.getAbsolutePath());
+
+		assertFailure();
+		assertContains("--indexed", err);
+	}
+
 	private File createExecFile(String name) throws IOException {
 		File file = new File(tmp.getRoot(), name + ".exec");
 		final FileOutputStream execout = new FileOutputStream(file);
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.jacoco.cli.internal.CommandTestBase;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.MappedExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MmapDump}.
+ */
+public class MmapDumpTest extends CommandTestBase {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void should_print_usage_when_no_argument_is_given()
+			throws Exception {
+		execute("mmapdump");
+		assertFailure();
+		assertContains("\"--destfile\"", err);
+		assertContains("java -jar jacococli.jar mmapdump <mmapfile>", err);
+	}
+
+	@Test
+	public void should_write_dump() throws Exception {
+		final File mmapfile = new File(tmp.getRoot(), "jacoco.mmap");
+		final RandomAccessFile file = new RandomAccessFile(mmapfile, "rw");
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file.getChannel());
+		writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(42, "Foo", new boolean[] { true }));
+		writer.flush();
+		final File execfile = new File(tmp.getRoot(), "jacoco.exec");
+
+		execute("mmapdump", mmapfile.getAbsolutePath(), "--destfile",
+				execfile.getAbsolutePath());
+		file.close();
+
+		assertOk();
+		assertContains("[INFO] Reading execution data from "
+				+ mmapfile.getAbsolutePath(), out);
+		assertContains("[INFO] Writing execution data to "
+				+ execfile.getAbsolutePath(), out);
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(execfile);
+		assertEquals("session",
+				loader.getSessionInfoStore().getInfos().get(0).getId());
+		assertTrue(loader.getExecutionDataStore().get(42).getProbes()[0]);
+	}
+
+}
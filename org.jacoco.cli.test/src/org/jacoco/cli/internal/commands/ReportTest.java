@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -57,7 +58,7 @@ public class ReportTest extends CommandTestBase {
 		execute("report", "--classfiles", getClassPath());
 
 		assertOk();
-		assertContains("[INFO] Analyzing 14 classes.", out);
+		assertContains("[INFO] Analyzing 17 classes.", out);
 	}
 
 	@Test
@@ -86,6 +87,54 @@ public class ReportTest extends CommandTestBase {
 				out);
 	}
 
+	@Test
+	public void should_use_packed_probes_when_packedprobes_option_is_provided()
+			throws Exception {
+		File exec = new File(tmp.getRoot(), "jacoco.exec");
+		final FileOutputStream execout = new FileOutputStream(exec);
+		ExecutionDataWriter writer = new ExecutionDataWriter(execout);
+		writer.visitClassExecution(
+				new ExecutionData(0x123, getClass().getName().replace('.', '/'),
+						new boolean[] { true }));
+		execout.close();
+
+		execute("report", exec.getAbsolutePath(), "--packedprobes",
+				"--classfiles", getClassPath());
+
+		assertOk();
+		assertContains(
+				"[WARN] Execution data for class org/jacoco/cli/internal/commands/ReportTest does not match.",
+				out);
+	}
+
+	@Test
+	public void should_analyze_in_parallel_when_threads_option_is_provided()
+			throws Exception {
+		File xml = new File(tmp.getRoot(), "coverage.xml");
+
+		execute("report", "--threads", "4", "--classfiles", getClassPath(),
+				"--xml", xml.getAbsolutePath());
+
+		assertOk();
+		assertContains("[INFO] Analyzing 17 classes.", out);
+		assertTrue(xml.isFile());
+	}
+
+	@Test
+	public void should_use_cache_when_analysiscache_option_is_provided()
+			throws Exception {
+		File cache = new File(tmp.getRoot(), "cache");
+
+		execute("report", "--analysiscache", cache.getAbsolutePath(),
+				"--classfiles", getClassPath());
+		execute("report", "--analysiscache", cache.getAbsolutePath(),
+				"--classfiles", getClassPath());
+
+		assertOk();
+		assertContains("[INFO] Analyzing 17 classes.", out);
+		assertEquals(18, cache.list().length);
+	}
+
 	@Test
 	public void should_create_xml_report_when_xml_option_is_provided()
 			throws Exception {
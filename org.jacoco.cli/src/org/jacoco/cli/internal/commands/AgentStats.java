@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.PrintWriter;
+
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.jacoco.cli.internal.Command;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>agentstats</code> command.
+ */
+public class AgentStats extends Command {
+
+	private static final String STATISTICS_NAME = "org.jacoco:type=Statistics";
+
+	@Option(name = "--address", usage = "host name or ip address to connect to (default localhost)", metaVar = "<address>")
+	String address = "localhost";
+
+	@Option(name = "--port", usage = "the JMX port of the target VM", metaVar = "<port>", required = true)
+	int port;
+
+	@Override
+	public String description() {
+		return "Print statistics of a JaCoCo agent with enabled 'jmx' option via a remote JMX connection.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws Exception {
+		final JMXServiceURL url = new JMXServiceURL(
+				String.format("service:jmx:rmi:///jndi/rmi://%s:%s/jmxrmi",
+						address, Integer.valueOf(port)));
+		out.printf("[INFO] Connecting to %s.%n", url);
+		final JMXConnector connector = JMXConnectorFactory.connect(url);
+		try {
+			print(connector.getMBeanServerConnection(),
+					new ObjectName(STATISTICS_NAME), out);
+		} finally {
+			connector.close();
+		}
+		return 0;
+	}
+
+	private void print(final MBeanServerConnection connection,
+			final ObjectName name, final PrintWriter out) throws Exception {
+		out.printf("Classes seen:            %d%n",
+				connection.getAttribute(name, "ClassesSeen"));
+		out.printf("Classes filtered:        %d%n",
+				connection.getAttribute(name, "ClassesFiltered"));
+		out.printf("Classes instrumented:    %d%n",
+				connection.getAttribute(name, "ClassesInstrumented"));
+		out.printf("Classes failed:          %d%n",
+				connection.getAttribute(name, "ClassesFailed"));
+		out.printf("Bytes in:                %d%n",
+				connection.getAttribute(name, "BytesIn"));
+		out.printf("Bytes out:               %d%n",
+				connection.getAttribute(name, "BytesOut"));
+		out.printf("Instrumentation time:    %s%n", millis(
+				connection.getAttribute(name, "InstrumentationNanos")));
+		printHistogram(out, "Instrumentation time per class:",
+				(long[]) connection.getAttribute(name,
+						"InstrumentationHistogram"));
+		out.printf("Dumps:                   %d%n",
+				connection.getAttribute(name, "DumpCount"));
+		out.printf("Dump bytes:              %d%n",
+				connection.getAttribute(name, "DumpBytes"));
+		out.printf("Dump time:               %s%n",
+				millis(connection.getAttribute(name, "DumpNanos")));
+		printHistogram(out, "Dump latency:",
+				(long[]) connection.getAttribute(name, "DumpHistogram"));
+	}
+
+	private static String millis(final Object nanos) {
+		return String.format("%.3f ms",
+				Double.valueOf(((Long) nanos).longValue() / 1e6));
+	}
+
+	/**
+	 * Prints all non-empty buckets. Bucket <i>i</i> counts durations below
+	 * 2<sup><i>i</i></sup> microseconds, the last bucket also counts all
+	 * longer durations.
+	 */
+	private static void printHistogram(final PrintWriter out,
+			final String title, final long[] histogram) {
+		out.println(title);
+		for (int i = 0; i < histogram.length; i++) {
+			if (histogram[i] == 0) {
+				continue;
+			}
+			final String bucket;
+			if (i == histogram.length - 1) {
+				bucket = String.format(">= %d us", Long.valueOf(1L << (i - 1)));
+			} else {
+				bucket = String.format("< %d us", Long.valueOf(1L << i));
+			}
+			out.printf("  %-14s %d%n", bucket, Long.valueOf(histogram[i]));
+		}
+	}
+
+}
@@ -12,21 +12,27 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataIndex;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
 import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
 
 /**
  * The <code>execinfo</code> command.
@@ -36,6 +42,9 @@ public class ExecInfo extends Command {
 	@Argument(usage = "list of JaCoCo *.exec files to read", metaVar = "<execfiles>")
 	List<File> execfiles = new ArrayList<File>();
 
+	@Option(name = "--summary", usage = "only print the number of sessions and classes")
+	boolean summary = false;
+
 	@Override
 	public String description() {
 		return "Print exec file content in human readable format.";
@@ -48,7 +57,11 @@ public class ExecInfo extends Command {
 			out.println("[WARN] No execution data files provided.");
 		} else {
 			for (final File file : execfiles) {
-				dump(file, out);
+				if (summary) {
+					summary(file, out);
+				} else {
+					dump(file, out);
+				}
 			}
 		}
 		return 0;
@@ -82,6 +95,51 @@ public class ExecInfo extends Command {
 		out.println();
 	}
 
+	private void summary(final File file, final PrintWriter out)
+			throws IOException {
+		out.printf("[INFO] Loading exec file %s.%n", file);
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final ExecutionDataIndex index = ExecutionDataIndex
+					.read(raf.getChannel());
+			if (index != null) {
+				printSummary(out, index.getSessionCount(),
+						index.getClassCount());
+				return;
+			}
+		} finally {
+			raf.close();
+		}
+		final int[] sessionCount = new int[1];
+		final Set<Long> ids = new HashSet<Long>();
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			final ExecutionDataReader reader = new ExecutionDataReader(
+					new BufferedInputStream(in));
+			reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+				public void visitSessionInfo(final SessionInfo info) {
+					sessionCount[0]++;
+				}
+			});
+			reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData data) {
+					ids.add(Long.valueOf(data.getId()));
+				}
+			});
+			reader.read();
+		} finally {
+			in.close();
+		}
+		printSummary(out, sessionCount[0], ids.size());
+	}
+
+	private void printSummary(final PrintWriter out, final int sessionCount,
+			final int classCount) {
+		out.printf("Sessions: %d%n", Integer.valueOf(sessionCount));
+		out.printf("Classes:  %d%n", Integer.valueOf(classCount));
+		out.println();
+	}
+
 	private int getHitCount(final boolean[] data) {
 		int count = 0;
 		for (final boolean hit : data) {
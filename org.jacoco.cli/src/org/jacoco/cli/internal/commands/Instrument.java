@@ -14,18 +14,24 @@
 package org.jacoco.cli.internal.commands;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
+import org.jacoco.core.tools.InstrumentationManifest;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
 
@@ -37,11 +43,31 @@ public class Instrument extends Command {
 	@Option(name = "--dest", usage = "path to write instrumented Java classes to", metaVar = "<dir>", required = true)
 	File dest;
 
+	@Option(name = "--threads", usage = "number of threads used to instrument class files (default 1)", metaVar = "<n>")
+	int threads = 1;
+
+	@Option(name = "--manifest", usage = "file to record instrumented files in, unchanged files are skipped in subsequent runs", metaVar = "<file>")
+	File manifest;
+
 	@Argument(usage = "list of folder or files to instrument recursively", metaVar = "<sourcefiles>")
 	List<File> source = new ArrayList<File>();
 
 	private Instrumenter instrumenter;
 
+	private ExecutorService executor;
+
+	private final List<FutureTask<Integer>> tasks = new ArrayList<FutureTask<Integer>>();
+
+	private final AtomicLong bytes = new AtomicLong();
+
+	private File absoluteDest;
+
+	private InstrumentationManifest previous;
+
+	private InstrumentationManifest current;
+
+	private final AtomicInteger skipped = new AtomicInteger();
+
 	@Override
 	public String description() {
 		return "Off-line instrumentation of Java class files and JAR files.";
@@ -50,52 +76,147 @@ public class Instrument extends Command {
 	@Override
 	public int execute(final PrintWriter out, final PrintWriter err)
 			throws IOException {
-		final File absoluteDest = dest.getAbsoluteFile();
+		final long start = System.nanoTime();
+		absoluteDest = dest.getAbsoluteFile();
+		if (manifest != null) {
+			previous = new InstrumentationManifest();
+			previous.load(manifest);
+			current = new InstrumentationManifest();
+		}
 		instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
-		int total = 0;
-		for (final File s : source) {
-			if (s.isFile()) {
-				total += instrument(s, new File(absoluteDest, s.getName()));
-			} else {
-				total += instrumentRecursive(s, absoluteDest);
+		// Files and the entries of archives share the same threads
+		executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		final int total;
+		try {
+			instrumenter.setExecutor(executor);
+			for (final File s : source) {
+				if (s.isFile()) {
+					instrument(s, new File(absoluteDest, s.getName()));
+				} else {
+					instrumentRecursive(s, absoluteDest);
+				}
+			}
+			total = complete();
+			if (current != null) {
+				current.save(manifest);
+			}
+		} finally {
+			for (final FutureTask<Integer> task : tasks) {
+				task.cancel(false);
+			}
+			if (executor != null) {
+				executor.shutdown();
 			}
 		}
 		out.printf("[INFO] %s classes instrumented to %s.%n",
 				Integer.valueOf(total), absoluteDest);
+		if (current != null) {
+			out.printf("[INFO] %s unchanged files skipped.%n",
+					Integer.valueOf(skipped.get()));
+		}
+		final double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+		out.printf("[INFO] %.0f classes/s, %.0f bytes/s.%n",
+				Double.valueOf(total / seconds),
+				Double.valueOf(bytes.get() / seconds));
 		return 0;
 	}
 
-	private int instrumentRecursive(final File src, final File dest)
-			throws IOException {
-		int total = 0;
+	private void instrumentRecursive(final File src, final File dest) {
 		if (src.isDirectory()) {
 			for (final File child : src.listFiles()) {
-				total += instrumentRecursive(child,
-						new File(dest, child.getName()));
+				instrumentRecursive(child, new File(dest, child.getName()));
 			}
 		} else {
-			total += instrument(src, dest);
+			instrument(src, dest);
+		}
+	}
+
+	private void instrument(final File src, final File dest) {
+		final FutureTask<Integer> task = new FutureTask<Integer>(
+				new Callable<Integer>() {
+					public Integer call() throws IOException {
+						return Integer.valueOf(instrumentFile(src, dest));
+					}
+				});
+		tasks.add(task);
+		if (executor != null) {
+			executor.execute(task);
+		}
+	}
+
+	/**
+	 * Waits for all files in their original order. Files which have not been
+	 * started yet are instrumented in the calling thread.
+	 */
+	private int complete() throws IOException {
+		int total = 0;
+		for (final FutureTask<Integer> task : tasks) {
+			task.run();
+			try {
+				total += task.get().intValue();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Instrumentation interrupted.");
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw (RuntimeException) cause;
+			}
 		}
 		return total;
 	}
 
-	private int instrument(final File src, final File dest) throws IOException {
+	private int instrumentFile(final File src, final File dest)
+			throws IOException {
+		if (current == null) {
+			return instrumentCounted(src, dest);
+		}
+		final String name = absoluteDest.toURI().relativize(dest.toURI())
+				.getPath();
+		final long sourceId = InstrumentationManifest.id(src);
+		if (dest.isFile()) {
+			final long outputId = InstrumentationManifest.id(dest);
+			if (previous.contains(name, sourceId, outputId)) {
+				current.put(name, sourceId, outputId);
+				skipped.incrementAndGet();
+				return 0;
+			}
+		}
+		final int count = instrumentCounted(src, dest);
+		current.put(name, sourceId, InstrumentationManifest.id(dest));
+		return count;
+	}
+
+	private int instrumentCounted(final File src, final File dest)
+			throws IOException {
+		final int count = instrumentAll(src, dest);
+		// Only sources which actually contain classes count for the rate
+		if (count > 0) {
+			bytes.addAndGet(src.length());
+		}
+		return count;
+	}
+
+	private int instrumentAll(final File src, final File dest)
+			throws IOException {
 		dest.getParentFile().mkdirs();
-		final InputStream input = new FileInputStream(src);
 		try {
 			final OutputStream output = new FileOutputStream(dest);
 			try {
-				return instrumenter.instrumentAll(input, output,
-						src.getAbsolutePath());
+				return instrumenter.instrumentAll(src.getAbsoluteFile(),
+						output);
 			} finally {
 				output.close();
 			}
 		} catch (final IOException e) {
 			dest.delete();
 			throw e;
-		} finally {
-			input.close();
 		}
 	}
 
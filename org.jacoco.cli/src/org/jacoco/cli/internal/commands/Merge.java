@@ -12,14 +12,25 @@
  *******************************************************************************/
 package org.jacoco.cli.internal.commands;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.channels.FileLock;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.jacoco.cli.internal.Command;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IndexedExecutionDataWriter;
+import org.jacoco.core.tools.ExecFileCompactor;
+import org.jacoco.core.tools.ExecFileMerger;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
 
@@ -34,6 +45,25 @@ public class Merge extends Command {
 	@Option(name = "--destfile", usage = "file to write merged execution data to", metaVar = "<path>", required = true)
 	File destfile;
 
+	@Option(name = "--packedprobes", usage = "pack probes of loaded execution data into bit sets to reduce memory consumption")
+	boolean packedprobes = false;
+
+	@Option(name = "--indexed", usage = "write an index for random access to the execution data of single classes")
+	boolean indexed = false;
+
+	@Option(name = "--compress", usage = "write execution data in compressed blocks", forbids = "--indexed")
+	boolean compress = false;
+
+	@Option(name = "--compact", usage = "compact the destination file in place by merging appended data into its indexed part", forbids = {
+			"--indexed", "--compress" })
+	boolean compact = false;
+
+	@Option(name = "--threads", usage = "number of threads used to read and merge exec files (default 1)", metaVar = "<n>")
+	int threads = 1;
+
+	@Option(name = "--maxmemory", usage = "approximate memory limit for execution data in megabytes, data exceeding it is spilled to temporary files", metaVar = "<mb>")
+	int maxmemory = 0;
+
 	@Override
 	public String description() {
 		return "Merges multiple exec files into a new one.";
@@ -42,26 +72,161 @@ public class Merge extends Command {
 	@Override
 	public int execute(final PrintWriter out, final PrintWriter err)
 			throws IOException {
-		final ExecFileLoader loader = loadExecutionData(out);
-		out.printf("[INFO] Writing execution data to %s.%n",
-				destfile.getAbsolutePath());
-		loader.save(destfile, true);
+		final long start = System.currentTimeMillis();
+		final ExecFileMerger merger = new ExecFileMerger(packedprobes);
+		final ExecutorService executor = threads > 1
+				? Executors.newFixedThreadPool(threads)
+				: null;
+		if (executor != null) {
+			merger.setExecutor(executor, threads);
+		}
+		merger.setMaxMemory(maxmemory * 1024L * 1024L, null);
+		try {
+			if (indexed) {
+				mergeIndexed(merger, out);
+			} else {
+				merge(merger, out);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
+		}
+		final long time = Math.max(1, System.currentTimeMillis() - start);
+		out.printf(
+				"[INFO] Merged %d sessions and %d classes from %d files (%d bytes) in %d ms, %d files/s, %d KB/s.%n",
+				Integer.valueOf(merger.getSessionCount()),
+				Integer.valueOf(merger.getClassCount()),
+				Integer.valueOf(merger.getFileCount()),
+				Long.valueOf(merger.getByteCount()), Long.valueOf(time),
+				Long.valueOf(merger.getFileCount() * 1000L / time),
+				Long.valueOf(merger.getByteCount() * 1000L / 1024L / time));
+		if (merger.getSpillCount() > 0) {
+			out.printf(
+					"[INFO] Execution data has been spilled to %d temporary files.%n",
+					Integer.valueOf(merger.getSpillCount()));
+		}
+		if (compact) {
+			compact(out);
+		}
 		return 0;
 	}
 
-	private ExecFileLoader loadExecutionData(final PrintWriter out)
+	private void compact(final PrintWriter out) throws IOException {
+		out.printf("[INFO] Compacting execution data file %s.%n",
+				destfile.getAbsolutePath());
+		final ExecFileCompactor compactor = new ExecFileCompactor();
+		compactor.compact(destfile);
+		out.printf(
+				"[INFO] Compacted %d bytes with %d sessions, %d classes updated in place, %d classes added.%n",
+				Long.valueOf(compactor.getAppendedBytes()),
+				Integer.valueOf(compactor.getAppendedSessionCount()),
+				Integer.valueOf(compactor.getUpdatedClassCount()),
+				Integer.valueOf(compactor.getAddedClassCount()));
+	}
+
+	private void merge(final ExecFileMerger merger, final PrintWriter out)
 			throws IOException {
-		final ExecFileLoader loader = new ExecFileLoader();
+		// Data is written to a temporary file first, so the destination file
+		// is not modified if a file can not be read and can itself be an input
+		final File temp = createTempFile();
+		try {
+			final OutputStream stream = new BufferedOutputStream(
+					new FileOutputStream(temp));
+			try {
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						stream, compress);
+				merger.load(getExecFiles(out), writer);
+				merger.accept(writer);
+				writer.flush();
+			} finally {
+				stream.close();
+			}
+			out.printf("[INFO] Writing execution data to %s.%n",
+					destfile.getAbsolutePath());
+			append(temp);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private void mergeIndexed(final ExecFileMerger merger,
+			final PrintWriter out) throws IOException {
+		// The index has to cover the whole file, so existing content is
+		// merged instead of appended
+		final List<File> files = getExecFiles(out);
+		if (destfile.exists()) {
+			files.add(destfile);
+		}
+		final File temp = createTempFile();
+		try {
+			final OutputStream stream = new BufferedOutputStream(
+					new FileOutputStream(temp));
+			try {
+				final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+						stream);
+				merger.load(files, writer);
+				merger.accept(writer);
+				writer.finish();
+			} finally {
+				stream.close();
+			}
+			out.printf("[INFO] Writing execution data to %s.%n",
+					destfile.getAbsolutePath());
+			replace(temp);
+		} finally {
+			temp.delete();
+		}
+	}
+
+	private File createTempFile() throws IOException {
+		final File folder = destfile.getAbsoluteFile().getParentFile();
+		folder.mkdirs();
+		return File.createTempFile(destfile.getName(), ".tmp", folder);
+	}
+
+	private void append(final File temp) throws IOException {
+		final FileOutputStream fileStream = new FileOutputStream(destfile,
+				true);
+		// Avoid concurrent writes from other processes, see ExecFileLoader
+		final FileLock lock = fileStream.getChannel().lock();
+		try {
+			final InputStream in = new FileInputStream(temp);
+			try {
+				final byte[] buffer = new byte[0x2000];
+				int len;
+				while ((len = in.read(buffer)) != -1) {
+					fileStream.write(buffer, 0, len);
+				}
+			} finally {
+				in.close();
+			}
+		} finally {
+			lock.channel().close();
+		}
+	}
+
+	private void replace(final File temp) throws IOException {
+		if (!temp.renameTo(destfile)) {
+			// Some platforms do not replace existing files on rename
+			destfile.delete();
+			if (!temp.renameTo(destfile)) {
+				throw new IOException(String.format(
+						"Can't write execution data file %s.",
+						destfile.getAbsolutePath()));
+			}
+		}
+	}
+
+	private List<File> getExecFiles(final PrintWriter out) {
 		if (execfiles.isEmpty()) {
 			out.println("[WARN] No execution data files provided.");
-		} else {
-			for (final File file : execfiles) {
-				out.printf("[INFO] Loading execution data file %s.%n",
-						file.getAbsolutePath());
-				loader.load(file);
-			}
 		}
-		return loader;
+		for (final File file : execfiles) {
+			out.printf("[INFO] Loading execution data file %s.%n",
+					file.getAbsolutePath());
+		}
+		return new ArrayList<File>(execfiles);
 	}
 
 }
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.data.MappedExecutionDataReader;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>mmapdump</code> command.
+ */
+public class MmapDump extends Command {
+
+	@Argument(usage = "memory-mapped file of the JaCoCo agent", metaVar = "<mmapfile>", required = true)
+	File mmapfile;
+
+	@Option(name = "--destfile", usage = "file to write execution data to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Override
+	public String description() {
+		return "Read execution data from a JaCoCo agent running in 'mmap' output mode.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws Exception {
+		out.printf("[INFO] Reading execution data from %s.%n",
+				mmapfile.getAbsolutePath());
+		final ExecFileLoader loader = new ExecFileLoader();
+		final RandomAccessFile file = new RandomAccessFile(mmapfile, "r");
+		try {
+			final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+					file.getChannel());
+			reader.setSessionInfoVisitor(loader.getSessionInfoStore());
+			reader.setExecutionDataVisitor(loader.getExecutionDataStore());
+			reader.read();
+		} finally {
+			file.close();
+		}
+		out.printf("[INFO] Writing execution data to %s.%n",
+				destfile.getAbsolutePath());
+		loader.save(destfile, true);
+		return 0;
+	}
+
+}
@@ -20,6 +20,8 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.analysis.Analyzer;
@@ -72,6 +74,15 @@ public class Report extends Command {
 	@Option(name = "--html", usage = "output directory for the HTML report", metaVar = "<dir>")
 	File html;
 
+	@Option(name = "--packedprobes", usage = "pack probes of loaded execution data into bit sets to reduce memory consumption")
+	boolean packedprobes = false;
+
+	@Option(name = "--threads", usage = "number of threads used to analyze class files (default 1)", metaVar = "<n>")
+	int threads = 1;
+
+	@Option(name = "--analysiscache", usage = "directory to cache analysis results of class files across runs", metaVar = "<dir>")
+	File analysiscache;
+
 	@Override
 	public String description() {
 		return "Generate reports in different formats by reading exec and Java class files.";
@@ -89,7 +100,7 @@ public class Report extends Command {
 
 	private ExecFileLoader loadExecutionData(final PrintWriter out)
 			throws IOException {
-		final ExecFileLoader loader = new ExecFileLoader();
+		final ExecFileLoader loader = new ExecFileLoader(packedprobes);
 		if (execfiles.isEmpty()) {
 			out.println("[WARN] No execution data files provided.");
 		} else {
@@ -106,8 +117,19 @@ public class Report extends Command {
 			final PrintWriter out) throws IOException {
 		final CoverageBuilder builder = new CoverageBuilder();
 		final Analyzer analyzer = new Analyzer(data, builder);
-		for (final File f : classfiles) {
-			analyzer.analyzeAll(f);
+		final ExecutorService executor = threads > 1
+				? Executors.newFixedThreadPool(threads)
+				: null;
+		try {
+			analyzer.setExecutor(executor);
+			analyzer.setCacheDirectory(analysiscache);
+			for (final File f : classfiles) {
+				analyzer.analyzeAll(f);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdown();
+			}
 		}
 		printNoMatchWarning(builder.getNoMatchClasses(), out);
 		return builder.getBundle(name);
@@ -26,11 +26,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -40,6 +44,8 @@ import java.util.zip.ZipOutputStream;
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.internal.Pack200Streams;
+import org.jacoco.core.internal.analysis.AnalysisCache;
+import org.jacoco.core.internal.analysis.ClassTrace;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.test.TargetLoader;
 import org.jacoco.core.test.validation.JavaVersion;
@@ -432,6 +438,71 @@ public class AnalyzerTest {
 		}
 	}
 
+	@Test
+	public void analyzeAll_should_analyze_zip_file() throws IOException {
+		final File file = new File(folder.getRoot(), "test.zip");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(file));
+		zip.putNextEntry(new ZipEntry("org/"));
+		zip.putNextEntry(new ZipEntry("readme.txt"));
+		zip.write(new byte[10000]);
+		zip.putNextEntry(
+				new ZipEntry("org/jacoco/core/analysis/AnalyzerTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(AnalyzerTest.class));
+		zip.putNextEntry(new ZipEntry("nested.jar"));
+		final ZipOutputStream nested = new ZipOutputStream(zip);
+		nested.putNextEntry(new ZipEntry("Analyzer.class"));
+		nested.write(TargetLoader.getClassDataAsBytes(Analyzer.class));
+		nested.finish();
+		zip.close();
+
+		final int count = analyzer.analyzeAll(file);
+
+		assertEquals(2, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest",
+				"org/jacoco/core/analysis/Analyzer");
+	}
+
+	@Test
+	public void analyzeAll_should_read_zip_file_without_central_directory_as_stream()
+			throws IOException {
+		final File file = new File(folder.getRoot(), "test.zip");
+		final OutputStream out = new FileOutputStream(file);
+		final ZipOutputStream zip = new ZipOutputStream(out);
+		zip.putNextEntry(
+				new ZipEntry("org/jacoco/core/analysis/AnalyzerTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(AnalyzerTest.class));
+		zip.closeEntry();
+		// Closed without writing the central directory
+		out.close();
+
+		final int count = analyzer.analyzeAll(file);
+
+		assertEquals(1, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest");
+	}
+
+	@Test
+	public void analyzeAll_should_throw_exception_for_broken_class_in_zip_file()
+			throws IOException {
+		final File file = new File(folder.getRoot(), "test.zip");
+		final ZipOutputStream zip = new ZipOutputStream(
+				new FileOutputStream(file));
+		zip.putNextEntry(new ZipEntry("Broken.class"));
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.write(brokenclass);
+		zip.close();
+
+		try {
+			analyzer.analyzeAll(file);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertExceptionMessage(file.getPath() + "@Broken.class", e);
+		}
+	}
+
 	/**
 	 * Triggers {@link IllegalArgumentException} (JDK < 23) or
 	 * {@link ZipException} (JDK >= 23) in
@@ -498,6 +569,206 @@ public class AnalyzerTest {
 		}
 	}
 
+	@Test
+	public void analyzeAll_should_report_classes_in_order_when_executor_is_set()
+			throws IOException {
+		final Class<?>[] sources = { AnalyzerTest.class,
+				CounterComparatorTest.class, CoverageBuilderTest.class,
+				CoverageNodeImplTest.class, NodeComparatorTest.class,
+				Analyzer.class, CoverageBuilder.class };
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (int i = 0; i < 100; i++) {
+			for (final Class<?> source : sources) {
+				zip.putNextEntry(new ZipEntry(i + "/" + source.getName()));
+				zip.write(TargetLoader.getClassDataAsBytes(source));
+			}
+		}
+		zip.finish();
+		final List<IClassCoverage> sequential = analyzeWithExecutor(
+				buffer.toByteArray(), null);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<IClassCoverage> parallel = analyzeWithExecutor(
+					buffer.toByteArray(), executor);
+
+			assertEquals(700, parallel.size());
+			for (int i = 0; i < sequential.size(); i++) {
+				final IClassCoverage expected = sequential.get(i);
+				final IClassCoverage actual = parallel.get(i);
+				assertEquals(expected.getName(), actual.getName());
+				assertEquals(expected.getInstructionCounter(),
+						actual.getInstructionCounter());
+				assertEquals(expected.getBranchCounter(),
+						actual.getBranchCounter());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private List<IClassCoverage> analyzeWithExecutor(final byte[] zip,
+			final ExecutorService executor) throws IOException {
+		final List<IClassCoverage> result = new ArrayList<IClassCoverage>();
+		final Analyzer analyzer = new Analyzer(executionData,
+				new ICoverageVisitor() {
+					public void visitCoverage(final IClassCoverage coverage) {
+						result.add(coverage);
+					}
+				});
+		analyzer.setExecutor(executor);
+		assertEquals(700,
+				analyzer.analyzeAll(new ByteArrayInputStream(zip), "Test"));
+		return result;
+	}
+
+	@Test
+	public void analyzeClass_should_report_class_before_return_when_executor_is_set()
+			throws IOException {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			analyzer.setExecutor(executor);
+
+			analyzer.analyzeClass(
+					TargetLoader.getClassDataAsBytes(AnalyzerTest.class),
+					"Test");
+
+			assertClasses("org/jacoco/core/analysis/AnalyzerTest");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void analyzeAll_should_throw_exception_for_broken_class_when_executor_is_set()
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.putNextEntry(new ZipEntry("Broken.class"));
+		zip.write(brokenclass);
+		zip.putNextEntry(new ZipEntry("Analyzer.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(Analyzer.class));
+		zip.finish();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			analyzer.setExecutor(executor);
+
+			try {
+				analyzer.analyzeAll(
+						new ByteArrayInputStream(buffer.toByteArray()),
+						"test.zip");
+				fail("expected exception");
+			} catch (IOException e) {
+				assertExceptionMessage("test.zip@Broken.class", e);
+			}
+			assertClasses();
+
+			analyzer.analyzeClass(
+					TargetLoader.getClassDataAsBytes(AnalyzerTest.class),
+					"Test");
+			assertClasses("org/jacoco/core/analysis/AnalyzerTest");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void analyzeClass_should_store_and_use_cache_when_cache_directory_is_set()
+			throws IOException {
+		final File cacheDir = folder.newFolder("cache");
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		final long classId = CRC64.classId(bytes);
+		executionData.get(classId, "org/jacoco/core/analysis/AnalyzerTest",
+				400).getProbes()[0] = true;
+		analyzer.setCacheDirectory(cacheDir);
+
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage expected = classes
+				.remove("org/jacoco/core/analysis/AnalyzerTest");
+		assertEquals(1, cacheDir.list().length);
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage actual = classes
+				.remove("org/jacoco/core/analysis/AnalyzerTest");
+
+		assertEquals(expected.getInstructionCounter(),
+				actual.getInstructionCounter());
+		assertEquals(expected.getBranchCounter(), actual.getBranchCounter());
+		assertEquals(expected.getMethods().size(), actual.getMethods().size());
+		assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+	}
+
+	@Test
+	public void analyzeClass_should_use_cache_entry_when_cache_directory_is_set()
+			throws IOException {
+		final File cacheDir = folder.newFolder("cache");
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		new AnalysisCache(cacheDir).put(CRC64.classId(bytes),
+				new ClassTrace("Cached", new byte[] { 0, 0, 0, 0, 0 }));
+		analyzer.setCacheDirectory(cacheDir);
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertClasses("Cached");
+	}
+
+	@Test
+	public void analyzeClass_should_ignore_invalid_cache_entry()
+			throws IOException {
+		final File cacheDir = folder.newFolder("cache");
+		final byte[] bytes = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		new AnalysisCache(cacheDir).put(CRC64.classId(bytes),
+				new ClassTrace("Cached", new byte[] { 42 }));
+		analyzer.setCacheDirectory(cacheDir);
+
+		analyzer.analyzeClass(bytes, "Test");
+
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest");
+	}
+
+	@Test
+	public void analyzeClass_should_calculate_same_method_coverage_as_full_analysis_when_method_coverage_only_is_set()
+			throws IOException {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(Analyzer.class);
+		final boolean[] probes = executionData.get(CRC64.classId(bytes),
+				"org/jacoco/core/analysis/Analyzer", 1000).getProbes();
+		for (int i = 0; i < probes.length; i += 7) {
+			probes[i] = true;
+		}
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage expected = classes
+				.remove("org/jacoco/core/analysis/Analyzer");
+
+		final File cacheDir = folder.newFolder("cache");
+		analyzer.setCacheDirectory(cacheDir);
+		analyzer.setMethodCoverageOnly(true);
+		analyzer.analyzeClass(bytes, "Test");
+		final IClassCoverage actual = classes
+				.remove("org/jacoco/core/analysis/Analyzer");
+
+		final Map<String, ICounter> expectedMethods = new HashMap<String, ICounter>();
+		for (final IMethodCoverage m : expected.getMethods()) {
+			expectedMethods.put(m.getName() + m.getDesc(),
+					m.getMethodCounter());
+		}
+		final Map<String, ICounter> actualMethods = new HashMap<String, ICounter>();
+		for (final IMethodCoverage m : actual.getMethods()) {
+			actualMethods.put(m.getName() + m.getDesc(), m.getMethodCounter());
+		}
+		assertEquals(expectedMethods, actualMethods);
+		assertEquals(expected.getMethodCounter(), actual.getMethodCounter());
+		assertEquals(expected.getClassCounter(), actual.getClassCounter());
+		assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+		assertEquals(0, actual.getInstructionCounter().getTotalCount());
+		assertEquals(0, cacheDir.list().length);
+	}
+
 	private void createClassfile(final String dir, final Class<?> source)
 			throws IOException {
 		File file = new File(folder.getRoot(), dir);
@@ -0,0 +1,474 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecutionDataBufferReader}.
+ */
+public class ExecutionDataBufferReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ByteArrayOutputStream buffer;
+
+	private ExecutionDataWriter writer;
+
+	private ExecutionDataStore store;
+
+	private List<SessionInfo> sessionInfos;
+
+	private Random random;
+
+	@Before
+	public void setup() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		writer = new ExecutionDataWriter(buffer);
+		store = new ExecutionDataStore();
+		sessionInfos = new ArrayList<SessionInfo>();
+		random = new Random(5);
+	}
+
+	@Test
+	public void read_should_read_empty_file() throws IOException {
+		buffer.reset();
+
+		createReaderWithVisitors().read();
+
+		assertTrue(sessionInfos.isEmpty());
+		assertTrue(store.getContents().isEmpty());
+	}
+
+	@Test
+	public void read_should_read_multiple_headers() throws IOException {
+		new ExecutionDataWriter(buffer);
+		new ExecutionDataWriter(buffer);
+
+		createReaderWithVisitors().read();
+
+		assertTrue(store.getContents().isEmpty());
+	}
+
+	@Test
+	public void read_should_throw_IOException_for_invalid_magic_number()
+			throws IOException {
+		buffer.reset();
+		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
+		buffer.write(0x12);
+		buffer.write(0x34);
+
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid execution data file.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_throw_IncompatibleExecDataVersionException_for_invalid_version()
+			throws IOException {
+		buffer.reset();
+		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
+		buffer.write(0xC0);
+		buffer.write(0xC0);
+		final char version = (char) (ExecutionDataWriter.FORMAT_VERSION - 1);
+		buffer.write(version >> 8);
+		buffer.write(version & 0xFF);
+
+		try {
+			createReaderWithVisitors().read();
+			fail("IncompatibleExecDataVersionException expected");
+		} catch (final IncompatibleExecDataVersionException e) {
+			assertEquals(version, e.getActualVersion());
+		}
+	}
+
+	@Test
+	public void read_should_read_extended_version() throws IOException {
+		buffer.reset();
+		new ExecutionDataWriter(buffer, false,
+				ExecutionDataWriter.FORMAT_VERSION_EXTENDED).visitClassExecution(
+						new ExecutionData(1, "Sample", new boolean[] { true }));
+
+		createReaderWithVisitors().read();
+
+		assertEquals("Sample", store.get(1).getName());
+	}
+
+	@Test
+	public void read_should_throw_IOException_for_missing_header()
+			throws IOException {
+		buffer.reset();
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", new boolean[] { true }));
+
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid execution data file.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_throw_IOException_for_unknown_block()
+			throws IOException {
+		buffer.write(0x7f);
+
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Unknown block type 7f.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_throw_EOFException_for_truncated_file()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", createData(8)));
+		final byte[] content = buffer.toByteArray();
+		buffer.reset();
+		buffer.write(content, 0, content.length - 1);
+
+		try {
+			createReaderWithVisitors().read();
+			fail("EOFException expected");
+		} catch (final EOFException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void read_should_throw_IOException_when_no_session_info_visitor_is_set()
+			throws IOException {
+		writer.visitSessionInfo(new SessionInfo("x", 0, 1));
+
+		try {
+			createReader().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("No session info visitor.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_throw_IOException_when_no_execution_data_visitor_is_set()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", createData(8)));
+
+		try {
+			createReader().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("No execution data visitor.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_skip_index() throws IOException {
+		buffer.reset();
+		final IndexedExecutionDataWriter indexedWriter = new IndexedExecutionDataWriter(
+				buffer);
+		indexedWriter.visitSessionInfo(new SessionInfo("x", 0, 1));
+		indexedWriter.visitClassExecution(
+				new ExecutionData(1, "Sample", createData(8)));
+		indexedWriter.finish();
+		writer.visitClassExecution(new ExecutionData(2, "Other", createData(8)));
+
+		createReaderWithVisitors().read();
+
+		assertEquals(1, sessionInfos.size());
+		assertEquals("Sample", store.get(1).getName());
+		assertEquals("Other", store.get(2).getName());
+	}
+
+	@Test
+	public void read_should_throw_EOFException_for_truncated_index()
+			throws IOException {
+		buffer.reset();
+		final IndexedExecutionDataWriter indexedWriter = new IndexedExecutionDataWriter(
+				buffer);
+		indexedWriter.visitClassExecution(
+				new ExecutionData(1, "Sample", createData(8)));
+		indexedWriter.finish();
+		final byte[] content = buffer.toByteArray();
+		buffer.reset();
+		buffer.write(content, 0, content.length - 1);
+
+		try {
+			createReaderWithVisitors().read();
+			fail("EOFException expected");
+		} catch (final EOFException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void read_should_read_compressed_blocks() throws IOException {
+		buffer.reset();
+		final ExecutionDataWriter compressed = new ExecutionDataWriter(buffer,
+				true);
+		final boolean[] data1 = createData(3599);
+		final boolean[] data2 = createData(3599);
+		for (int i = 0; i < 200; i++) {
+			compressed.visitSessionInfo(new SessionInfo("id" + i, i, i));
+			compressed.visitClassExecution(
+					new ExecutionData(1, "Sample1", data1));
+			compressed.visitClassExecution(
+					new ExecutionData(2, "Sample2", data2));
+		}
+		compressed.flush();
+
+		for (final ExecutionDataStore s : new ExecutionDataStore[] {
+				new ExecutionDataStore(false), new ExecutionDataStore(true) }) {
+			final ExecutionDataBufferReader reader = createReaderWithVisitors();
+			reader.setPackedExecutionDataVisitor(s);
+			reader.read();
+
+			assertArrayEquals(data1, s.get(1).getProbes());
+			assertEquals("Sample1", s.get(1).getName());
+			assertArrayEquals(data2, s.get(2).getProbes());
+			assertEquals("Sample2", s.get(2).getName());
+		}
+		sessionInfos.clear();
+		createReaderWithVisitors().read();
+		assertEquals(200, sessionInfos.size());
+		assertArrayEquals(data1, store.get(1).getProbes());
+	}
+
+	@Test
+	public void read_should_throw_IOException_for_invalid_compressed_block()
+			throws IOException {
+		buffer.write(ExecutionDataWriter.BLOCK_COMPRESSED);
+		buffer.write(10);
+		buffer.write(3);
+		buffer.write(new byte[] { 1, 2, 3 });
+
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid compressed block.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void read_should_read_session_info() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("TestSession",
+				2837123124567891234L, 3444234223498879234L));
+
+		createReaderWithVisitors().read();
+
+		assertEquals(1, sessionInfos.size());
+		final SessionInfo info = sessionInfos.get(0);
+		assertEquals("TestSession", info.getId());
+		assertEquals(2837123124567891234L, info.getStartTimeStamp());
+		assertEquals(3444234223498879234L, info.getDumpTimeStamp());
+	}
+
+	@Test
+	public void read_should_read_execution_data() throws IOException {
+		final boolean[] data1 = createData(15);
+		final boolean[] data2 = createData(3599);
+		writer.visitClassExecution(
+				new ExecutionData(Long.MIN_VALUE, "Sample1", data1));
+		writer.visitClassExecution(
+				new ExecutionData(Long.MAX_VALUE, "Sample2", data2));
+
+		createReaderWithVisitors().read();
+
+		assertArrayEquals(data1, store.get(Long.MIN_VALUE).getProbes());
+		assertEquals("Sample1", store.get(Long.MIN_VALUE).getName());
+		assertArrayEquals(data2, store.get(Long.MAX_VALUE).getProbes());
+		assertEquals("Sample2", store.get(Long.MAX_VALUE).getName());
+	}
+
+	@Test
+	public void read_should_return_same_name_instance_for_multiple_sessions()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "Sample", createData(8)));
+		writer.visitClassExecution(
+				new ExecutionData(2, "Sample", createData(8)));
+		final List<ExecutionData> contents = new ArrayList<ExecutionData>();
+		final ExecutionDataBufferReader reader = createReader();
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				contents.add(data);
+			}
+		});
+
+		reader.read();
+
+		assertEquals(2, contents.size());
+		assertSame(contents.get(0).getName(), contents.get(1).getName());
+	}
+
+	@Test
+	public void read_should_pass_packed_probes_to_packed_execution_data_visitor()
+			throws IOException {
+		final boolean[] data = new boolean[] { true, false, false, false,
+				false, false, false, false, true, true };
+		writer.visitClassExecution(new ExecutionData(42, "Sample", data));
+		final ExecutionDataBufferReader reader = createReader();
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				fail("No execution data expected");
+			}
+		});
+		final StringBuilder result = new StringBuilder();
+		reader.setPackedExecutionDataVisitor(
+				new IPackedExecutionDataVisitor() {
+					public void visitClassExecution(final long id,
+							final String name, final int probeCount,
+							final ByteBuffer probes) {
+						result.append(id).append(name).append(probeCount);
+						while (probes.hasRemaining()) {
+							result.append(':').append(probes.get());
+						}
+					}
+				});
+
+		reader.read();
+
+		assertEquals("42Sample10:1:3", result.toString());
+	}
+
+	@Test
+	public void read_should_merge_packed_probes_into_store()
+			throws IOException {
+		final boolean[] data1 = createData(3599);
+		final boolean[] data2 = createData(3599);
+		writer.visitClassExecution(new ExecutionData(42, "Sample", data1));
+		writer.visitClassExecution(new ExecutionData(42, "Sample", data2));
+
+		for (final ExecutionDataStore s : new ExecutionDataStore[] {
+				new ExecutionDataStore(false), new ExecutionDataStore(true) }) {
+			final ExecutionDataBufferReader reader = createReader();
+			reader.setPackedExecutionDataVisitor(s);
+			reader.read();
+
+			final boolean[] probes = s.get(42).getProbes();
+			for (int i = 0; i < probes.length; i++) {
+				assertEquals(data1[i] || data2[i], probes[i]);
+			}
+			assertNull(s.get(43));
+		}
+	}
+
+	@Test
+	public void read_should_read_from_channel() throws IOException {
+		final boolean[] data = createData(100000);
+		for (int i = 0; i < 100; i++) {
+			writer.visitSessionInfo(new SessionInfo("id" + i, i, i));
+			writer.visitClassExecution(
+					new ExecutionData(i, "Sample" + i, data));
+		}
+		final ExecutionDataBufferReader reader = new ExecutionDataBufferReader(
+				Channels.newChannel(
+						new ByteArrayInputStream(buffer.toByteArray())));
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				sessionInfos.add(info);
+			}
+		});
+
+		reader.read();
+
+		assertEquals(100, sessionInfos.size());
+		assertEquals("id99", sessionInfos.get(99).getId());
+		assertEquals(100, store.getContents().size());
+		assertArrayEquals(data, store.get(99).getProbes());
+	}
+
+	@Test
+	public void read_should_read_mapped_file() throws IOException {
+		final boolean[] data = createData(100);
+		writer.visitClassExecution(new ExecutionData(42, "Sample", data));
+		final File file = folder.newFile("jacoco.exec");
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(buffer.toByteArray());
+		out.close();
+
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			final ExecutionDataBufferReader reader = new ExecutionDataBufferReader(
+					channel.map(FileChannel.MapMode.READ_ONLY, 0,
+							channel.size()));
+			reader.setPackedExecutionDataVisitor(store);
+			reader.read();
+		} finally {
+			raf.close();
+		}
+
+		assertArrayEquals(data, store.get(42).getProbes());
+	}
+
+	private ExecutionDataBufferReader createReaderWithVisitors() {
+		final ExecutionDataBufferReader reader = createReader();
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+			public void visitSessionInfo(final SessionInfo info) {
+				sessionInfos.add(info);
+			}
+		});
+		return reader;
+	}
+
+	private ExecutionDataBufferReader createReader() {
+		return new ExecutionDataBufferReader(
+				ByteBuffer.wrap(buffer.toByteArray()));
+	}
+
+	private boolean[] createData(final int probeCount) {
+		final boolean[] data = new boolean[probeCount];
+		for (int j = 0; j < data.length; j++) {
+			data[j] = random.nextBoolean();
+		}
+		data[0] = true;
+		return data;
+	}
+
+}
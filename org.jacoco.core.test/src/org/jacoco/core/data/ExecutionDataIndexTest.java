@@ -0,0 +1,428 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IndexedExecutionDataWriter} and
+ * {@link ExecutionDataIndex}.
+ */
+public class ExecutionDataIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ByteArrayOutputStream buffer;
+
+	private IndexedExecutionDataWriter writer;
+
+	private RandomAccessFile file;
+
+	@Before
+	public void setup() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		writer = new IndexedExecutionDataWriter(buffer);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		if (file != null) {
+			file.close();
+		}
+	}
+
+	@Test
+	public void read_should_read_counts() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("a", 1, 2));
+		writer.visitSessionInfo(new SessionInfo("b", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.finish();
+
+		final ExecutionDataIndex index = readIndex();
+
+		assertEquals(2, index.getSessionCount());
+		assertEquals(2, index.getClassCount());
+		assertEquals(3, index.getEntryCount());
+	}
+
+	@Test
+	public void read_should_read_empty_index() throws IOException {
+		writer.finish();
+
+		final ExecutionDataIndex index = readIndex();
+
+		assertEquals(0, index.getSessionCount());
+		assertEquals(0, index.getClassCount());
+		assertFalse(index.contains(0));
+	}
+
+	@Test
+	public void read_should_return_null_for_file_without_index()
+			throws IOException {
+		new ExecutionDataWriter(buffer).visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+
+		assertNull(readIndex());
+	}
+
+	@Test
+	public void read_should_return_null_for_empty_file() throws IOException {
+		buffer.reset();
+
+		assertNull(readIndex());
+	}
+
+	@Test
+	public void read_should_return_null_when_data_has_been_appended()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.finish();
+		new ExecutionDataWriter(buffer).visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+
+		assertNull(readIndex());
+	}
+
+	@Test
+	public void read_should_return_null_for_invalid_index_position()
+			throws IOException {
+		writer.finish();
+		final byte[] content = buffer.toByteArray();
+		content[content.length - 3]++;
+		buffer.reset();
+		buffer.write(content);
+
+		assertNull(readIndex());
+	}
+
+	@Test
+	public void read_should_read_index_at_given_position() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.finish();
+		final int size = buffer.size();
+		new ExecutionDataWriter(buffer).visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+
+		readIndex();
+		final ExecutionDataIndex index = ExecutionDataIndex
+				.read(file.getChannel(), size);
+
+		assertTrue(index.contains(1));
+		assertFalse(index.contains(2));
+		assertNull(ExecutionDataIndex.read(file.getChannel(), size - 1));
+		assertNull(ExecutionDataIndex.read(file.getChannel(), size + 1));
+	}
+
+	@Test
+	public void getIndexPosition_should_return_position_of_index()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		final int position = buffer.size();
+		writer.finish();
+
+		assertEquals(position, readIndex().getIndexPosition());
+	}
+
+	@Test
+	public void get_should_return_execution_data() throws IOException {
+		final boolean[] probes = new boolean[] { true, false, true };
+		writer.visitClassExecution(new ExecutionData(Long.MAX_VALUE, "A",
+				new boolean[] { false, true }));
+		writer.visitClassExecution(new ExecutionData(Long.MIN_VALUE, "B",
+				new boolean[] { true, false }));
+		writer.visitClassExecution(new ExecutionData(42, "C", probes));
+		writer.finish();
+
+		final ExecutionDataIndex index = readIndex();
+
+		assertTrue(index.contains(42));
+		final ExecutionData data = index.get(42);
+		assertEquals(42, data.getId());
+		assertEquals("C", data.getName());
+		assertArrayEquals(probes, data.getProbes());
+		assertEquals("A", index.get(Long.MAX_VALUE).getName());
+		assertEquals("B", index.get(Long.MIN_VALUE).getName());
+	}
+
+	@Test
+	public void get_should_merge_multiple_blocks_of_same_class()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true, false }));
+		writer.visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { false, true }));
+		writer.finish();
+
+		final ExecutionData data = readIndex().get(1);
+
+		assertArrayEquals(new boolean[] { true, true }, data.getProbes());
+	}
+
+	@Test
+	public void get_should_return_null_for_unknown_class() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.finish();
+
+		final ExecutionDataIndex index = readIndex();
+
+		assertFalse(index.contains(2));
+		assertNull(index.get(2));
+	}
+
+	@Test
+	public void get_should_ignore_data_without_hits() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { false }));
+		writer.finish();
+
+		final ExecutionDataIndex index = readIndex();
+
+		assertEquals(0, index.getEntryCount());
+		assertNull(index.get(1));
+	}
+
+	@Test
+	public void get_should_throw_IOException_when_index_does_not_match_data()
+			throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.finish();
+		final byte[] content = buffer.toByteArray();
+		// class id of the execution data block
+		content[ExecutionDataWriter.getFileHeader().length + 8]++;
+		buffer.reset();
+		buffer.write(content);
+
+		final ExecutionDataIndex index = readIndex();
+		try {
+			index.get(1);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid index.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void merge_should_write_changed_probes_in_place()
+			throws IOException {
+		writer.visitClassExecution(new ExecutionData(1, "A",
+				new boolean[] { true, false, false, false, false, false,
+						false, false, false, false }));
+		writer.visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+		writer.finish();
+		final ExecutionDataIndex index = readIndex("rw");
+		final long size = file.length();
+
+		assertTrue(index.merge(new ExecutionData(1, "A",
+				new boolean[] { false, true, false, false, false, false,
+						false, false, false, true })));
+
+		assertEquals(size, file.length());
+		assertArrayEquals(
+				new boolean[] { true, true, false, false, false, false, false,
+						false, false, true },
+				ExecutionDataIndex.read(file.getChannel()).get(1).getProbes());
+		assertArrayEquals(new boolean[] { true }, index.get(2).getProbes());
+	}
+
+	@Test
+	public void merge_should_not_write_unchanged_probes() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true, true }));
+		writer.finish();
+		final ExecutionDataIndex index = readIndex("r");
+
+		// Would fail for a read-only channel if data was written
+		assertFalse(index.merge(
+				new ExecutionData(1, "A", new boolean[] { false, true })));
+	}
+
+	@Test
+	public void merge_should_throw_IOException_for_unknown_class()
+			throws IOException {
+		writer.finish();
+		final ExecutionDataIndex index = readIndex("rw");
+
+		try {
+			index.merge(new ExecutionData(1, "A", new boolean[] { true }));
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("No execution data for class id 0000000000000001.",
+					e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void merge_should_check_compatibility() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		writer.finish();
+		final ExecutionDataIndex index = readIndex("rw");
+
+		index.merge(new ExecutionData(1, "A", new boolean[] { true, true }));
+	}
+
+	@Test
+	public void writer_should_declare_extended_format_version()
+			throws IOException {
+		writer.finish();
+		final byte[] content = buffer.toByteArray();
+
+		final char version = ExecutionDataWriter.FORMAT_VERSION_EXTENDED;
+		assertEquals(version >> 8, 0xFF & content[3]);
+		assertEquals(version & 0xFF, 0xFF & content[4]);
+	}
+
+	@Test
+	public void writer_should_continue_indexed_file() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("a", 1, 2));
+		writer.visitClassExecution(
+				new ExecutionData(2, "B", new boolean[] { true }));
+		writer.finish();
+		final ExecutionDataIndex base = readIndex();
+		final ByteArrayOutputStream continued = new ByteArrayOutputStream();
+		continued.write(buffer.toByteArray(), 0,
+				(int) base.getIndexPosition());
+		file.close();
+		file = null;
+
+		final IndexedExecutionDataWriter next = new IndexedExecutionDataWriter(
+				continued, base);
+		next.visitSessionInfo(new SessionInfo("b", 1, 2));
+		next.visitClassExecution(
+				new ExecutionData(1, "A", new boolean[] { true }));
+		next.finish();
+		buffer = continued;
+		final ExecutionDataIndex index = readIndex();
+
+		assertEquals(2, index.getSessionCount());
+		assertEquals(2, index.getClassCount());
+		assertEquals("A", index.get(1).getName());
+		assertEquals("B", index.get(2).getName());
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new ByteArrayInputStream(continued.toByteArray()));
+		reader.setExecutionDataVisitor(store);
+		reader.setSessionInfoVisitor(sessions);
+		reader.read();
+		assertEquals(2, store.size());
+		assertEquals(2, sessions.getInfos().size());
+	}
+
+	@Test
+	public void accept_should_emit_entries_sorted_by_class_id()
+			throws IOException {
+		for (int i = 10; i > 0; i--) {
+			writer.visitClassExecution(
+					new ExecutionData(i, "C" + i, new boolean[] { true }));
+		}
+		writer.finish();
+		final ExecutionDataIndex index = readIndex();
+
+		final List<Long> ids = new ArrayList<Long>();
+		final IExecutionDataVisitor visitor = new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				ids.add(Long.valueOf(data.getId()));
+			}
+		};
+		index.accept(visitor);
+		index.accept(visitor, 3, 5);
+
+		assertEquals("[1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 4, 5]", ids.toString());
+	}
+
+	@Test
+	public void accept_should_be_thread_safe() throws Exception {
+		for (int i = 0; i < 1000; i++) {
+			writer.visitClassExecution(new ExecutionData(i, "C" + i,
+					new boolean[] { true, i % 2 == 0 }));
+		}
+		writer.finish();
+		final ExecutionDataIndex index = readIndex();
+
+		final ExecutionDataStore[] stores = new ExecutionDataStore[4];
+		final Thread[] threads = new Thread[stores.length];
+		final IOException[] errors = new IOException[stores.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int part = t;
+			stores[part] = new ExecutionDataStore();
+			threads[part] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						index.accept(stores[part], part * 250,
+								(part + 1) * 250);
+					} catch (final IOException e) {
+						errors[part] = e;
+					}
+				}
+			};
+			threads[part].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+			assertNull(errors[t]);
+			assertEquals(250, stores[t].getContents().size());
+		}
+		assertTrue(stores[3].get(998).getProbes()[1]);
+	}
+
+	private ExecutionDataIndex readIndex() throws IOException {
+		return readIndex("r");
+	}
+
+	private ExecutionDataIndex readIndex(final String mode)
+			throws IOException {
+		final File f = folder.newFile();
+		final FileOutputStream out = new FileOutputStream(f);
+		out.write(buffer.toByteArray());
+		out.close();
+		file = new RandomAccessFile(f, mode);
+		return ExecutionDataIndex.read(file.getChannel());
+	}
+
+}
@@ -24,8 +24,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
+import org.jacoco.core.internal.data.BlockCompression;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -120,6 +125,32 @@ public class ExecutionDataReaderWriterTest {
 		assertEquals(version & 0xFF, 0xFF & header[4]);
 	}
 
+	@Test
+	public void testCompressedHeader() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		createWriter(buffer, true);
+		final byte[] header = buffer.toByteArray();
+
+		final char version = ExecutionDataWriter.FORMAT_VERSION_EXTENDED;
+		assertEquals(version >> 8, 0xFF & header[3]);
+		assertEquals(version & 0xFF, 0xFF & header[4]);
+	}
+
+	@Test
+	public void testReadExtendedVersion() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		new ExecutionDataWriter(buffer, false,
+				ExecutionDataWriter.FORMAT_VERSION_EXTENDED).visitClassExecution(
+						new ExecutionData(3, "Sample", new boolean[] { true }));
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final ExecutionDataReader reader = createReader();
+		reader.setExecutionDataVisitor(store);
+
+		reader.read();
+
+		assertEquals("Sample", store.get(3).getName());
+	}
+
 	@Test
 	public void testMultipleHeaders() throws IOException {
 		new ExecutionDataWriter(buffer);
@@ -128,6 +159,37 @@ public class ExecutionDataReaderWriterTest {
 		assertFalse(createReader().read());
 	}
 
+	@Test
+	public void testSkipIndex() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		final IndexedExecutionDataWriter indexedWriter = new IndexedExecutionDataWriter(
+				buffer);
+		indexedWriter.visitClassExecution(
+				new ExecutionData(3, "Sample", new boolean[] { true }));
+		indexedWriter.finish();
+		new ExecutionDataWriter(buffer).visitClassExecution(
+				new ExecutionData(4, "Other", new boolean[] { true }));
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final ExecutionDataReader reader = createReader();
+		reader.setExecutionDataVisitor(store);
+
+		reader.read();
+
+		assertEquals("Sample", store.get(3).getName());
+		assertEquals("Other", store.get(4).getName());
+	}
+
+	@Test(expected = EOFException.class)
+	public void testTruncatedIndex() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		new IndexedExecutionDataWriter(buffer).finish();
+		final byte[] content = buffer.toByteArray();
+		buffer.reset();
+		buffer.write(content, 0, content.length - 1);
+
+		createReader().read();
+	}
+
 	@Test
 	public void testInvalidMagicNumber() throws IOException {
 		buffer = new ByteArrayOutputStream();
@@ -356,6 +418,128 @@ public class ExecutionDataReaderWriterTest {
 		}
 	}
 
+	@Test
+	public void testCompressed() throws IOException {
+		final ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+		final ExecutionDataWriter uncompressedWriter = createWriter(
+				uncompressed, false);
+		buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = createWriter(buffer, true);
+		final List<ExecutionData> expected = new ArrayList<ExecutionData>();
+		final List<String> sessions = new ArrayList<String>();
+		for (int s = 0; s < 20; s++) {
+			final SessionInfo info = new SessionInfo("s" + s, s, s);
+			writer.visitSessionInfo(info);
+			uncompressedWriter.visitSessionInfo(info);
+			for (int c = 0; c < 100; c++) {
+				final boolean[] probes = new boolean[200];
+				probes[random.nextInt(probes.length)] = true;
+				final ExecutionData data = new ExecutionData(c,
+						"org/example/Class" + c, probes);
+				writer.visitClassExecution(data);
+				uncompressedWriter.visitClassExecution(data);
+				expected.add(data);
+			}
+		}
+		writer.flush();
+		final List<ExecutionData> actual = new ArrayList<ExecutionData>();
+		final ExecutionDataReader reader = createReader();
+		reader.setSessionInfoVisitor(new ISessionInfoVisitor() {
+			public void visitSessionInfo(SessionInfo info) {
+				sessions.add(info.getId());
+			}
+		});
+		reader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+			public void visitClassExecution(ExecutionData data) {
+				actual.add(data);
+			}
+		});
+
+		assertFalse(reader.read());
+
+		assertEquals(20, sessions.size());
+		assertEquals("s19", sessions.get(19));
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getId(), actual.get(i).getId());
+			assertEquals(expected.get(i).getName(), actual.get(i).getName());
+			assertArrayEquals(expected.get(i).getProbes(),
+					actual.get(i).getProbes());
+		}
+		assertTrue(buffer.size() < uncompressed.size() / 4);
+	}
+
+	@Test
+	public void testCompressedWritesPendingDataOnFlush() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = createWriter(buffer, true);
+		writer.visitClassExecution(
+				new ExecutionData(3, "Sample", new boolean[] { true }));
+		assertEquals(5, buffer.size());
+
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals("Sample", store.get(3).getName());
+	}
+
+	@Test
+	public void testCompressedAppended() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		ExecutionDataWriter writer = createWriter(buffer, true);
+		writer.visitClassExecution(
+				new ExecutionData(3, "A", new boolean[] { true }));
+		writer.flush();
+		writer = createWriter(buffer, true);
+		writer.visitClassExecution(
+				new ExecutionData(4, "B", new boolean[] { true }));
+		writer.visitClassExecution(
+				new ExecutionData(3, "A", new boolean[] { true }));
+		writer.flush();
+
+		assertFalse(createReaderWithVisitors().read());
+
+		assertEquals("A", store.get(3).getName());
+		assertEquals("B", store.get(4).getName());
+	}
+
+	@Test
+	public void testInvalidCompressedBlock() throws IOException {
+		buffer.write(ExecutionDataWriter.BLOCK_COMPRESSED);
+		buffer.write(10);
+		buffer.write(3);
+		buffer.write(new byte[] { 1, 2, 3 });
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid compressed block.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalidClassNameReference() throws IOException {
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final CompactDataOutput out = new CompactDataOutput(content);
+		out.writeByte(ExecutionDataWriter.BLOCK_EXECUTIONDATA);
+		out.writeLong(3);
+		out.writeVarInt(1);
+		out.writeBooleanArray(new boolean[] { true });
+		final byte[] compressed = BlockCompression
+				.deflate(content.toByteArray(), content.size());
+		final CompactDataOutput blocks = new CompactDataOutput(buffer);
+		blocks.writeByte(ExecutionDataWriter.BLOCK_COMPRESSED);
+		blocks.writeVarInt(content.size());
+		blocks.writeVarInt(compressed.length);
+		blocks.write(compressed);
+		try {
+			createReaderWithVisitors().read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid class name reference 1.", e.getMessage());
+		}
+	}
+
 	private ExecutionDataReader createReaderWithVisitors() throws IOException {
 		final ExecutionDataReader reader = createReader();
 		reader.setExecutionDataVisitor(store);
@@ -377,7 +561,12 @@ public class ExecutionDataReaderWriterTest {
 
 	protected ExecutionDataWriter createWriter(OutputStream out)
 			throws IOException {
-		return new ExecutionDataWriter(out);
+		return createWriter(out, false);
+	}
+
+	protected ExecutionDataWriter createWriter(OutputStream out,
+			boolean compressed) throws IOException {
+		return new ExecutionDataWriter(out, compressed);
 	}
 
 	protected ExecutionDataReader createReader() throws IOException {
@@ -12,14 +12,17 @@
  *******************************************************************************/
 package org.jacoco.core.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -95,6 +98,20 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void size_should_return_number_of_classes() {
+		final ExecutionDataStore packed = new ExecutionDataStore(true);
+		assertEquals(0, store.size());
+		assertEquals(0, packed.size());
+		for (final ExecutionDataStore s : Arrays.asList(store, packed)) {
+			s.put(new ExecutionData(1000, "A", new boolean[] { true }));
+			s.put(new ExecutionData(1000, "A", new boolean[] { true }));
+			s.put(new ExecutionData(1001, "B", new boolean[] { true }));
+		}
+		assertEquals(2, store.size());
+		assertEquals(2, packed.size());
+	}
+
 	@Test
 	public void testGetWithoutCreate() {
 		final ExecutionData data = new ExecutionData(1000, "Sample",
@@ -247,6 +264,244 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertFalse(data2[2]);
 	}
 
+	@Test
+	public void packed_probes_should_be_disabled_by_default() {
+		assertFalse(store.isPackedProbes());
+		assertTrue(new ExecutionDataStore(true).isPackedProbes());
+	}
+
+	@Test
+	public void packed_probes_put_should_merge_data() {
+		store = new ExecutionDataStore(true);
+		final boolean[] data1 = new boolean[130];
+		data1[0] = true;
+		data1[64] = true;
+		store.put(new ExecutionData(1000, "Sample", data1));
+		final boolean[] data2 = new boolean[130];
+		data2[63] = true;
+		data2[129] = true;
+		store.visitClassExecution(new ExecutionData(1000, "Sample", data2));
+
+		final ExecutionData data = store.get(1000);
+		assertEquals(1000, data.getId());
+		assertEquals("Sample", data.getName());
+		assertEquals(130, data.getProbes().length);
+		for (int i = 0; i < 130; i++) {
+			assertEquals(String.valueOf(i),
+					i == 0 || i == 63 || i == 64 || i == 129,
+					data.getProbes()[i]);
+		}
+		assertTrue(store.contains("Sample"));
+		assertNull(store.get(1001));
+	}
+
+	@Test
+	public void packed_probes_should_copy_data() {
+		store = new ExecutionDataStore(true);
+		final boolean[] probes = new boolean[] { false, true };
+		store.put(new ExecutionData(1000, "Sample", probes));
+		probes[0] = true;
+		store.get(1000).getProbes()[0] = true;
+
+		assertFalse(store.get(1000).getProbes()[0]);
+		assertTrue(store.get(1000).getProbes()[1]);
+	}
+
+	@Test
+	public void packed_probes_put_should_check_compatibility() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "Sample", new boolean[2]));
+		try {
+			store.put(new ExecutionData(1000, "Sample", new boolean[3]));
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Incompatible execution data for class Sample with id 00000000000003e8.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void visitClassExecution_should_merge_packed_probes() {
+		store.visitClassExecution(1000, "Sample", 10,
+				ByteBuffer.wrap(new byte[] { 0x01, 0x02 }));
+		store.visitClassExecution(1000, "Sample", 10,
+				ByteBuffer.wrap(new byte[] { 0x03, 0x00 }));
+
+		final ExecutionData data = store.get(1000);
+		assertEquals("Sample", data.getName());
+		assertEquals(10, data.getProbes().length);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(String.valueOf(i), i == 0 || i == 1 || i == 9,
+					data.getProbes()[i]);
+		}
+		assertTrue(store.contains("Sample"));
+	}
+
+	@Test
+	public void visitClassExecution_should_read_packed_probes_from_position() {
+		final ByteBuffer probes = ByteBuffer
+				.wrap(new byte[] { (byte) 0xFF, 0x04 });
+		probes.position(1);
+
+		store.visitClassExecution(1000, "Sample", 3, probes);
+
+		final boolean[] result = store.get(1000).getProbes();
+		assertFalse(result[0]);
+		assertFalse(result[1]);
+		assertTrue(result[2]);
+		assertEquals(1, probes.position());
+	}
+
+	@Test
+	public void visitClassExecution_should_check_compatibility_of_packed_probes() {
+		store.visitClassExecution(1000, "Sample", 2,
+				ByteBuffer.wrap(new byte[] { 0x01 }));
+		try {
+			store.visitClassExecution(1000, "Sample", 3,
+					ByteBuffer.wrap(new byte[] { 0x01 }));
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Incompatible execution data for class Sample with id 00000000000003e8.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void packed_probes_visitClassExecution_should_merge_packed_probes() {
+		store = new ExecutionDataStore(true);
+		final byte[] bytes = new byte[17];
+		bytes[0] = 0x01;
+		bytes[8] = (byte) 0x80;
+		bytes[16] = (byte) 0xFF;
+		store.visitClassExecution(1000, "Sample", 130,
+				ByteBuffer.wrap(bytes));
+		store.put(new ExecutionData(1000, "Sample", new boolean[130]));
+		store.visitClassExecution(1000, "Sample", 130,
+				ByteBuffer.wrap(new byte[17]));
+
+		final ExecutionData data = store.get(1000);
+		assertEquals(130, data.getProbes().length);
+		for (int i = 0; i < 130; i++) {
+			assertEquals(String.valueOf(i),
+					i == 0 || i == 71 || i == 128 || i == 129,
+					data.getProbes()[i]);
+		}
+		assertTrue(store.contains("Sample"));
+	}
+
+	@Test
+	public void packed_probes_visitClassExecution_should_check_compatibility() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "Sample", new boolean[2]));
+		try {
+			store.visitClassExecution(1000, "Other", 2,
+					ByteBuffer.wrap(new byte[1]));
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			assertEquals(
+					"Different class names Sample and Other for id 00000000000003e8.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void packed_probes_subtract_should_unset_probes() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "Sample",
+				new boolean[] { false, true, false, true }));
+		store.subtract(new ExecutionData(1000, "Sample",
+				new boolean[] { false, false, true, true }));
+		store.subtract(new ExecutionData(2000, "Other",
+				new boolean[] { true }));
+
+		final boolean[] result = store.get(1000).getProbes();
+		assertFalse(result[0]);
+		assertTrue(result[1]);
+		assertFalse(result[2]);
+		assertFalse(result[3]);
+		assertNull(store.get(2000));
+	}
+
+	@Test
+	public void packed_probes_reset_should_unset_probes() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "Sample",
+				new boolean[] { true, true, false }));
+
+		store.reset();
+
+		final boolean[] result = store.get(1000).getProbes();
+		assertEquals(3, result.length);
+		assertFalse(result[0]);
+		assertFalse(result[1]);
+		assertFalse(result[2]);
+	}
+
+	@Test
+	public void packed_probes_accept_and_getContents_should_return_copies() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "A", new boolean[] { true }));
+		store.put(new ExecutionData(1001, "B", new boolean[] { false }));
+
+		store.accept(this);
+
+		assertEquals(2, dataOutput.size());
+		assertTrue(dataOutput.get(Long.valueOf(1000)).getProbes()[0]);
+		assertFalse(dataOutput.get(Long.valueOf(1001)).getProbes()[0]);
+		assertEquals(2, store.getContents().size());
+	}
+
+	@Test
+	public void packed_probes_get_with_create_should_create_new_entry() {
+		store = new ExecutionDataStore(true);
+
+		final ExecutionData data = store.get(Long.valueOf(1000), "Sample", 3);
+		data.getProbes()[1] = true;
+
+		assertSame(data, store.get(Long.valueOf(1000), "Sample", 3));
+		assertTrue(store.contains("Sample"));
+		assertArrayEquals(new boolean[] { false, true, false },
+				store.get(1000).getProbes());
+	}
+
+	@Test
+	public void packed_probes_get_with_create_should_unpack_existing_entry() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "Sample",
+				new boolean[] { true, false, false }));
+
+		final ExecutionData data = store.get(Long.valueOf(1000), "Sample", 3);
+		data.getProbes()[2] = true;
+		store.put(new ExecutionData(1000, "Sample",
+				new boolean[] { false, true, false }));
+		store.visitClassExecution(1000, "Sample", 3,
+				ByteBuffer.wrap(new byte[] { 0x01 }));
+
+		assertArrayEquals(new boolean[] { true, true, true }, data.getProbes());
+		final ExecutionData copy = store.get(1000);
+		assertNotSame(data, copy);
+		assertArrayEquals(new boolean[] { true, true, true },
+				copy.getProbes());
+
+		store.subtract(new ExecutionData(1000, "Sample",
+				new boolean[] { true, false, false }));
+		assertArrayEquals(new boolean[] { false, true, true },
+				data.getProbes());
+		store.reset();
+		assertArrayEquals(new boolean[] { false, false, false },
+				data.getProbes());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void packed_probes_get_with_create_should_check_compatibility() {
+		store = new ExecutionDataStore(true);
+		store.put(new ExecutionData(1000, "Sample", new boolean[3]));
+
+		store.get(Long.valueOf(1000), "Sample", 4);
+	}
+
 	// === IExecutionDataOutput ===
 
 	public void visitClassExecution(final ExecutionData data) {
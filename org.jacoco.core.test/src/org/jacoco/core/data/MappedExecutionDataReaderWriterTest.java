@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedExecutionDataWriter} and
+ * {@link MappedExecutionDataReader}.
+ */
+public class MappedExecutionDataReaderWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private RandomAccessFile file;
+
+	private MappedExecutionDataWriter writer;
+
+	@Before
+	public void setup() throws IOException {
+		file = new RandomAccessFile(folder.newFile("jacoco.mmap"), "rw");
+		writer = new MappedExecutionDataWriter(file.getChannel());
+	}
+
+	@After
+	public void teardown() throws IOException {
+		file.close();
+	}
+
+	@Test
+	public void should_read_nothing_before_first_update() throws IOException {
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(sessions, store);
+
+		assertTrue(sessions.getInfos().isEmpty());
+		assertTrue(store.getContents().isEmpty());
+	}
+
+	@Test
+	public void should_read_session_and_execution_data() throws IOException {
+		writer.visitSessionInfo(new SessionInfo("session", 1000, 2000));
+		writer.visitClassExecution(new ExecutionData(Long.MIN_VALUE, "Foo",
+				new boolean[] { true, false, true }));
+		writer.visitClassExecution(new ExecutionData(Long.MAX_VALUE,
+				"\u00dcml\u00e4ut", new boolean[0]));
+		writer.flush();
+
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(sessions, store);
+
+		final SessionInfo info = sessions.getInfos().get(0);
+		assertEquals("session", info.getId());
+		assertEquals(1000, info.getStartTimeStamp());
+		assertEquals(2000, info.getDumpTimeStamp());
+		assertEquals("Foo", store.get(Long.MIN_VALUE).getName());
+		assertArrayEquals(new boolean[] { true, false, true },
+				store.get(Long.MIN_VALUE).getProbes());
+		assertEquals("\u00dcml\u00e4ut", store.get(Long.MAX_VALUE).getName());
+		assertEquals(0, store.get(Long.MAX_VALUE).getProbes().length);
+	}
+
+	@Test
+	public void should_update_probes_in_place() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		writer.flush();
+		final long size = file.length();
+
+		writer.visitSessionInfo(new SessionInfo("session", 1000, 3000));
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { false, true }));
+		writer.flush();
+
+		final SessionInfoStore sessions = new SessionInfoStore();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(sessions, store);
+		assertEquals(1, store.getContents().size());
+		assertArrayEquals(new boolean[] { false, true },
+				store.get(1).getProbes());
+		assertEquals(3000, sessions.getInfos().get(0).getDumpTimeStamp());
+		assertEquals(size, file.length());
+	}
+
+	@Test
+	public void should_extend_file_for_many_classes() throws IOException {
+		for (int i = 0; i < 5000; i++) {
+			writer.visitClassExecution(new ExecutionData(i, "Class" + i,
+					new boolean[] { true, i % 2 == 0, false, true }));
+		}
+		writer.flush();
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(new SessionInfoStore(), store);
+		assertEquals(5000, store.getContents().size());
+		assertArrayEquals(new boolean[] { true, false, false, true },
+				store.get(4999).getProbes());
+		assertTrue(file.length() > 64 * 1024);
+	}
+
+	@Test
+	public void should_truncate_long_session_id() throws IOException {
+		final StringBuilder id = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			id.append('\u00e4');
+		}
+		writer.visitSessionInfo(new SessionInfo(id.toString(), 0, 0));
+		writer.flush();
+
+		final SessionInfoStore sessions = new SessionInfoStore();
+		read(sessions, new ExecutionDataStore());
+		assertEquals(id.substring(0,
+				MappedExecutionDataWriter.MAX_SESSION_ID_LENGTH / 2),
+				sessions.getInfos().get(0).getId());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_fail_for_different_probe_count() {
+		writer.visitClassExecution(new ExecutionData(1, "Foo", 2));
+		writer.visitClassExecution(new ExecutionData(1, "Foo", 3));
+	}
+
+	@Test
+	public void should_read_pending_update_eventually() throws IOException {
+		writer.visitClassExecution(
+				new ExecutionData(1, "Foo", new boolean[] { true }));
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		read(new SessionInfoStore(), store);
+		assertArrayEquals(new boolean[] { true }, store.get(1).getProbes());
+	}
+
+	@Test
+	public void should_fail_for_invalid_magic_number() throws IOException {
+		file.getChannel().write(ByteBuffer.wrap(new byte[] { 0x01, 0x02 }),
+				0);
+		try {
+			read(new SessionInfoStore(), new ExecutionDataStore());
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid memory-mapped execution data file.",
+					e.getMessage());
+		}
+	}
+
+	@Test(expected = IncompatibleExecDataVersionException.class)
+	public void should_fail_for_incompatible_version() throws IOException {
+		file.getChannel().write(ByteBuffer.wrap(new byte[] { 0x00, 0x01 }),
+				2);
+		read(new SessionInfoStore(), new ExecutionDataStore());
+	}
+
+	@Test
+	public void should_fail_for_short_file() throws IOException {
+		final File empty = folder.newFile("empty.mmap");
+		final RandomAccessFile in = new RandomAccessFile(empty, "r");
+		try {
+			new MappedExecutionDataReader(in.getChannel()).read();
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid memory-mapped execution data file.",
+					e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	private void read(final SessionInfoStore sessions,
+			final ExecutionDataStore store) throws IOException {
+		final MappedExecutionDataReader reader = new MappedExecutionDataReader(
+				file.getChannel());
+		reader.setSessionInfoVisitor(sessions);
+		reader.setExecutionDataVisitor(store);
+		reader.read();
+	}
+
+}
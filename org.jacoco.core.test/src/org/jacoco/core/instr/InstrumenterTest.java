@@ -14,11 +14,15 @@ package org.jacoco.core.instr;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -26,15 +30,22 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.JaCoCo;
 import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.instr.InstrSupport;
@@ -42,7 +53,9 @@ import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.AssumptionViolatedException;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -88,6 +101,9 @@ public class InstrumenterTest {
 
 	}
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private AccessorGenerator accessorGenerator;
 	private Instrumenter instrumenter;
 
@@ -282,6 +298,244 @@ public class InstrumenterTest {
 		assertNull(zipin.getNextEntry());
 	}
 
+	@Test
+	public void instrumentAll_should_instrument_zip_file() throws IOException {
+		final File file = folder.newFile("test.zip");
+		final ZipOutputStream zipout = new ZipOutputStream(
+				new FileOutputStream(file));
+		zipout.putNextEntry(new ZipEntry("META-INF/ALIAS.SF"));
+		zipout.putNextEntry(new ZipEntry("readme.txt"));
+		zipout.write("text".getBytes("UTF-8"));
+		ZipEntry entry = new ZipEntry("TestCompressed.class");
+		entry.setMethod(ZipEntry.DEFLATED);
+		zipout.putNextEntry(entry);
+		zipout.write(TargetLoader.getClassDataAsBytes(getClass()));
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(getClass());
+		entry = new ZipEntry("TestUncompressed.class");
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(bytes.length);
+		final CRC32 crc = new CRC32();
+		crc.update(bytes);
+		entry.setCrc(crc.getValue());
+		zipout.putNextEntry(entry);
+		zipout.write(bytes);
+		zipout.close();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		final int count = instrumenter.instrumentAll(file, out);
+
+		assertEquals(2, count);
+		final ZipInputStream zipin = new ZipInputStream(
+				new ByteArrayInputStream(out.toByteArray()));
+		entry = zipin.getNextEntry();
+		assertEquals("readme.txt", entry.getName());
+		assertEquals("text",
+				new String(InputStreams.readFully(zipin), "UTF-8"));
+		entry = zipin.getNextEntry();
+		assertEquals("TestCompressed.class", entry.getName());
+		assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+		assertInstrumented(InputStreams.readFully(zipin));
+		entry = zipin.getNextEntry();
+		assertEquals("TestUncompressed.class", entry.getName());
+		assertEquals(ZipEntry.STORED, entry.getMethod());
+		assertInstrumented(InputStreams.readFully(zipin));
+		assertNull(zipin.getNextEntry());
+	}
+
+	@Test
+	public void instrumentAll_should_read_zip_file_without_central_directory_as_stream()
+			throws IOException {
+		final File file = folder.newFile("test.zip");
+		final OutputStream fileout = new FileOutputStream(file);
+		final ZipOutputStream zipout = new ZipOutputStream(fileout);
+		zipout.putNextEntry(new ZipEntry("Test.class"));
+		zipout.write(TargetLoader.getClassDataAsBytes(getClass()));
+		zipout.closeEntry();
+		// Closed without writing the central directory
+		fileout.close();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		final int count = instrumenter.instrumentAll(file, out);
+
+		assertEquals(1, count);
+		final ZipInputStream zipin = new ZipInputStream(
+				new ByteArrayInputStream(out.toByteArray()));
+		assertEquals("Test.class", zipin.getNextEntry().getName());
+		assertInstrumented(InputStreams.readFully(zipin));
+	}
+
+	@Test
+	public void instrumentAll_should_instrument_class_file() throws IOException {
+		final File file = folder.newFile("Test.class");
+		final OutputStream fileout = new FileOutputStream(file);
+		fileout.write(TargetLoader.getClassDataAsBytes(getClass()));
+		fileout.close();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		final int count = instrumenter.instrumentAll(file, out);
+
+		assertEquals(1, count);
+		assertInstrumented(out.toByteArray());
+	}
+
+	@Test
+	public void instrumentAll_should_preserve_entry_metadata()
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zipout = new ZipOutputStream(buffer);
+		final ZipEntry entry = new ZipEntry("Test.class");
+		entry.setTime(1000000000000L);
+		entry.setComment("comment");
+		zipout.putNextEntry(entry);
+		zipout.write(TargetLoader.getClassDataAsBytes(getClass()));
+		zipout.close();
+		final File file = folder.newFile("test.zip");
+		final OutputStream fileout = new FileOutputStream(file);
+		fileout.write(buffer.toByteArray());
+		fileout.close();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		instrumenter.instrumentAll(file, out);
+
+		final File result = folder.newFile("result.zip");
+		final OutputStream resultout = new FileOutputStream(result);
+		resultout.write(out.toByteArray());
+		resultout.close();
+		final ZipFile zip = new ZipFile(result);
+		try {
+			final ZipEntry instrumented = zip.getEntry("Test.class");
+			assertEquals(1000000000000L, instrumented.getTime());
+			assertEquals("comment", instrumented.getComment());
+		} finally {
+			zip.close();
+		}
+	}
+
+	@Test
+	public void instrumentAll_should_instrument_zip_file_in_parallel_when_executor_is_set()
+			throws IOException {
+		final File file = createZipFile(200);
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		instrumenter.instrumentAll(file, expected);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			instrumenter.setExecutor(executor);
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+			assertEquals(200, instrumenter.instrumentAll(file, out));
+
+			assertArrayEquals(expected.toByteArray(), out.toByteArray());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void instrumentAll_should_instrument_zip_stream_in_parallel_when_executor_is_set()
+			throws IOException {
+		final File file = createZipFile(2000);
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		InputStream in = new FileInputStream(file);
+		instrumenter.instrumentAll(in, expected, "test.zip");
+		in.close();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		in = new FileInputStream(file);
+		try {
+			instrumenter.setExecutor(executor);
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+			assertEquals(2000, instrumenter.instrumentAll(in, out, "test.zip"));
+
+			assertArrayEquals(expected.toByteArray(), out.toByteArray());
+		} finally {
+			in.close();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void instrumentAll_should_not_dead_lock_when_called_from_executor()
+			throws Exception {
+		final File file = createZipFile(10);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			instrumenter.setExecutor(executor);
+			final Future<Integer> count = executor
+					.submit(new Callable<Integer>() {
+						public Integer call() throws IOException {
+							return Integer.valueOf(instrumenter.instrumentAll(
+									file, new ByteArrayOutputStream()));
+						}
+					});
+
+			assertEquals(10, count.get(10, TimeUnit.SECONDS).intValue());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void instrumentAll_should_throw_exception_for_broken_class_when_executor_is_set()
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zipout = new ZipOutputStream(buffer);
+		zipout.putNextEntry(new ZipEntry("Test.class"));
+		zipout.write(TargetLoader.getClassDataAsBytes(getClass()));
+		zipout.putNextEntry(new ZipEntry("Broken.class"));
+		final byte[] brokenclass = TargetLoader.getClassDataAsBytes(getClass());
+		brokenclass[10] = 0x23;
+		zipout.write(brokenclass);
+		zipout.finish();
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			instrumenter.setExecutor(executor);
+
+			instrumenter.instrumentAll(
+					new ByteArrayInputStream(buffer.toByteArray()),
+					new ByteArrayOutputStream(), "test.zip");
+			fail("exception expected");
+		} catch (final IOException e) {
+			assertExceptionMessage("test.zip@Broken.class", e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private File createZipFile(final int classes) throws IOException {
+		final File file = folder.newFile();
+		final ZipOutputStream zipout = new ZipOutputStream(
+				new FileOutputStream(file));
+		zipout.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+		zipout.write("Manifest-Version: 1.0\r\n".getBytes("UTF-8"));
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(getClass());
+		for (int i = 0; i < classes; i++) {
+			final ZipEntry entry = new ZipEntry("Test" + i + ".class");
+			entry.setTime(1000000000000L + i * 2000L);
+			if (i % 2 == 0) {
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(bytes.length);
+				final CRC32 crc = new CRC32();
+				crc.update(bytes);
+				entry.setCrc(crc.getValue());
+			}
+			zipout.putNextEntry(entry);
+			zipout.write(bytes);
+			zipout.putNextEntry(new ZipEntry("resource" + i + ".txt"));
+			zipout.write(("text" + i).getBytes("UTF-8"));
+		}
+		zipout.close();
+		return file;
+	}
+
+	private void assertInstrumented(final byte[] bytes) throws IOException {
+		final Class<?> clazz = new TargetLoader().add(InstrumenterTest.class,
+				bytes);
+		assertEquals("org.jacoco.core.instr.InstrumenterTest", clazz.getName());
+		assertFalse(Arrays.equals(
+				TargetLoader.getClassDataAsBytes(InstrumenterTest.class),
+				bytes));
+	}
+
 	/**
 	 * Triggers exception in
 	 * {@link org.jacoco.core.internal.ContentTypeDetector#ContentTypeDetector(InputStream)}.
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link AnalysisCache}.
+ */
+public class AnalysisCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File directory;
+
+	private AnalysisCache cache;
+
+	@Before
+	public void setup() {
+		directory = new File(folder.getRoot(), "cache");
+		cache = new AnalysisCache(directory);
+	}
+
+	@Test
+	public void get_should_return_stored_trace() {
+		cache.put(0x1234567890abcdefL,
+				new ClassTrace("Foo", new byte[] { 1, 2, 3 }));
+
+		final ClassTrace trace = cache.get(0x1234567890abcdefL);
+
+		assertEquals("Foo", trace.getClassName());
+		assertArrayEquals(new byte[] { 1, 2, 3 }, trace.getData());
+		assertArrayEquals(new String[] { "1234567890abcdef" },
+				directory.list());
+	}
+
+	@Test
+	public void put_should_replace_existing_entry() {
+		cache.put(42, new ClassTrace("Foo", new byte[] { 1 }));
+		cache.put(42, new ClassTrace("Bar", new byte[] { 2 }));
+
+		final ClassTrace trace = cache.get(42);
+
+		assertEquals("Bar", trace.getClassName());
+		assertArrayEquals(new byte[] { 2 }, trace.getData());
+		assertEquals(1, directory.list().length);
+	}
+
+	@Test
+	public void get_should_return_null_for_missing_entry() {
+		cache.put(42, new ClassTrace("Foo", new byte[] { 1 }));
+
+		assertNull(cache.get(43));
+	}
+
+	@Test
+	public void get_should_return_null_for_invalid_entry() throws IOException {
+		directory.mkdirs();
+		final FileOutputStream out = new FileOutputStream(
+				new File(directory, "000000000000002a"));
+		out.write(new byte[] { 1, 2, 3, 4, 5, 6 });
+		out.close();
+
+		assertNull(cache.get(42));
+	}
+
+	@Test
+	public void get_should_return_null_for_truncated_entry()
+			throws IOException {
+		cache.put(42, new ClassTrace("Foo", new byte[] { 1, 2, 3 }));
+		final RandomAccessFile file = new RandomAccessFile(
+				new File(directory, "000000000000002a"), "rw");
+		file.setLength(file.length() - 1);
+		file.close();
+
+		assertNull(cache.get(42));
+	}
+
+	@Test
+	public void get_should_return_null_for_entry_of_other_class_id() {
+		cache.put(42, new ClassTrace("Foo", new byte[] { 1 }));
+		new File(directory, "000000000000002a")
+				.renameTo(new File(directory, "000000000000002b"));
+
+		assertNull(cache.get(43));
+	}
+
+	@Test
+	public void put_should_ignore_unwritable_directory() throws IOException {
+		directory = folder.newFile("file");
+		cache = new AnalysisCache(directory);
+
+		cache.put(42, new ClassTrace("Foo", new byte[] { 1 }));
+
+		assertNull(cache.get(42));
+	}
+
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.internal.InputStreams;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TextBlock;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link ClassTrace} and {@link ClassTraceRecorder}.
+ */
+public class ClassTraceTest {
+
+	/**
+	 * Classes of JaCoCo itself provide a wide range of constructs which are
+	 * subject to filtering, like switch statements, try-with-resources,
+	 * synchronized blocks and lambdas.
+	 */
+	@Test
+	public void replay_should_calculate_same_coverage_as_analysis()
+			throws IOException {
+		final Random random = new Random(42);
+		final List<byte[]> classes = new ArrayList<byte[]>();
+		collectClasses(ClassAnalyzer.class, classes);
+		collectClasses(ClassTraceTest.class, classes);
+		assertTrue(classes.size() > 100);
+
+		for (final byte[] bytes : classes) {
+			final boolean[] probes = new boolean[10000];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = random.nextBoolean();
+			}
+			assertReplay(bytes, probes);
+			assertReplay(bytes, null);
+		}
+	}
+
+	private static void collectClasses(final Class<?> reference,
+			final List<byte[]> classes) throws IOException {
+		final File location = new File(reference.getProtectionDomain()
+				.getCodeSource().getLocation().getFile());
+		if (location.isDirectory()) {
+			collectClasses(location, classes);
+		} else {
+			final ZipFile zip = new ZipFile(location);
+			try {
+				final Enumeration<? extends ZipEntry> entries = zip.entries();
+				while (entries.hasMoreElements()) {
+					final ZipEntry entry = entries.nextElement();
+					if (entry.getName().endsWith(".class")) {
+						final InputStream in = zip.getInputStream(entry);
+						classes.add(InputStreams.readFully(in));
+						in.close();
+					}
+				}
+			} finally {
+				zip.close();
+			}
+		}
+	}
+
+	private static void collectClasses(final File file,
+			final List<byte[]> classes) throws IOException {
+		if (file.isDirectory()) {
+			for (final File child : file.listFiles()) {
+				collectClasses(child, classes);
+			}
+		} else if (file.getName().endsWith(".class")) {
+			final InputStream in = new FileInputStream(file);
+			classes.add(InputStreams.readFully(in));
+			in.close();
+		}
+	}
+
+	@Test
+	public void replay_should_calculate_fragments() throws IOException {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Foo", null,
+				"java/lang/Object", null);
+		writer.visitSource("Foo.kt", TextBlock.lines( //
+				"SMAP", //
+				"Foo.kt", //
+				"Kotlin", //
+				"*S Kotlin", //
+				"*F", //
+				"+ 1 Foo.kt", //
+				"Foo", //
+				"+ 2 Bar.kt", //
+				"Bar", //
+				"*L", //
+				"1#1,4:1", //
+				"2#1:6", //
+				"1#2:7", //
+				"*E"));
+		writer.visitAnnotation("Lkotlin/Metadata;", false).visitEnd();
+		final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_STATIC, "foo",
+				"()V", null, null);
+		mv.visitCode();
+		final Label label1 = new Label();
+		mv.visitLabel(label1);
+		mv.visitLineNumber(6, label1);
+		mv.visitInsn(Opcodes.NOP);
+		final Label label2 = new Label();
+		mv.visitLabel(label2);
+		mv.visitLineNumber(7, label2);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+
+		final ClassCoverageImpl coverage = assertReplay(writer.toByteArray(),
+				new boolean[] { true });
+
+		assertEquals(2, coverage.getFragments().size());
+	}
+
+	@Test
+	public void replay_should_throw_IOException_for_invalid_trace() {
+		final ClassTrace trace = new ClassTrace("Foo", new byte[] { 42 });
+		try {
+			trace.replay(new ClassCoverageImpl("Foo", 0, false), null,
+					new StringPool());
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid trace operation 42", e.getMessage());
+		}
+	}
+
+	@Test
+	public void replay_should_throw_IOException_for_invalid_probe_id() {
+		final ClassTraceRecorder recorder = new ClassTraceRecorder("Foo");
+		final Instruction instruction = new Instruction(1);
+		recorder.method("foo", "()V", null);
+		recorder.instruction(instruction);
+		recorder.probe(instruction, 5, 0);
+		recorder.endMethod();
+		recorder.end(new ClassCoverageImpl("Foo", 0, false));
+
+		try {
+			recorder.getTrace().replay(new ClassCoverageImpl("Foo", 0, false),
+					new boolean[3], new StringPool());
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid probe id 5", e.getMessage());
+		}
+	}
+
+	@Test
+	public void getTrace_should_return_null_for_unknown_instruction() {
+		final ClassTraceRecorder recorder = new ClassTraceRecorder("Foo");
+		recorder.method("foo", "()V", null);
+		recorder.instruction(new Instruction(1));
+		recorder.probe(new Instruction(1), 0, 0);
+
+		assertEquals(null, recorder.getTrace());
+	}
+
+	private static ClassCoverageImpl assertReplay(final byte[] bytes,
+			final boolean[] probes) throws IOException {
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
+		final String className = reader.getClassName();
+		final ClassCoverageImpl expected = new ClassCoverageImpl(className, 0,
+				false);
+		final ClassTraceRecorder recorder = new ClassTraceRecorder(className);
+		reader.accept(new ClassProbesAdapter(new ClassAnalyzer(expected,
+				probes, new StringPool(), recorder), false), 0);
+
+		final ClassTrace trace = recorder.getTrace();
+		assertNotNull(className, trace);
+		assertEquals(className, trace.getClassName());
+		final ClassCoverageImpl actual = new ClassCoverageImpl(className, 0,
+				false);
+		trace.replay(actual, probes, new StringPool());
+
+		assertClassCoverage(expected, actual);
+		return actual;
+	}
+
+	private static void assertClassCoverage(final ClassCoverageImpl expected,
+			final ClassCoverageImpl actual) {
+		assertNode(expected, actual);
+		assertEquals(expected.getSignature(), actual.getSignature());
+		assertEquals(expected.getSuperName(), actual.getSuperName());
+		assertArrayEquals(expected.getInterfaceNames(),
+				actual.getInterfaceNames());
+		assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+
+		final Collection<IMethodCoverage> expectedMethods = expected
+				.getMethods();
+		assertEquals(expectedMethods.size(), actual.getMethods().size());
+		final Iterator<IMethodCoverage> i = actual.getMethods().iterator();
+		for (final IMethodCoverage m : expectedMethods) {
+			final IMethodCoverage a = i.next();
+			assertNode(m, a);
+			assertEquals(m.getDesc(), a.getDesc());
+			assertEquals(m.getSignature(), a.getSignature());
+		}
+
+		final Collection<SourceNodeImpl> expectedFragments = expected
+				.getFragments();
+		assertEquals(expectedFragments.size(), actual.getFragments().size());
+		final Iterator<SourceNodeImpl> f = actual.getFragments().iterator();
+		for (final SourceNodeImpl e : expectedFragments) {
+			assertNode(e, f.next());
+		}
+	}
+
+	private static void assertNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		final String name = expected.getName();
+		assertEquals(name, actual.getName());
+		for (final ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity
+				.values()) {
+			assertEquals(name + " " + entity, expected.getCounter(entity),
+					actual.getCounter(entity));
+		}
+		assertEquals(name, expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(name, expected.getLastLine(), actual.getLastLine());
+		for (int line = expected.getFirstLine(); line <= expected
+				.getLastLine(); line++) {
+			assertEquals(name + ":" + line,
+					expected.getLine(line).getInstructionCounter(),
+					actual.getLine(line).getInstructionCounter());
+			assertEquals(name + ":" + line,
+					expected.getLine(line).getBranchCounter(),
+					actual.getLine(line).getBranchCounter());
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link MethodCoverageAnalyzer}.
+ */
+public class MethodCoverageAnalyzerTest {
+
+	private ClassCoverageImpl coverage;
+
+	private boolean[] probes;
+
+	private MethodCoverageAnalyzer analyzer;
+
+	@Before
+	public void setup() {
+		coverage = new ClassCoverageImpl("Foo", 0x0000, false);
+		probes = new boolean[6];
+		analyzer = new MethodCoverageAnalyzer(coverage, probes,
+				new StringPool());
+		analyzer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Foo", "<T:>",
+				"java/lang/Object", new String[] { "Bar" });
+	}
+
+	@Test
+	public void should_set_class_properties() {
+		analyzer.visitSource("Foo.java", null);
+
+		assertEquals("<T:>", coverage.getSignature());
+		assertEquals("java/lang/Object", coverage.getSuperName());
+		assertEquals("Bar", coverage.getInterfaceNames()[0]);
+		assertEquals("Foo.java", coverage.getSourceFileName());
+	}
+
+	@Test
+	public void should_throw_IllegalStateException_when_class_is_instrumented_with_init_method() {
+		try {
+			analyzer.visitMethod(InstrSupport.INITMETHOD_ACC,
+					InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
+					null, null);
+			fail("IllegalStateException expected");
+		} catch (final IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void should_not_add_methods_without_code() {
+		analyzer.visitMethod(Opcodes.ACC_ABSTRACT, "foo", "()V", null, null)
+				.visitEnd();
+
+		assertEquals(0, coverage.getMethods().size());
+	}
+
+	@Test
+	public void should_not_add_synthetic_methods() {
+		createMethod(Opcodes.ACC_SYNTHETIC, "access$000");
+
+		assertEquals(0, coverage.getMethods().size());
+	}
+
+	@Test
+	public void should_add_lambda_bodies() {
+		createMethod(Opcodes.ACC_SYNTHETIC, "lambda$0");
+
+		assertEquals(1, coverage.getMethods().size());
+	}
+
+	@Test
+	public void should_calculate_method_counters_from_probe_ranges() {
+		probes[2] = true;
+		probes[5] = true;
+		createMethod(0, "a");
+		createMethod(Opcodes.ACC_SYNTHETIC, "access$000");
+		createMethod(0, "b");
+
+		assertEquals(2, coverage.getMethods().size());
+		for (final IMethodCoverage m : coverage.getMethods()) {
+			final ICounter methodCounter = m.getMethodCounter();
+			if ("a".equals(m.getName())) {
+				assertEquals(CounterImpl.COUNTER_1_0, methodCounter);
+			} else {
+				assertEquals(CounterImpl.COUNTER_0_1, methodCounter);
+			}
+			assertEquals(CounterImpl.COUNTER_0_0, m.getInstructionCounter());
+			assertEquals(CounterImpl.COUNTER_0_0, m.getLineCounter());
+		}
+		assertEquals(CounterImpl.getInstance(1, 1),
+				coverage.getMethodCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, coverage.getClassCounter());
+	}
+
+	@Test
+	public void should_mark_methods_as_missed_without_probes() {
+		analyzer = new MethodCoverageAnalyzer(coverage, null,
+				new StringPool());
+		analyzer.visit(Opcodes.V1_8, 0, "Foo", null, "java/lang/Object",
+				null);
+		createMethod(0, "a");
+
+		assertEquals(CounterImpl.COUNTER_1_0, coverage.getMethodCounter());
+	}
+
+	@Test
+	public void should_inline_subroutines_for_old_class_files() {
+		analyzer.visit(Opcodes.V1_4, 0, "Foo", null, "java/lang/Object",
+				null);
+		final MethodVisitor mv = analyzer.visitMethod(0, "a", "()V", null,
+				null);
+		mv.visitCode();
+		final Label sub = new Label();
+		mv.visitJumpInsn(Opcodes.JSR, sub);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(sub);
+		mv.visitVarInsn(Opcodes.ASTORE, 0);
+		mv.visitVarInsn(Opcodes.RET, 0);
+		mv.visitMaxs(1, 1);
+		mv.visitEnd();
+
+		assertEquals(1, coverage.getMethods().size());
+	}
+
+	/**
+	 * Creates a method with two probes:
+	 * <code>void m(boolean b) { if (b) return; return; }</code>
+	 */
+	private void createMethod(final int access, final String name) {
+		final MethodVisitor mv = analyzer.visitMethod(access, name, "(Z)V",
+				null, null);
+		mv.visitCode();
+		final Label label = new Label();
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		mv.visitJumpInsn(Opcodes.IFEQ, label);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(label);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(1, 2);
+		mv.visitEnd();
+	}
+
+}
@@ -16,6 +16,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -70,4 +78,38 @@ public class StringPoolTest {
 		assertSame(arr1[0], arr2[0]);
 	}
 
+	@Test
+	public void get_should_return_same_instance_when_called_concurrently()
+			throws Exception {
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<String[]>> results = new ArrayList<Future<String[]>>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(new Callable<String[]>() {
+					public String[] call() throws Exception {
+						start.await();
+						final String[] result = new String[1000];
+						for (int i = 0; i < result.length; i++) {
+							result[i] = pool.get(new String("JaCoCo" + i));
+						}
+						return result;
+					}
+				}));
+			}
+			start.countDown();
+
+			final String[] expected = results.get(0).get();
+			for (final Future<String[]> result : results) {
+				final String[] actual = result.get();
+				for (int i = 0; i < expected.length; i++) {
+					assertSame(expected[i], actual[i]);
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 }
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link FilterSet}.
+ */
+public class FilterSetTest extends FilterTestBase {
+
+	private final List<String> calls = new ArrayList<String>();
+
+	@Test
+	public void should_call_all_filters_in_order() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		m.visitInsn(Opcodes.NOP);
+
+		new FilterSet(new Filter("a"), new ConditionalFilter("b", Opcodes.NOP),
+				new Filter("c")).filter(m, context, output);
+
+		assertEquals(Arrays.asList("a", "b", "c"), calls);
+	}
+
+	@Test
+	public void should_skip_filters_which_are_not_applicable() {
+		final MethodNode m = new MethodNode(InstrSupport.ASM_API_VERSION, 0,
+				"name", "()V", null, null);
+		m.visitInsn(Opcodes.RETURN);
+
+		new FilterSet(new Filter("a"), new ConditionalFilter("b", Opcodes.NOP),
+				new ConditionalFilter("c", Opcodes.RETURN))
+				.filter(m, context, output);
+
+		assertEquals(Arrays.asList("a", "c"), calls);
+	}
+
+	private class Filter implements IFilter {
+
+		private final String name;
+
+		Filter(final String name) {
+			this.name = name;
+		}
+
+		public void filter(final MethodNode methodNode,
+				final IFilterContext context, final IFilterOutput output) {
+			calls.add(name);
+		}
+	}
+
+	private class ConditionalFilter extends Filter
+			implements IConditionalFilter {
+
+		private final int opcode;
+
+		ConditionalFilter(final String name, final int opcode) {
+			super(name);
+			this.opcode = opcode;
+		}
+
+		public boolean isApplicable(final MethodFeatures features) {
+			return features.contains(opcode);
+		}
+	}
+
+}
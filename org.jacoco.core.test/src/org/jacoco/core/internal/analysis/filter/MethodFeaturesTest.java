@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Unit tests for {@link MethodFeatures}.
+ */
+public class MethodFeaturesTest {
+
+	private MethodNode m;
+
+	@Before
+	public void setup() {
+		m = new MethodNode(InstrSupport.ASM_API_VERSION, 0, "name", "()V",
+				null, null);
+	}
+
+	@Test
+	public void should_have_no_features_for_empty_method() {
+		final MethodFeatures features = new MethodFeatures(m);
+
+		for (int opcode = 0; opcode < 256; opcode++) {
+			assertFalse(features.contains(opcode));
+		}
+		assertFalse(features.hasSwitch());
+		assertFalse(features.hasTryCatchBlocks());
+		assertFalse(features.hasStringHashCode());
+	}
+
+	@Test
+	public void should_record_opcodes() {
+		final Label label = new Label();
+		m.visitLabel(label);
+		m.visitLineNumber(42, label);
+		m.visitInsn(Opcodes.NOP);
+		m.visitJumpInsn(Opcodes.IFNONNULL, label);
+		m.visitInsn(Opcodes.MONITOREXIT);
+		m.visitInsn(Opcodes.RETURN);
+
+		final MethodFeatures features = new MethodFeatures(m);
+
+		for (int opcode = 0; opcode < 256; opcode++) {
+			final boolean expected = opcode == Opcodes.NOP
+					|| opcode == Opcodes.IFNONNULL
+					|| opcode == Opcodes.MONITOREXIT
+					|| opcode == Opcodes.RETURN;
+			assertTrue(String.valueOf(opcode),
+					expected == features.contains(opcode));
+		}
+		assertFalse(features.hasSwitch());
+	}
+
+	@Test
+	public void should_detect_tableswitch() {
+		final Label label = new Label();
+		m.visitTableSwitchInsn(0, 0, label, label);
+		m.visitLabel(label);
+
+		assertTrue(new MethodFeatures(m).hasSwitch());
+	}
+
+	@Test
+	public void should_detect_lookupswitch() {
+		final Label label = new Label();
+		m.visitLookupSwitchInsn(label, new int[0], new Label[0]);
+		m.visitLabel(label);
+
+		assertTrue(new MethodFeatures(m).hasSwitch());
+	}
+
+	@Test
+	public void should_detect_try_catch_blocks() {
+		final Label start = new Label();
+		final Label end = new Label();
+		m.visitTryCatchBlock(start, end, end, null);
+		m.visitLabel(start);
+		m.visitInsn(Opcodes.NOP);
+		m.visitLabel(end);
+		m.visitInsn(Opcodes.ATHROW);
+
+		assertTrue(new MethodFeatures(m).hasTryCatchBlocks());
+	}
+
+	@Test
+	public void should_detect_String_hashCode() {
+		m.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object",
+				"hashCode", "()I", false);
+		m.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String",
+				"hashCode", "()I", false);
+		m.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String",
+				"length", "()I", false);
+
+		assertTrue(new MethodFeatures(m).hasStringHashCode());
+	}
+
+	@Test
+	public void should_not_detect_other_hashCode() {
+		m.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object",
+				"hashCode", "()I", false);
+		m.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/String",
+				"hashCode", "()I", false);
+
+		assertFalse(new MethodFeatures(m).hasStringHashCode());
+	}
+
+}
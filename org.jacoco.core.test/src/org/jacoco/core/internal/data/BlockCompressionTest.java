@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BlockCompression}.
+ */
+public class BlockCompressionTest {
+
+	@Test
+	public void inflate_should_restore_deflated_data() throws IOException {
+		final byte[] data = new byte[100000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 100);
+		}
+
+		final byte[] compressed = BlockCompression.deflate(data, 90000);
+
+		assertTrue(compressed.length < 1000);
+		final byte[] expected = new byte[90000];
+		System.arraycopy(data, 0, expected, 0, expected.length);
+		assertArrayEquals(expected,
+				BlockCompression.inflate(compressed, 90000));
+	}
+
+	@Test
+	public void inflate_should_restore_incompressible_data()
+			throws IOException {
+		final byte[] data = new byte[10000];
+		new Random(42).nextBytes(data);
+
+		final byte[] compressed = BlockCompression.deflate(data, data.length);
+
+		assertArrayEquals(data,
+				BlockCompression.inflate(compressed, data.length));
+	}
+
+	@Test
+	public void inflate_should_restore_empty_data() throws IOException {
+		final byte[] compressed = BlockCompression.deflate(new byte[0], 0);
+
+		assertEquals(0, BlockCompression.inflate(compressed, 0).length);
+	}
+
+	@Test
+	public void inflate_should_throw_IOException_for_invalid_data() {
+		assertInvalid(new byte[] { 1, 2, 3 }, 10);
+	}
+
+	@Test
+	public void inflate_should_throw_IOException_for_wrong_length() {
+		final byte[] compressed = BlockCompression.deflate(new byte[100], 100);
+
+		assertInvalid(compressed, 99);
+		assertInvalid(compressed, 101);
+	}
+
+	@Test
+	public void inflate_should_throw_IOException_for_truncated_data() {
+		final byte[] compressed = BlockCompression.deflate(new byte[100], 100);
+		final byte[] truncated = new byte[compressed.length - 1];
+		System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+
+		assertInvalid(truncated, 100);
+	}
+
+	@Test
+	public void inflate_should_throw_IOException_for_trailing_data() {
+		final byte[] compressed = BlockCompression.deflate(new byte[100], 100);
+		final byte[] extended = new byte[compressed.length + 1];
+		System.arraycopy(compressed, 0, extended, 0, compressed.length);
+
+		assertInvalid(extended, 100);
+	}
+
+	private static void assertInvalid(final byte[] data, final int length) {
+		try {
+			BlockCompression.inflate(data, length);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Invalid compressed block.", e.getMessage());
+		}
+	}
+
+}
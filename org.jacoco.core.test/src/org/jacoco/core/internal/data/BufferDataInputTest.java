@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BufferDataInput}. The tests verify symmetry with
+ * {@link CompactDataOutput} for both a complete buffer and a channel which
+ * returns only a single byte per read.
+ */
+public class BufferDataInputTest {
+
+	private ByteArrayOutputStream buffer;
+
+	private CompactDataOutput out;
+
+	@Before
+	public void setup() {
+		buffer = new ByteArrayOutputStream();
+		out = new CompactDataOutput(buffer);
+	}
+
+	@Test
+	public void readVarInt_should_read_values_written_by_CompactDataOutput()
+			throws IOException {
+		final int[] values = { 0, 0x7F, 0x80, 0x100, 0x12345678, -1,
+				Integer.MIN_VALUE, Integer.MAX_VALUE };
+		for (final int value : values) {
+			out.writeVarInt(value);
+		}
+
+		for (final BufferDataInput in : createInputs()) {
+			for (final int value : values) {
+				assertEquals(value, in.readVarInt());
+			}
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void readChar_readInt_and_readLong_should_read_values_written_by_CompactDataOutput()
+			throws IOException {
+		out.writeChar(0xC0C0);
+		out.writeInt(0x89abcdef);
+		out.writeLong(0x1234567890abcdefL);
+		out.writeByte(0xFF);
+
+		for (final BufferDataInput in : createInputs()) {
+			assertEquals(0xC0C0, in.readChar());
+			assertEquals(0x89abcdef, in.readInt());
+			assertEquals(0x1234567890abcdefL, in.readLong());
+			assertEquals(0xFF, in.read());
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	public void readUTF_should_read_values_written_by_CompactDataOutput()
+			throws IOException {
+		final String longString = new String(new char[20000]).replace('\0',
+				'\u20ac');
+		final String[] values = { "", "org/example/Foo",
+				"\u00e4\u20ac\u0000", longString };
+		for (final String value : values) {
+			out.writeUTF(value);
+		}
+
+		for (final BufferDataInput in : createInputs()) {
+			for (final String value : values) {
+				assertEquals(value, in.readUTF());
+			}
+		}
+	}
+
+	@Test
+	public void readUTF_should_return_same_instance_for_equal_strings()
+			throws IOException {
+		for (int i = 0; i < 1000; i++) {
+			out.writeUTF("Class" + i);
+		}
+		for (int i = 0; i < 1000; i++) {
+			out.writeUTF("Class" + i);
+		}
+
+		for (final BufferDataInput in : createInputs()) {
+			final String[] first = new String[1000];
+			for (int i = 0; i < 1000; i++) {
+				first[i] = in.readUTF();
+				assertEquals("Class" + i, first[i]);
+			}
+			for (int i = 0; i < 1000; i++) {
+				assertSame(first[i], in.readUTF());
+			}
+		}
+	}
+
+	@Test
+	public void readUTF_should_distinguish_strings_with_same_hash_code()
+			throws IOException {
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		out.writeUTF("Aa");
+		out.writeUTF("BB");
+		out.writeUTF("Aa");
+
+		final BufferDataInput in = new BufferDataInput(getBuffer());
+		final String aa = in.readUTF();
+		final String bb = in.readUTF();
+		assertEquals("Aa", aa);
+		assertEquals("BB", bb);
+		assertNotSame(aa, bb);
+		assertSame(aa, in.readUTF());
+	}
+
+	@Test
+	public void readUTF_should_throw_UTFDataFormatException_for_malformed_input()
+			throws IOException {
+		out.writeChar(3);
+		out.write(new byte[] { 'a', (byte) 0xC3, 'b' });
+
+		try {
+			new BufferDataInput(getBuffer()).readUTF();
+			fail("UTFDataFormatException expected");
+		} catch (final UTFDataFormatException e) {
+			assertEquals("malformed input around byte 2", e.getMessage());
+		}
+	}
+
+	@Test
+	public void readUTF_should_throw_UTFDataFormatException_for_truncated_character()
+			throws IOException {
+		out.writeChar(2);
+		out.write(new byte[] { 'a', (byte) 0xE2 });
+
+		try {
+			new BufferDataInput(getBuffer()).readUTF();
+			fail("UTFDataFormatException expected");
+		} catch (final UTFDataFormatException e) {
+			assertEquals("malformed input around byte 1", e.getMessage());
+		}
+	}
+
+	@Test
+	public void readBooleanArray_should_read_values_written_by_CompactDataOutput()
+			throws IOException {
+		final boolean[][] values = { new boolean[0],
+				new boolean[] { true, false, true, true, false, false, true,
+						true, false },
+				createArray(200000) };
+		for (final boolean[] value : values) {
+			out.writeBooleanArray(value);
+		}
+
+		for (final BufferDataInput in : createInputs()) {
+			for (final boolean[] value : values) {
+				assertArrayEquals(value, in.readBooleanArray());
+			}
+		}
+	}
+
+	@Test
+	public void readPackedBooleanArray_should_return_packed_content()
+			throws IOException {
+		final boolean[] big = createArray(200000);
+		out.writeBooleanArray(new boolean[] { true, false, false, false, false,
+				false, false, false, true });
+		out.writeBooleanArray(big);
+		out.writeByte(42);
+
+		for (final BufferDataInput in : createInputs()) {
+			final ByteBuffer small = in
+					.readPackedBooleanArray(in.readVarInt());
+			assertEquals(2, small.remaining());
+			assertEquals(0x01, small.get(small.position()));
+			assertEquals(0x01, small.get(small.position() + 1));
+			assertTrue(small.isReadOnly());
+
+			final ByteBuffer packed = in
+					.readPackedBooleanArray(in.readVarInt());
+			assertEquals(25000, packed.remaining());
+			for (int i = 0; i < big.length; i++) {
+				assertEquals(big[i], (packed.get(packed.position() + (i >>> 3))
+						& (1 << (i & 7))) != 0);
+			}
+
+			assertEquals(42, in.read());
+		}
+	}
+
+	@Test
+	public void readFully_should_read_all_bytes() throws IOException {
+		final byte[] bytes = new byte[50000];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+		}
+		out.write(bytes);
+		out.writeByte(42);
+
+		for (final BufferDataInput in : createInputs()) {
+			final byte[] actual = new byte[bytes.length];
+			in.readFully(actual);
+			assertArrayEquals(bytes, actual);
+			assertEquals(42, in.read());
+		}
+	}
+
+	@Test
+	public void should_not_modify_position_of_given_buffer() throws IOException {
+		out.writeLong(42);
+		final ByteBuffer b = getBuffer();
+
+		assertEquals(42, new BufferDataInput(b).readLong());
+
+		assertEquals(0, b.position());
+	}
+
+	@Test
+	public void should_read_remaining_content_of_given_buffer()
+			throws IOException {
+		out.writeByte(1);
+		out.writeByte(2);
+		final ByteBuffer b = getBuffer();
+		b.get();
+
+		final BufferDataInput in = new BufferDataInput(b);
+
+		assertEquals(2, in.read());
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void should_throw_EOFException_for_truncated_data()
+			throws IOException {
+		out.writeChar(1);
+		out.writeVarInt(100);
+		out.writeByte(1);
+
+		for (final BufferDataInput in : createInputs()) {
+			assertEquals(1, in.readChar());
+			try {
+				in.readBooleanArray();
+				fail("EOFException expected");
+			} catch (final EOFException e) {
+				// expected
+			}
+		}
+	}
+
+	private boolean[] createArray(final int length) {
+		final boolean[] array = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			array[i] = (i * 31) % 7 == 0;
+		}
+		return array;
+	}
+
+	private ByteBuffer getBuffer() {
+		return ByteBuffer.wrap(buffer.toByteArray());
+	}
+
+	private BufferDataInput[] createInputs() {
+		return new BufferDataInput[] { new BufferDataInput(getBuffer()),
+				new BufferDataInput(new SingleByteChannel(getBuffer())) };
+	}
+
+	/**
+	 * Channel which returns at most one byte per read, to test the refilling
+	 * of the buffer.
+	 */
+	private static class SingleByteChannel implements ReadableByteChannel {
+
+		private final ByteBuffer source;
+
+		SingleByteChannel(final ByteBuffer source) {
+			this.source = source;
+		}
+
+		public int read(final ByteBuffer dst) {
+			if (!source.hasRemaining()) {
+				return -1;
+			}
+			dst.put(source.get());
+			return 1;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+
+		public void close() {
+		}
+
+	}
+
+}
@@ -106,10 +106,20 @@ public class CompactDataInputOutputTest {
 				true);
 	}
 
+	@Test
+	public void testPackedBoolean100() throws IOException {
+		final boolean[] values = new boolean[100];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i % 3 == 0 || i % 7 == 0;
+		}
+		testPackedBoolean(values);
+	}
+
 	private void testPackedBoolean(boolean... values) throws IOException {
 		out.writeBooleanArray(values);
 		out.close();
 		final boolean[] actual = in.readBooleanArray();
+		assertEquals(values.length, actual.length);
 		for (int i = 0; i < values.length; i++) {
 			assertEquals("Index " + i, Boolean.valueOf(values[i]),
 					Boolean.valueOf(actual[i]));
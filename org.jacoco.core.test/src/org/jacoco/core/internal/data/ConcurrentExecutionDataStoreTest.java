@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ConcurrentExecutionDataStore}.
+ */
+public class ConcurrentExecutionDataStoreTest {
+
+	private ConcurrentExecutionDataStore store;
+
+	@Before
+	public void setup() {
+		store = new ConcurrentExecutionDataStore();
+	}
+
+	@Test
+	public void get_should_create_new_entry() {
+		final ExecutionData data = store.get(1000, "Sample", 3);
+
+		assertEquals(1000, data.getId());
+		assertEquals("Sample", data.getName());
+		assertEquals(3, data.getProbes().length);
+	}
+
+	@Test
+	public void get_should_return_existing_entry() {
+		final ExecutionData data = store.get(1000, "Sample", 3);
+
+		assertSame(data, store.get(1000, "Sample", 3));
+		assertNotSame(data, store.get(1001, "Sample", 3));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void get_should_throw_IllegalStateException_for_different_name() {
+		store.get(1000, "Sample1", 3);
+		store.get(1000, "Sample2", 3);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void get_should_throw_IllegalStateException_for_different_probecount() {
+		store.get(1000, "Sample", 3);
+		store.get(1000, "Sample", 4);
+	}
+
+	@Test
+	public void get_should_keep_entries_when_tables_grow() {
+		final List<ExecutionData> created = new ArrayList<ExecutionData>();
+		for (int i = 0; i < 10000; i++) {
+			created.add(store.get(i, "Sample" + i, 1));
+		}
+
+		for (int i = 0; i < 10000; i++) {
+			assertSame(created.get(i), store.get(i, "Sample" + i, 1));
+		}
+		assertEquals(10000, store.getContents().size());
+	}
+
+	@Test
+	public void accept_should_visit_all_entries() {
+		store.get(1000, "Sample0", 1);
+		store.get(1001, "Sample1", 1);
+		store.get(-1, "Sample2", 1);
+
+		final Set<String> names = new HashSet<String>();
+		store.accept(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				names.add(data.getName());
+			}
+		});
+
+		assertEquals(3, names.size());
+		assertTrue(names.contains("Sample0"));
+		assertTrue(names.contains("Sample1"));
+		assertTrue(names.contains("Sample2"));
+	}
+
+	@Test
+	public void accept_should_allow_registration_of_new_entries_from_visitor() {
+		store.get(1000, "Sample0", 1);
+		final List<ExecutionData> visited = new ArrayList<ExecutionData>();
+		store.accept(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				store.get(1001, "Sample1", 1);
+				visited.add(data);
+			}
+		});
+
+		assertEquals(1, visited.size());
+		assertEquals(2, store.getContents().size());
+	}
+
+	@Test
+	public void reset_should_clear_all_probes() {
+		final boolean[] probes1 = store.get(1000, "Sample0", 2).getProbes();
+		final boolean[] probes2 = store.get(1001, "Sample1", 1).getProbes();
+		probes1[1] = true;
+		probes2[0] = true;
+
+		store.reset();
+
+		assertFalse(probes1[0]);
+		assertFalse(probes1[1]);
+		assertFalse(probes2[0]);
+		assertEquals(2, store.getContents().size());
+	}
+
+	@Test
+	public void get_should_create_single_entry_per_id_when_called_concurrently()
+			throws Exception {
+		final int threads = 8;
+		final int ids = 2000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<ExecutionData[]>> results = new ArrayList<Future<ExecutionData[]>>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(new Callable<ExecutionData[]>() {
+					public ExecutionData[] call() throws Exception {
+						start.await();
+						final ExecutionData[] result = new ExecutionData[ids];
+						for (int i = 0; i < ids; i++) {
+							result[i] = store.get(i, "Sample" + i, 1);
+						}
+						return result;
+					}
+				}));
+			}
+			start.countDown();
+
+			final ExecutionData[] expected = results.get(0).get();
+			for (final Future<ExecutionData[]> result : results) {
+				final ExecutionData[] actual = result.get();
+				for (int i = 0; i < ids; i++) {
+					if (expected[i] != actual[i]) {
+						fail("Different instances for id " + i);
+					}
+				}
+			}
+			assertEquals(ids, store.getContents().size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
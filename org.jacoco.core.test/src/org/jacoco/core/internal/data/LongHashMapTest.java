@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LongHashMap}.
+ */
+public class LongHashMapTest {
+
+	private LongHashMap<String> map;
+
+	@Before
+	public void setup() {
+		map = new LongHashMap<String>();
+	}
+
+	@Test
+	public void should_be_empty_initially() {
+		assertEquals(0, map.size());
+		assertNull(map.get(0));
+		assertTrue(map.values().isEmpty());
+	}
+
+	@Test
+	public void put_should_add_entries() {
+		assertNull(map.put(0, "a"));
+		assertNull(map.put(-1, "b"));
+		assertNull(map.put(Long.MIN_VALUE, "c"));
+
+		assertEquals(3, map.size());
+		assertEquals("a", map.get(0));
+		assertEquals("b", map.get(-1));
+		assertEquals("c", map.get(Long.MIN_VALUE));
+		assertNull(map.get(1));
+	}
+
+	@Test
+	public void put_should_replace_existing_entries() {
+		map.put(42, "a");
+
+		assertEquals("a", map.put(42, "b"));
+
+		assertEquals(1, map.size());
+		assertEquals("b", map.get(42));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void put_should_not_accept_null_values() {
+		map.put(42, null);
+	}
+
+	@Test
+	public void should_keep_entries_when_table_grows() {
+		for (long i = 0; i < 10000; i++) {
+			map.put(i << 32, String.valueOf(i));
+		}
+
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(String.valueOf(i), map.get(i << 32));
+		}
+	}
+
+	@Test
+	public void values_should_return_copy_of_all_values() {
+		map.put(1, "a");
+		map.put(2, "b");
+		map.put(3, "c");
+
+		final List<String> values = map.values();
+		values.clear();
+
+		assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")),
+				new HashSet<String>(map.values()));
+	}
+
+}
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.flow;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.JSRInlinerAdapter;
+
+/**
+ * Unit tests for {@link MethodProbesCounter}.
+ */
+public class MethodProbesCounterTest {
+
+	private MethodProbesCounter counter;
+
+	@Before
+	public void setup() {
+		counter = new MethodProbesCounter();
+	}
+
+	@Test
+	public void should_count_no_probes_for_empty_method() {
+		counter.visitEnd();
+
+		assertEquals(0, counter.getCount());
+	}
+
+	@Test
+	public void should_count_probe_for_return() {
+		counter.visitCode();
+		counter.visitInsn(Opcodes.RETURN);
+		counter.visitEnd();
+
+		assertEquals(1, counter.getCount());
+	}
+
+	@Test
+	public void should_count_probes_for_conditional_jump() {
+		final Label label = new Label();
+		counter.visitCode();
+		counter.visitVarInsn(Opcodes.ILOAD, 0);
+		counter.visitJumpInsn(Opcodes.IFEQ, label);
+		counter.visitInsn(Opcodes.RETURN);
+		counter.visitLabel(label);
+		counter.visitInsn(Opcodes.RETURN);
+		counter.visitEnd();
+
+		assertEquals(2, counter.getCount());
+	}
+
+	@Test
+	public void should_count_probes_for_multi_target_label() {
+		final Label label = new Label();
+		counter.visitCode();
+		counter.visitVarInsn(Opcodes.ILOAD, 0);
+		counter.visitJumpInsn(Opcodes.IFEQ, label);
+		counter.visitInsn(Opcodes.NOP);
+		counter.visitLabel(label);
+		counter.visitInsn(Opcodes.RETURN);
+		counter.visitEnd();
+
+		// probe at the jump and before the label
+		assertEquals(3, counter.getCount());
+	}
+
+	@Test
+	public void should_count_one_probe_per_distinct_switch_target() {
+		final Label l1 = new Label();
+		final Label l2 = new Label();
+		counter.visitCode();
+		counter.visitInsn(Opcodes.NOP);
+		counter.visitVarInsn(Opcodes.ILOAD, 0);
+		counter.visitTableSwitchInsn(0, 2, l1, l1, l2, l1);
+		counter.visitLabel(l1);
+		counter.visitInsn(Opcodes.RETURN);
+		counter.visitLabel(l2);
+		counter.visitInsn(Opcodes.RETURN);
+		counter.visitEnd();
+
+		// no multi targets here, only the returns
+		assertEquals(2, counter.getCount());
+	}
+
+	@Test
+	public void should_count_same_probes_as_ClassProbesAdapter()
+			throws IOException {
+		assertSameProbes(MethodProbesCounterTest.class);
+		assertSameProbes(Analyzer.class);
+		assertSameProbes(LabelFlowAnalyzer.class);
+		assertSameProbes(ClassReader.class);
+		assertSameProbes(ClassWriter.class);
+	}
+
+	@Test
+	public void should_count_same_probes_as_ClassProbesAdapter_for_subroutines() {
+		final byte[] bytes = createClassWithSubroutine();
+		assertEquals(getProbesByAdapter(bytes), getProbesByCounter(bytes));
+	}
+
+	private static void assertSameProbes(final Class<?> target)
+			throws IOException {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		assertEquals(getProbesByAdapter(bytes), getProbesByCounter(bytes));
+	}
+
+	private static List<Integer> getProbesByAdapter(final byte[] bytes) {
+		final List<Integer> probes = new ArrayList<Integer>();
+		final ClassProbesVisitor visitor = new ClassProbesVisitor() {
+			@Override
+			public MethodProbesVisitor visitMethod(final int access,
+					final String name, final String desc,
+					final String signature, final String[] exceptions) {
+				return new MethodProbesVisitor() {
+					private int count = 0;
+
+					@Override
+					public void visitProbe(final int probeId) {
+						count++;
+					}
+
+					@Override
+					public void visitJumpInsnWithProbe(final int opcode,
+							final Label label, final int probeId,
+							final IFrame frame) {
+						count++;
+					}
+
+					@Override
+					public void visitInsnWithProbe(final int opcode,
+							final int probeId) {
+						count++;
+					}
+
+					@Override
+					public void visitTableSwitchInsnWithProbes(final int min,
+							final int max, final Label dflt,
+							final Label[] labels, final IFrame frame) {
+						countSwitchProbes(dflt, labels);
+					}
+
+					@Override
+					public void visitLookupSwitchInsnWithProbes(
+							final Label dflt, final int[] keys,
+							final Label[] labels, final IFrame frame) {
+						countSwitchProbes(dflt, labels);
+					}
+
+					private void countSwitchProbes(final Label dflt,
+							final Label[] labels) {
+						final List<Integer> ids = new ArrayList<Integer>();
+						addProbeId(ids, dflt);
+						for (final Label l : labels) {
+							addProbeId(ids, l);
+						}
+						count += ids.size();
+					}
+
+					private void addProbeId(final List<Integer> ids,
+							final Label label) {
+						final int id = LabelInfo.getProbeId(label);
+						if (id != LabelInfo.NO_PROBE && !ids.contains(id)) {
+							ids.add(Integer.valueOf(id));
+						}
+					}
+
+					@Override
+					public void visitEnd() {
+						probes.add(Integer.valueOf(count));
+					}
+				};
+			}
+
+			@Override
+			public void visitTotalProbeCount(final int count) {
+			}
+		};
+		InstrSupport.classReaderFor(bytes)
+				.accept(new ClassProbesAdapter(visitor, false), 0);
+		return probes;
+	}
+
+	private static List<Integer> getProbesByCounter(final byte[] bytes) {
+		final List<Integer> probes = new ArrayList<Integer>();
+		final ClassReader reader = InstrSupport.classReaderFor(bytes);
+		final int version = InstrSupport.getMajorVersion(reader);
+		reader.accept(new ClassVisitor(InstrSupport.ASM_API_VERSION) {
+			@Override
+			public MethodVisitor visitMethod(final int access,
+					final String name, final String desc,
+					final String signature, final String[] exceptions) {
+				final MethodProbesCounter counter = new MethodProbesCounter() {
+					@Override
+					public void visitEnd() {
+						super.visitEnd();
+						probes.add(Integer.valueOf(getCount()));
+					}
+				};
+				if (version < Opcodes.V1_7) {
+					return new JSRInlinerAdapter(counter, access, name, desc,
+							signature, exceptions);
+				}
+				return counter;
+			}
+		}, ClassReader.SKIP_FRAMES);
+		return probes;
+	}
+
+	/**
+	 * Creates a Java 1.4 class with a method that uses a subroutine:
+	 * <code>void m(boolean b) { try { if (b) return; } finally { b = !b; } }</code>
+	 */
+	private static byte[] createClassWithSubroutine() {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_4, 0, "Sample", null, "java/lang/Object",
+				null);
+		final MethodVisitor mv = writer.visitMethod(0, "m", "(Z)V", null,
+				null);
+		mv.visitCode();
+		final Label start = new Label();
+		final Label end = new Label();
+		final Label handler = new Label();
+		final Label sub = new Label();
+		final Label skip = new Label();
+		mv.visitTryCatchBlock(start, end, handler, null);
+		mv.visitLabel(start);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		mv.visitJumpInsn(Opcodes.IFEQ, skip);
+		mv.visitJumpInsn(Opcodes.JSR, sub);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(skip);
+		mv.visitLabel(end);
+		mv.visitJumpInsn(Opcodes.JSR, sub);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitLabel(handler);
+		mv.visitVarInsn(Opcodes.ASTORE, 2);
+		mv.visitJumpInsn(Opcodes.JSR, sub);
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitInsn(Opcodes.ATHROW);
+		mv.visitLabel(sub);
+		mv.visitVarInsn(Opcodes.ASTORE, 3);
+		mv.visitVarInsn(Opcodes.ILOAD, 1);
+		final Label zero = new Label();
+		final Label store = new Label();
+		mv.visitJumpInsn(Opcodes.IFNE, zero);
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitJumpInsn(Opcodes.GOTO, store);
+		mv.visitLabel(zero);
+		mv.visitInsn(Opcodes.ICONST_0);
+		mv.visitLabel(store);
+		mv.visitVarInsn(Opcodes.ISTORE, 1);
+		mv.visitVarInsn(Opcodes.RET, 3);
+		mv.visitMaxs(2, 4);
+		mv.visitEnd();
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
+}
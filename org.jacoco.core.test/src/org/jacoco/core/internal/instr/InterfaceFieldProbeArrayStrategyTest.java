@@ -34,7 +34,7 @@ public class InterfaceFieldProbeArrayStrategyTest {
 
 	@Before
 	public void setup() {
-		strategy = new InterfaceFieldProbeArrayStrategy("ClassName", 1L, 2,
+		strategy = new InterfaceFieldProbeArrayStrategy("ClassName", 1L,
 				new IExecutionDataAccessorGenerator() {
 					public int generateDataAccessor(final long classid,
 							final String classname, final int probecount,
@@ -120,8 +120,8 @@ public class InterfaceFieldProbeArrayStrategyTest {
 
 		final MethodRecorder expectedMethod = new MethodRecorder();
 		final MethodVisitor expected = expectedMethod.getVisitor();
-		expected.visitMethodInsn(Opcodes.INVOKESTATIC, "Runtime", "getProbes",
-				"()[Z", false);
+		expected.visitMethodInsn(Opcodes.INVOKESTATIC, "ClassName",
+				"$jacocoInit", "()[Z", true);
 		expected.visitInsn(Opcodes.DUP);
 		expected.visitFieldInsn(Opcodes.PUTSTATIC, "ClassName", "$jacocoData",
 				"[Z");
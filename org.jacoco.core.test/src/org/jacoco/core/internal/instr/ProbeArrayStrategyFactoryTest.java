@@ -222,6 +222,42 @@ public class ProbeArrayStrategyFactoryTest {
 				true, 0);
 	}
 
+	@Test
+	public void testClinitAndMethodsWithAttributesInterface8() {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_INTERFACE, "Foo", null,
+				"java/lang/Object", null);
+		writer.visitField(
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+				"CONST", "I", null, Integer.valueOf(42)).visitEnd();
+		writer.visitField(
+				Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL,
+				"LIST", "Ljava/util/List;", "Ljava/util/List<*>;", null)
+				.visitEnd();
+		MethodVisitor mv = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>",
+				"()V", null, null);
+		mv.visitCode();
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "foo",
+				"()Ljava/util/List;", "()Ljava/util/List<*>;", null)
+				.visitEnd();
+		mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "doit", "()V", null,
+				new String[] { "java/lang/Exception" });
+		mv.visitCode();
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 1);
+		mv.visitEnd();
+		writer.visitEnd();
+
+		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
+				.createFor(0, new ClassReader(writer.toByteArray()), generator);
+
+		assertEquals(InterfaceFieldProbeArrayStrategy.class,
+				strategy.getClass());
+	}
+
 	@Test
 	public void test_java9_module() {
 		final IProbeArrayStrategy strategy = createForModule(Opcodes.V9);
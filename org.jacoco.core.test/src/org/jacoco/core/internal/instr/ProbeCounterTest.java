@@ -13,13 +13,10 @@
 package org.jacoco.core.internal.instr;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
-import static org.junit.Assert.assertTrue;
 
 import org.junit.Before;
 import org.junit.Test;
-import org.objectweb.asm.Opcodes;
 
 /**
  * Unit tests for {@link ProbeCounter}.
@@ -35,7 +32,6 @@ public class ProbeCounterTest {
 
 	@Test
 	public void testInitial() {
-		assertFalse(counter.hasMethods());
 		assertEquals(0, counter.getCount());
 	}
 
@@ -45,22 +41,9 @@ public class ProbeCounterTest {
 		assertEquals(42, counter.getCount());
 	}
 
-	@Test
-	public void testVisitClinitMethod() {
-		assertNull(counter.visitMethod(0, "<clinit>", null, null, null));
-		assertFalse(counter.hasMethods());
-	}
-
-	@Test
-	public void testVisitAbstractMethod() {
-		counter.visitMethod(Opcodes.ACC_ABSTRACT, "foo", null, null, null);
-		assertFalse(counter.hasMethods());
-	}
-
 	@Test
 	public void testVisitMethod() {
 		assertNull(counter.visitMethod(0, "foo", null, null, null));
-		assertTrue(counter.hasMethods());
 	}
 
 }
@@ -54,6 +54,14 @@ public class AgentOptionsTest {
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
 		assertFalse(options.getJmx());
+		assertFalse(options.getCompress());
+		assertEquals(AgentOptions.DEFAULT_MAXCONNECTIONS,
+				options.getMaxConnections());
+		assertEquals(0, options.getDumpInterval());
+		assertEquals(0, options.getDumpJitter());
+		assertFalse(options.getDumpReset());
+		assertNull(options.getCacheDir());
+		assertEquals(AgentOptions.DEFAULT_CACHESIZE, options.getCacheSize());
 
 		assertEquals("", options.toString());
 	}
@@ -87,6 +95,13 @@ public class AgentOptionsTest {
 		properties.put("port", "1234");
 		properties.put("classdumpdir", "target/dump");
 		properties.put("jmx", "true");
+		properties.put("compress", "true");
+		properties.put("maxconnections", "8");
+		properties.put("dumpinterval", "60");
+		properties.put("dumpjitter", "10");
+		properties.put("dumpreset", "true");
+		properties.put("cachedir", "/tmp/cache");
+		properties.put("cachesize", "64");
 
 		AgentOptions options = new AgentOptions(properties);
 
@@ -105,6 +120,13 @@ public class AgentOptionsTest {
 		assertEquals(1234, options.getPort());
 		assertEquals("target/dump", options.getClassDumpDir());
 		assertTrue(options.getJmx());
+		assertTrue(options.getCompress());
+		assertEquals(8, options.getMaxConnections());
+		assertEquals(60, options.getDumpInterval());
+		assertEquals(10, options.getDumpJitter());
+		assertTrue(options.getDumpReset());
+		assertEquals("/tmp/cache", options.getCacheDir());
+		assertEquals(64, options.getCacheSize());
 	}
 
 	@Test
@@ -437,6 +459,104 @@ public class AgentOptionsTest {
 		assertTrue(options.getJmx());
 	}
 
+	@Test
+	public void testGetCompress() {
+		AgentOptions options = new AgentOptions("compress=true");
+		assertTrue(options.getCompress());
+	}
+
+	@Test
+	public void testSetCompress() {
+		AgentOptions options = new AgentOptions();
+		options.setCompress(true);
+		assertTrue(options.getCompress());
+		assertEquals("compress=true", options.toString());
+	}
+
+	@Test
+	public void testGetMaxConnections() {
+		AgentOptions options = new AgentOptions("maxconnections=16");
+		assertEquals(16, options.getMaxConnections());
+	}
+
+	@Test
+	public void testSetMaxConnections() {
+		AgentOptions options = new AgentOptions();
+		options.setMaxConnections(4);
+		assertEquals(4, options.getMaxConnections());
+		assertEquals("maxconnections=4", options.toString());
+	}
+
+	@Test
+	public void testInvalidMaxConnectionsOptionValue() {
+		try {
+			new AgentOptions("maxconnections=0");
+			fail("IllegalArgumentException expected");
+		} catch (final IllegalArgumentException e) {
+			assertEquals("maxconnections must be at least 1", e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidMaxConnections() {
+		new AgentOptions().setMaxConnections(-1);
+	}
+
+	@Test
+	public void testGetDumpInterval() {
+		AgentOptions options = new AgentOptions(
+				"dumpinterval=300,dumpjitter=30,dumpreset=true");
+		assertEquals(300, options.getDumpInterval());
+		assertEquals(30, options.getDumpJitter());
+		assertTrue(options.getDumpReset());
+	}
+
+	@Test
+	public void testSetDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(300);
+		options.setDumpJitter(30);
+		options.setDumpReset(true);
+		assertEquals("dumpinterval=300,dumpjitter=30,dumpreset=true",
+				options.toString());
+	}
+
+	@Test
+	public void testInvalidDumpIntervalOptionValue() {
+		try {
+			new AgentOptions("dumpinterval=-1");
+			fail("IllegalArgumentException expected");
+		} catch (final IllegalArgumentException e) {
+			assertEquals("dumpinterval must not be negative", e.getMessage());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetInvalidDumpJitter() {
+		new AgentOptions().setDumpJitter(-1);
+	}
+
+	@Test
+	public void testGetCacheDir() {
+		AgentOptions options = new AgentOptions(
+				"cachedir=/tmp/cache,cachesize=16");
+		assertEquals("/tmp/cache", options.getCacheDir());
+		assertEquals(16, options.getCacheSize());
+	}
+
+	@Test
+	public void testSetCacheDir() {
+		AgentOptions options = new AgentOptions();
+		options.setCacheDir("/tmp/cache");
+		options.setCacheSize(16);
+		assertEquals("cachedir=/tmp/cache,cachesize=16", options.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCacheSizeOptionValue() {
+		new AgentOptions("cachesize=-1");
+	}
+
 	@Test
 	public void testGetVMArgumentWithNoOptions() {
 		AgentOptions options = new AgentOptions();
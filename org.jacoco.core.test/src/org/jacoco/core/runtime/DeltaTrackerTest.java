@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DeltaTracker}.
+ */
+public class DeltaTrackerTest {
+
+	private RuntimeData data;
+
+	private DeltaTracker delta;
+
+	private boolean[] probesA;
+
+	private boolean[] probesB;
+
+	@Before
+	public void setup() {
+		data = new RuntimeData();
+		delta = new DeltaTracker();
+		probesA = data.getExecutionData(Long.valueOf(1), "A", 2).getProbes();
+		probesB = data.getExecutionData(Long.valueOf(2), "B", 2).getProbes();
+		data.getExecutionData(Long.valueOf(3), "C", 2);
+	}
+
+	@Test
+	public void first_collection_should_contain_all_classes_with_hits() {
+		probesA[0] = true;
+		probesB[1] = true;
+
+		final TestStorage storage = collect(false);
+
+		storage.assertSize(2);
+		assertNotNull(storage.getData(1));
+		assertNotNull(storage.getData(2));
+		assertNotNull(storage.getSessionInfo());
+		assertEquals(2, delta.getClassCount());
+	}
+
+	@Test
+	public void should_only_contain_changed_classes() {
+		probesA[0] = true;
+		probesB[0] = true;
+		collect(false);
+
+		probesB[1] = true;
+		final TestStorage storage = collect(false);
+
+		storage.assertSize(1);
+		assertNull(storage.getData(1));
+		storage.assertData(2, probesB);
+		assertEquals(1, delta.getClassCount());
+	}
+
+	@Test
+	public void should_contain_nothing_without_changes() {
+		probesA[0] = true;
+		collect(false);
+
+		final TestStorage storage = collect(false);
+
+		storage.assertSize(0);
+		assertNotNull(storage.getSessionInfo());
+		assertEquals(0, delta.getClassCount());
+	}
+
+	@Test
+	public void should_report_classes_again_after_reset() {
+		probesA[0] = true;
+		probesA[1] = true;
+		collect(false);
+		data.reset();
+
+		// Same number of executed probes as before the reset
+		probesA[0] = true;
+		probesA[1] = true;
+		final TestStorage storage = collect(false);
+
+		storage.assertData(1, probesA);
+	}
+
+	@Test
+	public void should_report_changes_after_collection_with_reset() {
+		probesA[0] = true;
+		collect(true);
+
+		probesA[0] = true;
+		final TestStorage storage = collect(false);
+
+		storage.assertData(1, probesA);
+	}
+
+	@Test
+	public void trackers_should_be_independent() {
+		probesA[0] = true;
+		collect(false);
+
+		final DeltaTracker other = new DeltaTracker();
+		final TestStorage storage = new TestStorage();
+		data.collect(storage, storage, false, other);
+
+		storage.assertData(1, probesA);
+	}
+
+	private TestStorage collect(final boolean reset) {
+		final TestStorage storage = new TestStorage();
+		data.collect(storage, storage, reset, delta);
+		return storage;
+	}
+
+}
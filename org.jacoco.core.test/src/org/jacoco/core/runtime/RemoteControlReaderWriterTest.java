@@ -18,11 +18,14 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataReaderWriterTest;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.junit.Before;
 import org.junit.Test;
@@ -86,11 +89,49 @@ public class RemoteControlReaderWriterTest
 			public void visitDumpCommand(boolean dump, boolean reset) {
 				calls.append("cmd(" + dump + "," + reset + ")");
 			}
+
+			public void visitDeltaDumpCommand(boolean reset) {
+				calls.append("delta(" + reset + ")");
+			}
 		});
 		assertFalse(reader.read());
 		assertEquals("cmd(" + doDump + "," + doReset + ")", calls.toString());
 	}
 
+	@Test
+	public void testVisitDeltaDump1() throws IOException {
+		testVisitDeltaDump(false);
+	}
+
+	@Test
+	public void testVisitDeltaDump2() throws IOException {
+		testVisitDeltaDump(true);
+	}
+
+	private void testVisitDeltaDump(boolean doReset) throws IOException {
+		writer.visitDeltaDumpCommand(doReset);
+		final RemoteControlReader reader = createReader();
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd(" + dump + "," + reset + ")");
+			}
+
+			public void visitDeltaDumpCommand(boolean reset) {
+				calls.append("delta(" + reset + ")");
+			}
+		});
+		assertFalse(reader.read());
+		assertEquals("delta(" + doReset + ")", calls.toString());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoRemoteCommandVisitorForDeltaDump() throws IOException {
+		writer.visitDeltaDumpCommand(false);
+		createReader().read();
+	}
+
 	@Test
 	public void testSendCmdOk() throws IOException {
 		writer.sendCmdOk();
@@ -98,6 +139,34 @@ public class RemoteControlReaderWriterTest
 		assertTrue(reader.read());
 	}
 
+	@Test
+	public void testSendCmdOkWritesCompressedData() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		writer = createWriter(buffer, true);
+		writer.visitClassExecution(
+				new ExecutionData(3, "Sample", new boolean[] { true }));
+		writer.sendCmdOk();
+		writer.visitDumpCommand(true, false);
+		final RemoteControlReader reader = createReader();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		reader.setExecutionDataVisitor(store);
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd");
+			}
+
+			public void visitDeltaDumpCommand(boolean reset) {
+				calls.append("delta");
+			}
+		});
+
+		assertTrue(reader.read());
+		assertEquals("Sample", store.get(3).getName());
+		assertFalse(reader.read());
+		assertEquals("cmd", calls.toString());
+	}
+
 	@Override
 	protected RemoteControlReader createReader() throws IOException {
 		return new RemoteControlReader(
@@ -110,4 +179,10 @@ public class RemoteControlReaderWriterTest
 		return new RemoteControlWriter(out);
 	}
 
+	@Override
+	protected RemoteControlWriter createWriter(OutputStream out,
+			boolean compressed) throws IOException {
+		return new RemoteControlWriter(out, compressed);
+	}
+
 }
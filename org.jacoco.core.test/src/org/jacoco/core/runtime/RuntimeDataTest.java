@@ -15,11 +15,18 @@ package org.jacoco.core.runtime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
 import org.junit.Test;
@@ -64,7 +71,8 @@ public class RuntimeDataTest {
 		assertFalse(data[0]);
 		assertFalse(data[1]);
 		assertFalse(data[2]);
-		assertSame(storage.getData(123).getProbes(), data);
+		storage.assertData(123, data);
+		assertNotSame(storage.getData(123).getProbes(), data);
 		assertEquals("Foo", storage.getData(123).getName());
 	}
 
@@ -100,6 +108,92 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void collect_should_provide_snapshot_of_probes() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 2)
+				.getProbes();
+		probes[0] = true;
+
+		data.collect(storage, storage, false);
+		probes[1] = true;
+
+		storage.assertData(123, new boolean[] { true, false });
+	}
+
+	@Test
+	public void collect_with_reset_should_provide_probes_before_reset() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(123), "Foo", 2)
+				.getProbes();
+		probes[0] = true;
+
+		data.collect(storage, storage, true);
+
+		assertFalse(probes[0]);
+		storage.assertData(123, new boolean[] { true, false });
+	}
+
+	@Test
+	public void reset_should_not_be_blocked_by_collect() throws Exception {
+		final boolean[] probes = data
+				.getExecutionData(Long.valueOf(123), "Foo", 1).getProbes();
+		probes[0] = true;
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			data.collect(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData ed) {
+					final Future<?> f = executor.submit(new Runnable() {
+						public void run() {
+							data.reset();
+						}
+					});
+					try {
+						f.get(10, TimeUnit.SECONDS);
+					} catch (final Exception e) {
+						throw new AssertionError(e);
+					}
+					storage.visitClassExecution(ed);
+				}
+			}, storage, false);
+		} finally {
+			executor.shutdown();
+		}
+
+		assertFalse(probes[0]);
+		storage.assertData(123, new boolean[] { true });
+	}
+
+	@Test
+	public void getExecutionData_should_not_be_blocked_by_collect()
+			throws Exception {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1);
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			data.collect(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData ed) {
+					final Future<ExecutionData> f = executor
+							.submit(new Callable<ExecutionData>() {
+								public ExecutionData call() {
+									return data.getExecutionData(
+											Long.valueOf(456), "Bar", 2);
+								}
+							});
+					try {
+						assertEquals("Bar",
+								f.get(10, TimeUnit.SECONDS).getName());
+					} catch (final Exception e) {
+						throw new AssertionError(e);
+					}
+					storage.visitClassExecution(ed);
+				}
+			}, storage, false);
+		} finally {
+			executor.shutdown();
+		}
+
+		storage.assertSize(1);
+		assertEquals("Foo", storage.getData(123).getName());
+	}
+
 	@Test
 	public void testEquals() {
 		assertTrue(data.equals(data));
@@ -12,8 +12,8 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertSame;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -42,7 +42,7 @@ class TestStorage implements IExecutionDataVisitor, ISessionInfoVisitor {
 	}
 
 	public void assertData(long classId, boolean[] expected) {
-		assertSame(expected, getData(classId).getProbes());
+		assertArrayEquals(expected, getData(classId).getProbes());
 	}
 
 	// === ICoverageDataVisitor ===
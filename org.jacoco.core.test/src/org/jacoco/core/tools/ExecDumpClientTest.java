@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.core.tools;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -27,10 +28,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.DeltaTracker;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -48,8 +52,13 @@ public class ExecDumpClientTest {
 
 	private ServerSocket server;
 
+	private RuntimeData runtimeData;
+	private DeltaTracker delta;
+
 	@Before
 	public void setup() {
+		runtimeData = new RuntimeData();
+		delta = new DeltaTracker();
 		callbacks = new ArrayList<String>();
 		client = new ExecDumpClient() {
 			@Override
@@ -128,6 +137,38 @@ public class ExecDumpClientTest {
 		assertTrue(resetRequested);
 	}
 
+	@Test
+	public void testDeltaSession() throws IOException {
+		final boolean[] a = runtimeData
+				.getExecutionData(Long.valueOf(1), "A", 2).getProbes();
+		final boolean[] b = runtimeData
+				.getExecutionData(Long.valueOf(2), "B", 2).getProbes();
+		a[0] = true;
+		int port = createExecServer();
+		final ExecDumpClient.DeltaSession session = client
+				.openDeltaSession(InetAddress.getByName(null), port);
+
+		ExecFileLoader loader = session.dump();
+		assertEquals(1, session.getClassCount());
+
+		b[1] = true;
+		loader = session.dump();
+		assertEquals(1, session.getClassCount());
+
+		loader = session.dump();
+		assertEquals(0, session.getClassCount());
+		session.close();
+
+		assertFalse(resetRequested);
+		assertEquals(3, loader.getSessionInfoStore().getInfos().size());
+		final ExecutionDataStore store = loader.getExecutionDataStore();
+		assertEquals(2, store.size());
+		assertArrayEquals(new boolean[] { true, false },
+				store.get(1).getProbes());
+		assertArrayEquals(new boolean[] { false, true },
+				store.get(2).getProbes());
+	}
+
 	@Test
 	public void should_throw_IOException_when_server_closes_connection_without_response()
 			throws IOException {
@@ -178,8 +219,16 @@ public class ExecDumpClientTest {
 				}
 				writer.sendCmdOk();
 			}
+
+			public void visitDeltaDumpCommand(boolean reset)
+					throws IOException {
+				resetRequested = reset;
+				runtimeData.collect(writer, writer, reset, delta);
+				writer.sendCmdOk();
+			}
 		});
-		reader.read();
+		while (reader.read()) {
+		}
 	}
 
 	private int createNopServer() throws IOException {
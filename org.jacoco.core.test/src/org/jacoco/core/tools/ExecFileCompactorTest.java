@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataIndex;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileCompactor}.
+ */
+public class ExecFileCompactorTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private ExecFileCompactor compactor;
+
+	private RandomAccessFile raf;
+
+	@Before
+	public void setup() throws IOException {
+		file = new File(folder.getRoot(), "jacoco.exec");
+		compactor = new ExecFileCompactor();
+	}
+
+	@After
+	public void teardown() throws IOException {
+		if (raf != null) {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void compact_should_ignore_missing_file() throws IOException {
+		compactor.compact(file);
+
+		assertFalse(file.exists());
+		assertEquals(0, compactor.getAppendedBytes());
+	}
+
+	@Test
+	public void compact_should_ignore_empty_file() throws IOException {
+		file.createNewFile();
+
+		compactor.compact(file);
+
+		assertEquals(0, file.length());
+	}
+
+	@Test
+	public void compact_should_rewrite_file_without_index()
+			throws IOException {
+		append(false, data(1, "A", true, false), data(1, "A", false, true));
+
+		compactor.compact(file);
+
+		assertEquals(1, compactor.getAppendedSessionCount());
+		assertEquals(1, compactor.getAddedClassCount());
+		final ExecutionDataIndex index = readIndex();
+		assertEquals(1, index.getSessionCount());
+		assertEquals(1, index.getEntryCount());
+		assertArrayEquals(new boolean[] { true, true },
+				index.get(1).getProbes());
+	}
+
+	@Test
+	public void compact_should_do_nothing_without_appended_data()
+			throws IOException {
+		append(false, data(1, "A", true, false));
+		compactor.compact(file);
+		final long size = file.length();
+		final long modified = file.lastModified();
+
+		compactor.compact(file);
+
+		assertEquals(0, compactor.getAppendedBytes());
+		assertEquals(size, file.length());
+		assertEquals(modified, file.lastModified());
+	}
+
+	@Test
+	public void compact_should_merge_appended_data_in_place()
+			throws IOException {
+		append(false, data(1, "A", true, false, false),
+				data(2, "B", true, false));
+		compactor.compact(file);
+		final long indexPosition = readIndex().getIndexPosition();
+		raf.close();
+		raf = null;
+		append(false, data(1, "A", false, false, true),
+				data(2, "B", true, false));
+		append(true, data(3, "C", true), data(1, "A", false, true, false));
+		final long size = file.length();
+
+		compactor.compact(file);
+
+		assertTrue(compactor.getAppendedBytes() > 0);
+		assertTrue(compactor.getAppendedBytes() < size);
+		assertEquals(2, compactor.getAppendedSessionCount());
+		assertEquals(1, compactor.getUpdatedClassCount());
+		assertEquals(1, compactor.getAddedClassCount());
+		final ExecutionDataIndex index = readIndex();
+		// New data is written in place of the previous index
+		assertTrue(index.getIndexPosition() > indexPosition);
+		assertTrue(index.getIndexPosition() < size);
+		assertEquals(3, index.getSessionCount());
+		assertEquals(3, index.getEntryCount());
+		assertArrayEquals(new boolean[] { true, true, true },
+				index.get(1).getProbes());
+		assertArrayEquals(new boolean[] { true, false },
+				index.get(2).getProbes());
+		assertArrayEquals(new boolean[] { true }, index.get(3).getProbes());
+
+		final ExecFileLoader loader = new ExecFileLoader();
+		loader.load(file);
+		assertEquals(3, loader.getSessionInfoStore().getInfos().size());
+		assertEquals(3, loader.getExecutionDataStore().size());
+	}
+
+	@Test
+	public void compact_should_find_index_before_large_appended_data()
+			throws IOException {
+		append(false, data(1, "A", true, false));
+		compactor.compact(file);
+		for (int i = 0; i < 20; i++) {
+			final ExecutionData[] data = new ExecutionData[1000];
+			for (int c = 0; c < data.length; c++) {
+				data[c] = data(c + 10, "C" + c, c % 20 == i);
+			}
+			append(false, data);
+		}
+		append(false, data(1, "A", false, true));
+
+		compactor.compact(file);
+
+		assertEquals(20 + 1, compactor.getAppendedSessionCount());
+		assertEquals(1, compactor.getUpdatedClassCount());
+		assertEquals(1000, compactor.getAddedClassCount());
+		final ExecutionDataIndex index = readIndex();
+		assertEquals(22, index.getSessionCount());
+		assertArrayEquals(new boolean[] { true, true },
+				index.get(1).getProbes());
+		assertNotNull(index.get(1009));
+	}
+
+	@Test
+	public void compact_should_find_index_before_compressed_data()
+			throws IOException {
+		append(false, data(1, "A", true, false));
+		compactor.compact(file);
+		append(true, data(1, "A", false, true));
+
+		compactor.compact(file);
+
+		assertEquals(1, compactor.getAppendedSessionCount());
+		assertEquals(1, compactor.getUpdatedClassCount());
+		assertArrayEquals(new boolean[] { true, true },
+				readIndex().get(1).getProbes());
+	}
+
+	private ExecutionData data(final long id, final String name,
+			final boolean... probes) {
+		return new ExecutionData(id, name, probes);
+	}
+
+	private void append(final boolean compressed, final ExecutionData... data)
+			throws IOException {
+		final FileOutputStream out = new FileOutputStream(file, true);
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out,
+				compressed);
+		writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+		for (final ExecutionData d : data) {
+			writer.visitClassExecution(d);
+		}
+		writer.flush();
+		out.close();
+	}
+
+	private ExecutionDataIndex readIndex() throws IOException {
+		if (raf != null) {
+			raf.close();
+		}
+		raf = new RandomAccessFile(file, "r");
+		final ExecutionDataIndex index = ExecutionDataIndex
+				.read(raf.getChannel());
+		assertNotNull(index);
+		return index;
+	}
+
+}
@@ -13,6 +13,7 @@
 package org.jacoco.core.tools;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
@@ -22,9 +23,11 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataIndex;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
@@ -70,6 +73,16 @@ public class ExecFileLoaderTest {
 		assertLoaderContents("a", "bb");
 	}
 
+	@Test
+	public void should_pack_probes_when_requested() throws IOException {
+		loader = new ExecFileLoader(true);
+		loader.load(createFile("a"));
+		loader.load(createFile("bb"));
+
+		assertTrue(loader.getExecutionDataStore().isPackedProbes());
+		assertLoaderContents("a", "bb");
+	}
+
 	@Test
 	public void testLoadBrokenContent() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "broken.exec");
@@ -110,6 +123,51 @@ public class ExecFileLoaderTest {
 		assertFileContents(file, "a", "bb");
 	}
 
+	@Test
+	public void testSaveCompressedFile() throws IOException {
+		final File file = createFile("a");
+
+		loader.load(createFile("bb"));
+		loader.save(file, true, true);
+
+		assertFileContents(file, "a", "bb");
+		loader = new ExecFileLoader();
+		loader.load(file);
+		assertLoaderContents("a", "bb");
+	}
+
+	@Test
+	public void testSaveIndexedFile() throws IOException {
+		final File file = createFile("a");
+
+		loader.load(createFile("bb"));
+		loader.saveIndexed(file);
+
+		assertFileContents(file, "bb");
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final ExecutionDataIndex index = ExecutionDataIndex
+					.read(raf.getChannel());
+			assertEquals(1, index.getSessionCount());
+			assertEquals("bb", index.get(2).getName());
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testLoadIndexedFile() throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "target.exec");
+		loader.load(createFile("a"));
+		loader.load(createFile("bb"));
+		loader.saveIndexed(file);
+
+		loader = new ExecFileLoader();
+		loader.load(file);
+
+		assertLoaderContents("a", "bb");
+	}
+
 	@Test
 	public void testCreateSubfolders() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "a/b/c/target.exec");
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileMerger}.
+ */
+public class ExecFileMergerTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+
+	private ExecFileMerger merger;
+
+	private SessionInfoStore sessionInfos;
+
+	private ExecutionDataStore store;
+
+	@Before
+	public void setup() {
+		executor = Executors.newFixedThreadPool(4);
+		merger = new ExecFileMerger();
+		sessionInfos = new SessionInfoStore();
+		store = new ExecutionDataStore();
+	}
+
+	@After
+	public void teardown() {
+		executor.shutdown();
+	}
+
+	@Test
+	public void should_merge_files_in_calling_thread() throws IOException {
+		final List<File> files = createFiles(10);
+
+		merger.load(files, sessionInfos);
+		merger.accept(store);
+
+		assertMerged(10);
+		assertEquals(files.size(), merger.getFileCount());
+	}
+
+	@Test
+	public void should_merge_files_in_parallel() throws IOException {
+		merger.setExecutor(executor, 4);
+		final List<File> files = createFiles(50);
+
+		merger.load(files, sessionInfos);
+		merger.accept(store);
+
+		assertMerged(50);
+	}
+
+	@Test
+	public void should_merge_files_in_parallel_with_packed_probes()
+			throws IOException {
+		merger = new ExecFileMerger(true);
+		merger.setExecutor(executor, 3);
+
+		merger.load(createFiles(50), sessionInfos);
+		merger.accept(store);
+
+		assertMerged(50);
+	}
+
+	@Test
+	public void should_merge_content_of_multiple_loads() throws IOException {
+		merger.setExecutor(executor, 4);
+		final List<File> files = createFiles(20);
+
+		merger.load(files.subList(0, 7), sessionInfos);
+		merger.load(files.subList(7, 20), sessionInfos);
+		merger.accept(store);
+
+		assertMerged(20);
+		assertEquals(20, merger.getFileCount());
+	}
+
+	@Test
+	public void should_report_statistics() throws IOException {
+		merger.setExecutor(executor, 2);
+		final List<File> files = createFiles(5);
+		long size = 0;
+		for (final File f : files) {
+			size += f.length();
+		}
+
+		merger.load(files, sessionInfos);
+
+		assertEquals(5, merger.getFileCount());
+		assertEquals(size, merger.getByteCount());
+		assertEquals(5, merger.getSessionCount());
+		assertEquals(CLASSES, merger.getClassCount());
+	}
+
+	@Test
+	public void should_handle_no_files() throws IOException {
+		merger.setExecutor(executor, 4);
+
+		merger.load(Collections.<File> emptyList(), sessionInfos);
+		merger.accept(store);
+
+		assertEquals(0, merger.getFileCount());
+		assertEquals(0, merger.getClassCount());
+		assertTrue(store.getContents().isEmpty());
+	}
+
+	@Test
+	public void accept_should_release_merged_data() throws IOException {
+		merger.load(createFiles(2), sessionInfos);
+		merger.accept(store);
+		final ExecutionDataStore second = new ExecutionDataStore();
+
+		merger.accept(second);
+
+		assertTrue(second.getContents().isEmpty());
+	}
+
+	@Test
+	public void should_throw_IOException_with_file_name_for_invalid_file()
+			throws IOException {
+		merger.setExecutor(executor, 4);
+		final List<File> files = createFiles(10);
+		final File invalid = folder.newFile("invalid.exec");
+		final FileOutputStream out = new FileOutputStream(invalid);
+		out.write("invalid".getBytes());
+		out.close();
+		files.add(5, invalid);
+
+		try {
+			merger.load(files, sessionInfos);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals(String.format(
+					"Error while reading execution data file %s.", invalid),
+					e.getMessage());
+			assertEquals("Invalid execution data file.",
+					e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void should_spill_to_temporary_files_when_memory_is_exceeded()
+			throws IOException {
+		final File temp = folder.newFolder();
+		merger.setMaxMemory(1, temp);
+		final List<File> files = createFiles(10);
+
+		merger.load(files, sessionInfos);
+		assertEquals(10, merger.getSpillCount());
+		assertEquals(10, temp.list().length);
+
+		final List<Long> ids = new ArrayList<Long>();
+		merger.accept(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				ids.add(Long.valueOf(data.getId()));
+				store.put(data);
+			}
+		});
+
+		assertMerged(10);
+		assertEquals(CLASSES, merger.getClassCount());
+		assertEquals(0, temp.list().length);
+		final List<Long> sorted = new ArrayList<Long>(ids);
+		Collections.sort(sorted);
+		assertEquals(sorted, ids);
+	}
+
+	@Test
+	public void should_spill_in_parallel_with_packed_probes()
+			throws IOException {
+		final File temp = folder.newFolder();
+		merger = new ExecFileMerger(true);
+		merger.setExecutor(executor, 4);
+		// Less than the data of a single file per reader
+		merger.setMaxMemory(4 * CLASSES * 100, temp);
+
+		merger.load(createFiles(40), sessionInfos);
+		merger.accept(store);
+
+		assertEquals(40, merger.getSpillCount());
+		assertMerged(40);
+		assertEquals(0, temp.list().length);
+	}
+
+	@Test
+	public void should_merge_spilled_and_in_memory_data() throws IOException {
+		final File temp = folder.newFolder();
+		final List<File> files = createFiles(10);
+		merger.setMaxMemory(1, temp);
+		merger.load(files.subList(0, 5), sessionInfos);
+		merger.setMaxMemory(0, null);
+		merger.load(files.subList(5, 10), sessionInfos);
+
+		merger.accept(store);
+
+		assertMerged(10);
+		assertEquals(0, temp.list().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setMaxMemory_should_check_limit() {
+		merger.setMaxMemory(-1, null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void setExecutor_should_check_parallelism() {
+		merger.setExecutor(executor, 0);
+	}
+
+	private static final int CLASSES = 100;
+
+	/**
+	 * Creates files which contain all classes, where in file i only the probe
+	 * i of every class is executed.
+	 */
+	private List<File> createFiles(final int count) throws IOException {
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < count; i++) {
+			final File file = folder.newFile("file" + i + ".exec");
+			final FileOutputStream out = new FileOutputStream(file);
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			writer.visitSessionInfo(new SessionInfo("session" + i, i, i));
+			for (int c = 0; c < CLASSES; c++) {
+				final boolean[] probes = new boolean[count];
+				probes[i] = true;
+				writer.visitClassExecution(
+						new ExecutionData(c * 0x9E3779B97F4A7C15L,
+								"Class" + c, probes));
+			}
+			out.close();
+			files.add(file);
+		}
+		return files;
+	}
+
+	private void assertMerged(final int count) {
+		final Set<String> sessions = new HashSet<String>();
+		for (final SessionInfo info : sessionInfos.getInfos()) {
+			sessions.add(info.getId());
+		}
+		assertEquals(count, sessions.size());
+		final boolean[] expected = new boolean[count];
+		Arrays.fill(expected, true);
+		assertEquals(CLASSES, store.getContents().size());
+		for (int c = 0; c < CLASSES; c++) {
+			final ExecutionData data = store.get(c * 0x9E3779B97F4A7C15L);
+			assertEquals("Class" + c, data.getName());
+			assertArrayEquals(expected, data.getProbes());
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.data.CRC64;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link InstrumentationManifest}.
+ */
+public class InstrumentationManifestTest {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private InstrumentationManifest manifest;
+
+	private File file;
+
+	@Before
+	public void setup() {
+		manifest = new InstrumentationManifest();
+		file = new File(folder.getRoot(), "sub/manifest.txt");
+	}
+
+	@Test
+	public void id_should_calculate_class_id_of_file_content()
+			throws IOException {
+		final byte[] content = new byte[] { 1, 2, 3, 4, 5 };
+		final File f = write(folder.newFile(), content);
+
+		assertEquals(CRC64.classId(content), InstrumentationManifest.id(f));
+	}
+
+	@Test
+	public void contains_should_return_true_for_matching_entry() {
+		manifest.put("a/A.class", 1, 2);
+
+		assertTrue(manifest.contains("a/A.class", 1, 2));
+		assertEquals(1, manifest.size());
+	}
+
+	@Test
+	public void contains_should_return_false_for_different_ids() {
+		manifest.put("a/A.class", 1, 2);
+
+		assertFalse(manifest.contains("a/A.class", 1, 3));
+		assertFalse(manifest.contains("a/A.class", 3, 2));
+		assertFalse(manifest.contains("a/B.class", 1, 2));
+	}
+
+	@Test
+	public void load_should_restore_saved_entries() throws IOException {
+		manifest.put("a/A.class", 0x8000000000000001L, -1);
+		manifest.put("lib/with space.jar", 0, 0x123456789abcdefL);
+		manifest.save(file);
+
+		final InstrumentationManifest loaded = new InstrumentationManifest();
+		loaded.load(file);
+
+		assertEquals(2, loaded.size());
+		assertTrue(loaded.contains("a/A.class", 0x8000000000000001L, -1));
+		assertTrue(
+				loaded.contains("lib/with space.jar", 0, 0x123456789abcdefL));
+	}
+
+	@Test
+	public void load_should_ignore_missing_file() throws IOException {
+		manifest.load(file);
+
+		assertEquals(0, manifest.size());
+	}
+
+	@Test
+	public void load_should_ignore_file_of_other_version() throws IOException {
+		write(folder.newFile("other.txt"),
+				"JaCoCo 0.0.0\n0000000000000001 0000000000000002 A.class\n"
+						.getBytes("UTF-8"));
+
+		manifest.load(new File(folder.getRoot(), "other.txt"));
+
+		assertEquals(0, manifest.size());
+	}
+
+	@Test
+	public void load_should_ignore_file_of_other_build() throws IOException {
+		write(folder.newFile("other.txt"), ("JaCoCo " + JaCoCo.VERSION
+				+ "/0000000\n0000000000000001 0000000000000002 A.class\n")
+						.getBytes("UTF-8"));
+
+		manifest.load(new File(folder.getRoot(), "other.txt"));
+
+		assertEquals(0, manifest.size());
+	}
+
+	@Test
+	public void load_should_throw_IOException_for_invalid_entry()
+			throws IOException {
+		write(folder.newFile("invalid.txt"),
+				("JaCoCo " + JaCoCo.VERSION + "/" + JaCoCo.COMMITID
+						+ "\n1 2 A.class\n").getBytes("UTF-8"));
+
+		try {
+			manifest.load(new File(folder.getRoot(), "invalid.txt"));
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertTrue(e.getMessage()
+					.startsWith("Invalid instrumentation manifest "));
+		}
+	}
+
+	private static File write(final File f, final byte[] content)
+			throws IOException {
+		final OutputStream out = new FileOutputStream(f);
+		out.write(content);
+		out.close();
+		return f;
+	}
+
+}
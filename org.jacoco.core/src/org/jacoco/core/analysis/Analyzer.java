@@ -16,9 +16,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.LinkedList;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.jacoco.core.JaCoCo;
@@ -27,14 +34,17 @@ import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.internal.ContentTypeDetector;
 import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
+import org.jacoco.core.internal.analysis.AnalysisCache;
 import org.jacoco.core.internal.analysis.ClassAnalyzer;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassTrace;
+import org.jacoco.core.internal.analysis.ClassTraceRecorder;
+import org.jacoco.core.internal.analysis.MethodCoverageAnalyzer;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.ClassReader;
-import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -44,15 +54,38 @@ import org.objectweb.asm.Opcodes;
  * {@link Analyzer} requires a {@link ExecutionDataStore} instance that holds
  * the execution data for the classes to analyze. The {@link Analyzer} offers
  * several methods to analyze classes from a variety of sources.
+ *
+ * Optionally class files can be analyzed in parallel by an {@link Executor}
+ * set with {@link #setExecutor(Executor)}. In this case the results are still
+ * reported to the {@link ICoverageVisitor} in the order of the class files and
+ * in the thread calling the {@link Analyzer}, before the respective
+ * <code>analyze*()</code> method returns.
  */
 public class Analyzer {
 
+	/**
+	 * Maximum number of class files that are analyzed concurrently before
+	 * results are reported, this limits the memory required for pending class
+	 * definitions and results.
+	 */
+	private static final int MAX_PENDING = 1024;
+
 	private final ExecutionDataStore executionData;
 
 	private final ICoverageVisitor coverageVisitor;
 
 	private final StringPool stringPool;
 
+	private final LinkedList<PendingClass> pending;
+
+	private Executor executor;
+
+	private AnalysisCache cache;
+
+	private boolean methodCoverageOnly;
+
+	private int nesting;
+
 	/**
 	 * Creates a new analyzer reporting to the given output.
 	 *
@@ -67,54 +100,135 @@ public class Analyzer {
 		this.executionData = executionData;
 		this.coverageVisitor = coverageVisitor;
 		this.stringPool = new StringPool();
+		this.pending = new LinkedList<PendingClass>();
 	}
 
 	/**
-	 * Creates an ASM class visitor for analysis.
+	 * Sets an executor that is used to analyze class files in parallel, for
+	 * example a thread pool. The executor is not shut down by the
+	 * {@link Analyzer}. The {@link ExecutionDataStore} must not be modified
+	 * while classes are analyzed. By default or if set to <code>null</code>
+	 * all class files are analyzed in the calling thread.
 	 *
-	 * @param classid
-	 *            id of the class calculated with {@link CRC64}
-	 * @param className
-	 *            VM name of the class
-	 * @return ASM visitor to write class definition to
+	 * @param executor
+	 *            executor for analysis or <code>null</code>
 	 */
-	private ClassVisitor createAnalyzingVisitor(final long classid,
-			final String className) {
-		final ExecutionData data = executionData.get(classid);
-		final boolean[] probes;
-		final boolean noMatch;
-		if (data == null) {
-			probes = null;
-			noMatch = executionData.contains(className);
-		} else {
-			probes = data.getProbes();
-			noMatch = false;
-		}
-		final ClassCoverageImpl coverage = new ClassCoverageImpl(className,
-				classid, noMatch);
-		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes,
-				stringPool) {
-			@Override
-			public void visitEnd() {
-				super.visitEnd();
-				coverageVisitor.visitCoverage(coverage);
-			}
-		};
-		return new ClassProbesAdapter(analyzer, false);
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
 	}
 
-	private void analyzeClass(final byte[] source) {
+	/**
+	 * Sets a directory where the results of the analysis are cached for every
+	 * class file. For class files with identical content which have been
+	 * analyzed before only the execution data has to be applied to the cached
+	 * structure, which is considerably faster than parsing the class files
+	 * again. The directory can be shared between subsequent runs and between
+	 * different processes. By default or if set to <code>null</code> no cache
+	 * is used. Outdated entries are not removed, the directory can be deleted
+	 * at any time to limit its size.
+	 *
+	 * @param directory
+	 *            cache directory or <code>null</code>
+	 */
+	public void setCacheDirectory(final File directory) {
+		this.cache = directory == null ? null : new AnalysisCache(directory);
+	}
+
+	/**
+	 * Restricts the analysis to method and class counters. In this mode the
+	 * methods are not analyzed instruction by instruction, only their probes
+	 * are counted in a single pass over the class file. A method is
+	 * considered as covered if one of its probes has been executed. Filters
+	 * are not applied, only synthetic methods are skipped as usual. All other
+	 * counters of the reported {@link IClassCoverage} instances are empty and
+	 * no cache set with {@link #setCacheDirectory(File)} is used. This mode is
+	 * considerably faster and suitable to check whether classes or methods
+	 * have been executed at all. By default full analysis is performed.
+	 *
+	 * @param methodCoverageOnly
+	 *            <code>true</code> to only calculate method and class
+	 *            counters
+	 */
+	public void setMethodCoverageOnly(final boolean methodCoverageOnly) {
+		this.methodCoverageOnly = methodCoverageOnly;
+	}
+
+	/**
+	 * Calculates coverage for the given class definition. This method may be
+	 * called concurrently for different class definitions.
+	 *
+	 * @return coverage data or <code>null</code> if the class is not subject
+	 *         to analysis
+	 */
+	private ClassCoverageImpl analyzeClass(final byte[] source) {
 		final long classId = CRC64.classId(source);
+		final AnalysisCache cache = methodCoverageOnly ? null : this.cache;
+		if (cache != null) {
+			final ClassCoverageImpl coverage = replay(classId);
+			if (coverage != null) {
+				return coverage;
+			}
+		}
 		final ClassReader reader = InstrSupport.classReaderFor(source);
 		if ((reader.getAccess() & Opcodes.ACC_MODULE) != 0) {
-			return;
+			return null;
 		}
-		if (reader.getClassName().endsWith("/package-info")) {
-			return;
+		final String className = reader.getClassName();
+		if (className.endsWith("/package-info")) {
+			return null;
+		}
+		final ExecutionData data = executionData.get(classId);
+		final ClassCoverageImpl coverage = createCoverage(classId, className,
+				data);
+		if (methodCoverageOnly) {
+			reader.accept(new MethodCoverageAnalyzer(coverage,
+					data == null ? null : data.getProbes(), stringPool),
+					ClassReader.SKIP_FRAMES);
+			return coverage;
+		}
+		final ClassTraceRecorder recorder = cache == null ? null
+				: new ClassTraceRecorder(className);
+		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage,
+				data == null ? null : data.getProbes(), stringPool, recorder);
+		reader.accept(new ClassProbesAdapter(analyzer, false), 0);
+		if (recorder != null) {
+			final ClassTrace trace = recorder.getTrace();
+			if (trace != null) {
+				cache.put(classId, trace);
+			}
 		}
-		final ClassVisitor visitor = createAnalyzingVisitor(classId,
-				reader.getClassName());
-		reader.accept(visitor, 0);
+		return coverage;
+	}
+
+	/**
+	 * Calculates coverage for the given class from the cached trace of a
+	 * previous analysis.
+	 *
+	 * @return coverage data or <code>null</code> if there is no valid cache
+	 *         entry
+	 */
+	private ClassCoverageImpl replay(final long classId) {
+		final ClassTrace trace = cache.get(classId);
+		if (trace == null) {
+			return null;
+		}
+		final ExecutionData data = executionData.get(classId);
+		final ClassCoverageImpl coverage = createCoverage(classId,
+				stringPool.get(trace.getClassName()), data);
+		try {
+			trace.replay(coverage, data == null ? null : data.getProbes(),
+					stringPool);
+		} catch (final IOException e) {
+			return null;
+		}
+		return coverage;
+	}
+
+	private ClassCoverageImpl createCoverage(final long classId,
+			final String className, final ExecutionData data) {
+		final boolean noMatch = data == null
+				&& executionData.contains(className);
+		return new ClassCoverageImpl(className, classId, noMatch);
 	}
 
 	/**
@@ -129,13 +243,103 @@ public class Analyzer {
 	 */
 	public void analyzeClass(final byte[] buffer, final String location)
 			throws IOException {
+		nesting++;
 		try {
-			analyzeClass(buffer);
-		} catch (final RuntimeException cause) {
-			throw analyzerError(location, cause);
+			if (executor == null) {
+				try {
+					visitCoverage(analyzeClass(buffer));
+				} catch (final RuntimeException cause) {
+					throw analyzerError(location, cause);
+				}
+			} else {
+				submit(buffer, location);
+			}
+			complete();
+		} finally {
+			leave();
+		}
+	}
+
+	private void visitCoverage(final ClassCoverageImpl coverage) {
+		if (coverage != null) {
+			coverageVisitor.visitCoverage(coverage);
+		}
+	}
+
+	private void submit(final byte[] buffer, final String location)
+			throws IOException {
+		if (pending.size() >= MAX_PENDING) {
+			pending.removeFirst().report();
+		}
+		final PendingClass task = new PendingClass(buffer, location);
+		pending.add(task);
+		executor.execute(task);
+	}
+
+	/**
+	 * Reports all pending results if called from the outermost
+	 * <code>analyze*()</code> method.
+	 */
+	private void complete() throws IOException {
+		if (nesting == 1) {
+			while (!pending.isEmpty()) {
+				pending.removeFirst().report();
+			}
 		}
 	}
 
+	/**
+	 * Discards all pending analysis tasks if the outermost
+	 * <code>analyze*()</code> method has been left with an exception.
+	 */
+	private void leave() {
+		if (--nesting == 0) {
+			for (final PendingClass task : pending) {
+				task.cancel(false);
+			}
+			pending.clear();
+		}
+	}
+
+	/**
+	 * Analysis of a single class file which is executed by the executor.
+	 */
+	private class PendingClass extends FutureTask<ClassCoverageImpl> {
+
+		private final String location;
+
+		PendingClass(final byte[] buffer, final String location) {
+			super(new Callable<ClassCoverageImpl>() {
+				public ClassCoverageImpl call() {
+					return analyzeClass(buffer);
+				}
+			});
+			this.location = location;
+		}
+
+		void report() throws IOException {
+			final ClassCoverageImpl coverage;
+			try {
+				coverage = get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw analyzerError(location, e);
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw analyzerError(location, (Exception) cause);
+			}
+			try {
+				visitCoverage(coverage);
+			} catch (final RuntimeException cause) {
+				throw analyzerError(location, cause);
+			}
+		}
+
+	}
+
 	/**
 	 * Analyzes the class definition from a given input stream. The provided
 	 * {@link InputStream} is not closed by this method.
@@ -184,12 +388,28 @@ public class Analyzer {
 	 */
 	public int analyzeAll(final InputStream input, final String location)
 			throws IOException {
-		final ContentTypeDetector detector;
+		nesting++;
+		try {
+			final int count = analyzeContent(detectContentType(input, location),
+					location);
+			complete();
+			return count;
+		} finally {
+			leave();
+		}
+	}
+
+	private ContentTypeDetector detectContentType(final InputStream input,
+			final String location) throws IOException {
 		try {
-			detector = new ContentTypeDetector(input);
+			return new ContentTypeDetector(input);
 		} catch (final IOException e) {
 			throw analyzerError(location, e);
 		}
+	}
+
+	private int analyzeContent(final ContentTypeDetector detector,
+			final String location) throws IOException {
 		switch (detector.getType()) {
 		case ContentTypeDetector.CLASSFILE:
 			analyzeClass(detector.getInputStream(), location);
@@ -208,7 +428,8 @@ public class Analyzer {
 	/**
 	 * Analyzes all class files contained in the given file or folder. Class
 	 * files as well as ZIP files are considered. Folders are searched
-	 * recursively.
+	 * recursively. ZIP files are accessed randomly, so that entries which are
+	 * neither class files nor archives are skipped without decompressing them.
 	 *
 	 * @param file
 	 *            file or folder to look for class files
@@ -217,20 +438,26 @@ public class Analyzer {
 	 *             if the file can't be read or a class can't be analyzed
 	 */
 	public int analyzeAll(final File file) throws IOException {
-		int count = 0;
-		if (file.isDirectory()) {
-			for (final File f : file.listFiles()) {
-				count += analyzeAll(f);
-			}
-		} else {
-			final InputStream in = new FileInputStream(file);
-			try {
-				count += analyzeAll(in, file.getPath());
-			} finally {
-				in.close();
+		nesting++;
+		try {
+			int count = 0;
+			if (file.isDirectory()) {
+				for (final File f : file.listFiles()) {
+					count += analyzeAll(f);
+				}
+			} else {
+				final InputStream in = new FileInputStream(file);
+				try {
+					count += analyzeFile(in, file);
+				} finally {
+					in.close();
+				}
 			}
+			complete();
+			return count;
+		} finally {
+			leave();
 		}
-		return count;
 	}
 
 	/**
@@ -249,11 +476,75 @@ public class Analyzer {
 	 */
 	public int analyzeAll(final String path, final File basedir)
 			throws IOException {
+		nesting++;
+		try {
+			int count = 0;
+			final StringTokenizer st = new StringTokenizer(path,
+					File.pathSeparator);
+			while (st.hasMoreTokens()) {
+				count += analyzeAll(new File(basedir, st.nextToken()));
+			}
+			complete();
+			return count;
+		} finally {
+			leave();
+		}
+	}
+
+	private int analyzeFile(final InputStream input, final File file)
+			throws IOException {
+		final String location = file.getPath();
+		final ContentTypeDetector detector = detectContentType(input,
+				location);
+		if (detector.getType() == ContentTypeDetector.ZIPFILE) {
+			final ZipFile zip = openZipFile(file);
+			if (zip != null) {
+				try {
+					return analyzeZipFile(zip, location);
+				} finally {
+					zip.close();
+				}
+			}
+		}
+		return analyzeContent(detector, location);
+	}
+
+	/**
+	 * Opens the given file for random access if possible.
+	 *
+	 * @return ZIP file or <code>null</code> if the file can only be read as a
+	 *         stream, e.g. because the central directory is missing
+	 */
+	private static ZipFile openZipFile(final File file) {
+		try {
+			return new ZipFile(file);
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	private int analyzeZipFile(final ZipFile zip, final String location)
+			throws IOException {
+		final Enumeration<? extends ZipEntry> entries = zip.entries();
 		int count = 0;
-		final StringTokenizer st = new StringTokenizer(path,
-				File.pathSeparator);
-		while (st.hasMoreTokens()) {
-			count += analyzeAll(new File(basedir, st.nextToken()));
+		while (entries.hasMoreElements()) {
+			final ZipEntry entry = entries.nextElement();
+			if (entry.isDirectory()) {
+				continue;
+			}
+			final String entryLocation = location + "@" + entry.getName();
+			final InputStream input;
+			try {
+				input = zip.getInputStream(entry);
+			} catch (final IOException e) {
+				throw analyzerError(entryLocation, e);
+			}
+			try {
+				// Only the header is decompressed for unsupported content
+				count += analyzeAll(input, entryLocation);
+			} finally {
+				input.close();
+			}
 		}
 		return count;
 	}
@@ -160,9 +160,15 @@ public final class ExecutionData {
 		assertCompatibility(other.getId(), other.getName(),
 				other.getProbes().length);
 		final boolean[] otherData = other.getProbes();
-		for (int i = 0; i < probes.length; i++) {
-			if (otherData[i]) {
-				probes[i] = flag;
+		// Branch-free loops allow the JIT compiler to process multiple probes
+		// at once with SIMD instructions:
+		if (flag) {
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] |= otherData[i];
+			}
+		} else {
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] &= !otherData[i];
 			}
 		}
 	}
@@ -183,17 +189,24 @@ public final class ExecutionData {
 	 */
 	public void assertCompatibility(final long id, final String name,
 			final int probecount) throws IllegalStateException {
-		if (this.id != id) {
+		assertCompatibility(this.id, this.name, this.probes.length, id, name,
+				probecount);
+	}
+
+	static void assertCompatibility(final long thisId, final String thisName,
+			final int thisProbecount, final long id, final String name,
+			final int probecount) throws IllegalStateException {
+		if (thisId != id) {
 			throw new IllegalStateException(
 					format("Different ids (%016x and %016x).",
-							Long.valueOf(this.id), Long.valueOf(id)));
+							Long.valueOf(thisId), Long.valueOf(id)));
 		}
-		if (!this.name.equals(name)) {
+		if (!thisName.equals(name)) {
 			throw new IllegalStateException(
 					format("Different class names %s and %s for id %016x.",
-							this.name, name, Long.valueOf(id)));
+							thisName, name, Long.valueOf(id)));
 		}
-		if (this.probes.length != probecount) {
+		if (thisProbecount != probecount) {
 			throw new IllegalStateException(format(
 					"Incompatible execution data for class %s with id %016x.",
 					name, Long.valueOf(id)));
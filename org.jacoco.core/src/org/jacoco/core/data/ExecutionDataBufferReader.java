@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.data.BlockCompression;
+import org.jacoco.core.internal.data.BufferDataInput;
+
+/**
+ * Deserialization of execution data files from {@link ByteBuffer}s, e.g.
+ * mapped files, or from {@link ReadableByteChannel}s. In contrast to
+ * {@link ExecutionDataReader} data is decoded directly from a buffer, class
+ * names which occur multiple times are only created once and probes can be
+ * passed to an {@link IPackedExecutionDataVisitor} without decoding. Unlike
+ * {@link ExecutionDataReader} this reader does not support custom block
+ * types.
+ */
+public class ExecutionDataBufferReader {
+
+	private final BufferDataInput in;
+
+	private ISessionInfoVisitor sessionInfoVisitor = null;
+
+	private IExecutionDataVisitor executionDataVisitor = null;
+
+	private IPackedExecutionDataVisitor packedExecutionDataVisitor = null;
+
+	private boolean firstBlock = true;
+
+	/** Class names of compressed blocks since the last header */
+	private final List<String> names = new ArrayList<String>();
+
+	/**
+	 * Creates a new reader which reads the remaining content of the given
+	 * buffer. The position of the given buffer is not modified.
+	 *
+	 * @param buffer
+	 *            buffer to read execution data from
+	 */
+	public ExecutionDataBufferReader(final ByteBuffer buffer) {
+		this.in = new BufferDataInput(buffer);
+	}
+
+	/**
+	 * Creates a new reader which reads from the given channel. The channel is
+	 * read in large chunks, so no additional buffering is required.
+	 *
+	 * @param channel
+	 *            channel to read execution data from
+	 */
+	public ExecutionDataBufferReader(final ReadableByteChannel channel) {
+		this.in = new BufferDataInput(channel);
+	}
+
+	/**
+	 * Sets a listener for session information.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve session info events
+	 */
+	public void setSessionInfoVisitor(final ISessionInfoVisitor visitor) {
+		this.sessionInfoVisitor = visitor;
+	}
+
+	/**
+	 * Sets a listener for execution data. This listener is not used if a
+	 * listener for packed execution data is set.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve execution data events
+	 */
+	public void setExecutionDataVisitor(final IExecutionDataVisitor visitor) {
+		this.executionDataVisitor = visitor;
+	}
+
+	/**
+	 * Sets a listener for execution data with packed probes.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve packed execution data events
+	 */
+	public void setPackedExecutionDataVisitor(
+			final IPackedExecutionDataVisitor visitor) {
+		this.packedExecutionDataVisitor = visitor;
+	}
+
+	/**
+	 * Reads all data and reports it to the corresponding visitors.
+	 *
+	 * @throws IOException
+	 *             might be thrown by the underlying channel or if the data is
+	 *             not a valid execution data file
+	 * @throws IncompatibleExecDataVersionException
+	 *             incompatible data version from different JaCoCo release
+	 */
+	public void read() throws IOException, IncompatibleExecDataVersionException {
+		int type;
+		while ((type = in.read()) != -1) {
+			if (firstBlock && type != ExecutionDataWriter.BLOCK_HEADER) {
+				throw new IOException("Invalid execution data file.");
+			}
+			firstBlock = false;
+			readBlock((byte) type);
+		}
+	}
+
+	private void readBlock(final byte blocktype) throws IOException {
+		switch (blocktype) {
+		case ExecutionDataWriter.BLOCK_HEADER:
+			readHeader();
+			break;
+		case ExecutionDataWriter.BLOCK_SESSIONINFO:
+			readSessionInfo(in);
+			break;
+		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+			readExecutionData(in, false);
+			break;
+		case ExecutionDataWriter.BLOCK_INDEX:
+			skipIndex();
+			break;
+		case ExecutionDataWriter.BLOCK_COMPRESSED:
+			readCompressed();
+			break;
+		default:
+			throw new IOException(
+					format("Unknown block type %x.", Byte.valueOf(blocktype)));
+		}
+	}
+
+	private void readHeader() throws IOException {
+		if (in.readChar() != ExecutionDataWriter.MAGIC_NUMBER) {
+			throw new IOException("Invalid execution data file.");
+		}
+		final char version = in.readChar();
+		if (version != ExecutionDataWriter.FORMAT_VERSION
+				&& version != ExecutionDataWriter.FORMAT_VERSION_EXTENDED) {
+			throw new IncompatibleExecDataVersionException(version);
+		}
+		names.clear();
+	}
+
+	private void readCompressed() throws IOException {
+		final int length = in.readVarInt();
+		final int compressedLength = in.readVarInt();
+		if (length < 0 || compressedLength < 0) {
+			throw new IOException("Invalid compressed block.");
+		}
+		final byte[] compressed = new byte[compressedLength];
+		in.readFully(compressed);
+		final BufferDataInput input = new BufferDataInput(ByteBuffer
+				.wrap(BlockCompression.inflate(compressed, length)));
+		int i;
+		while ((i = input.read()) != -1) {
+			final byte type = (byte) i;
+			switch (type) {
+			case ExecutionDataWriter.BLOCK_SESSIONINFO:
+				readSessionInfo(input);
+				break;
+			case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+				readExecutionData(input, true);
+				break;
+			default:
+				throw new IOException(
+						format("Unknown block type %x.", Byte.valueOf(type)));
+			}
+		}
+	}
+
+	private void readSessionInfo(final BufferDataInput input)
+			throws IOException {
+		if (sessionInfoVisitor == null) {
+			throw new IOException("No session info visitor.");
+		}
+		final String id = input.readUTF();
+		final long start = input.readLong();
+		final long dump = input.readLong();
+		sessionInfoVisitor.visitSessionInfo(new SessionInfo(id, start, dump));
+	}
+
+	private void skipIndex() throws IOException {
+		in.readVarInt();
+		final int count = in.readVarInt();
+		for (int i = 0; i < count; i++) {
+			in.readLong();
+			in.readLong();
+			in.readInt();
+		}
+		in.readLong();
+		in.readChar();
+	}
+
+	private void readExecutionData(final BufferDataInput input,
+			final boolean compressed) throws IOException {
+		if (executionDataVisitor == null
+				&& packedExecutionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		final long id = input.readLong();
+		final String name = compressed ? readName(input) : input.readUTF();
+		if (packedExecutionDataVisitor != null) {
+			final int probeCount = input.readVarInt();
+			packedExecutionDataVisitor.visitClassExecution(id, name,
+					probeCount, input.readPackedBooleanArray(probeCount));
+		} else {
+			executionDataVisitor.visitClassExecution(
+					new ExecutionData(id, name, input.readBooleanArray()));
+		}
+	}
+
+	private String readName(final BufferDataInput input) throws IOException {
+		final int index = input.readVarInt();
+		if (index == 0) {
+			final String name = input.readUTF();
+			names.add(name);
+			return name;
+		}
+		if (index < 0 || index > names.size()) {
+			throw new IOException(format("Invalid class name reference %d.",
+					Integer.valueOf(index)));
+		}
+		return names.get(index - 1);
+	}
+
+}
@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jacoco.core.internal.data.BufferDataInput;
+import org.jacoco.core.internal.data.LongHashMap;
+
+/**
+ * Random access to the execution data of files written with
+ * {@link IndexedExecutionDataWriter}. Only the index is read initially, the
+ * execution data of single classes or ranges of index entries is read on
+ * demand. Reading execution data is thread safe, so different ranges of entries
+ * can be decoded in parallel.
+ */
+public final class ExecutionDataIndex {
+
+	private final FileChannel channel;
+
+	private final long indexPosition;
+
+	private final int sessionCount;
+
+	final long[] ids;
+
+	final long[] positions;
+
+	final int[] lengths;
+
+	/** Index of the first entry for every class id */
+	private final LongHashMap<Integer> firstEntries;
+
+	private ExecutionDataIndex(final FileChannel channel,
+			final long indexPosition, final int sessionCount,
+			final ByteBuffer entries) {
+		this.channel = channel;
+		this.indexPosition = indexPosition;
+		this.sessionCount = sessionCount;
+		final int count = entries.remaining()
+				/ IndexedExecutionDataWriter.ENTRY_SIZE;
+		ids = new long[count];
+		positions = new long[count];
+		lengths = new int[count];
+		firstEntries = new LongHashMap<Integer>();
+		for (int i = 0; i < count; i++) {
+			ids[i] = entries.getLong();
+			positions[i] = entries.getLong();
+			lengths[i] = entries.getInt();
+			if (i == 0 || ids[i - 1] != ids[i]) {
+				firstEntries.put(ids[i], Integer.valueOf(i));
+			}
+		}
+	}
+
+	/**
+	 * Reads the index of the given file. The channel must stay open as long as
+	 * execution data is read from the returned index.
+	 *
+	 * @param channel
+	 *            channel of an execution data file
+	 * @return index of the file or <code>null</code> if the file does not end
+	 *         with a valid index
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public static ExecutionDataIndex read(final FileChannel channel)
+			throws IOException {
+		return read(channel, channel.size());
+	}
+
+	/**
+	 * Reads the index of the given file, which is expected to end at the given
+	 * position. This allows to read the index of an indexed file to which
+	 * execution data has been appended later. The channel must stay open as
+	 * long as execution data is read from the returned index.
+	 *
+	 * @param channel
+	 *            channel of an execution data file
+	 * @param size
+	 *            position in the file where the index ends
+	 * @return index of the file or <code>null</code> if there is no valid
+	 *         index at the given position
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public static ExecutionDataIndex read(final FileChannel channel,
+			final long size) throws IOException {
+		if (size < IndexedExecutionDataWriter.TRAILER_SIZE) {
+			return null;
+		}
+		final ByteBuffer trailer = read(channel,
+				size - IndexedExecutionDataWriter.TRAILER_SIZE,
+				IndexedExecutionDataWriter.TRAILER_SIZE);
+		final long indexPosition = trailer.getLong();
+		if (trailer.getChar() != ExecutionDataWriter.MAGIC_NUMBER
+				|| indexPosition < 0
+				|| indexPosition >= size - IndexedExecutionDataWriter.TRAILER_SIZE
+				|| size - indexPosition > Integer.MAX_VALUE) {
+			return null;
+		}
+		final ByteBuffer index = read(channel, indexPosition,
+				(int) (size - indexPosition));
+		((Buffer) index).limit(index.limit()
+				- IndexedExecutionDataWriter.TRAILER_SIZE);
+		if (index.get() != ExecutionDataWriter.BLOCK_INDEX) {
+			return null;
+		}
+		final int sessionCount = readVarInt(index);
+		final int count = readVarInt(index);
+		if (sessionCount < 0 || count < 0 || (long) count
+				* IndexedExecutionDataWriter.ENTRY_SIZE != index.remaining()) {
+			return null;
+		}
+		return new ExecutionDataIndex(channel, indexPosition, sessionCount,
+				index);
+	}
+
+	/**
+	 * Reads a variable length integer as written by
+	 * {@link org.jacoco.core.internal.data.CompactDataOutput#writeVarInt(int)}.
+	 *
+	 * @return read value or -1 if the buffer does not contain a valid value
+	 */
+	private static int readVarInt(final ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the position of the index block in the file, which is the end of
+	 * the indexed execution data.
+	 *
+	 * @return position of the index block
+	 */
+	public long getIndexPosition() {
+		return indexPosition;
+	}
+
+	/**
+	 * Returns the number of session info blocks in the file.
+	 *
+	 * @return number of sessions
+	 */
+	public int getSessionCount() {
+		return sessionCount;
+	}
+
+	/**
+	 * Returns the number of different classes in the file.
+	 *
+	 * @return number of classes
+	 */
+	public int getClassCount() {
+		return firstEntries.size();
+	}
+
+	/**
+	 * Returns the number of execution data blocks in the file. Multiple blocks
+	 * may exist for the same class.
+	 *
+	 * @return number of index entries
+	 */
+	public int getEntryCount() {
+		return ids.length;
+	}
+
+	/**
+	 * Checks whether the file contains execution data for the given class.
+	 *
+	 * @param id
+	 *            class id
+	 * @return <code>true</code> if execution data exists for the class
+	 */
+	public boolean contains(final long id) {
+		return firstEntries.get(id) != null;
+	}
+
+	/**
+	 * Reads the execution data of the given class. If the file contains
+	 * multiple blocks for the class their probes are merged.
+	 *
+	 * @param id
+	 *            class id
+	 * @return execution data or <code>null</code> if the file does not contain
+	 *         data for the class
+	 * @throws IOException
+	 *             if thrown by the underlying channel or if the index does not
+	 *             match the content of the file
+	 */
+	public ExecutionData get(final long id) throws IOException {
+		final Integer first = firstEntries.get(id);
+		if (first == null) {
+			return null;
+		}
+		int i = first.intValue();
+		final ExecutionData data = readEntry(i++);
+		while (i < ids.length && ids[i] == id) {
+			data.merge(readEntry(i++));
+		}
+		return data;
+	}
+
+	/**
+	 * Reads the execution data of the given range of index entries in the
+	 * order of their class ids.
+	 *
+	 * @param visitor
+	 *            visitor to emit execution data to
+	 * @param fromEntry
+	 *            index of the first entry, inclusive
+	 * @param toEntry
+	 *            index of the last entry, exclusive
+	 * @throws IOException
+	 *             if thrown by the underlying channel or if the index does not
+	 *             match the content of the file
+	 */
+	public void accept(final IExecutionDataVisitor visitor,
+			final int fromEntry, final int toEntry) throws IOException {
+		for (int i = fromEntry; i < toEntry; i++) {
+			visitor.visitClassExecution(readEntry(i));
+		}
+	}
+
+	/**
+	 * Reads the execution data of all index entries in the order of their class
+	 * ids.
+	 *
+	 * @param visitor
+	 *            visitor to emit execution data to
+	 * @throws IOException
+	 *             if thrown by the underlying channel or if the index does not
+	 *             match the content of the file
+	 */
+	public void accept(final IExecutionDataVisitor visitor)
+			throws IOException {
+		accept(visitor, 0, ids.length);
+	}
+
+	/**
+	 * Merges the probes of the given execution data into the file. The probes
+	 * are written in place into the first execution data block of the class,
+	 * but only if this changes the block. The channel must be opened for
+	 * writing.
+	 *
+	 * @param data
+	 *            execution data to merge
+	 * @return <code>true</code> if the block of the class has been changed,
+	 *         <code>false</code> if the probes of the block already contain
+	 *         all probes of the given data
+	 * @throws IOException
+	 *             if thrown by the underlying channel, if the index does not
+	 *             match the content of the file or if the file does not
+	 *             contain data for the class
+	 * @throws IllegalStateException
+	 *             if the given data is not compatible to the data in the file
+	 * @see ExecutionData#assertCompatibility(long, String, int)
+	 */
+	public boolean merge(final ExecutionData data) throws IOException {
+		final Integer first = firstEntries.get(data.getId());
+		if (first == null) {
+			throw new IOException(String.format(
+					"No execution data for class id %016x.",
+					Long.valueOf(data.getId())));
+		}
+		final int i = first.intValue();
+		final ExecutionData existing = readEntry(i);
+		final boolean[] probes = data.getProbes();
+		existing.assertCompatibility(data.getId(), data.getName(),
+				probes.length);
+		final boolean[] merged = existing.getProbes();
+		boolean changed = false;
+		for (int p = 0; p < probes.length; p++) {
+			if (probes[p] && !merged[p]) {
+				merged[p] = true;
+				changed = true;
+			}
+		}
+		if (changed) {
+			// The packed probes are the last bytes of the block
+			final ByteBuffer buffer = ByteBuffer
+					.allocate((merged.length + 7) >>> 3);
+			for (int p = 0; p < merged.length; p++) {
+				if (merged[p]) {
+					buffer.put(p >>> 3, (byte) (buffer.get(p >>> 3)
+							| (1 << (p & 7))));
+				}
+			}
+			final long position = positions[i] + lengths[i]
+					- buffer.capacity();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, position + buffer.position());
+			}
+		}
+		return changed;
+	}
+
+	private ExecutionData readEntry(final int i) throws IOException {
+		try {
+			final BufferDataInput in = new BufferDataInput(
+					read(channel, positions[i], lengths[i]));
+			if (in.read() == ExecutionDataWriter.BLOCK_EXECUTIONDATA
+					&& in.readLong() == ids[i]) {
+				final ExecutionData data = new ExecutionData(ids[i],
+						in.readUTF(), in.readBooleanArray());
+				if (in.read() == -1) {
+					return data;
+				}
+			}
+		} catch (final EOFException e) {
+			// fall through
+		}
+		throw new IOException("Invalid index.");
+	}
+
+	private static ByteBuffer read(final FileChannel channel,
+			final long position, final int length) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new EOFException();
+			}
+		}
+		((Buffer) buffer).flip();
+		return buffer;
+	}
+
+}
@@ -14,9 +14,13 @@ package org.jacoco.core.data;
 
 import static java.lang.String.format;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.jacoco.core.internal.data.BlockCompression;
 import org.jacoco.core.internal.data.CompactDataInput;
 
 /**
@@ -33,6 +37,9 @@ public class ExecutionDataReader {
 
 	private boolean firstBlock = true;
 
+	/** Class names of compressed blocks since the last header */
+	private final List<String> names = new ArrayList<String>();
+
 	/**
 	 * Creates a new reader based on the given input stream input. Depending on
 	 * the nature of the underlying stream input should be buffered as most data
@@ -110,10 +117,16 @@ public class ExecutionDataReader {
 			readHeader();
 			return true;
 		case ExecutionDataWriter.BLOCK_SESSIONINFO:
-			readSessionInfo();
+			readSessionInfo(in);
 			return true;
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
-			readExecutionData();
+			readExecutionData(in, false);
+			return true;
+		case ExecutionDataWriter.BLOCK_INDEX:
+			skipIndex();
+			return true;
+		case ExecutionDataWriter.BLOCK_COMPRESSED:
+			readCompressed();
 			return true;
 		default:
 			throw new IOException(
@@ -126,30 +139,88 @@ public class ExecutionDataReader {
 			throw new IOException("Invalid execution data file.");
 		}
 		final char version = in.readChar();
-		if (version != ExecutionDataWriter.FORMAT_VERSION) {
+		if (version != ExecutionDataWriter.FORMAT_VERSION
+				&& version != ExecutionDataWriter.FORMAT_VERSION_EXTENDED) {
 			throw new IncompatibleExecDataVersionException(version);
 		}
+		names.clear();
+	}
+
+	private void readCompressed() throws IOException {
+		final int length = in.readVarInt();
+		final int compressedLength = in.readVarInt();
+		if (length < 0 || compressedLength < 0) {
+			throw new IOException("Invalid compressed block.");
+		}
+		final byte[] compressed = new byte[compressedLength];
+		in.readFully(compressed);
+		final ByteArrayInputStream content = new ByteArrayInputStream(
+				BlockCompression.inflate(compressed, length));
+		final CompactDataInput input = new CompactDataInput(content);
+		int i;
+		while ((i = input.read()) != -1) {
+			final byte type = (byte) i;
+			switch (type) {
+			case ExecutionDataWriter.BLOCK_SESSIONINFO:
+				readSessionInfo(input);
+				break;
+			case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+				readExecutionData(input, true);
+				break;
+			default:
+				throw new IOException(
+						format("Unknown block type %x.", Byte.valueOf(type)));
+			}
+		}
 	}
 
-	private void readSessionInfo() throws IOException {
+	private void readSessionInfo(final CompactDataInput input)
+			throws IOException {
 		if (sessionInfoVisitor == null) {
 			throw new IOException("No session info visitor.");
 		}
-		final String id = in.readUTF();
-		final long start = in.readLong();
-		final long dump = in.readLong();
+		final String id = input.readUTF();
+		final long start = input.readLong();
+		final long dump = input.readLong();
 		sessionInfoVisitor.visitSessionInfo(new SessionInfo(id, start, dump));
 	}
 
-	private void readExecutionData() throws IOException {
+	private void skipIndex() throws IOException {
+		in.readVarInt();
+		final int count = in.readVarInt();
+		for (int i = 0; i < count; i++) {
+			in.readLong();
+			in.readLong();
+			in.readInt();
+		}
+		in.readLong();
+		in.readChar();
+	}
+
+	private void readExecutionData(final CompactDataInput input,
+			final boolean compressed) throws IOException {
 		if (executionDataVisitor == null) {
 			throw new IOException("No execution data visitor.");
 		}
-		final long id = in.readLong();
-		final String name = in.readUTF();
-		final boolean[] probes = in.readBooleanArray();
+		final long id = input.readLong();
+		final String name = compressed ? readName(input) : input.readUTF();
+		final boolean[] probes = input.readBooleanArray();
 		executionDataVisitor
 				.visitClassExecution(new ExecutionData(id, name, probes));
 	}
 
+	private String readName(final CompactDataInput input) throws IOException {
+		final int index = input.readVarInt();
+		if (index == 0) {
+			final String name = input.readUTF();
+			names.add(name);
+			return name;
+		}
+		if (index < 0 || index > names.size()) {
+			throw new IOException(format("Invalid class name reference %d.",
+					Integer.valueOf(index)));
+		}
+		return names.get(index - 1);
+	}
+
 }
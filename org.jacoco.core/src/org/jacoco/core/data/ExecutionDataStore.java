@@ -12,27 +12,75 @@
  *******************************************************************************/
 package org.jacoco.core.data;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
+import org.jacoco.core.internal.data.LongHashMap;
+
 /**
  * In-memory data store for execution data. The data can be added through its
- * {@link IExecutionDataVisitor} interface. If execution data is provided
+ * {@link IExecutionDataVisitor} or {@link IPackedExecutionDataVisitor}
+ * interface. If execution data is provided
  * multiple times for the same class the data is merged, i.e. a probe is marked
  * as executed if it is reported as executed at least once. This allows to merge
  * coverage date from multiple runs. An instance of this class is not thread
  * safe.
+ * <p>
+ * Optionally the store can hold probes packed into bit sets, which requires one
+ * bit per probe instead of one byte. In this mode all {@link ExecutionData}
+ * objects returned by the store are copies, i.e. modifications of their probes
+ * do not affect the store. Only {@link #get(Long, String, int)} unpacks the
+ * probes of the requested class permanently and returns the instance held by
+ * the store.
+ * </p>
  */
-public final class ExecutionDataStore implements IExecutionDataVisitor {
+public final class ExecutionDataStore
+		implements IExecutionDataVisitor, IPackedExecutionDataVisitor {
+
+	private final LongHashMap<ExecutionData> entries;
 
-	private final Map<Long, ExecutionData> entries = new HashMap<Long, ExecutionData>();
+	private final LongHashMap<PackedExecutionData> packedEntries;
 
 	private final Set<String> names = new HashSet<String>();
 
+	/**
+	 * Creates a new empty store.
+	 */
+	public ExecutionDataStore() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new empty store which optionally holds probes packed into bit
+	 * sets. This reduces memory consumption when data of many classes is kept,
+	 * but requires a new {@link ExecutionData} copy for every access.
+	 *
+	 * @param packedProbes
+	 *            <code>true</code> if probes should be packed into bit sets
+	 */
+	public ExecutionDataStore(final boolean packedProbes) {
+		if (packedProbes) {
+			entries = null;
+			packedEntries = new LongHashMap<PackedExecutionData>();
+		} else {
+			entries = new LongHashMap<ExecutionData>();
+			packedEntries = null;
+		}
+	}
+
+	/**
+	 * Checks whether probes are packed into bit sets by this store.
+	 *
+	 * @return <code>true</code> if probes are packed into bit sets
+	 */
+	public boolean isPackedProbes() {
+		return packedEntries != null;
+	}
+
 	/**
 	 * Adds the given {@link ExecutionData} object into the store. If there is
 	 * already execution data with this same class id, this structure is merged
@@ -46,7 +94,17 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @see ExecutionData#assertCompatibility(long, String, int)
 	 */
 	public void put(final ExecutionData data) throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
+		final long id = data.getId();
+		if (packedEntries != null) {
+			final PackedExecutionData entry = packedEntries.get(id);
+			if (entry == null) {
+				packedEntries.put(id, new PackedExecutionData(data));
+				names.add(data.getName());
+			} else {
+				entry.merge(data, true);
+			}
+			return;
+		}
 		final ExecutionData entry = entries.get(id);
 		if (entry == null) {
 			entries.put(id, data);
@@ -71,8 +129,14 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public void subtract(final ExecutionData data)
 			throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ExecutionData entry = entries.get(id);
+		if (packedEntries != null) {
+			final PackedExecutionData entry = packedEntries.get(data.getId());
+			if (entry != null) {
+				entry.merge(data, false);
+			}
+			return;
+		}
+		final ExecutionData entry = entries.get(data.getId());
 		if (entry != null) {
 			entry.merge(data, false);
 		}
@@ -93,14 +157,30 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 
 	/**
 	 * Returns the {@link ExecutionData} entry with the given id if it exists in
-	 * this store.
+	 * this store. If probes are packed into bit sets a new copy is returned.
 	 *
 	 * @param id
 	 *            class id
 	 * @return execution data or <code>null</code>
 	 */
 	public ExecutionData get(final long id) {
-		return entries.get(Long.valueOf(id));
+		if (packedEntries != null) {
+			final PackedExecutionData entry = packedEntries.get(id);
+			return entry == null ? null : entry.toExecutionData();
+		}
+		return entries.get(id);
+	}
+
+	/**
+	 * Returns the number of classes with execution data in this store.
+	 *
+	 * @return number of classes
+	 */
+	public int size() {
+		if (packedEntries != null) {
+			return packedEntries.size();
+		}
+		return entries.size();
 	}
 
 	/**
@@ -119,6 +199,9 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
+	 * If probes are packed into bit sets the probes of this class are unpacked
+	 * permanently, so modifications of the returned probes are reflected in
+	 * the store.
 	 *
 	 * @param id
 	 *            class identifier
@@ -130,10 +213,20 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public ExecutionData get(final Long id, final String name,
 			final int probecount) {
-		ExecutionData entry = entries.get(id);
+		if (packedEntries != null) {
+			PackedExecutionData entry = packedEntries.get(id.longValue());
+			if (entry == null) {
+				entry = new PackedExecutionData(id.longValue(), name,
+						probecount);
+				packedEntries.put(id.longValue(), entry);
+				names.add(name);
+			}
+			return entry.unpack(name, probecount);
+		}
+		ExecutionData entry = entries.get(id.longValue());
 		if (entry == null) {
 			entry = new ExecutionData(id.longValue(), name, probecount);
-			entries.put(id, entry);
+			entries.put(id.longValue(), entry);
 			names.add(name);
 		} else {
 			entry.assertCompatibility(id.longValue(), name, probecount);
@@ -146,18 +239,34 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * execution data objects itself are not removed.
 	 */
 	public void reset() {
+		if (packedEntries != null) {
+			for (final PackedExecutionData entry : packedEntries.values()) {
+				entry.reset();
+			}
+			return;
+		}
 		for (final ExecutionData executionData : this.entries.values()) {
 			executionData.reset();
 		}
 	}
 
 	/**
-	 * Returns a collection that represents current contents of the store.
+	 * Returns a collection that represents current contents of the store. If
+	 * probes are packed into bit sets the collection contains new copies.
 	 *
 	 * @return current contents
 	 */
 	public Collection<ExecutionData> getContents() {
-		return new ArrayList<ExecutionData>(entries.values());
+		if (packedEntries != null) {
+			final List<PackedExecutionData> packed = packedEntries.values();
+			final List<ExecutionData> contents = new ArrayList<ExecutionData>(
+					packed.size());
+			for (final PackedExecutionData entry : packed) {
+				contents.add(entry.toExecutionData());
+			}
+			return contents;
+		}
+		return entries.values();
 	}
 
 	/**
@@ -167,6 +276,13 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 *            interface to write content to
 	 */
 	public void accept(final IExecutionDataVisitor visitor) {
+		if (packedEntries != null) {
+			// Create copies one by one to keep memory consumption low
+			for (final PackedExecutionData entry : packedEntries.values()) {
+				visitor.visitClassExecution(entry.toExecutionData());
+			}
+			return;
+		}
 		for (final ExecutionData data : getContents()) {
 			visitor.visitClassExecution(data);
 		}
@@ -177,4 +293,40 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	public void visitClassExecution(final ExecutionData data) {
 		put(data);
 	}
+
+	// === IPackedExecutionDataVisitor ===
+
+	public void visitClassExecution(final long id, final String name,
+			final int probeCount, final ByteBuffer probes) {
+		if (packedEntries != null) {
+			PackedExecutionData entry = packedEntries.get(id);
+			if (entry == null) {
+				entry = new PackedExecutionData(id, name, probeCount);
+				packedEntries.put(id, entry);
+				names.add(name);
+			}
+			entry.merge(id, name, probeCount, probes);
+			return;
+		}
+		final ExecutionData entry = entries.get(id);
+		if (entry == null) {
+			final boolean[] p = new boolean[probeCount];
+			mergeProbes(probes, p);
+			entries.put(id, new ExecutionData(id, name, p));
+			names.add(name);
+		} else {
+			entry.assertCompatibility(id, name, probeCount);
+			mergeProbes(probes, entry.getProbes());
+		}
+	}
+
+	private static void mergeProbes(final ByteBuffer source,
+			final boolean[] target) {
+		final byte[] bytes = new byte[(target.length + 7) >>> 3];
+		source.duplicate().get(bytes);
+		for (int i = 0; i < target.length; i++) {
+			// Branch-free as probes are hardly predictable
+			target[i] |= (bytes[i >>> 3] & (1 << (i & 7))) != 0;
+		}
+	}
 }
@@ -15,7 +15,10 @@ package org.jacoco.core.data;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.jacoco.core.internal.data.BlockCompression;
 import org.jacoco.core.internal.data.CompactDataOutput;
 
 /**
@@ -29,9 +32,17 @@ public class ExecutionDataWriter
 	 */
 	public static final char FORMAT_VERSION;
 
+	/**
+	 * File format version of execution data with index or compressed blocks.
+	 * Readers of this version also read {@link #FORMAT_VERSION}, while
+	 * releases before 0.8.16 reject such files as incompatible.
+	 */
+	public static final char FORMAT_VERSION_EXTENDED;
+
 	static {
 		// Runtime initialize to ensure javac does not inline the value.
 		FORMAT_VERSION = 0x1007;
+		FORMAT_VERSION_EXTENDED = 0x1008;
 	}
 
 	/** Magic number in header for file format identification. */
@@ -46,9 +57,38 @@ public class ExecutionDataWriter
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/**
+	 * Block identifier for the index at the end of indexed execution data
+	 * files.
+	 *
+	 * @see IndexedExecutionDataWriter
+	 */
+	public static final byte BLOCK_INDEX = 0x12;
+
+	/**
+	 * Block identifier for deflate compressed session info and execution data
+	 * blocks. Within compressed blocks class names are replaced by references
+	 * to names written before.
+	 *
+	 * @see #ExecutionDataWriter(OutputStream, boolean)
+	 */
+	public static final byte BLOCK_COMPRESSED = 0x13;
+
+	/** Uncompressed size from which a compressed block is written */
+	private static final int COMPRESSED_BLOCK_SIZE = 0x10000;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
+	/** Buffer for blocks to compress or <code>null</code> */
+	private final BlockBuffer blocks;
+
+	/** Output for blocks, either {@link #out} or the compression buffer */
+	private final CompactDataOutput blockOut;
+
+	/** Indexes of class names written to compressed blocks */
+	private final Map<String, Integer> names;
+
 	/**
 	 * Creates a new writer based on the given output stream. Depending on the
 	 * nature of the underlying stream output should be buffered as most data is
@@ -60,38 +100,100 @@ public class ExecutionDataWriter
 	 *             if the header can't be written
 	 */
 	public ExecutionDataWriter(final OutputStream output) throws IOException {
+		this(output, false);
+	}
+
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * writes session info and execution data in compressed blocks. Every class
+	 * name is only written once per writer in compressed mode, which
+	 * considerably reduces the size of execution data with many sessions.
+	 * Compressed data is buffered until {@link #flush()} is called or the
+	 * buffer exceeds a certain size. The header of compressed data declares
+	 * {@link #FORMAT_VERSION_EXTENDED}.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param compressed
+	 *            <code>true</code> if data should be written in compressed
+	 *            blocks
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ExecutionDataWriter(final OutputStream output,
+			final boolean compressed) throws IOException {
+		this(output, compressed,
+				compressed ? FORMAT_VERSION_EXTENDED : FORMAT_VERSION);
+	}
+
+	ExecutionDataWriter(final OutputStream output, final boolean compressed,
+			final char version) throws IOException {
 		this.out = new CompactDataOutput(output);
-		writeHeader();
+		if (compressed) {
+			blocks = new BlockBuffer();
+			blockOut = new CompactDataOutput(blocks);
+			names = new HashMap<String, Integer>();
+		} else {
+			blocks = null;
+			blockOut = out;
+			names = null;
+		}
+		writeHeader(version);
 	}
 
 	/**
 	 * Writes a file header to identify the stream and its protocol version.
 	 *
+	 * @param version
+	 *            format version of the following blocks
 	 * @throws IOException
 	 *             if the header can't be written
 	 */
-	private void writeHeader() throws IOException {
+	private void writeHeader(final char version) throws IOException {
 		out.writeByte(BLOCK_HEADER);
 		out.writeChar(MAGIC_NUMBER);
-		out.writeChar(FORMAT_VERSION);
+		out.writeChar(version);
 	}
 
 	/**
-	 * Flushes the underlying stream.
+	 * Writes pending compressed data and flushes the underlying stream.
 	 *
 	 * @throws IOException
 	 *             if the underlying stream can't be flushed
 	 */
 	public void flush() throws IOException {
+		writeCompressedBlock();
 		out.flush();
 	}
 
+	/**
+	 * Writes all session info and execution data which has been buffered for
+	 * compression. Subclasses which write own blocks to {@link #out} have to
+	 * call this method before to preserve the order of blocks.
+	 *
+	 * @throws IOException
+	 *             if the data can't be written
+	 */
+	protected void writeCompressedBlock() throws IOException {
+		if (blocks == null || blocks.size() == 0) {
+			return;
+		}
+		final byte[] compressed = BlockCompression.deflate(blocks.buffer(),
+				blocks.size());
+		out.writeByte(BLOCK_COMPRESSED);
+		out.writeVarInt(blocks.size());
+		out.writeVarInt(compressed.length);
+		out.write(compressed);
+		blocks.reset();
+	}
+
 	public void visitSessionInfo(final SessionInfo info) {
 		try {
-			out.writeByte(BLOCK_SESSIONINFO);
-			out.writeUTF(info.getId());
-			out.writeLong(info.getStartTimeStamp());
-			out.writeLong(info.getDumpTimeStamp());
+			blockOut.writeByte(BLOCK_SESSIONINFO);
+			blockOut.writeUTF(info.getId());
+			blockOut.writeLong(info.getStartTimeStamp());
+			blockOut.writeLong(info.getDumpTimeStamp());
+			blockWritten();
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -100,16 +202,43 @@ public class ExecutionDataWriter
 	public void visitClassExecution(final ExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
-				out.writeLong(data.getId());
-				out.writeUTF(data.getName());
-				out.writeBooleanArray(data.getProbes());
+				blockOut.writeByte(BLOCK_EXECUTIONDATA);
+				blockOut.writeLong(data.getId());
+				writeName(data.getName());
+				blockOut.writeBooleanArray(data.getProbes());
+				blockWritten();
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
 		}
 	}
 
+	/**
+	 * Writes a class name. In compressed blocks names are written as index of
+	 * the first occurrence plus one, or zero followed by the name itself for
+	 * the first occurrence.
+	 */
+	private void writeName(final String name) throws IOException {
+		if (names == null) {
+			out.writeUTF(name);
+			return;
+		}
+		final Integer index = names.get(name);
+		if (index == null) {
+			names.put(name, Integer.valueOf(names.size()));
+			blockOut.writeVarInt(0);
+			blockOut.writeUTF(name);
+		} else {
+			blockOut.writeVarInt(index.intValue() + 1);
+		}
+	}
+
+	private void blockWritten() throws IOException {
+		if (blocks != null && blocks.size() >= COMPRESSED_BLOCK_SIZE) {
+			writeCompressedBlock();
+		}
+	}
+
 	/**
 	 * Returns the first bytes of a file that represents a valid execution data
 	 * file. In any case every execution data file starts with the three bytes
@@ -128,4 +257,19 @@ public class ExecutionDataWriter
 		return buffer.toByteArray();
 	}
 
+	/**
+	 * Buffer which provides access to its content without copying.
+	 */
+	private static class BlockBuffer extends ByteArrayOutputStream {
+
+		BlockBuffer() {
+			super(COMPRESSED_BLOCK_SIZE + 0x1000);
+		}
+
+		byte[] buffer() {
+			return buf;
+		}
+
+	}
+
 }
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface for data output of execution data with probes in the packed form
+ * of the execution data file format. In contrast to
+ * {@link IExecutionDataVisitor} this does not require an {@link ExecutionData}
+ * instance with a probe array for every class, which allows to efficiently
+ * aggregate large amounts of execution data.
+ *
+ * @see ExecutionDataBufferReader
+ */
+public interface IPackedExecutionDataVisitor {
+
+	/**
+	 * Provides execution data for a class. Probe <code>i</code> is executed
+	 * if bit <code>i % 8</code> of byte <code>i / 8</code> in the remaining
+	 * content of the given buffer is set. The buffer must not be modified and
+	 * is only valid during this call.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probeCount
+	 *            number of probes
+	 * @param probes
+	 *            packed probes
+	 */
+	void visitClassExecution(long id, String name, int probeCount,
+			ByteBuffer probes);
+
+}
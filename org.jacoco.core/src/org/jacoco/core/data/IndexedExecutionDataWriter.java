@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Serialization of execution data into indexed execution data files. The data
+ * is written in the regular format and {@link #finish()} appends an index block
+ * with the number of sessions and classes as well as the position of every
+ * execution data block sorted by class id. The index allows to look up
+ * execution data of single classes with {@link ExecutionDataIndex} without
+ * reading the whole file. {@link ExecutionDataReader} skips the index, so
+ * indexed files can be used everywhere regular execution data files are
+ * expected. The header declares {@link #FORMAT_VERSION_EXTENDED}, so releases
+ * before 0.8.16 reject indexed files as incompatible.
+ * <p>
+ * Layout of the index block:
+ * </p>
+ *
+ * <pre>
+ * byte   BLOCK_INDEX
+ * varint number of sessions
+ * varint number of classes
+ * for every class sorted by id:
+ *   long class id
+ *   long position of the execution data block
+ *   int  length of the execution data block
+ * long   position of the index block
+ * char   MAGIC_NUMBER
+ * </pre>
+ */
+public class IndexedExecutionDataWriter extends ExecutionDataWriter {
+
+	/** Size of a single class entry of the index */
+	static final int ENTRY_SIZE = 8 + 8 + 4;
+
+	/** Size of the fixed trailer at the end of the index */
+	static final int TRAILER_SIZE = 8 + 2;
+
+	private final PositionOutputStream position;
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	private int sessionCount = 0;
+
+	/**
+	 * Creates a new writer based on the given output stream. Depending on the
+	 * nature of the underlying stream output should be buffered as most data is
+	 * written in single bytes.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public IndexedExecutionDataWriter(final OutputStream output)
+			throws IOException {
+		this(new PositionOutputStream(output, 0));
+	}
+
+	/**
+	 * Creates a new writer which continues an existing indexed execution data
+	 * file. The given stream must write to the file at the position of the
+	 * existing index, see {@link ExecutionDataIndex#getIndexPosition()}, so
+	 * the existing index is overwritten. The new index also contains all
+	 * sessions and classes of the existing index.
+	 *
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param base
+	 *            index of the file to continue
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public IndexedExecutionDataWriter(final OutputStream output,
+			final ExecutionDataIndex base) throws IOException {
+		this(new PositionOutputStream(output, base.getIndexPosition()));
+		sessionCount = base.getSessionCount();
+		for (int i = 0; i < base.ids.length; i++) {
+			entries.add(new Entry(base.ids[i], base.positions[i],
+					base.lengths[i]));
+		}
+	}
+
+	private IndexedExecutionDataWriter(final PositionOutputStream output)
+			throws IOException {
+		super(output, false, FORMAT_VERSION_EXTENDED);
+		this.position = output;
+	}
+
+	@Override
+	public void visitSessionInfo(final SessionInfo info) {
+		super.visitSessionInfo(info);
+		sessionCount++;
+	}
+
+	@Override
+	public void visitClassExecution(final ExecutionData data) {
+		final long start = position.position;
+		super.visitClassExecution(data);
+		final long length = position.position - start;
+		if (length > 0) {
+			entries.add(new Entry(data.getId(), start, (int) length));
+		}
+	}
+
+	/**
+	 * Writes the index of all data written so far. After this method has been
+	 * called no more data must be written with this writer.
+	 *
+	 * @throws IOException
+	 *             if the index can't be written
+	 */
+	public void finish() throws IOException {
+		Collections.sort(entries);
+		final long indexPosition = position.position;
+		out.writeByte(BLOCK_INDEX);
+		out.writeVarInt(sessionCount);
+		out.writeVarInt(entries.size());
+		for (final Entry e : entries) {
+			out.writeLong(e.id);
+			out.writeLong(e.position);
+			out.writeInt(e.length);
+		}
+		out.writeLong(indexPosition);
+		out.writeChar(MAGIC_NUMBER);
+		out.flush();
+	}
+
+	private static class Entry implements Comparable<Entry> {
+
+		final long id;
+		final long position;
+		final int length;
+
+		Entry(final long id, final long position, final int length) {
+			this.id = id;
+			this.position = position;
+			this.length = length;
+		}
+
+		public int compareTo(final Entry other) {
+			// Entries for the same class keep their order as the sort is stable
+			return id < other.id ? -1 : (id == other.id ? 0 : 1);
+		}
+
+	}
+
+	/**
+	 * Counts the bytes written to the underlying stream.
+	 */
+	private static class PositionOutputStream extends FilterOutputStream {
+
+		long position;
+
+		PositionOutputStream(final OutputStream out, final long position) {
+			super(out);
+			this.position = position;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			position++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+				throws IOException {
+			out.write(b, off, len);
+			position += len;
+		}
+
+	}
+
+}
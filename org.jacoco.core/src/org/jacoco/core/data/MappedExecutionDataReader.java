@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.jacoco.core.data.MappedExecutionDataWriter.ENTRY_HEADER_SIZE;
+import static org.jacoco.core.data.MappedExecutionDataWriter.HEADER_SIZE;
+import static org.jacoco.core.data.MappedExecutionDataWriter.MAX_SESSION_ID_LENGTH;
+import static org.jacoco.core.data.MappedExecutionDataWriter.POS_DUMP_TIMESTAMP;
+import static org.jacoco.core.data.MappedExecutionDataWriter.POS_END;
+import static org.jacoco.core.data.MappedExecutionDataWriter.POS_SEQUENCE;
+import static org.jacoco.core.data.MappedExecutionDataWriter.POS_SESSION_ID;
+import static org.jacoco.core.data.MappedExecutionDataWriter.POS_START_TIMESTAMP;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a snapshot of the execution data from a file written with
+ * {@link MappedExecutionDataWriter}, while the file may be updated by another
+ * process at the same time. If the snapshot is read during an update it is
+ * retried until the update is complete. A file whose writer has terminated
+ * during an update is read as it is after some retries. The header and the
+ * content are read with separate I/O operations in this order, the
+ * consistency guarantees are limited to those of
+ * {@link MappedExecutionDataWriter}.
+ */
+public class MappedExecutionDataReader {
+
+	private static final int MAX_RETRIES = 100;
+
+	private static final long RETRY_WAIT_TIME_MS = 10;
+
+	private final FileChannel channel;
+
+	private ISessionInfoVisitor sessionInfoVisitor = null;
+
+	private IExecutionDataVisitor executionDataVisitor = null;
+
+	/**
+	 * Creates a new reader for the given file channel. The file is read with
+	 * regular I/O, it is not mapped by the reader.
+	 *
+	 * @param channel
+	 *            channel of a memory-mapped execution data file
+	 */
+	public MappedExecutionDataReader(final FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Sets a listener for session information.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve session info events
+	 */
+	public void setSessionInfoVisitor(final ISessionInfoVisitor visitor) {
+		this.sessionInfoVisitor = visitor;
+	}
+
+	/**
+	 * Sets a listener for execution data.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve execution data events
+	 */
+	public void setExecutionDataVisitor(final IExecutionDataVisitor visitor) {
+		this.executionDataVisitor = visitor;
+	}
+
+	/**
+	 * Reads a consistent snapshot of the file and emits its content to the
+	 * registered visitors. The session info is emitted first, followed by the
+	 * execution data of all classes.
+	 *
+	 * @throws IOException
+	 *             might be thrown by the underlying channel or if the file is
+	 *             not a valid memory-mapped execution data file
+	 * @throws IncompatibleExecDataVersionException
+	 *             incompatible data version from different JaCoCo release
+	 */
+	public void read() throws IOException, IncompatibleExecDataVersionException {
+		final ByteBuffer snapshot = snapshot();
+		final int sequence = snapshot.getInt(POS_SEQUENCE);
+		if (sequence != 0 && sessionInfoVisitor != null) {
+			final int length = snapshot.getChar(POS_SESSION_ID);
+			if (length > MAX_SESSION_ID_LENGTH) {
+				throw invalid();
+			}
+			final String id = decode(snapshot, POS_SESSION_ID + 2, length);
+			sessionInfoVisitor.visitSessionInfo(
+					new SessionInfo(id, snapshot.getLong(POS_START_TIMESTAMP),
+							snapshot.getLong(POS_DUMP_TIMESTAMP)));
+		}
+		int position = HEADER_SIZE;
+		final int end = snapshot.limit();
+		while (position < end) {
+			if (end - position < ENTRY_HEADER_SIZE) {
+				throw invalid();
+			}
+			final long id = snapshot.getLong(position);
+			final int count = snapshot.getInt(position + 8);
+			final int length = snapshot.getChar(position + 12);
+			position += ENTRY_HEADER_SIZE;
+			if (count < 0 || (long) end - position < (long) length + count) {
+				throw invalid();
+			}
+			final String name = decode(snapshot, position, length);
+			position += length;
+			final boolean[] probes = new boolean[count];
+			for (int i = 0; i < count; i++) {
+				probes[i] = snapshot.get(position + i) != 0;
+			}
+			position += count;
+			if (executionDataVisitor != null) {
+				executionDataVisitor.visitClassExecution(
+						new ExecutionData(id, name, probes));
+			}
+		}
+	}
+
+	/**
+	 * Copies the used part of the file, only entries which have been published
+	 * completely before the copy are contained.
+	 */
+	private ByteBuffer snapshot() throws IOException {
+		if (channel.size() < HEADER_SIZE) {
+			throw invalid();
+		}
+		int retries = 0;
+		while (true) {
+			final ByteBuffer header = read(0, HEADER_SIZE);
+			if (header.getChar(0) != MappedExecutionDataWriter.MAGIC_NUMBER) {
+				throw invalid();
+			}
+			final char version = header.getChar(2);
+			if (version != ExecutionDataWriter.FORMAT_VERSION) {
+				throw new IncompatibleExecDataVersionException(version);
+			}
+			final int sequence = header.getInt(POS_SEQUENCE);
+			final int end = header.getInt(POS_END);
+			if (end < HEADER_SIZE) {
+				throw invalid();
+			}
+			final ByteBuffer content = read(0, end);
+			if ((sequence & 1) == 0
+					&& read(POS_SEQUENCE, 4).getInt(0) == sequence) {
+				return content;
+			}
+			if (retries++ == MAX_RETRIES) {
+				return content;
+			}
+			try {
+				Thread.sleep(RETRY_WAIT_TIME_MS);
+			} catch (final InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	private ByteBuffer read(final long position, final int length)
+			throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) == -1) {
+				throw new EOFException();
+			}
+		}
+		((Buffer) buffer).flip();
+		return buffer;
+	}
+
+	private static String decode(final ByteBuffer buffer, final int position,
+			final int length) {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(position + i);
+		}
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			// UTF-8 is supported by every JVM
+			throw new AssertionError(e);
+		}
+	}
+
+	private static IOException invalid() {
+		return new IOException("Invalid memory-mapped execution data file.");
+	}
+
+}
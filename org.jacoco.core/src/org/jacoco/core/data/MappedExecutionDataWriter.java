@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jacoco.core.internal.data.LongHashMap;
+
+/**
+ * Writes execution data into a memory-mapped file which can be read by other
+ * processes at any time with {@link MappedExecutionDataReader}. Unlike the
+ * stream based {@link ExecutionDataWriter} the file always contains exactly one
+ * session: Every class gets a fixed region in the file when it is visited for
+ * the first time, subsequent visits of the same class only overwrite its
+ * probes in place.
+ *
+ * All updates between the first visit and {@link #flush()} form a transaction.
+ * A counter in the file header is odd while a transaction is in progress, so
+ * that readers can detect and retry inconsistent snapshots. An instance of
+ * this class is not thread safe.
+ *
+ * The Java memory model does not define the order in which other processes
+ * observe writes to a mapped file. Updates of the counter are therefore
+ * separated from all other writes by a write and a subsequent read of a
+ * volatile field. This keeps the JIT compiler from moving writes across the
+ * counter updates and results in memory barriers on common JVMs like HotSpot.
+ * Consistent snapshots are only guaranteed as far as the JVM implements
+ * volatile accesses with such barriers.
+ */
+public class MappedExecutionDataWriter
+		implements ISessionInfoVisitor, IExecutionDataVisitor {
+
+	/** Magic number at the beginning of a memory-mapped file */
+	static final char MAGIC_NUMBER = 0xC0C1;
+
+	static final int POS_SEQUENCE = 4;
+
+	static final int POS_ENTRY_COUNT = 8;
+
+	static final int POS_END = 12;
+
+	static final int POS_START_TIMESTAMP = 16;
+
+	static final int POS_DUMP_TIMESTAMP = 24;
+
+	static final int POS_SESSION_ID = 32;
+
+	/** Maximum number of bytes of the encoded session id */
+	static final int MAX_SESSION_ID_LENGTH = 222;
+
+	/** Size of the file header, entries start at this position */
+	static final int HEADER_SIZE = 256;
+
+	/** Fixed size of an entry without the class name and the probes */
+	static final int ENTRY_HEADER_SIZE = 14;
+
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+
+	private final FileChannel channel;
+
+	private MappedByteBuffer buffer;
+
+	/** Position of the entry for every class id */
+	private final LongHashMap<Integer> entries = new LongHashMap<Integer>();
+
+	private int entryCount;
+
+	private int end;
+
+	private int sequence;
+
+	private boolean updating;
+
+	/** Only accessed to separate writes, see {@link #fence()} */
+	private volatile int fence;
+
+	/**
+	 * Creates a new writer which replaces the content of the given file
+	 * channel. The channel must be opened for reading and writing and must
+	 * stay open as long as this writer is used.
+	 *
+	 * @param channel
+	 *            channel of the memory-mapped file
+	 * @throws IOException
+	 *             if the file cannot be mapped
+	 */
+	public MappedExecutionDataWriter(final FileChannel channel)
+			throws IOException {
+		this.channel = channel;
+		channel.truncate(0);
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+				INITIAL_CAPACITY);
+		end = HEADER_SIZE;
+		buffer.putInt(POS_END, end);
+		buffer.putChar(0, MAGIC_NUMBER);
+		buffer.putChar(2, ExecutionDataWriter.FORMAT_VERSION);
+	}
+
+	public void visitSessionInfo(final SessionInfo info) {
+		begin();
+		buffer.putLong(POS_START_TIMESTAMP, info.getStartTimeStamp());
+		buffer.putLong(POS_DUMP_TIMESTAMP, info.getDumpTimeStamp());
+		final byte[] id = encodeSessionId(info.getId());
+		buffer.putChar(POS_SESSION_ID, (char) id.length);
+		for (int i = 0; i < id.length; i++) {
+			buffer.put(POS_SESSION_ID + 2 + i, id[i]);
+		}
+	}
+
+	public void visitClassExecution(final ExecutionData data) {
+		begin();
+		final boolean[] probes = data.getProbes();
+		int position;
+		final Integer existing = entries.get(data.getId());
+		if (existing == null) {
+			position = append(data);
+		} else {
+			position = existing.intValue();
+			if (buffer.getInt(position + 8) != probes.length) {
+				throw new IllegalStateException(String.format(
+						"Incompatible execution data for class %s with id %016x.",
+						data.getName(), Long.valueOf(data.getId())));
+			}
+		}
+		position += ENTRY_HEADER_SIZE + buffer.getChar(position + 12);
+		for (int i = 0; i < probes.length; i++) {
+			buffer.put(position + i, probes[i] ? (byte) 1 : (byte) 0);
+		}
+	}
+
+	/**
+	 * Completes the current transaction. Readers will see all updates since
+	 * the last call of this method at once.
+	 */
+	public void flush() {
+		if (updating) {
+			fence();
+			buffer.putInt(POS_SEQUENCE, ++sequence);
+			updating = false;
+		}
+	}
+
+	private void begin() {
+		if (!updating) {
+			buffer.putInt(POS_SEQUENCE, ++sequence);
+			fence();
+			updating = true;
+		}
+	}
+
+	/**
+	 * Prevents reordering of writes to the buffer across this call: Previous
+	 * writes may not be moved after the volatile write, subsequent writes may
+	 * not be moved before the volatile read.
+	 */
+	private void fence() {
+		fence = sequence;
+		// Read back, as the write alone does not keep subsequent writes after it
+		sequence = fence;
+	}
+
+	private int append(final ExecutionData data) {
+		final byte[] name = encode(data.getName());
+		final int length = data.getProbes().length;
+		final int position = end;
+		ensureCapacity(
+				(long) position + ENTRY_HEADER_SIZE + name.length + length);
+		buffer.putLong(position, data.getId());
+		buffer.putInt(position + 8, length);
+		buffer.putChar(position + 12, (char) name.length);
+		for (int i = 0; i < name.length; i++) {
+			buffer.put(position + ENTRY_HEADER_SIZE + i, name[i]);
+		}
+		end = position + ENTRY_HEADER_SIZE + name.length + length;
+		entries.put(data.getId(), Integer.valueOf(position));
+		// Publish the entry after it has been written completely
+		fence();
+		buffer.putInt(POS_END, end);
+		buffer.putInt(POS_ENTRY_COUNT, ++entryCount);
+		return position;
+	}
+
+	private void ensureCapacity(final long size) {
+		if (size <= buffer.capacity()) {
+			return;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalStateException(
+					"Memory-mapped execution data exceeds 2 GB.");
+		}
+		long capacity = buffer.capacity();
+		while (capacity < size) {
+			capacity *= 2;
+		}
+		capacity = Math.min(capacity, Integer.MAX_VALUE);
+		try {
+			// The existing content is kept by the file itself
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					capacity);
+		} catch (final IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static byte[] encodeSessionId(final String id) {
+		String s = id;
+		byte[] bytes = encode(s);
+		while (bytes.length > MAX_SESSION_ID_LENGTH) {
+			s = s.substring(0, s.length() - 1);
+			bytes = encode(s);
+		}
+		return bytes;
+	}
+
+	private static byte[] encode(final String s) {
+		try {
+			return s.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			// UTF-8 is supported by every JVM
+			throw new AssertionError(e);
+		}
+	}
+
+}
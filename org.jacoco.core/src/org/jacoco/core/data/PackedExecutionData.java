@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Execution data for a single Java class where the probes are packed into a
+ * bit set of <code>long</code> words. This requires one bit per probe instead
+ * of one byte and allows to process 64 probes at once. If the probes have to be
+ * modified directly the instance can be unpacked permanently with
+ * {@link #unpack(String, int)}.
+ */
+final class PackedExecutionData {
+
+	private final long id;
+
+	private final String name;
+
+	private final int probeCount;
+
+	private long[] words;
+
+	/** unpacked execution data or <code>null</code> while packed */
+	private ExecutionData unpacked;
+
+	/**
+	 * Creates a new instance with a copy of the probes of the given execution
+	 * data.
+	 *
+	 * @param data
+	 *            execution data to copy
+	 */
+	PackedExecutionData(final ExecutionData data) {
+		this(data.getId(), data.getName(), data.getProbes().length);
+		merge(data.getProbes(), true);
+	}
+
+	/**
+	 * Creates a new instance where no probe is executed.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param probeCount
+	 *            number of probes
+	 */
+	PackedExecutionData(final long id, final String name,
+			final int probeCount) {
+		this.id = id;
+		this.name = name;
+		this.probeCount = probeCount;
+		this.words = new long[(probeCount + 63) >>> 6];
+	}
+
+	/**
+	 * @return class identifier
+	 */
+	long getId() {
+		return id;
+	}
+
+	/**
+	 * @return VM name
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets all probes to <code>false</code>.
+	 */
+	void reset() {
+		if (unpacked != null) {
+			unpacked.reset();
+			return;
+		}
+		for (int i = 0; i < words.length; i++) {
+			words[i] = 0;
+		}
+	}
+
+	/**
+	 * Merges the given execution data into the probes of this object.
+	 *
+	 * @param other
+	 *            execution data to merge
+	 * @param flag
+	 *            merge mode
+	 * @see ExecutionData#merge(ExecutionData, boolean)
+	 */
+	void merge(final ExecutionData other, final boolean flag) {
+		final boolean[] probes = other.getProbes();
+		ExecutionData.assertCompatibility(id, name, probeCount, other.getId(),
+				other.getName(), probes.length);
+		if (unpacked != null) {
+			unpacked.merge(other, flag);
+			return;
+		}
+		merge(probes, flag);
+	}
+
+	/**
+	 * Merges the given packed probes into the probes of this object, i.e.
+	 * marks a probe as executed if it is executed in the given probes.
+	 *
+	 * @param otherId
+	 *            class identifier of the given probes
+	 * @param otherName
+	 *            VM name of the given probes
+	 * @param otherProbeCount
+	 *            number of the given probes
+	 * @param probes
+	 *            packed probes
+	 * @see IPackedExecutionDataVisitor
+	 */
+	void merge(final long otherId, final String otherName,
+			final int otherProbeCount, final ByteBuffer probes) {
+		ExecutionData.assertCompatibility(id, name, probeCount, otherId,
+				otherName, otherProbeCount);
+		final int start = probes.position();
+		if (unpacked != null) {
+			final boolean[] target = unpacked.getProbes();
+			for (int i = 0; i < probeCount; i++) {
+				target[i] |= (probes.get(start + (i >>> 3))
+						& (1 << (i & 7))) != 0;
+			}
+			return;
+		}
+		final int size = (probeCount + 7) >>> 3;
+		for (int w = 0; w < words.length; w++) {
+			final int offset = w << 3;
+			final int end = Math.min(offset + 8, size);
+			long mask = 0;
+			for (int b = offset; b < end; b++) {
+				mask |= (0xFFL & probes.get(start + b)) << (b << 3);
+			}
+			words[w] |= mask;
+		}
+		// Ignore padding bits of the last byte:
+		if ((probeCount & 63) != 0) {
+			words[words.length - 1] &= -1L >>> -probeCount;
+		}
+	}
+
+	private void merge(final boolean[] probes, final boolean flag) {
+		for (int w = 0; w < words.length; w++) {
+			final int offset = w << 6;
+			final int end = Math.min(offset + 64, probeCount);
+			long mask = 0;
+			for (int i = offset; i < end; i++) {
+				if (probes[i]) {
+					mask |= 1L << i;
+				}
+			}
+			if (flag) {
+				words[w] |= mask;
+			} else {
+				words[w] &= ~mask;
+			}
+		}
+	}
+
+	/**
+	 * Creates a new {@link ExecutionData} instance with the current state of
+	 * the probes.
+	 *
+	 * @return new execution data instance
+	 */
+	ExecutionData toExecutionData() {
+		if (unpacked != null) {
+			return new ExecutionData(id, name, unpacked.getProbes().clone());
+		}
+		final boolean[] probes = new boolean[probeCount];
+		for (int i = 0; i < probeCount; i++) {
+			probes[i] = (words[i >>> 6] & (1L << i)) != 0;
+		}
+		return new ExecutionData(id, name, probes);
+	}
+
+	/**
+	 * Unpacks the probes permanently. From now on the probes are kept in the
+	 * returned {@link ExecutionData} instance, so direct modifications of its
+	 * probes are reflected in this object.
+	 *
+	 * @param otherName
+	 *            VM name expected by the caller
+	 * @param otherProbeCount
+	 *            number of probes expected by the caller
+	 * @return execution data instance holding the probes of this object
+	 * @see ExecutionData#assertCompatibility(long, String, int)
+	 */
+	ExecutionData unpack(final String otherName, final int otherProbeCount) {
+		ExecutionData.assertCompatibility(id, name, probeCount, id, otherName,
+				otherProbeCount);
+		if (unpacked == null) {
+			unpacked = toExecutionData();
+			words = null;
+		}
+		return unpacked;
+	}
+
+}
@@ -12,14 +12,24 @@
  *******************************************************************************/
 package org.jacoco.core.instr;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -41,13 +51,26 @@ import org.objectweb.asm.ClassWriter;
 
 /**
  * Several APIs to instrument Java class definitions for coverage tracing.
+ *
+ * Optionally the entries of archives can be instrumented in parallel by an
+ * {@link Executor} set with {@link #setExecutor(Executor)}. The entries are
+ * still written in their original order.
  */
 public class Instrumenter {
 
+	/**
+	 * Maximum number of archive entries that are instrumented concurrently
+	 * before they are written, this limits the memory required for pending
+	 * entries.
+	 */
+	private static final int MAX_PENDING = 1024;
+
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	private final SignatureRemover signatureRemover;
 
+	private Executor executor;
+
 	/**
 	 * Creates a new instance based on the given runtime.
 	 *
@@ -72,6 +95,24 @@ public class Instrumenter {
 		signatureRemover.setActive(flag);
 	}
 
+	/**
+	 * Sets an executor that is used to instrument the entries of archives in
+	 * parallel, for example a thread pool. The executor is not shut down by
+	 * the {@link Instrumenter}. As instances of {@link Instrumenter} are thread
+	 * safe, the same instance may also be used from the threads of the
+	 * executor to instrument different files concurrently. A thread waiting
+	 * for the result of an entry which has not been started yet instruments
+	 * it by itself, so nested use of the same executor can't dead-lock. By
+	 * default or if set to <code>null</code> all entries are instrumented in
+	 * the calling thread.
+	 *
+	 * @param executor
+	 *            executor for instrumentation or <code>null</code>
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = executor;
+	}
+
 	private byte[] instrument(final byte[] source) {
 		final long classId = CRC64.classId(source);
 		final ClassReader reader = InstrSupport.classReaderFor(source);
@@ -185,12 +226,57 @@ public class Instrumenter {
 	 */
 	public int instrumentAll(final InputStream input, final OutputStream output,
 			final String name) throws IOException {
-		final ContentTypeDetector detector;
+		return instrumentContent(detectContentType(input, name), output, name);
+	}
+
+	/**
+	 * Creates an instrumented version of the given file depending on its type
+	 * like {@link #instrumentAll(InputStream, OutputStream, String)}. ZIP files
+	 * are accessed randomly instead of being read as a stream. The provided
+	 * {@link OutputStream} is not closed by this method.
+	 *
+	 * @param input
+	 *            file to read contents from
+	 * @param output
+	 *            stream to write the instrumented version of the contents
+	 * @return number of instrumented classes
+	 * @throws IOException
+	 *             if reading data from the file fails or a class can't be
+	 *             instrumented
+	 */
+	public int instrumentAll(final File input, final OutputStream output)
+			throws IOException {
+		final String name = input.getPath();
+		final InputStream in = new FileInputStream(input);
+		try {
+			final ContentTypeDetector detector = detectContentType(in, name);
+			if (detector.getType() == ContentTypeDetector.ZIPFILE) {
+				final ZipFile zip = openZipFile(input);
+				if (zip != null) {
+					try {
+						return instrumentZipFile(zip, output, name);
+					} finally {
+						zip.close();
+					}
+				}
+			}
+			return instrumentContent(detector, output, name);
+		} finally {
+			in.close();
+		}
+	}
+
+	private ContentTypeDetector detectContentType(final InputStream input,
+			final String name) throws IOException {
 		try {
-			detector = new ContentTypeDetector(input);
+			return new ContentTypeDetector(input);
 		} catch (final IOException e) {
 			throw instrumentError(name, e);
 		}
+	}
+
+	private int instrumentContent(final ContentTypeDetector detector,
+			final OutputStream output, final String name) throws IOException {
 		switch (detector.getType()) {
 		case ContentTypeDetector.CLASSFILE:
 			instrument(detector.getInputStream(), output, name);
@@ -211,42 +297,242 @@ public class Instrumenter {
 			final OutputStream output, final String name) throws IOException {
 		final ZipInputStream zipin = new ZipInputStream(input);
 		final ZipOutputStream zipout = new ZipOutputStream(output);
-		ZipEntry entry;
-		int count = 0;
-		while ((entry = nextEntry(zipin, name)) != null) {
-			final String entryName = entry.getName();
-			if (signatureRemover.removeEntry(entryName)) {
-				continue;
+		final PendingEntries pending = new PendingEntries(zipout);
+		try {
+			ZipEntry entry;
+			while ((entry = nextEntry(zipin, name)) != null) {
+				if (signatureRemover.removeEntry(entry.getName())) {
+					continue;
+				}
+				if (executor == null) {
+					pending.count += instrumentEntry(entry, zipin, zipout,
+							name);
+				} else {
+					pending.submit(new PendingEntry(entry,
+							readFully(zipin, name), null, name));
+				}
 			}
+			return pending.finish();
+		} finally {
+			pending.cancel();
+		}
+	}
 
-			final ZipEntry newEntry = new ZipEntry(entryName);
-			newEntry.setMethod(entry.getMethod());
-			switch (entry.getMethod()) {
-			case ZipEntry.DEFLATED:
-				zipout.putNextEntry(newEntry);
-				count += filterOrInstrument(zipin, zipout, name, entryName);
-				break;
-			case ZipEntry.STORED:
-				// Uncompressed entries must be processed in-memory to calculate
-				// mandatory entry size and CRC
-				final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-				count += filterOrInstrument(zipin, buffer, name, entryName);
-				final byte[] bytes = buffer.toByteArray();
-				newEntry.setSize(bytes.length);
-				newEntry.setCompressedSize(bytes.length);
-				newEntry.setCrc(crc(bytes));
-				zipout.putNextEntry(newEntry);
-				zipout.write(bytes);
-				break;
-			default:
-				throw new AssertionError(entry.getMethod());
+	private static ZipFile openZipFile(final File file) {
+		try {
+			return new ZipFile(file);
+		} catch (final IOException e) {
+			// e.g. missing central directory, fall back to stream
+			return null;
+		}
+	}
+
+	private int instrumentZipFile(final ZipFile zip, final OutputStream output,
+			final String name) throws IOException {
+		final ZipOutputStream zipout = new ZipOutputStream(output);
+		final PendingEntries pending = new PendingEntries(zipout);
+		try {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				if (signatureRemover.removeEntry(entry.getName())) {
+					continue;
+				}
+				if (executor == null) {
+					final InputStream in = openEntry(zip, entry, name);
+					try {
+						pending.count += instrumentEntry(entry, in, zipout,
+								name);
+					} finally {
+						in.close();
+					}
+				} else {
+					// Entries are decompressed by the executor:
+					pending.submit(new PendingEntry(entry, null, zip, name));
+				}
 			}
+			return pending.finish();
+		} finally {
+			pending.cancel();
+		}
+	}
+
+	private InputStream openEntry(final ZipFile zip, final ZipEntry entry,
+			final String name) throws IOException {
+		try {
+			return zip.getInputStream(entry);
+		} catch (final IOException e) {
+			throw instrumentError(name, e);
+		}
+	}
+
+	private byte[] readFully(final InputStream in, final String name)
+			throws IOException {
+		try {
+			return InputStreams.readFully(in);
+		} catch (final IOException e) {
+			throw instrumentError(name, e);
+		}
+	}
+
+	private int instrumentEntry(final ZipEntry entry, final InputStream in,
+			final ZipOutputStream zipout, final String name)
+			throws IOException {
+		final String entryName = entry.getName();
+		int count = 0;
+		switch (entry.getMethod()) {
+		case ZipEntry.DEFLATED:
+			zipout.putNextEntry(createEntry(entry));
+			count += filterOrInstrument(in, zipout, name, entryName);
 			zipout.closeEntry();
+			break;
+		case ZipEntry.STORED:
+			// Uncompressed entries must be processed in-memory to calculate
+			// mandatory entry size and CRC
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			count += filterOrInstrument(in, buffer, name, entryName);
+			writeEntry(zipout, entry, buffer.toByteArray());
+			break;
+		default:
+			throw new AssertionError(entry.getMethod());
 		}
-		zipout.finish();
 		return count;
 	}
 
+	private static void writeEntry(final ZipOutputStream zipout,
+			final ZipEntry entry, final byte[] bytes) throws IOException {
+		final ZipEntry newEntry = createEntry(entry);
+		if (entry.getMethod() == ZipEntry.STORED) {
+			newEntry.setSize(bytes.length);
+			newEntry.setCompressedSize(bytes.length);
+			newEntry.setCrc(crc(bytes));
+		}
+		zipout.putNextEntry(newEntry);
+		zipout.write(bytes);
+		zipout.closeEntry();
+	}
+
+	/**
+	 * Creates a new entry with the metadata of the original entry. Sizes and
+	 * checksums are not copied as the content changes.
+	 */
+	private static ZipEntry createEntry(final ZipEntry entry) {
+		final ZipEntry newEntry = new ZipEntry(entry.getName());
+		newEntry.setMethod(entry.getMethod());
+		if (entry.getTime() != -1) {
+			newEntry.setTime(entry.getTime());
+		}
+		newEntry.setComment(entry.getComment());
+		return newEntry;
+	}
+
+	/**
+	 * Archive entries which are instrumented by the executor and written in
+	 * their original order.
+	 */
+	private class PendingEntries {
+
+		private final ZipOutputStream zipout;
+
+		private final LinkedList<PendingEntry> pending;
+
+		int count;
+
+		PendingEntries(final ZipOutputStream zipout) {
+			this.zipout = zipout;
+			this.pending = new LinkedList<PendingEntry>();
+		}
+
+		void submit(final PendingEntry entry) throws IOException {
+			if (pending.size() >= MAX_PENDING) {
+				write(pending.removeFirst());
+			}
+			pending.add(entry);
+			executor.execute(entry);
+		}
+
+		int finish() throws IOException {
+			while (!pending.isEmpty()) {
+				write(pending.removeFirst());
+			}
+			zipout.finish();
+			return count;
+		}
+
+		void cancel() {
+			for (final PendingEntry entry : pending) {
+				entry.cancel(false);
+			}
+			pending.clear();
+		}
+
+		private void write(final PendingEntry entry) throws IOException {
+			// Instrument in this thread if the executor has not started yet
+			entry.run();
+			count += entry.getCount();
+			writeEntry(zipout, entry.entry, entry.buffer.toByteArray());
+		}
+
+	}
+
+	/**
+	 * Instrumentation of a single archive entry into a buffer which is
+	 * executed by the executor.
+	 */
+	private class PendingEntry extends FutureTask<Integer> {
+
+		final ZipEntry entry;
+
+		final ByteArrayOutputStream buffer;
+
+		private final String name;
+
+		PendingEntry(final ZipEntry entry, final byte[] content,
+				final ZipFile zip, final String name) {
+			this(entry, new ByteArrayOutputStream(), content, zip, name);
+		}
+
+		private PendingEntry(final ZipEntry entry,
+				final ByteArrayOutputStream buffer, final byte[] content,
+				final ZipFile zip, final String name) {
+			super(new Callable<Integer>() {
+				public Integer call() throws IOException {
+					final InputStream in = content == null
+							? openEntry(zip, entry, name)
+							: new ByteArrayInputStream(content);
+					try {
+						return Integer.valueOf(filterOrInstrument(in, buffer,
+								name, entry.getName()));
+					} finally {
+						in.close();
+					}
+				}
+			});
+			this.entry = entry;
+			this.buffer = buffer;
+			this.name = name;
+		}
+
+		int getCount() throws IOException {
+			try {
+				return get().intValue();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw instrumentError(name, e);
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw instrumentError(name, (Exception) cause);
+			}
+		}
+
+	}
+
 	private int filterOrInstrument(final InputStream in, final OutputStream out,
 			final String name, final String entryName) throws IOException {
 		if (signatureRemover.filterEntry(entryName, in, out)) {
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Directory which stores {@link ClassTrace}s in files named by the class id.
+ * Each file is tagged with the JaCoCo version which created it, as analysis
+ * and filters change between versions. The cache is only an optimization:
+ * Files which can't be read or written are ignored. Instances of this class
+ * may be used concurrently, also by multiple processes.
+ *
+ * The size of the cache is not limited: Entries of modified class files or of
+ * previous JaCoCo versions are not removed. As every entry is optional the
+ * directory can be deleted at any time to reclaim the disk space, for example
+ * by placing it in a build output directory.
+ */
+public final class AnalysisCache {
+
+	private static final int MAGIC = 0xC0C0CAC7;
+
+	private static final String VERSION = JaCoCo.VERSION + "/"
+			+ JaCoCo.COMMITID;
+
+	private final File directory;
+
+	/**
+	 * Creates a cache in the given directory. The directory is created when
+	 * the first entry is stored.
+	 *
+	 * @param directory
+	 *            cache directory
+	 */
+	public AnalysisCache(final File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the trace for the class with the given id.
+	 *
+	 * @param classId
+	 *            class id
+	 * @return trace or <code>null</code> if there is no valid cache entry
+	 */
+	public ClassTrace get(final long classId) {
+		final File file = getFile(classId);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final CompactDataInput in = new CompactDataInput(
+					new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != MAGIC || !VERSION.equals(in.readUTF())
+						|| in.readLong() != classId) {
+					return null;
+				}
+				final String className = in.readUTF();
+				final byte[] data = new byte[in.readVarInt()];
+				in.readFully(data);
+				return new ClassTrace(className, data);
+			} finally {
+				in.close();
+			}
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the trace for the class with the given id. An existing entry is
+	 * replaced.
+	 *
+	 * @param classId
+	 *            class id
+	 * @param trace
+	 *            trace to store
+	 */
+	public void put(final long classId, final ClassTrace trace) {
+		try {
+			directory.mkdirs();
+			// Write to a temporary file first, so that concurrent readers
+			// never see incomplete entries:
+			final File temp = File.createTempFile("class", ".tmp", directory);
+			try {
+				final CompactDataOutput out = new CompactDataOutput(
+						new BufferedOutputStream(new FileOutputStream(temp)));
+				try {
+					out.writeInt(MAGIC);
+					out.writeUTF(VERSION);
+					out.writeLong(classId);
+					out.writeUTF(trace.getClassName());
+					out.writeVarInt(trace.getData().length);
+					out.write(trace.getData());
+				} finally {
+					out.close();
+				}
+				final File file = getFile(classId);
+				file.delete();
+				temp.renameTo(file);
+			} finally {
+				temp.delete();
+			}
+		} catch (final IOException e) {
+			// the cache is optional
+		}
+	}
+
+	private File getFile(final long classId) {
+		return new File(directory,
+				String.format("%016x", Long.valueOf(classId)));
+	}
+
+}
@@ -53,6 +53,8 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	private final IFilter filter;
 
+	private final ClassTraceRecorder recorder;
+
 	/**
 	 * Creates a new analyzer that builds coverage data for a class.
 	 *
@@ -65,10 +67,30 @@ public class ClassAnalyzer extends ClassProbesVisitor
 	 */
 	public ClassAnalyzer(final ClassCoverageImpl coverage,
 			final boolean[] probes, final StringPool stringPool) {
+		this(coverage, probes, stringPool, null);
+	}
+
+	/**
+	 * Creates a new analyzer that builds coverage data for a class and records
+	 * a {@link ClassTrace} of the analysis.
+	 *
+	 * @param coverage
+	 *            coverage node for the analyzed class data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 * @param recorder
+	 *            recorder for the trace of the analysis or <code>null</code>
+	 */
+	public ClassAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final StringPool stringPool,
+			final ClassTraceRecorder recorder) {
 		this.coverage = coverage;
 		this.probes = probes;
 		this.stringPool = stringPool;
 		this.filter = Filters.all();
+		this.recorder = recorder;
 	}
 
 	@Override
@@ -113,13 +135,17 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 		InstrSupport.assertNotInstrumented(name, coverage.getName());
 
-		final InstructionsBuilder builder = new InstructionsBuilder(probes);
+		final InstructionsBuilder builder = new InstructionsBuilder(probes,
+				recorder);
 
 		return new MethodAnalyzer(builder) {
 
 			@Override
 			public void accept(final MethodNode methodNode,
 					final MethodVisitor methodVisitor) {
+				if (recorder != null) {
+					recorder.method(name, desc, signature);
+				}
 				super.accept(methodNode, methodVisitor);
 				addMethodCoverage(stringPool.get(name), stringPool.get(desc),
 						stringPool.get(signature), builder, methodNode);
@@ -137,7 +163,11 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 		final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
 				instructions);
-		filter.filter(methodNode, this, mcc);
+		filter.filter(methodNode, this, recorder == null ? mcc
+				: recorder.filterOutput(mcc, instructions));
+		if (recorder != null) {
+			recorder.endMethod();
+		}
 
 		final MethodCoverageImpl mc = new MethodCoverageImpl(name, desc,
 				signature);
@@ -164,6 +194,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 			if (fragment == null) {
 				fragment = new SourceNodeImpl(null, mapping.inputClassName());
 				fragments.put(mapping.inputClassName(), fragment);
+				if (recorder != null) {
+					recorder.fragment(mapping.inputClassName());
+				}
 			}
 			final int mappingOutputEndLine = mapping.outputStartLine()
 					+ mapping.repeatCount() - 1;
@@ -174,6 +207,10 @@ public class ClassAnalyzer extends ClassProbesVisitor
 							+ instruction.getLine() - mapping.outputStartLine();
 					fragment.increment(instruction.getInstructionCounter(),
 							CounterImpl.COUNTER_0_0, originalLine);
+					if (recorder != null) {
+						recorder.fragmentLine(mapping.inputClassName(),
+								instruction, originalLine);
+					}
 				}
 			}
 		}
@@ -197,6 +234,9 @@ public class ClassAnalyzer extends ClassProbesVisitor
 			coverage.setFragments(Arrays
 					.asList(fragments.values().toArray(new SourceNodeImpl[0])));
 		}
+		if (recorder != null) {
+			recorder.end(coverage);
+		}
 	}
 
 	// IFilterContext implementation
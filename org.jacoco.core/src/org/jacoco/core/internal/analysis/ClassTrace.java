@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.analysis.filter.Replacements;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+
+/**
+ * Trace of the analysis of a single class. The trace allows to calculate the
+ * coverage of the class for any probe array without parsing and filtering the
+ * class definition again: It contains the construction of all
+ * {@link Instruction}s as well as the filter commands of every method, which
+ * are replayed with the same implementation as used for the original analysis.
+ * Traces are created with {@link ClassTraceRecorder}.
+ */
+public final class ClassTrace {
+
+	static final int END = 0;
+	static final int METHOD = 1;
+	static final int INSTRUCTION = 2;
+	static final int BRANCH = 3;
+	static final int PROBE = 4;
+	static final int FRAGMENT = 5;
+	static final int FRAGMENT_LINE = 6;
+	static final int IGNORE = 7;
+	static final int MERGE = 8;
+	static final int REPLACE = 9;
+	static final int END_METHOD = 10;
+
+	private final String className;
+
+	private final byte[] data;
+
+	/**
+	 * Creates a trace from its serialized form.
+	 *
+	 * @param className
+	 *            VM name of the class
+	 * @param data
+	 *            serialized trace as obtained by {@link #getData()}
+	 */
+	public ClassTrace(final String className, final byte[] data) {
+		this.className = className;
+		this.data = data;
+	}
+
+	/**
+	 * Returns the VM name of the traced class.
+	 *
+	 * @return VM name of the class
+	 */
+	public String getClassName() {
+		return className;
+	}
+
+	/**
+	 * Returns the serialized form of this trace which can be passed to
+	 * {@link #ClassTrace(String, byte[])}.
+	 *
+	 * @return serialized form of this trace
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * Calculates the coverage of the class for the given probes.
+	 *
+	 * @param coverage
+	 *            coverage node for the class which is filled with the result
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 * @throws IOException
+	 *             if the trace is malformed
+	 */
+	public void replay(final ClassCoverageImpl coverage,
+			final boolean[] probes, final StringPool stringPool)
+			throws IOException {
+		final CompactDataInput in = new CompactDataInput(
+				new ByteArrayInputStream(data));
+		final List<SourceNodeImpl> fragments = new ArrayList<SourceNodeImpl>();
+		final Map<String, SourceNodeImpl> fragmentsByName = new HashMap<String, SourceNodeImpl>();
+		MethodReplay method = null;
+		while (true) {
+			final int op = in.readVarInt();
+			switch (op) {
+			case METHOD:
+				method = new MethodReplay(stringPool.get(readString(in)),
+						stringPool.get(readString(in)),
+						stringPool.get(readString(in)));
+				break;
+			case INSTRUCTION:
+				method.instructions.add(new Instruction(in.readVarInt() - 1));
+				break;
+			case BRANCH:
+				method.get(in.readVarInt()).addBranch(
+						method.get(in.readVarInt()), in.readVarInt());
+				break;
+			case PROBE:
+				final Instruction source = method.get(in.readVarInt());
+				final int probeId = in.readVarInt();
+				final int branch = in.readVarInt();
+				if (probes != null && probeId >= probes.length) {
+					throw new IOException("Invalid probe id " + probeId);
+				}
+				source.addBranch(probes != null && probes[probeId], branch);
+				break;
+			case FRAGMENT:
+				final String name = stringPool.get(readString(in));
+				final SourceNodeImpl fragment = new SourceNodeImpl(null, name);
+				fragments.add(fragment);
+				fragmentsByName.put(name, fragment);
+				break;
+			case FRAGMENT_LINE:
+				final Instruction instruction = method.get(in.readVarInt());
+				fragments.get(in.readVarInt()).increment(
+						instruction.getInstructionCounter(),
+						CounterImpl.COUNTER_0_0, in.readVarInt());
+				break;
+			case IGNORE:
+				final AbstractInsnNode node = method.node(in.readVarInt());
+				method.calculator().ignore(node, node);
+				break;
+			case MERGE:
+				method.calculator().merge(method.node(in.readVarInt()),
+						method.node(in.readVarInt()));
+				break;
+			case REPLACE:
+				method.calculator().replaceBranches(
+						method.node(in.readVarInt()), readReplacements(in,
+								method));
+				break;
+			case END_METHOD:
+				final MethodCoverageImpl mc = new MethodCoverageImpl(
+						method.name, method.desc, method.signature);
+				method.calculator().calculate(mc);
+				if (mc.containsCode()) {
+					coverage.addMethod(mc);
+				}
+				method = null;
+				break;
+			case END:
+				coverage.setSignature(stringPool.get(readString(in)));
+				coverage.setSuperName(stringPool.get(readString(in)));
+				coverage.setInterfaces(stringPool.get(readStrings(in)));
+				coverage.setSourceFileName(stringPool.get(readString(in)));
+				if (!fragments.isEmpty()) {
+					// Same order as created by ClassAnalyzer
+					coverage.setFragments(Arrays.asList(fragmentsByName
+							.values().toArray(new SourceNodeImpl[0])));
+				}
+				return;
+			default:
+				throw new IOException("Invalid trace operation " + op);
+			}
+		}
+	}
+
+	private static Replacements readReplacements(final CompactDataInput in,
+			final MethodReplay method) throws IOException {
+		final Replacements replacements = new Replacements();
+		for (int i = in.readVarInt(); i > 0; i--) {
+			final AbstractInsnNode target = new LabelNode();
+			for (int j = in.readVarInt(); j > 0; j--) {
+				replacements.add(target, method.node(in.readVarInt()),
+						in.readVarInt());
+			}
+		}
+		return replacements;
+	}
+
+	private static String readString(final CompactDataInput in)
+			throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static String[] readStrings(final CompactDataInput in)
+			throws IOException {
+		final int length = in.readVarInt() - 1;
+		if (length < 0) {
+			return null;
+		}
+		final String[] strings = new String[length];
+		for (int i = 0; i < length; i++) {
+			strings[i] = readString(in);
+		}
+		return strings;
+	}
+
+	/**
+	 * State of a method while its trace is replayed.
+	 */
+	private static class MethodReplay {
+
+		final String name;
+		final String desc;
+		final String signature;
+
+		final List<Instruction> instructions = new ArrayList<Instruction>();
+
+		/**
+		 * Placeholders for the ASM instruction nodes which are required by
+		 * {@link MethodCoverageCalculator}.
+		 */
+		private AbstractInsnNode[] nodes;
+
+		private MethodCoverageCalculator calculator;
+
+		MethodReplay(final String name, final String desc,
+				final String signature) {
+			this.name = name;
+			this.desc = desc;
+			this.signature = signature;
+		}
+
+		Instruction get(final int index) {
+			return instructions.get(index);
+		}
+
+		AbstractInsnNode node(final int index) {
+			calculator();
+			return nodes[index];
+		}
+
+		MethodCoverageCalculator calculator() {
+			if (calculator == null) {
+				nodes = new AbstractInsnNode[instructions.size()];
+				final Map<AbstractInsnNode, Instruction> map = new HashMap<AbstractInsnNode, Instruction>();
+				for (int i = 0; i < nodes.length; i++) {
+					nodes[i] = new LabelNode();
+					map.put(nodes[i], instructions.get(i));
+				}
+				calculator = new MethodCoverageCalculator(map);
+			}
+			return calculator;
+		}
+
+	}
+
+}
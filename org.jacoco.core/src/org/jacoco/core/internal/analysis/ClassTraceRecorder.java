@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.analysis.filter.IFilterOutput;
+import org.jacoco.core.internal.analysis.filter.Replacements;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.objectweb.asm.tree.AbstractInsnNode;
+
+/**
+ * Records a {@link ClassTrace} while a class is analyzed by
+ * {@link ClassAnalyzer}.
+ */
+public class ClassTraceRecorder {
+
+	private final String className;
+
+	private final ByteArrayOutputStream buffer;
+
+	private final CompactDataOutput out;
+
+	private final Map<Instruction, Integer> instructions;
+
+	private final Map<String, Integer> fragments;
+
+	private boolean valid;
+
+	/**
+	 * Creates a new recorder for the given class.
+	 *
+	 * @param className
+	 *            VM name of the class
+	 */
+	public ClassTraceRecorder(final String className) {
+		this.className = className;
+		this.buffer = new ByteArrayOutputStream();
+		this.out = new CompactDataOutput(buffer);
+		this.instructions = new IdentityHashMap<Instruction, Integer>();
+		this.fragments = new HashMap<String, Integer>();
+		this.valid = true;
+	}
+
+	/**
+	 * Returns the recorded trace. This method must be called after the
+	 * analysis of the class has been completed.
+	 *
+	 * @return recorded trace or <code>null</code> if the analysis could not be
+	 *         recorded completely
+	 */
+	public ClassTrace getTrace() {
+		return valid ? new ClassTrace(className, buffer.toByteArray()) : null;
+	}
+
+	void method(final String name, final String desc, final String signature) {
+		instructions.clear();
+		write(ClassTrace.METHOD);
+		write(name);
+		write(desc);
+		write(signature);
+	}
+
+	void instruction(final Instruction instruction) {
+		instructions.put(instruction, Integer.valueOf(instructions.size()));
+		write(ClassTrace.INSTRUCTION);
+		write(instruction.getLine() + 1);
+	}
+
+	void branch(final Instruction source, final Instruction target,
+			final int branch) {
+		write(ClassTrace.BRANCH);
+		write(index(source));
+		write(index(target));
+		write(branch);
+	}
+
+	void probe(final Instruction source, final int probeId,
+			final int branch) {
+		write(ClassTrace.PROBE);
+		write(index(source));
+		write(probeId);
+		write(branch);
+	}
+
+	void fragment(final String fragmentName) {
+		fragments.put(fragmentName, Integer.valueOf(fragments.size()));
+		write(ClassTrace.FRAGMENT);
+		write(fragmentName);
+	}
+
+	void fragmentLine(final String fragmentName,
+			final Instruction instruction, final int line) {
+		write(ClassTrace.FRAGMENT_LINE);
+		write(index(instruction));
+		write(fragments.get(fragmentName).intValue());
+		write(line);
+	}
+
+	/**
+	 * Creates a filter output which records all filter commands before
+	 * passing them to the given output.
+	 *
+	 * @param output
+	 *            output receiving the filter commands
+	 * @param nodes
+	 *            instructions of the current method
+	 * @return recording filter output
+	 */
+	IFilterOutput filterOutput(final IFilterOutput output,
+			final Map<AbstractInsnNode, Instruction> nodes) {
+		return new IFilterOutput() {
+
+			public void ignore(final AbstractInsnNode fromInclusive,
+					final AbstractInsnNode toInclusive) {
+				output.ignore(fromInclusive, toInclusive);
+				for (AbstractInsnNode i = fromInclusive; i != toInclusive; i = i
+						.getNext()) {
+					ignore(i);
+				}
+				ignore(toInclusive);
+			}
+
+			private void ignore(final AbstractInsnNode node) {
+				final Instruction instruction = nodes.get(node);
+				if (instruction != null) {
+					write(ClassTrace.IGNORE);
+					write(index(instruction));
+				}
+			}
+
+			public void merge(final AbstractInsnNode i1,
+					final AbstractInsnNode i2) {
+				output.merge(i1, i2);
+				write(ClassTrace.MERGE);
+				write(index(nodes.get(i1)));
+				write(index(nodes.get(i2)));
+			}
+
+			public void replaceBranches(final AbstractInsnNode source,
+					final Replacements replacements) {
+				output.replaceBranches(source, replacements);
+				write(ClassTrace.REPLACE);
+				write(index(nodes.get(source)));
+				final List<Collection<Replacements.InstructionBranch>> newBranches = new ArrayList<Collection<Replacements.InstructionBranch>>();
+				for (final Collection<Replacements.InstructionBranch> newBranch : replacements
+						.values()) {
+					newBranches.add(newBranch);
+				}
+				write(newBranches.size());
+				for (final Collection<Replacements.InstructionBranch> newBranch : newBranches) {
+					write(newBranch.size());
+					for (final Replacements.InstructionBranch from : newBranch) {
+						write(index(nodes.get(from.instruction)));
+						write(from.branch);
+					}
+				}
+			}
+		};
+	}
+
+	void endMethod() {
+		write(ClassTrace.END_METHOD);
+	}
+
+	void end(final ClassCoverageImpl coverage) {
+		write(ClassTrace.END);
+		write(coverage.getSignature());
+		write(coverage.getSuperName());
+		final String[] interfaces = coverage.getInterfaceNames();
+		if (interfaces == null) {
+			write(0);
+		} else {
+			write(interfaces.length + 1);
+			for (final String i : interfaces) {
+				write(i);
+			}
+		}
+		write(coverage.getSourceFileName());
+	}
+
+	private int index(final Instruction instruction) {
+		final Integer index = instructions.get(instruction);
+		if (index == null) {
+			// Unknown instruction, the trace would not be replayable
+			valid = false;
+			return 0;
+		}
+		return index.intValue();
+	}
+
+	private void write(final int value) {
+		try {
+			out.writeVarInt(value);
+		} catch (final IOException e) {
+			// Can't happen with ByteArrayOutputStream
+			throw new AssertionError(e);
+		}
+	}
+
+	private void write(final String value) {
+		try {
+			out.writeBoolean(value != null);
+			if (value != null) {
+				out.writeUTF(value);
+			}
+		} catch (final IOException e) {
+			// String exceeds the limit of the modified UTF-8 encoding
+			valid = false;
+		}
+	}
+
+}
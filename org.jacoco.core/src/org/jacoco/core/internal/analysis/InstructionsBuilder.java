@@ -33,6 +33,9 @@ class InstructionsBuilder {
 	/** Probe array of the class the analyzed method belongs to. */
 	private final boolean[] probes;
 
+	/** Optional recorder for the construction of instructions. */
+	private final ClassTraceRecorder recorder;
+
 	/** The line which belong to subsequently added instructions. */
 	private int currentLine;
 
@@ -67,7 +70,24 @@ class InstructionsBuilder {
 	 *            coverage status of every instruction.
 	 */
 	InstructionsBuilder(final boolean[] probes) {
+		this(probes, null);
+	}
+
+	/**
+	 * Creates a new builder instance which can be used to analyze a single
+	 * method and records the construction of the instructions.
+	 *
+	 * @param probes
+	 *            probe array of the corresponding class used to determine the
+	 *            coverage status of every instruction.
+	 * @param recorder
+	 *            recorder for the construction of instructions or
+	 *            <code>null</code>
+	 */
+	InstructionsBuilder(final boolean[] probes,
+			final ClassTraceRecorder recorder) {
 		this.probes = probes;
+		this.recorder = recorder;
 		this.currentLine = ISourceNode.UNKNOWN_LINE;
 		this.currentInsn = null;
 		this.instructions = new HashMap<AbstractInsnNode, Instruction>();
@@ -102,6 +122,9 @@ class InstructionsBuilder {
 	 */
 	void addInstruction(final AbstractInsnNode node) {
 		final Instruction insn = new Instruction(currentLine);
+		if (recorder != null) {
+			recorder.instruction(insn);
+		}
 		final int labelCount = currentLabel.size();
 		if (labelCount > 0) {
 			for (int i = labelCount; --i >= 0;) {
@@ -111,6 +134,9 @@ class InstructionsBuilder {
 		}
 		if (currentInsn != null) {
 			currentInsn.addBranch(insn, 0);
+			if (recorder != null) {
+				recorder.branch(currentInsn, insn, 0);
+			}
 		}
 		currentInsn = insn;
 		instructions.put(node, insn);
@@ -148,6 +174,9 @@ class InstructionsBuilder {
 	void addProbe(final int probeId, final int branch) {
 		final boolean executed = probes != null && probes[probeId];
 		currentInsn.addBranch(executed, branch);
+		if (recorder != null) {
+			recorder.probe(currentInsn, probeId, branch);
+		}
 	}
 
 	/**
@@ -160,7 +189,7 @@ class InstructionsBuilder {
 	Map<AbstractInsnNode, Instruction> getInstructions() {
 		// Wire jumps:
 		for (final Jump j : jumps) {
-			j.wire();
+			j.wire(recorder);
 		}
 
 		return instructions;
@@ -178,8 +207,12 @@ class InstructionsBuilder {
 			this.branch = branch;
 		}
 
-		void wire() {
-			source.addBranch(LabelInfo.getInstruction(target), branch);
+		void wire(final ClassTraceRecorder recorder) {
+			final Instruction targetInsn = LabelInfo.getInstruction(target);
+			source.addBranch(targetInsn, branch);
+			if (recorder != null) {
+				recorder.branch(source, targetInsn, branch);
+			}
 		}
 
 	}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import org.jacoco.core.internal.flow.MethodProbesCounter;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.JSRInlinerAdapter;
+
+/**
+ * Analyzer that only calculates method and class counters of a class. Instead
+ * of analyzing the instructions of every method only the probes of every
+ * method are counted in a single pass. A method is considered as covered if at
+ * least one of its probes has been executed. Filters are not applied, only
+ * synthetic methods which are no lambda bodies are ignored.
+ */
+public class MethodCoverageAnalyzer extends ClassVisitor {
+
+	private final ClassCoverageImpl coverage;
+	private final boolean[] probes;
+	private final StringPool stringPool;
+
+	private int version;
+
+	private int nextProbe = 0;
+
+	/**
+	 * Creates a new analyzer that builds coverage data for a class.
+	 *
+	 * @param coverage
+	 *            coverage node for the analyzed class data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 */
+	public MethodCoverageAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final StringPool stringPool) {
+		super(InstrSupport.ASM_API_VERSION);
+		this.coverage = coverage;
+		this.probes = probes;
+		this.stringPool = stringPool;
+	}
+
+	@Override
+	public void visit(final int version, final int access, final String name,
+			final String signature, final String superName,
+			final String[] interfaces) {
+		this.version = version;
+		coverage.setSignature(stringPool.get(signature));
+		coverage.setSuperName(stringPool.get(superName));
+		coverage.setInterfaces(stringPool.get(interfaces));
+	}
+
+	@Override
+	public void visitSource(final String source, final String debug) {
+		coverage.setSourceFileName(stringPool.get(source));
+	}
+
+	@Override
+	public MethodVisitor visitMethod(final int access, final String name,
+			final String desc, final String signature,
+			final String[] exceptions) {
+
+		InstrSupport.assertNotInstrumented(name, coverage.getName());
+
+		final MethodProbesCounter counter = new MethodProbesCounter() {
+			private boolean code = false;
+
+			@Override
+			public void visitCode() {
+				code = true;
+				super.visitCode();
+			}
+
+			@Override
+			public void visitEnd() {
+				super.visitEnd();
+				addMethodCoverage(access, name, desc, signature, code,
+						getCount());
+			}
+		};
+		if (version < Opcodes.V1_7) {
+			// Older class files may contain subroutines
+			return new JSRInlinerAdapter(counter, access, name, desc,
+					signature, exceptions);
+		}
+		return counter;
+	}
+
+	private void addMethodCoverage(final int access, final String name,
+			final String desc, final String signature, final boolean code,
+			final int probeCount) {
+		final int first = nextProbe;
+		nextProbe += probeCount;
+		if (!code) {
+			// Only consider methods that actually contain code
+			return;
+		}
+		if ((access & Opcodes.ACC_SYNTHETIC) != 0
+				&& !name.startsWith("lambda$")) {
+			return;
+		}
+		final MethodCoverageImpl mc = new MethodCoverageImpl(
+				stringPool.get(name), stringPool.get(desc),
+				stringPool.get(signature));
+		mc.incrementMethodCounter(isCovered(first, nextProbe));
+		coverage.addMethod(mc);
+	}
+
+	private boolean isCovered(final int start, final int end) {
+		if (probes != null) {
+			final int limit = Math.min(end, probes.length);
+			for (int i = start; i < limit; i++) {
+				if (probes[i]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
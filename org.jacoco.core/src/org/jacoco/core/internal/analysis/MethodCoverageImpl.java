@@ -66,6 +66,19 @@ public class MethodCoverageImpl extends SourceNodeImpl
 		this.complexityCounter = this.complexityCounter.increment(base);
 	}
 
+	/**
+	 * Increments only the method counter for a method whose instructions have
+	 * not been analyzed. This method must be called exactly once instead of
+	 * {@link #incrementMethodCounter()}.
+	 *
+	 * @param covered
+	 *            <code>true</code> if the method has been executed
+	 */
+	public void incrementMethodCounter(final boolean covered) {
+		this.methodCounter = this.methodCounter.increment(
+				covered ? CounterImpl.COUNTER_0_1 : CounterImpl.COUNTER_1_0);
+	}
+
 	@Override
 	public boolean applyFragment(final SourceNodeImpl fragment) {
 		final boolean applied = super.applyFragment(fragment);
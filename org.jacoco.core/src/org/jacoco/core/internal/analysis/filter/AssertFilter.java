@@ -19,7 +19,13 @@ import org.objectweb.asm.tree.MethodNode;
 /**
  * Filters code that is generated for an <code>assert</code> statement.
  */
-final class AssertFilter implements IFilter {
+final class AssertFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.contains(Opcodes.IFNE)
+				&& (features.contains(Opcodes.GETSTATIC)
+						|| features.contains(Opcodes.PUTSTATIC));
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
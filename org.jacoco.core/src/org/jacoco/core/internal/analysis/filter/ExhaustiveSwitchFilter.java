@@ -25,7 +25,11 @@ import org.objectweb.asm.tree.TypeInsnNode;
  * Filters default branch generated by compilers for exhaustive switch
  * expressions.
  */
-final class ExhaustiveSwitchFilter implements IFilter {
+final class ExhaustiveSwitchFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.hasSwitch() && features.contains(Opcodes.ATHROW);
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -15,7 +15,8 @@ package org.jacoco.core.internal.analysis.filter;
 import org.objectweb.asm.tree.MethodNode;
 
 /**
- * Filter that combines other filters.
+ * Filter that combines other filters. {@link IConditionalFilter}s are skipped
+ * for methods they can not match.
  */
 final class FilterSet implements IFilter {
 
@@ -27,7 +28,28 @@ final class FilterSet implements IFilter {
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
+		filter(methodNode, new MethodFeatures(methodNode), context, output);
+	}
+
+	/**
+	 * Applies the filters with the already calculated features of the method.
+	 *
+	 * @param methodNode
+	 *            method to inspect
+	 * @param features
+	 *            features of the method
+	 * @param context
+	 *            context information for the method
+	 * @param output
+	 *            callback to report filtering results to
+	 */
+	void filter(final MethodNode methodNode, final MethodFeatures features,
+			final IFilterContext context, final IFilterOutput output) {
 		for (final IFilter filter : filters) {
+			if (filter instanceof IConditionalFilter
+					&& !((IConditionalFilter) filter).isApplicable(features)) {
+				continue;
+			}
 			filter.filter(methodNode, context, output);
 		}
 	}
@@ -44,23 +44,26 @@ public final class Filters {
 	 * @return filter that combines all filters
 	 */
 	public static IFilter all() {
-		final IFilter allCommonFilters = allCommonFilters();
-		final IFilter allKotlinFilters = allKotlinFilters();
-		final IFilter allNonKotlinFilters = allNonKotlinFilters();
+		final FilterSet allCommonFilters = allCommonFilters();
+		final FilterSet allKotlinFilters = allKotlinFilters();
+		final FilterSet allNonKotlinFilters = allNonKotlinFilters();
 		return new IFilter() {
 			public void filter(final MethodNode methodNode,
 					final IFilterContext context, final IFilterOutput output) {
-				allCommonFilters.filter(methodNode, context, output);
+				final MethodFeatures features = new MethodFeatures(methodNode);
+				allCommonFilters.filter(methodNode, features, context, output);
 				if (isKotlinClass(context)) {
-					allKotlinFilters.filter(methodNode, context, output);
+					allKotlinFilters.filter(methodNode, features, context,
+							output);
 				} else {
-					allNonKotlinFilters.filter(methodNode, context, output);
+					allNonKotlinFilters.filter(methodNode, features, context,
+							output);
 				}
 			}
 		};
 	}
 
-	private static IFilter allCommonFilters() {
+	private static FilterSet allCommonFilters() {
 		return new FilterSet( //
 				new SyntheticClassFilter(), //
 				new EnumFilter(), //
@@ -81,12 +84,12 @@ public final class Filters {
 				new AnnotationGeneratedFilter());
 	}
 
-	private static IFilter allNonKotlinFilters() {
+	private static FilterSet allNonKotlinFilters() {
 		return new FilterSet( //
 				new SyntheticFilter());
 	}
 
-	private static IFilter allKotlinFilters() {
+	private static FilterSet allKotlinFilters() {
 		return new FilterSet( //
 				new KotlinGeneratedFilter(), //
 				new KotlinSyntheticAccessorsFilter(), //
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+/**
+ * Filter which can only match methods with certain instructions. Within a
+ * {@link FilterSet} such a filter is not called for methods where
+ * {@link #isApplicable(MethodFeatures)} returns <code>false</code>.
+ */
+interface IConditionalFilter extends IFilter {
+
+	/**
+	 * Checks whether this filter might report results for a method with the
+	 * given features. Implementations must return <code>true</code> if in
+	 * doubt.
+	 *
+	 * @param features
+	 *            summary of the method's instructions
+	 * @return <code>false</code> if this filter would not report any result
+	 *         for the method
+	 */
+	boolean isApplicable(MethodFeatures features);
+
+}
@@ -26,7 +26,13 @@ import org.objectweb.asm.tree.TableSwitchInsnNode;
 /**
  * Filters branches that Kotlin compiler generates for coroutines.
  */
-final class KotlinCoroutineFilter implements IFilter {
+final class KotlinCoroutineFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.contains(Opcodes.INVOKESTATIC)
+				&& (features.contains(Opcodes.TABLESWITCH)
+						|| features.contains(Opcodes.IF_ACMPNE));
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
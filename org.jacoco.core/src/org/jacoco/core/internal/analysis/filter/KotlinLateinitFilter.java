@@ -22,7 +22,13 @@ import org.objectweb.asm.tree.MethodNode;
  * Filters branch in bytecode that Kotlin compiler generates for reading from
  * <code>lateinit</code> properties.
  */
-final class KotlinLateinitFilter implements IFilter {
+final class KotlinLateinitFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return (features.contains(Opcodes.IFNONNULL)
+				|| features.contains(Opcodes.IFNULL))
+				&& features.contains(Opcodes.INVOKESTATIC);
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
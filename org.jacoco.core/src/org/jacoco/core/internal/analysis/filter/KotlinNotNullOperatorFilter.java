@@ -20,7 +20,12 @@ import org.objectweb.asm.tree.MethodNode;
  * Filters branch in bytecode that Kotlin compiler generates for not-null
  * assertion operator.
  */
-final class KotlinNotNullOperatorFilter implements IFilter {
+final class KotlinNotNullOperatorFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.contains(Opcodes.IFNONNULL)
+				&& features.contains(Opcodes.INVOKESTATIC);
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -27,7 +27,11 @@ import org.objectweb.asm.tree.VarInsnNode;
  * Filters bytecode that Kotlin compiler generates for chains of safe call
  * operators ({@code ?.}).
  */
-final class KotlinSafeCallOperatorFilter implements IFilter {
+final class KotlinSafeCallOperatorFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.contains(Opcodes.IFNULL);
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
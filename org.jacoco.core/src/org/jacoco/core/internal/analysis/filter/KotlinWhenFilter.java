@@ -26,10 +26,16 @@ import org.objectweb.asm.tree.TableSwitchInsnNode;
  * expressions and statements with subject of type <code>enum class</code> or
  * <code>sealed class</code>.
  */
-final class KotlinWhenFilter implements IFilter {
+final class KotlinWhenFilter implements IConditionalFilter {
 
 	private static final String EXCEPTION = "kotlin/NoWhenBranchMatchedException";
 
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.contains(Opcodes.ATHROW)
+				|| features.contains(Opcodes.IFNONNULL)
+						&& features.contains(Opcodes.GETSTATIC);
+	}
+
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
 		final Matcher matcher = new Matcher();
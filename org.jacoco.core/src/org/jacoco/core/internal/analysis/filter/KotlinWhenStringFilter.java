@@ -25,7 +25,11 @@ import org.objectweb.asm.tree.VarInsnNode;
  * Filters bytecode that Kotlin compiler generates for <code>when</code>
  * expressions with a <code>String</code>.
  */
-final class KotlinWhenStringFilter implements IFilter {
+final class KotlinWhenStringFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.hasStringHashCode() && features.hasSwitch();
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
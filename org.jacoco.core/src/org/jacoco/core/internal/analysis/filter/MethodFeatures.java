@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis.filter;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Summary of the instructions of a method which is calculated in a single pass
+ * before filters are applied. It allows {@link IConditionalFilter}s to skip
+ * methods they can not match without scanning the instructions by themselves.
+ */
+final class MethodFeatures {
+
+	/** bit set of the opcodes of all instructions */
+	private final long[] opcodes = new long[4];
+
+	private final boolean tryCatchBlocks;
+
+	private boolean stringHashCode;
+
+	/**
+	 * Calculates the features of the given method.
+	 *
+	 * @param methodNode
+	 *            method to summarize
+	 */
+	MethodFeatures(final MethodNode methodNode) {
+		tryCatchBlocks = !methodNode.tryCatchBlocks.isEmpty();
+		for (final AbstractInsnNode i : methodNode.instructions) {
+			final int opcode = i.getOpcode();
+			if (opcode == -1) {
+				continue;
+			}
+			opcodes[opcode >>> 6] |= 1L << opcode;
+			if (opcode == Opcodes.INVOKEVIRTUAL && !stringHashCode) {
+				final MethodInsnNode m = (MethodInsnNode) i;
+				stringHashCode = "hashCode".equals(m.name)
+						&& "java/lang/String".equals(m.owner);
+			}
+		}
+	}
+
+	/**
+	 * @param opcode
+	 *            opcode of an instruction
+	 * @return <code>true</code> if the method contains an instruction with
+	 *         the given opcode
+	 */
+	boolean contains(final int opcode) {
+		return (opcodes[opcode >>> 6] & (1L << opcode)) != 0;
+	}
+
+	/**
+	 * @return <code>true</code> if the method contains a
+	 *         <code>TABLESWITCH</code> or <code>LOOKUPSWITCH</code>
+	 *         instruction
+	 */
+	boolean hasSwitch() {
+		return contains(Opcodes.TABLESWITCH) || contains(Opcodes.LOOKUPSWITCH);
+	}
+
+	/**
+	 * @return <code>true</code> if the method has try/catch blocks
+	 */
+	boolean hasTryCatchBlocks() {
+		return tryCatchBlocks;
+	}
+
+	/**
+	 * @return <code>true</code> if the method calls
+	 *         <code>String.hashCode()</code> like switches on strings do
+	 */
+	boolean hasStringHashCode() {
+		return stringHashCode;
+	}
+
+}
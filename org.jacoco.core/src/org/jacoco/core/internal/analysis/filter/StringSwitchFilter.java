@@ -26,7 +26,11 @@ import org.objectweb.asm.tree.VarInsnNode;
  * with a <code>String</code> and by Kotlin compiler 1.5 and above for a
  * <code>when</code> expression with a <code>String</code>.
  */
-final class StringSwitchFilter implements IFilter {
+final class StringSwitchFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.hasStringHashCode() && features.hasSwitch();
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -23,7 +23,11 @@ import org.objectweb.asm.tree.TableSwitchInsnNode;
 /**
  * Filters code that is generated by javac for a switch statement with a String.
  */
-final class StringSwitchJavacFilter implements IFilter {
+final class StringSwitchJavacFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.hasStringHashCode() && features.hasSwitch();
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
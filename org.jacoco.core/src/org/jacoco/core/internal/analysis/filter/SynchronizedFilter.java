@@ -20,7 +20,12 @@ import org.objectweb.asm.tree.TryCatchBlockNode;
 /**
  * Filters code that is generated for synchronized statement.
  */
-final class SynchronizedFilter implements IFilter {
+final class SynchronizedFilter implements IConditionalFilter {
+
+	public boolean isApplicable(final MethodFeatures features) {
+		return features.hasTryCatchBlocks()
+				&& features.contains(Opcodes.MONITOREXIT);
+	}
 
 	public void filter(final MethodNode methodNode,
 			final IFilterContext context, final IFilterOutput output) {
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression of the content of compressed execution data blocks with the
+ * deflate algorithm. The data is stored in zlib format, so its checksum is
+ * verified when the data is decompressed.
+ */
+public final class BlockCompression {
+
+	private BlockCompression() {
+	}
+
+	/**
+	 * Compresses the given data.
+	 *
+	 * @param data
+	 *            buffer with data to compress
+	 * @param length
+	 *            number of bytes to compress from the beginning of the buffer
+	 * @return compressed data
+	 */
+	public static byte[] deflate(final byte[] data, final int length) {
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data, 0, length);
+			deflater.finish();
+			byte[] result = new byte[length / 4 + 64];
+			int size = 0;
+			while (!deflater.finished()) {
+				if (size == result.length) {
+					final byte[] larger = new byte[result.length * 2];
+					System.arraycopy(result, 0, larger, 0, size);
+					result = larger;
+				}
+				size += deflater.deflate(result, size, result.length - size);
+			}
+			if (size == result.length) {
+				return result;
+			}
+			final byte[] trimmed = new byte[size];
+			System.arraycopy(result, 0, trimmed, 0, size);
+			return trimmed;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompresses the given data.
+	 *
+	 * @param data
+	 *            compressed data
+	 * @param length
+	 *            expected length of the uncompressed data
+	 * @return uncompressed data
+	 * @throws IOException
+	 *             if the data is not valid or does not have the expected
+	 *             length
+	 */
+	public static byte[] inflate(final byte[] data, final int length)
+			throws IOException {
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			final byte[] result = new byte[length];
+			int size = 0;
+			while (size < length && !inflater.finished()) {
+				final int n = inflater.inflate(result, size, length - size);
+				if (n == 0 && (inflater.needsInput()
+						|| inflater.needsDictionary())) {
+					break;
+				}
+				size += n;
+			}
+			if (size != length || !isFinished(inflater)) {
+				throw new IOException("Invalid compressed block.");
+			}
+			return result;
+		} catch (final DataFormatException e) {
+			throw new IOException("Invalid compressed block.");
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static boolean isFinished(final Inflater inflater)
+			throws DataFormatException {
+		// The checksum is only processed when output space is available
+		if (!inflater.finished() && inflater.inflate(new byte[1]) != 0) {
+			return false;
+		}
+		return inflater.finished() && inflater.getRemaining() == 0;
+	}
+
+}
@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Decodes the data written by {@link CompactDataOutput} directly from a
+ * {@link ByteBuffer}. The buffer is either given completely, e.g. a mapped
+ * file, or is refilled from a channel. Strings are interned per instance, so
+ * repeated class names are only created once.
+ *
+ * @see CompactDataInput
+ */
+public final class BufferDataInput {
+
+	private static final int DEFAULT_CAPACITY = 0x2000;
+
+	private final ReadableByteChannel channel;
+
+	/**
+	 * Current buffer. Methods which have covariant return types since Java 9
+	 * are invoked through {@link Buffer} to run on older versions.
+	 */
+	private ByteBuffer buffer;
+
+	/** Reusable read-only view on the current buffer */
+	private ByteBuffer view;
+
+	private char[] chars = new char[256];
+
+	private String[] strings = new String[256];
+
+	private int stringCount;
+
+	/**
+	 * Creates a new input which reads all data from the given channel.
+	 *
+	 * @param channel
+	 *            channel to read from
+	 */
+	public BufferDataInput(final ReadableByteChannel channel) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(DEFAULT_CAPACITY);
+		((Buffer) this.buffer).flip();
+	}
+
+	/**
+	 * Creates a new input which reads the remaining content of the given
+	 * buffer. The position of the given buffer is not modified.
+	 *
+	 * @param buffer
+	 *            buffer to read from
+	 */
+	public BufferDataInput(final ByteBuffer buffer) {
+		this.channel = null;
+		this.buffer = buffer.slice();
+	}
+
+	/**
+	 * Reads a single byte.
+	 *
+	 * @return byte value from 0 to 255 or -1 if the end of the input has been
+	 *         reached
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public int read() throws IOException {
+		if (!buffer.hasRemaining() && !fill(1)) {
+			return -1;
+		}
+		return 0xFF & buffer.get();
+	}
+
+	/**
+	 * Reads a two byte char value.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public char readChar() throws IOException {
+		require(2);
+		return buffer.getChar();
+	}
+
+	/**
+	 * Reads a four byte int value.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public int readInt() throws IOException {
+		require(4);
+		return buffer.getInt();
+	}
+
+	/**
+	 * Reads an eight byte long value.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public long readLong() throws IOException {
+		require(8);
+		return buffer.getLong();
+	}
+
+	/**
+	 * Reads bytes until the given array is filled.
+	 *
+	 * @param b
+	 *            array to fill
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public void readFully(final byte[] b) throws IOException {
+		int offset = 0;
+		while (offset < b.length) {
+			require(Math.min(b.length - offset, DEFAULT_CAPACITY));
+			final int n = Math.min(b.length - offset, buffer.remaining());
+			buffer.get(b, offset, n);
+			offset += n;
+		}
+	}
+
+	/**
+	 * Reads a variable length representation of an integer value.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 * @see CompactDataInput#readVarInt()
+	 */
+	public int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			require(1);
+			final int b = buffer.get();
+			if (shift < 32) {
+				value |= (b & 0x7F) << shift;
+			}
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Reads a string in modified UTF-8 encoding. Equal strings read by this
+	 * instance are returned as the same {@link String} instance.
+	 *
+	 * @return read string
+	 * @throws IOException
+	 *             if thrown by the underlying channel or if the string is not
+	 *             properly encoded
+	 * @see java.io.DataInput#readUTF()
+	 */
+	public String readUTF() throws IOException {
+		require(2);
+		final int length = buffer.getChar();
+		require(length);
+		final int count = decode(length);
+		int hash = 0;
+		for (int i = 0; i < count; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		int index = hash & (strings.length - 1);
+		String s;
+		while ((s = strings[index]) != null) {
+			if (s.hashCode() == hash && equals(s, count)) {
+				return s;
+			}
+			index = (index + 1) & (strings.length - 1);
+		}
+		s = new String(chars, 0, count);
+		strings[index] = s;
+		if (++stringCount > strings.length >>> 1) {
+			rehash();
+		}
+		return s;
+	}
+
+	/**
+	 * Reads a boolean array.
+	 *
+	 * @return boolean array
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 * @see CompactDataInput#readBooleanArray()
+	 */
+	public boolean[] readBooleanArray() throws IOException {
+		final boolean[] value = new boolean[readVarInt()];
+		final int size = (value.length + 7) >>> 3;
+		require(size);
+		final int start = buffer.position();
+		for (int i = 0; i < value.length; i++) {
+			value[i] = (buffer.get(start + (i >>> 3)) & (1 << (i & 7))) != 0;
+		}
+		((Buffer) buffer).position(start + size);
+		return value;
+	}
+
+	/**
+	 * Reads the packed content of a boolean array with the given length
+	 * without decoding it. Element <code>i</code> of the array is represented
+	 * by bit <code>i % 8</code> of byte <code>i / 8</code> in the remaining
+	 * content of the returned buffer. The returned buffer is read-only and
+	 * only valid until the next read operation of this input.
+	 *
+	 * @param length
+	 *            length of the boolean array
+	 * @return buffer with the packed content of the array
+	 * @throws IOException
+	 *             if thrown by the underlying channel
+	 */
+	public ByteBuffer readPackedBooleanArray(final int length)
+			throws IOException {
+		final int size = (length + 7) >>> 3;
+		require(size);
+		if (view == null) {
+			view = buffer.asReadOnlyBuffer();
+		}
+		final int start = buffer.position();
+		((Buffer) view).clear();
+		((Buffer) view).position(start);
+		((Buffer) view).limit(start + size);
+		((Buffer) buffer).position(start + size);
+		return view;
+	}
+
+	private void require(final int count) throws IOException {
+		if (buffer.remaining() < count && !fill(count)) {
+			throw new EOFException();
+		}
+	}
+
+	/**
+	 * Refills the buffer from the channel until at least the given number of
+	 * bytes is available.
+	 *
+	 * @return <code>false</code> if the end of the channel has been reached
+	 */
+	private boolean fill(final int count) throws IOException {
+		if (channel == null) {
+			return false;
+		}
+		if (buffer.capacity() < count) {
+			final ByteBuffer larger = ByteBuffer
+					.allocate(Math.max(count, buffer.capacity() << 1));
+			larger.put(buffer);
+			buffer = larger;
+			view = null;
+		} else {
+			buffer.compact();
+		}
+		while (buffer.position() < count) {
+			if (channel.read(buffer) == -1) {
+				((Buffer) buffer).flip();
+				return false;
+			}
+		}
+		((Buffer) buffer).flip();
+		return true;
+	}
+
+	/**
+	 * Decodes the given number of bytes to {@link #chars}.
+	 *
+	 * @return number of decoded characters
+	 */
+	private int decode(final int length) throws UTFDataFormatException {
+		if (chars.length < length) {
+			chars = new char[Math.max(length, chars.length << 1)];
+		}
+		final int start = buffer.position();
+		final int end = start + length;
+		int count = 0;
+		int i = start;
+		while (i < end) {
+			final int b = buffer.get(i) & 0xFF;
+			if (b < 0x80) {
+				chars[count++] = (char) b;
+				i++;
+			} else if ((b & 0xE0) == 0xC0 && i + 1 < end) {
+				final int b2 = continuation(start, i + 1);
+				chars[count++] = (char) (((b & 0x1F) << 6) | b2);
+				i += 2;
+			} else if ((b & 0xF0) == 0xE0 && i + 2 < end) {
+				final int b2 = continuation(start, i + 1);
+				final int b3 = continuation(start, i + 2);
+				chars[count++] = (char) (((b & 0x0F) << 12) | (b2 << 6) | b3);
+				i += 3;
+			} else {
+				throw malformed(i - start);
+			}
+		}
+		((Buffer) buffer).position(end);
+		return count;
+	}
+
+	private int continuation(final int start, final int index)
+			throws UTFDataFormatException {
+		final int b = buffer.get(index);
+		if ((b & 0xC0) != 0x80) {
+			throw malformed(index - start);
+		}
+		return b & 0x3F;
+	}
+
+	private static UTFDataFormatException malformed(final int index) {
+		return new UTFDataFormatException(
+				"malformed input around byte " + index);
+	}
+
+	private boolean equals(final String s, final int count) {
+		if (s.length() != count) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			if (s.charAt(i) != chars[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		final String[] old = strings;
+		strings = new String[old.length << 1];
+		for (final String s : old) {
+			if (s != null) {
+				int index = s.hashCode() & (strings.length - 1);
+				while (strings[index] != null) {
+					index = (index + 1) & (strings.length - 1);
+				}
+				strings[index] = s;
+			}
+		}
+	}
+
+}
@@ -58,13 +58,10 @@ public class CompactDataInput extends DataInputStream {
 	 */
 	public boolean[] readBooleanArray() throws IOException {
 		final boolean[] value = new boolean[readVarInt()];
-		int buffer = 0;
+		final byte[] buffer = new byte[(value.length + 7) >>> 3];
+		readFully(buffer);
 		for (int i = 0; i < value.length; i++) {
-			if ((i % 8) == 0) {
-				buffer = readByte();
-			}
-			value[i] = (buffer & 0x01) != 0;
-			buffer >>>= 1;
+			value[i] = (buffer[i >>> 3] & (1 << (i & 7))) != 0;
 		}
 		return value;
 	}
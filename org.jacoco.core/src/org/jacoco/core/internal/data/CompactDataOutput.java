@@ -64,21 +64,12 @@ public class CompactDataOutput extends DataOutputStream {
 	 */
 	public void writeBooleanArray(final boolean[] value) throws IOException {
 		writeVarInt(value.length);
-		int buffer = 0;
-		int bufferSize = 0;
-		for (final boolean b : value) {
-			if (b) {
-				buffer |= 0x01 << bufferSize;
-			}
-			if (++bufferSize == 8) {
-				writeByte(buffer);
-				buffer = 0;
-				bufferSize = 0;
-			}
-		}
-		if (bufferSize > 0) {
-			writeByte(buffer);
+		final byte[] buffer = new byte[(value.length + 7) >>> 3];
+		for (int i = 0; i < value.length; i++) {
+			// branch-free as typically only few probes are set at random
+			buffer[i >>> 3] |= (value[i] ? 1 : 0) << (i & 7);
 		}
+		write(buffer, 0, buffer.length);
 	}
 
 }
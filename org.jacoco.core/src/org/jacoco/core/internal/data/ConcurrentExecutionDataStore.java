@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+
+/**
+ * Thread safe store for execution data which is used by the runtime. Entries
+ * are kept in open-addressing tables keyed by the primitive class id. The
+ * tables are split into stripes that are locked independently when new entries
+ * are registered. Lookups of existing entries do not acquire any lock.
+ */
+public final class ConcurrentExecutionDataStore {
+
+	private static final int STRIPE_BITS = 4;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final Stripe[] stripes;
+
+	/**
+	 * Creates a new empty store.
+	 */
+	public ConcurrentExecutionDataStore() {
+		stripes = new Stripe[1 << STRIPE_BITS];
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Returns the coverage data for the class with the given identifier. If
+	 * there is no data available under the given id a new entry is created.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return execution data
+	 * @throws IllegalStateException
+	 *             if an existing entry is not compatible with the given
+	 *             parameters
+	 * @see ExecutionData#assertCompatibility(long, String, int)
+	 */
+	public ExecutionData get(final long id, final String name,
+			final int probecount) throws IllegalStateException {
+		final long hash = hash(id);
+		final Stripe stripe = stripes[(int) (hash >>> (64 - STRIPE_BITS))];
+		ExecutionData entry = stripe.find(id, hash);
+		if (entry == null) {
+			entry = stripe.findOrCreate(id, hash, name, probecount);
+		}
+		entry.assertCompatibility(id, name, probecount);
+		return entry;
+	}
+
+	/**
+	 * Returns a snapshot of the entries contained in this store. Each stripe is
+	 * locked only while its entries are copied, so concurrent registrations of
+	 * new classes are not blocked by the caller processing the snapshot.
+	 *
+	 * @return list of all entries at the time of the call
+	 */
+	public List<ExecutionData> getContents() {
+		final List<ExecutionData> contents = new ArrayList<ExecutionData>();
+		for (final Stripe stripe : stripes) {
+			stripe.copyTo(contents);
+		}
+		return contents;
+	}
+
+	/**
+	 * Writes a snapshot of the content of the store to the given visitor
+	 * interface.
+	 *
+	 * @param visitor
+	 *            interface to write content to
+	 * @see #getContents()
+	 */
+	public void accept(final IExecutionDataVisitor visitor) {
+		for (final ExecutionData data : getContents()) {
+			visitor.visitClassExecution(data);
+		}
+	}
+
+	/**
+	 * Resets all execution data probes, i.e. marks them as not executed. The
+	 * execution data objects itself are not removed.
+	 */
+	public void reset() {
+		for (final ExecutionData data : getContents()) {
+			data.reset();
+		}
+	}
+
+	/**
+	 * Spreads the bits of the given id. While real class ids are CRC64
+	 * checksums, ids used in tests or by other tools might be small numbers.
+	 */
+	private static long hash(final long id) {
+		final long h = id * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	private static final class Stripe {
+
+		/**
+		 * Current table. Entries are never removed, so a reader seeing an
+		 * outdated version of the table or of a slot can only miss an entry.
+		 * In this case it falls back to the locked lookup. As all fields of
+		 * {@link ExecutionData} are final, entries are safely published even
+		 * when read without synchronization.
+		 */
+		private volatile ExecutionData[] table = new ExecutionData[INITIAL_CAPACITY];
+
+		private int size;
+
+		ExecutionData find(final long id, final long hash) {
+			final ExecutionData[] t = table;
+			final int mask = t.length - 1;
+			int i = (int) hash & mask;
+			while (true) {
+				final ExecutionData entry = t[i];
+				if (entry == null || entry.getId() == id) {
+					return entry;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+
+		synchronized ExecutionData findOrCreate(final long id,
+				final long hash, final String name, final int probecount) {
+			ExecutionData entry = find(id, hash);
+			if (entry == null) {
+				entry = new ExecutionData(id, name, probecount);
+				if (2 * (size + 1) > table.length) {
+					table = rehash(table, table.length * 2);
+				}
+				insert(table, entry);
+				size++;
+			}
+			return entry;
+		}
+
+		synchronized void copyTo(final List<ExecutionData> contents) {
+			for (final ExecutionData entry : table) {
+				if (entry != null) {
+					contents.add(entry);
+				}
+			}
+		}
+
+		private static ExecutionData[] rehash(final ExecutionData[] source,
+				final int capacity) {
+			final ExecutionData[] target = new ExecutionData[capacity];
+			for (final ExecutionData entry : source) {
+				if (entry != null) {
+					insert(target, entry);
+				}
+			}
+			return target;
+		}
+
+		private static void insert(final ExecutionData[] t,
+				final ExecutionData entry) {
+			final int mask = t.length - 1;
+			int i = (int) hash(entry.getId()) & mask;
+			while (t[i] != null) {
+				i = (i + 1) & mask;
+			}
+			t[i] = entry;
+		}
+
+	}
+
+}
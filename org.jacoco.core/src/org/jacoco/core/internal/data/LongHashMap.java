@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map with primitive <code>long</code> keys like class ids. Entries are stored
+ * in open-addressing tables without boxing the keys or allocating entry objects.
+ * Entries can not be removed and <code>null</code> values are not permitted. An
+ * instance of this class is not thread safe.
+ *
+ * @param <V>
+ *            type of the values
+ */
+public final class LongHashMap<V> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+
+	private Object[] values;
+
+	private int size;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public LongHashMap() {
+		keys = new long[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns the value for the given key.
+	 *
+	 * @param key
+	 *            key to look up
+	 * @return value or <code>null</code> if there is no entry for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(final long key) {
+		final int mask = keys.length - 1;
+		int i = index(key, mask);
+		while (values[i] != null) {
+			if (keys[i] == key) {
+				return (V) values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Associates the given value with the given key.
+	 *
+	 * @param key
+	 *            key of the entry
+	 * @param value
+	 *            new value, must not be <code>null</code>
+	 * @return previous value or <code>null</code> if there was no entry for
+	 *         the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final long key, final V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Value must not be null.");
+		}
+		int mask = keys.length - 1;
+		int i = index(key, mask);
+		while (values[i] != null) {
+			if (keys[i] == key) {
+				final V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+			i = (i + 1) & mask;
+		}
+		if (4 * (size + 1) > 3 * keys.length) {
+			rehash(keys.length * 2);
+			mask = keys.length - 1;
+			i = index(key, mask);
+			while (values[i] != null) {
+				i = (i + 1) & mask;
+			}
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Returns the number of entries in this map.
+	 *
+	 * @return number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a new list with all values of this map. Changes to the list do
+	 * not affect the map.
+	 *
+	 * @return all values in no particular order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		final List<V> list = new ArrayList<V>(size);
+		for (final Object value : values) {
+			if (value != null) {
+				list.add((V) value);
+			}
+		}
+		return list;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		final int mask = capacity - 1;
+		for (int j = 0; j < oldValues.length; j++) {
+			if (oldValues[j] != null) {
+				int i = index(oldKeys[j], mask);
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * Spreads the bits of the given key as keys might be small numbers or
+	 * differ in higher bits only.
+	 */
+	private static int index(final long key, final int mask) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+}
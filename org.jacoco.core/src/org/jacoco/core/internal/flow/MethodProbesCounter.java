@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.flow;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Method visitor that counts the probes of a method in a single pass, without
+ * creating a tree representation of the method. The count is the same as the
+ * number of probe ids which {@link ClassProbesAdapter} assigns to the method.
+ * Events are passed to a {@link LabelFlowAnalyzer}, labels and jumps which
+ * might get a probe are remembered and checked at the end of the method.
+ *
+ * Like {@link LabelFlowAnalyzer} this visitor does not support subroutines,
+ * they have to be inlined before.
+ */
+public class MethodProbesCounter extends MethodVisitor {
+
+	private final List<Label> labels = new ArrayList<Label>();
+
+	private final List<Label> targets = new ArrayList<Label>();
+
+	private int count = 0;
+
+	/**
+	 * Creates a new counter for a single method.
+	 */
+	public MethodProbesCounter() {
+		super(InstrSupport.ASM_API_VERSION, new LabelFlowAnalyzer());
+	}
+
+	/**
+	 * Returns the number of probes of the method. The value is only valid
+	 * after {@link #visitEnd()} has been called.
+	 *
+	 * @return number of probes
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	@Override
+	public void visitLabel(final Label label) {
+		labels.add(label);
+		super.visitLabel(label);
+	}
+
+	@Override
+	public void visitInsn(final int opcode) {
+		switch (opcode) {
+		case Opcodes.IRETURN:
+		case Opcodes.LRETURN:
+		case Opcodes.FRETURN:
+		case Opcodes.DRETURN:
+		case Opcodes.ARETURN:
+		case Opcodes.RETURN:
+		case Opcodes.ATHROW:
+			count++;
+			break;
+		default:
+			break;
+		}
+		super.visitInsn(opcode);
+	}
+
+	@Override
+	public void visitJumpInsn(final int opcode, final Label label) {
+		targets.add(label);
+		super.visitJumpInsn(opcode, label);
+	}
+
+	@Override
+	public void visitTableSwitchInsn(final int min, final int max,
+			final Label dflt, final Label... labels) {
+		addSwitchTargets(dflt, labels);
+		super.visitTableSwitchInsn(min, max, dflt, labels);
+	}
+
+	@Override
+	public void visitLookupSwitchInsn(final Label dflt, final int[] keys,
+			final Label[] labels) {
+		addSwitchTargets(dflt, labels);
+		super.visitLookupSwitchInsn(dflt, keys, labels);
+	}
+
+	private void addSwitchTargets(final Label dflt, final Label[] labels) {
+		// Every label gets at most one probe per switch
+		final Set<Label> distinct = new HashSet<Label>();
+		distinct.add(dflt);
+		targets.add(dflt);
+		for (final Label l : labels) {
+			if (distinct.add(l)) {
+				targets.add(l);
+			}
+		}
+	}
+
+	@Override
+	public void visitEnd() {
+		for (final Label label : labels) {
+			if (LabelInfo.needsProbe(label)) {
+				count++;
+			}
+		}
+		for (final Label label : targets) {
+			if (LabelInfo.isMultiTarget(label)) {
+				count++;
+			}
+		}
+		super.visitEnd();
+	}
+
+}
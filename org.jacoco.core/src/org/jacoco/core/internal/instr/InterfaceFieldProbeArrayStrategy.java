@@ -38,25 +38,26 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
 	private final String className;
 	private final long classId;
-	private final int probeCount;
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
 	private boolean seenClinit = false;
 
 	InterfaceFieldProbeArrayStrategy(final String className, final long classId,
-			final int probeCount,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
 		this.className = className;
 		this.classId = classId;
-		this.probeCount = probeCount;
 		this.accessorGenerator = accessorGenerator;
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
 			final int variable) {
 		if (clinit) {
-			final int maxStack = accessorGenerator.generateDataAccessor(classId,
-					className, probeCount, mv);
+			// The number of probes is not known before all methods have been
+			// processed, so the probe array is requested by the init method
+			// which is added at the end:
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
+					InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
+					true);
 
 			// Stack[0]: [Z
 
@@ -73,7 +74,7 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 			mv.visitVarInsn(Opcodes.ASTORE, variable);
 
 			seenClinit = true;
-			return Math.max(maxStack, 2);
+			return 2;
 		} else {
 			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
 					InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
@@ -23,6 +23,12 @@ import org.objectweb.asm.Opcodes;
  */
 public final class ProbeArrayStrategyFactory {
 
+	/** Flag for a static initializer */
+	private static final int CLINIT = 1;
+
+	/** Flag for non-abstract methods other than a static initializer */
+	private static final int METHODS = 2;
+
 	private ProbeArrayStrategyFactory() {
 	}
 
@@ -47,21 +53,25 @@ public final class ProbeArrayStrategyFactory {
 		final int version = InstrSupport.getMajorVersion(reader);
 
 		if (isInterfaceOrModule(reader)) {
-			final ProbeCounter counter = getProbeCounter(reader);
-			if (counter.getCount() == 0) {
-				return new NoneProbeArrayStrategy();
-			}
-			if (version >= Opcodes.V11 && counter.hasMethods()) {
+			final int methods = getMethodKinds(reader);
+			if (version >= Opcodes.V11 && (methods & METHODS) != 0) {
 				return new CondyProbeArrayStrategy(className, true, classId,
 						accessorGenerator);
 			}
-			if (version >= Opcodes.V1_8 && counter.hasMethods()) {
+			if (version >= Opcodes.V1_8 && (methods & METHODS) != 0) {
 				return new InterfaceFieldProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
-			} else {
-				return new LocalProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+						accessorGenerator);
 			}
+			if (methods == 0) {
+				return new NoneProbeArrayStrategy();
+			}
+			// Only the static initializer has code, which is cheap to count
+			final ProbeCounter counter = getProbeCounter(reader);
+			if (counter.getCount() == 0) {
+				return new NoneProbeArrayStrategy();
+			}
+			return new LocalProbeArrayStrategy(className, classId,
+					counter.getCount(), accessorGenerator);
 		} else {
 			if (version >= Opcodes.V11) {
 				return new CondyProbeArrayStrategy(className, false, classId,
@@ -77,6 +87,57 @@ public final class ProbeArrayStrategyFactory {
 				& (Opcodes.ACC_INTERFACE | Opcodes.ACC_MODULE)) != 0;
 	}
 
+	/**
+	 * Determines the kinds of methods with code from the method table of the
+	 * class file. Other than a visit of the class this does not parse the code
+	 * of the methods.
+	 *
+	 * @return combination of {@link #CLINIT} and {@link #METHODS}
+	 */
+	private static int getMethodKinds(final ClassReader reader) {
+		final char[] buffer = new char[reader.getMaxStringLength()];
+		// access_flags, this_class, super_class, interfaces
+		int offset = reader.header + 6;
+		offset += 2 + 2 * reader.readUnsignedShort(offset);
+		int count = reader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < count; i++) {
+			offset = skipMember(reader, offset);
+		}
+		int kinds = 0;
+		count = reader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < count; i++) {
+			if ((reader.readUnsignedShort(offset) & Opcodes.ACC_ABSTRACT) == 0) {
+				if (InstrSupport.CLINIT_NAME
+						.equals(reader.readUTF8(offset + 2, buffer))) {
+					kinds |= CLINIT;
+				} else {
+					kinds |= METHODS;
+				}
+			}
+			offset = skipMember(reader, offset);
+		}
+		return kinds;
+	}
+
+	/**
+	 * Skips the field or method at the given offset.
+	 *
+	 * @return offset of the next member
+	 */
+	private static int skipMember(final ClassReader reader, final int start) {
+		// access_flags, name_index, descriptor_index
+		int offset = start + 6;
+		final int count = reader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < count; i++) {
+			// attribute_name_index, attribute_length, info
+			offset += 6 + reader.readInt(offset + 2);
+		}
+		return offset;
+	}
+
 	private static ProbeCounter getProbeCounter(final ClassReader reader) {
 		final ProbeCounter counter = new ProbeCounter();
 		reader.accept(new ClassProbesAdapter(counter, false), 0);
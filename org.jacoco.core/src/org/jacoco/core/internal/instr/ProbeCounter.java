@@ -14,7 +14,6 @@ package org.jacoco.core.internal.instr;
 
 import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
-import org.objectweb.asm.Opcodes;
 
 /**
  * Internal class to remember the total number of probes required for a class.
@@ -22,21 +21,15 @@ import org.objectweb.asm.Opcodes;
 class ProbeCounter extends ClassProbesVisitor {
 
 	private int count;
-	private boolean methods;
 
 	ProbeCounter() {
 		count = 0;
-		methods = false;
 	}
 
 	@Override
 	public MethodProbesVisitor visitMethod(final int access, final String name,
 			final String desc, final String signature,
 			final String[] exceptions) {
-		if (!InstrSupport.CLINIT_NAME.equals(name)
-				&& (access & Opcodes.ACC_ABSTRACT) == 0) {
-			methods = true;
-		}
 		return null;
 	}
 
@@ -49,12 +42,4 @@ class ProbeCounter extends ClassProbesVisitor {
 		return count;
 	}
 
-	/**
-	 * @return <code>true</code> if the class has non-abstract methods other
-	 *         than a static initializer
-	 */
-	boolean hasMethods() {
-		return methods;
-	}
-
 }
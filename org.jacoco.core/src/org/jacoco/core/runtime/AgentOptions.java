@@ -111,6 +111,7 @@ public final class AgentOptions {
 	 * @see OutputMode#file
 	 * @see OutputMode#tcpserver
 	 * @see OutputMode#tcpclient
+	 * @see OutputMode#mmap
 	 * @see OutputMode#none
 	 */
 	public static final String OUTPUT = "output";
@@ -144,6 +145,15 @@ public final class AgentOptions {
 		 */
 		tcpclient,
 
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: Execution data
+		 * is kept in the memory-mapped file specified by
+		 * {@link AgentOptions#DESTFILE}, which can be read by other processes
+		 * at any time. The file is updated on every dump, e.g. periodically
+		 * with {@link AgentOptions#DUMPINTERVAL}.
+		 */
+		mmap,
+
 		/**
 		 * Value for the {@link AgentOptions#OUTPUT} parameter: Do not produce
 		 * any output.
@@ -189,10 +199,72 @@ public final class AgentOptions {
 	 */
 	public static final String JMX = "jmx";
 
+	/**
+	 * Specifies whether execution data written to files or sent to tcpclient
+	 * connections is compressed. Default is <code>false</code>.
+	 */
+	public static final String COMPRESS = "compress";
+
+	/**
+	 * Maximum number of concurrent client connections served in tcpserver
+	 * mode. With a value of 1 the agent serves a single blocking connection at
+	 * a time, larger values enable a non-blocking server which sends the same
+	 * snapshot to all clients requesting a dump at the same time. Default is
+	 * defined by {@link #DEFAULT_MAXCONNECTIONS}.
+	 */
+	public static final String MAXCONNECTIONS = "maxconnections";
+
+	/**
+	 * Default value for the "maxconnections" agent option.
+	 */
+	public static final int DEFAULT_MAXCONNECTIONS = 1;
+
+	/**
+	 * Interval in seconds in which the agent periodically dumps execution data
+	 * in the background through the configured output. Default is 0 (no
+	 * periodic dumps).
+	 */
+	public static final String DUMPINTERVAL = "dumpinterval";
+
+	/**
+	 * Maximum random delay in seconds added to every dump interval. This
+	 * spreads the dumps of many agents started at the same time. Default is 0
+	 * (no random delay).
+	 */
+	public static final String DUMPJITTER = "dumpjitter";
+
+	/**
+	 * Specifies whether execution data is reset after every periodic dump.
+	 * Default is <code>false</code>.
+	 */
+	public static final String DUMPRESET = "dumpreset";
+
+	/**
+	 * Specifies a directory where the agent caches instrumented class files.
+	 * Agents using the same directory share the cache. Default is
+	 * <code>null</code> (no cache).
+	 */
+	public static final String CACHEDIR = "cachedir";
+
+	/**
+	 * Maximum size of the class file cache in megabytes. If the cache exceeds
+	 * this size the least recently used class files are removed.
+	 *
+	 * @see #DEFAULT_CACHESIZE
+	 */
+	public static final String CACHESIZE = "cachesize";
+
+	/**
+	 * Default value for the "cachesize" agent option.
+	 */
+	public static final int DEFAULT_CACHESIZE = 256;
+
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX);
+			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX, COMPRESS,
+			MAXCONNECTIONS, DUMPINTERVAL, DUMPJITTER, DUMPRESET, CACHEDIR,
+			CACHESIZE);
 
 	private final Map<String, String> options;
 
@@ -250,6 +322,10 @@ public final class AgentOptions {
 
 	private void validateAll() {
 		validatePort(getPort());
+		validateMaxConnections(getMaxConnections());
+		validateNotNegative(DUMPINTERVAL, getDumpInterval());
+		validateNotNegative(DUMPJITTER, getDumpJitter());
+		validateNotNegative(CACHESIZE, getCacheSize());
 		getOutput();
 	}
 
@@ -259,6 +335,20 @@ public final class AgentOptions {
 		}
 	}
 
+	private void validateNotNegative(final String key, final int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(
+					format("%s must not be negative", key));
+		}
+	}
+
+	private void validateMaxConnections(final int maxConnections) {
+		if (maxConnections < 1) {
+			throw new IllegalArgumentException(
+					"maxconnections must be at least 1");
+		}
+	}
+
 	/**
 	 * Returns the output file location.
 	 *
@@ -558,6 +648,146 @@ public final class AgentOptions {
 		setOption(JMX, jmx);
 	}
 
+	/**
+	 * Returns whether execution data is written in compressed blocks.
+	 *
+	 * @return <code>true</code>, when execution data is compressed
+	 */
+	public boolean getCompress() {
+		return getOption(COMPRESS, false);
+	}
+
+	/**
+	 * Sets whether execution data should be written in compressed blocks.
+	 *
+	 * @param compress
+	 *            <code>true</code> if execution data should be compressed
+	 */
+	public void setCompress(final boolean compress) {
+		setOption(COMPRESS, compress);
+	}
+
+	/**
+	 * Returns the maximum number of concurrent client connections in
+	 * <code>tcpserver</code> mode.
+	 *
+	 * @return maximum number of connections
+	 */
+	public int getMaxConnections() {
+		return getOption(MAXCONNECTIONS, DEFAULT_MAXCONNECTIONS);
+	}
+
+	/**
+	 * Sets the maximum number of concurrent client connections in
+	 * <code>tcpserver</code> mode. With more than one connection a
+	 * non-blocking server is used.
+	 *
+	 * @param maxConnections
+	 *            maximum number of connections, at least 1
+	 */
+	public void setMaxConnections(final int maxConnections) {
+		validateMaxConnections(maxConnections);
+		setOption(MAXCONNECTIONS, maxConnections);
+	}
+
+	/**
+	 * Returns the interval of periodic dumps.
+	 *
+	 * @return interval in seconds, 0 if no periodic dumps are written
+	 */
+	public int getDumpInterval() {
+		return getOption(DUMPINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval of periodic dumps.
+	 *
+	 * @param interval
+	 *            interval in seconds, 0 to disable periodic dumps
+	 */
+	public void setDumpInterval(final int interval) {
+		validateNotNegative(DUMPINTERVAL, interval);
+		setOption(DUMPINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the maximum random delay added to every dump interval.
+	 *
+	 * @return maximum delay in seconds
+	 */
+	public int getDumpJitter() {
+		return getOption(DUMPJITTER, 0);
+	}
+
+	/**
+	 * Sets the maximum random delay added to every dump interval.
+	 *
+	 * @param jitter
+	 *            maximum delay in seconds
+	 */
+	public void setDumpJitter(final int jitter) {
+		validateNotNegative(DUMPJITTER, jitter);
+		setOption(DUMPJITTER, jitter);
+	}
+
+	/**
+	 * Returns whether execution data is reset after every periodic dump.
+	 *
+	 * @return <code>true</code> if execution data is reset
+	 */
+	public boolean getDumpReset() {
+		return getOption(DUMPRESET, false);
+	}
+
+	/**
+	 * Sets whether execution data should be reset after every periodic dump.
+	 *
+	 * @param reset
+	 *            <code>true</code> if execution data should be reset
+	 */
+	public void setDumpReset(final boolean reset) {
+		setOption(DUMPRESET, reset);
+	}
+
+	/**
+	 * Returns the directory where instrumented class files are cached.
+	 *
+	 * @return cache location or <code>null</code> (no cache)
+	 */
+	public String getCacheDir() {
+		return getOption(CACHEDIR, null);
+	}
+
+	/**
+	 * Sets the directory where instrumented class files are cached.
+	 *
+	 * @param location
+	 *            cache location or <code>null</code> (no cache)
+	 */
+	public void setCacheDir(final String location) {
+		setOption(CACHEDIR, location);
+	}
+
+	/**
+	 * Returns the maximum size of the class file cache.
+	 *
+	 * @return maximum size in megabytes
+	 */
+	public int getCacheSize() {
+		return getOption(CACHESIZE, DEFAULT_CACHESIZE);
+	}
+
+	/**
+	 * Sets the maximum size of the class file cache.
+	 *
+	 * @param size
+	 *            maximum size in megabytes
+	 */
+	public void setCacheSize(final int size) {
+		validateNotNegative(CACHESIZE, size);
+		setOption(CACHESIZE, size);
+	}
+
 	private void setOption(final String key, final int value) {
 		setOption(key, Integer.toString(value));
 	}
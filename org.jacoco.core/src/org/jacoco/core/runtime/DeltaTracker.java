@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.util.Collection;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.internal.data.LongHashMap;
+
+/**
+ * Tracks the execution data sent to a single receiver, for example a remote
+ * client, so that subsequent collections only contain the classes whose probes
+ * have changed. For every class the number of executed probes at the time of
+ * the last collection is recorded: Until the runtime is reset probes are only
+ * ever set, so a different number means that the probes have changed. After a
+ * reset of the runtime all classes with executed probes are reported again. An
+ * instance of this class is not thread safe.
+ *
+ * @see RuntimeData#collect(IExecutionDataVisitor, ISessionInfoVisitor,
+ *      boolean, DeltaTracker)
+ */
+public class DeltaTracker {
+
+	private LongHashMap<Integer> hits = new LongHashMap<Integer>();
+
+	private int resetCount;
+
+	private int classCount;
+
+	/**
+	 * Creates a new tracker for a receiver which has not received any
+	 * execution data yet.
+	 */
+	public DeltaTracker() {
+		super();
+	}
+
+	/**
+	 * Writes all entries which have changed since the last call to the given
+	 * visitor.
+	 *
+	 * @param contents
+	 *            snapshot of the current execution data
+	 * @param resetCount
+	 *            number of resets of the runtime so far
+	 * @param visitor
+	 *            visitor to write changed entries to
+	 */
+	void accept(final Collection<ExecutionData> contents, final int resetCount,
+			final IExecutionDataVisitor visitor) {
+		if (resetCount != this.resetCount) {
+			hits = new LongHashMap<Integer>();
+			this.resetCount = resetCount;
+		}
+		classCount = 0;
+		for (final ExecutionData data : contents) {
+			final int count = countHits(data.getProbes());
+			if (count == 0) {
+				continue;
+			}
+			final Integer previous = hits.get(data.getId());
+			if (previous == null || previous.intValue() != count) {
+				hits.put(data.getId(), Integer.valueOf(count));
+				visitor.visitClassExecution(data);
+				classCount++;
+			}
+		}
+	}
+
+	private static int countHits(final boolean[] probes) {
+		int count = 0;
+		for (final boolean p : probes) {
+			if (p) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of classes reported by the last collection.
+	 *
+	 * @return number of changed classes
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+}
@@ -31,4 +31,19 @@ public interface IRemoteCommandVisitor {
 	 */
 	void visitDumpCommand(boolean dump, boolean reset) throws IOException;
 
+	/**
+	 * Requests a dump of the execution data of all classes whose probes have
+	 * changed since the last delta dump on the same connection, with an
+	 * optional reset. The first delta dump of a connection contains all
+	 * classes with executed probes. Merging all delta dumps of a connection
+	 * results in the same execution data as merging full dumps.
+	 *
+	 * @param reset
+	 *            <code>true</code> if the reset should be executed
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 * @see DeltaTracker
+	 */
+	void visitDeltaDumpCommand(boolean reset) throws IOException;
+
 }
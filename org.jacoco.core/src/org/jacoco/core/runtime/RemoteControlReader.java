@@ -51,6 +51,9 @@ public class RemoteControlReader extends ExecutionDataReader {
 		case RemoteControlWriter.BLOCK_CMDDUMP:
 			readDumpCommand();
 			return true;
+		case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+			readDeltaDumpCommand();
+			return true;
 		case RemoteControlWriter.BLOCK_CMDOK:
 			return false;
 		default:
@@ -77,4 +80,12 @@ public class RemoteControlReader extends ExecutionDataReader {
 		remoteCommandVisitor.visitDumpCommand(dump, reset);
 	}
 
+	private void readDeltaDumpCommand() throws IOException {
+		if (remoteCommandVisitor == null) {
+			throw new IOException("No remote command visitor.");
+		}
+		final boolean reset = in.readBoolean();
+		remoteCommandVisitor.visitDeltaDumpCommand(reset);
+	}
+
 }
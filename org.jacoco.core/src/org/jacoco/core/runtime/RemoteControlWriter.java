@@ -29,6 +29,9 @@ public class RemoteControlWriter extends ExecutionDataWriter
 	/** Block identifier for dump command */
 	public static final byte BLOCK_CMDDUMP = 0x40;
 
+	/** Block identifier for delta dump command */
+	public static final byte BLOCK_CMDDELTADUMP = 0x41;
+
 	/**
 	 * Creates a new writer based on the given output stream.
 	 *
@@ -50,6 +53,24 @@ public class RemoteControlWriter extends ExecutionDataWriter
 		super(output);
 	}
 
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * writes execution data in compressed blocks.
+	 *
+	 * @param output
+	 *            stream to write commands to
+	 * @param compressed
+	 *            <code>true</code> if execution data should be written in
+	 *            compressed blocks
+	 * @throws IOException
+	 *             if the header can't be written
+	 * @see ExecutionDataWriter#ExecutionDataWriter(OutputStream, boolean)
+	 */
+	public RemoteControlWriter(final OutputStream output,
+			final boolean compressed) throws IOException {
+		super(output, compressed);
+	}
+
 	/**
 	 * Sends a confirmation that a commands has been successfully executed and
 	 * the response is completed.
@@ -58,14 +79,22 @@ public class RemoteControlWriter extends ExecutionDataWriter
 	 *             in case of problems with the remote connection
 	 */
 	public void sendCmdOk() throws IOException {
+		writeCompressedBlock();
 		out.writeByte(RemoteControlWriter.BLOCK_CMDOK);
 	}
 
 	public void visitDumpCommand(final boolean dump, final boolean reset)
 			throws IOException {
+		writeCompressedBlock();
 		out.writeByte(RemoteControlWriter.BLOCK_CMDDUMP);
 		out.writeBoolean(dump);
 		out.writeBoolean(reset);
 	}
 
+	public void visitDeltaDumpCommand(final boolean reset) throws IOException {
+		writeCompressedBlock();
+		out.writeByte(RemoteControlWriter.BLOCK_CMDDELTADUMP);
+		out.writeBoolean(reset);
+	}
+
 }
@@ -12,23 +12,35 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.jacoco.core.data.ExecutionData;
-import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.ConcurrentExecutionDataStore;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
  * Container for runtime execution and meta data. All access to the runtime data
- * is thread safe.
+ * is thread safe. Retrieving the execution data of already registered classes
+ * does not acquire any lock and is never blocked by collecting the data.
+ * Collecting only locks the runtime data while the probes are copied, the
+ * visitors are called with the copies outside of the lock.
  */
 public class RuntimeData {
 
 	/** store for execution data */
-	protected final ExecutionDataStore store;
+	private final ConcurrentExecutionDataStore store;
+
+	/** serializes collect and reset operations */
+	private final Object lock = new Object();
+
+	/** number of resets, guarded by lock */
+	private int resetCount;
 
 	private long startTimeStamp;
 
@@ -38,7 +50,7 @@ public class RuntimeData {
 	 * Creates a new runtime.
 	 */
 	public RuntimeData() {
-		store = new ExecutionDataStore();
+		store = new ConcurrentExecutionDataStore();
 		sessionId = "<none>";
 		startTimeStamp = System.currentTimeMillis();
 	}
@@ -69,7 +81,8 @@ public class RuntimeData {
 
 	/**
 	 * Collects the current execution data and writes it to the given
-	 * {@link IExecutionDataVisitor} object.
+	 * {@link IExecutionDataVisitor} object. The visitor receives copies of the
+	 * probe arrays which are not modified by the running application.
 	 *
 	 * @param executionDataVisitor
 	 *            handler to write coverage data to
@@ -81,23 +94,79 @@ public class RuntimeData {
 	 */
 	public final void collect(final IExecutionDataVisitor executionDataVisitor,
 			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
-		synchronized (store) {
-			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
+		collect(executionDataVisitor, sessionInfoVisitor, reset, null);
+	}
+
+	/**
+	 * Collects the current execution data of all classes whose probes have
+	 * changed since the last collection with the given {@link DeltaTracker}
+	 * and writes it to the given {@link IExecutionDataVisitor} object.
+	 *
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared
+	 * @param delta
+	 *            state of previous collections or <code>null</code> to
+	 *            collect the execution data of all classes
+	 */
+	public final void collect(final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset,
+			final DeltaTracker delta) {
+		final SessionInfo info;
+		final List<ExecutionData> snapshot;
+		final int snapshotResetCount;
+		synchronized (lock) {
+			info = new SessionInfo(sessionId, startTimeStamp,
 					System.currentTimeMillis());
-			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
+			snapshot = snapshot(reset);
+			snapshotResetCount = resetCount;
 			if (reset) {
-				reset();
+				resetCount++;
+				startTimeStamp = System.currentTimeMillis();
 			}
 		}
+		// The visitors typically perform I/O, therefore they are called
+		// outside the lock on the copied probes only.
+		sessionInfoVisitor.visitSessionInfo(info);
+		if (delta == null) {
+			for (final ExecutionData data : snapshot) {
+				executionDataVisitor.visitClassExecution(data);
+			}
+		} else {
+			delta.accept(snapshot, snapshotResetCount, executionDataVisitor);
+		}
+	}
+
+	/**
+	 * Copies the probes of all entries. If requested every entry is reset
+	 * directly after it has been copied, so that only probes executed in
+	 * between get lost.
+	 */
+	private List<ExecutionData> snapshot(final boolean reset) {
+		final List<ExecutionData> contents = store.getContents();
+		final List<ExecutionData> snapshot = new ArrayList<ExecutionData>(
+				contents.size());
+		for (final ExecutionData data : contents) {
+			snapshot.add(new ExecutionData(data.getId(), data.getName(),
+					data.getProbes().clone()));
+			if (reset) {
+				data.reset();
+			}
+		}
+		return snapshot;
 	}
 
 	/**
 	 * Resets all coverage information.
 	 */
 	public final void reset() {
-		synchronized (store) {
+		synchronized (lock) {
 			store.reset();
+			resetCount++;
 			startTimeStamp = System.currentTimeMillis();
 		}
 	}
@@ -105,7 +174,8 @@ public class RuntimeData {
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
-	 * This is a synchronized access to the underlying store.
+	 * This is a thread safe access to the underlying store which only locks
+	 * when a new entry is created.
 	 *
 	 * @param id
 	 *            class identifier
@@ -117,9 +187,7 @@ public class RuntimeData {
 	 */
 	public ExecutionData getExecutionData(final Long id, final String name,
 			final int probecount) {
-		synchronized (store) {
-			return store.get(id, name, probecount);
-		}
+		return store.get(id.longValue(), name, probecount);
 	}
 
 	/**
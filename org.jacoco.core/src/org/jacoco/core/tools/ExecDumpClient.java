@@ -18,6 +18,8 @@ import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.Socket;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 
@@ -138,6 +140,103 @@ public class ExecDumpClient {
 		return loader;
 	}
 
+	/**
+	 * Opens a connection to the given end-point for repeated delta dumps. Only
+	 * execution data which has changed since the previous dump is transferred
+	 * over the connection, the complete execution data is reconstructed by
+	 * the returned session. The reset setting of this client applies to all
+	 * dumps of the session.
+	 *
+	 * @param address
+	 *            host name or IP-Address to connect to
+	 * @param port
+	 *            port to connect to
+	 * @return open session which has to be closed by the caller
+	 * @throws IOException
+	 *             in case the connection can not be established
+	 */
+	public DeltaSession openDeltaSession(final InetAddress address,
+			final int port) throws IOException {
+		return new DeltaSession(tryConnect(address, port), reset);
+	}
+
+	/**
+	 * Connection to an agent for repeated delta dumps.
+	 */
+	public static class DeltaSession {
+
+		private final Socket socket;
+
+		private final boolean reset;
+
+		private final RemoteControlWriter remoteWriter;
+
+		private final RemoteControlReader remoteReader;
+
+		private final ExecFileLoader loader = new ExecFileLoader();
+
+		private int classCount;
+
+		private DeltaSession(final Socket socket, final boolean reset)
+				throws IOException {
+			this.socket = socket;
+			this.reset = reset;
+			try {
+				remoteWriter = new RemoteControlWriter(socket.getOutputStream());
+				remoteReader = new RemoteControlReader(
+						new BufferedInputStream(socket.getInputStream()));
+			} catch (final IOException e) {
+				socket.close();
+				throw e;
+			}
+			remoteReader.setSessionInfoVisitor(loader.getSessionInfoStore());
+			remoteReader.setExecutionDataVisitor(new IExecutionDataVisitor() {
+				public void visitClassExecution(final ExecutionData data) {
+					loader.getExecutionDataStore().put(data);
+					classCount++;
+				}
+			});
+		}
+
+		/**
+		 * Requests the execution data changed since the previous dump and
+		 * merges it with the data received before.
+		 *
+		 * @return container for the complete execution data received in this
+		 *         session
+		 * @throws IOException
+		 *             in case the dump can not be requested
+		 */
+		public ExecFileLoader dump() throws IOException {
+			classCount = 0;
+			remoteWriter.visitDeltaDumpCommand(reset);
+			if (!remoteReader.read()) {
+				throw new IOException("Socket closed unexpectedly.");
+			}
+			return loader;
+		}
+
+		/**
+		 * Returns the number of classes received with the last dump.
+		 *
+		 * @return number of changed classes
+		 */
+		public int getClassCount() {
+			return classCount;
+		}
+
+		/**
+		 * Closes the connection to the agent.
+		 *
+		 * @throws IOException
+		 *             in case of problems while closing the connection
+		 */
+		public void close() throws IOException {
+			socket.close();
+		}
+
+	}
+
 	private Socket tryConnect(final InetAddress address, final int port)
 			throws IOException {
 		int count = 0;
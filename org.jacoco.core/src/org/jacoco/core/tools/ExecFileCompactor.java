@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataBufferReader;
+import org.jacoco.core.data.ExecutionDataIndex;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IndexedExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+
+/**
+ * Incremental compaction of execution data files. A compacted file is an
+ * indexed file written by {@link IndexedExecutionDataWriter} to which further
+ * execution data may be appended later, for example by the agent or by
+ * {@link ExecFileLoader#save(File, boolean)}. Compaction merges the appended
+ * data into the file in place:
+ *
+ * <ul>
+ * <li>Probes of classes contained in the index are written into the existing
+ * execution data blocks, but only if they have changed.</li>
+ * <li>Session infos and execution data of new classes are written in place of
+ * the old index, followed by a new index.</li>
+ * </ul>
+ *
+ * So only the appended data and the index are read and written. Files without
+ * index are compacted by loading and rewriting the whole file once. The file
+ * is locked while it is compacted, but compaction is not atomic: If it is
+ * interrupted the file may be left in an inconsistent state.
+ */
+public class ExecFileCompactor {
+
+	/** Size of the chunks read while searching for the end of the index */
+	private static final int CHUNK_SIZE = 0x10000;
+
+	private long appendedBytes;
+
+	private int appendedSessionCount;
+
+	private int updatedClassCount;
+
+	private int addedClassCount;
+
+	/**
+	 * Creates a new compactor. The same instance can be used to compact
+	 * multiple files one after another.
+	 */
+	public ExecFileCompactor() {
+		super();
+	}
+
+	/**
+	 * Compacts the given file in place. Nothing is done if the file does not
+	 * exist.
+	 *
+	 * @param file
+	 *            execution data file to compact
+	 * @throws IOException
+	 *             in case of problems while reading or writing the file
+	 */
+	public void compact(final File file) throws IOException {
+		appendedBytes = 0;
+		appendedSessionCount = 0;
+		updatedClassCount = 0;
+		addedClassCount = 0;
+		if (!file.exists()) {
+			return;
+		}
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		// Avoid concurrent writes from other processes, see ExecFileLoader
+		final FileLock lock = raf.getChannel().lock();
+		try {
+			compact(lock.channel());
+		} finally {
+			lock.channel().close();
+		}
+	}
+
+	private void compact(final FileChannel channel) throws IOException {
+		final long size = channel.size();
+		if (size == 0) {
+			return;
+		}
+		final long end = findIndexEnd(channel);
+		if (end == -1) {
+			rewrite(channel);
+			return;
+		}
+		appendedBytes = size - end;
+		if (appendedBytes == 0) {
+			return;
+		}
+		final ExecutionDataIndex index = ExecutionDataIndex.read(channel, end);
+
+		final SessionInfoStore sessionInfos = new SessionInfoStore();
+		final ExecutionDataStore appended = new ExecutionDataStore();
+		channel.position(end);
+		final ExecutionDataBufferReader reader = new ExecutionDataBufferReader(
+				channel);
+		reader.setSessionInfoVisitor(sessionInfos);
+		reader.setExecutionDataVisitor(appended);
+		reader.read();
+		appendedSessionCount = sessionInfos.getInfos().size();
+
+		final List<ExecutionData> added = new ArrayList<ExecutionData>();
+		for (final ExecutionData data : appended.getContents()) {
+			if (index.contains(data.getId())) {
+				if (index.merge(data)) {
+					updatedClassCount++;
+				}
+			} else if (data.hasHits()) {
+				added.add(data);
+			}
+		}
+		addedClassCount = added.size();
+
+		channel.position(index.getIndexPosition());
+		final OutputStream output = new BufferedOutputStream(
+				Channels.newOutputStream(channel));
+		final IndexedExecutionDataWriter writer = new IndexedExecutionDataWriter(
+				output, index);
+		sessionInfos.accept(writer);
+		for (final ExecutionData data : added) {
+			writer.visitClassExecution(data);
+		}
+		writer.finish();
+		output.flush();
+		channel.truncate(channel.position());
+	}
+
+	/**
+	 * Loads the whole file and rewrites it with an index.
+	 */
+	private void rewrite(final FileChannel channel) throws IOException {
+		final ExecFileLoader loader = new ExecFileLoader();
+		channel.position(0);
+		loader.load(Channels.newInputStream(channel));
+		appendedBytes = channel.size();
+		appendedSessionCount = loader.getSessionInfoStore().getInfos().size();
+		addedClassCount = loader.getExecutionDataStore().size();
+		channel.truncate(0);
+		channel.position(0);
+		final OutputStream output = new BufferedOutputStream(
+				Channels.newOutputStream(channel));
+		loader.saveIndexed(output);
+		output.flush();
+	}
+
+	/**
+	 * Searches the index of the compacted part of the file. Every piece of
+	 * data appended to the file starts with a header, so the index ends right
+	 * before a header. The file is searched backwards, so typically only the
+	 * appended data is scanned.
+	 *
+	 * @return end position of the index or -1 if there is no index
+	 */
+	private static long findIndexEnd(final FileChannel channel)
+			throws IOException {
+		final long size = channel.size();
+		if (ExecutionDataIndex.read(channel) != null) {
+			return size;
+		}
+		// Appended data may use any supported format version
+		final byte[] header = { ExecutionDataWriter.BLOCK_HEADER,
+				(byte) (ExecutionDataWriter.MAGIC_NUMBER >> 8),
+				(byte) ExecutionDataWriter.MAGIC_NUMBER };
+		final ByteBuffer buffer = ByteBuffer
+				.allocate(CHUNK_SIZE + header.length);
+		long chunk = size;
+		while (chunk > 0) {
+			final long start = Math.max(0, chunk - CHUNK_SIZE);
+			((Buffer) buffer).clear();
+			((Buffer) buffer)
+					.limit((int) Math.min(size - start, buffer.capacity()));
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, start + buffer.position()) == -1) {
+					break;
+				}
+			}
+			for (int i = (int) (chunk - start) - 1; i >= 0; i--) {
+				if (matches(buffer, i, header) && ExecutionDataIndex
+						.read(channel, start + i) != null) {
+					return start + i;
+				}
+			}
+			chunk = start;
+		}
+		return -1;
+	}
+
+	private static boolean matches(final ByteBuffer buffer, final int offset,
+			final byte[] pattern) {
+		if (offset + pattern.length > buffer.position()) {
+			return false;
+		}
+		for (int i = 0; i < pattern.length; i++) {
+			if (buffer.get(offset + i) != pattern[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of appended bytes read by the last compaction. If the
+	 * file had no index this is the size of the file.
+	 *
+	 * @return number of bytes
+	 */
+	public long getAppendedBytes() {
+		return appendedBytes;
+	}
+
+	/**
+	 * Returns the number of appended sessions merged by the last compaction.
+	 *
+	 * @return number of sessions
+	 */
+	public int getAppendedSessionCount() {
+		return appendedSessionCount;
+	}
+
+	/**
+	 * Returns the number of classes whose probes have been updated in place by
+	 * the last compaction.
+	 *
+	 * @return number of classes
+	 */
+	public int getUpdatedClassCount() {
+		return updatedClassCount;
+	}
+
+	/**
+	 * Returns the number of classes added to the index by the last compaction.
+	 *
+	 * @return number of classes
+	 */
+	public int getAddedClassCount() {
+		return addedClassCount;
+	}
+
+}
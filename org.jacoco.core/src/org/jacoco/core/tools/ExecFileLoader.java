@@ -12,7 +12,6 @@
  *******************************************************************************/
 package org.jacoco.core.tools;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -20,16 +19,21 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.nio.channels.FileLock;
 
-import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataBufferReader;
+import org.jacoco.core.data.ExecutionDataIndex;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IndexedExecutionDataWriter;
 import org.jacoco.core.data.SessionInfoStore;
 
 /**
  * Convenience utility for loading *.exec files into a
- * {@link ExecutionDataStore} and a {@link SessionInfoStore}.
+ * {@link ExecutionDataStore} and a {@link SessionInfoStore}. Files with and
+ * without an index written by {@link IndexedExecutionDataWriter} are
+ * supported.
  */
 public class ExecFileLoader {
 
@@ -41,8 +45,21 @@ public class ExecFileLoader {
 	 * files.
 	 */
 	public ExecFileLoader() {
+		this(false);
+	}
+
+	/**
+	 * New instance to combine session infos and execution data from multiple
+	 * files, which optionally holds probes packed into bit sets to reduce
+	 * memory consumption.
+	 *
+	 * @param packedProbes
+	 *            <code>true</code> if probes should be packed into bit sets
+	 * @see ExecutionDataStore#ExecutionDataStore(boolean)
+	 */
+	public ExecFileLoader(final boolean packedProbes) {
 		sessionInfos = new SessionInfoStore();
-		executionData = new ExecutionDataStore();
+		executionData = new ExecutionDataStore(packedProbes);
 	}
 
 	/**
@@ -54,9 +71,9 @@ public class ExecFileLoader {
 	 *             in case of problems while reading from the stream
 	 */
 	public void load(final InputStream stream) throws IOException {
-		final ExecutionDataReader reader = new ExecutionDataReader(
-				new BufferedInputStream(stream));
-		reader.setExecutionDataVisitor(executionData);
+		final ExecutionDataBufferReader reader = new ExecutionDataBufferReader(
+				Channels.newChannel(stream));
+		reader.setPackedExecutionDataVisitor(executionData);
 		reader.setSessionInfoVisitor(sessionInfos);
 		reader.read();
 	}
@@ -87,9 +104,45 @@ public class ExecFileLoader {
 	 *             in case of problems while writing to the stream
 	 */
 	public void save(final OutputStream stream) throws IOException {
-		final ExecutionDataWriter dataWriter = new ExecutionDataWriter(stream);
+		save(stream, false);
+	}
+
+	/**
+	 * Saves the current content into the given output stream, optionally in
+	 * compressed blocks.
+	 *
+	 * @param stream
+	 *            stream to save content to
+	 * @param compressed
+	 *            <code>true</code> if the content should be compressed
+	 * @throws IOException
+	 *             in case of problems while writing to the stream
+	 * @see ExecutionDataWriter#ExecutionDataWriter(OutputStream, boolean)
+	 */
+	public void save(final OutputStream stream, final boolean compressed)
+			throws IOException {
+		final ExecutionDataWriter dataWriter = new ExecutionDataWriter(stream,
+				compressed);
 		sessionInfos.accept(dataWriter);
 		executionData.accept(dataWriter);
+		dataWriter.flush();
+	}
+
+	/**
+	 * Saves the current content with an index into the given output stream.
+	 *
+	 * @param stream
+	 *            stream to save content to
+	 * @throws IOException
+	 *             in case of problems while writing to the stream
+	 * @see IndexedExecutionDataWriter
+	 */
+	public void saveIndexed(final OutputStream stream) throws IOException {
+		final IndexedExecutionDataWriter dataWriter = new IndexedExecutionDataWriter(
+				stream);
+		sessionInfos.accept(dataWriter);
+		executionData.accept(dataWriter);
+		dataWriter.finish();
 	}
 
 	/**
@@ -106,11 +159,56 @@ public class ExecFileLoader {
 	 *             in case of problems while writing to the stream
 	 */
 	public void save(final File file, final boolean append) throws IOException {
+		save(file, append, false);
+	}
+
+	/**
+	 * Saves the current content into the given file, optionally in compressed
+	 * blocks. Parent directories are created as needed. Also a file system
+	 * lock is acquired to avoid concurrent write access.
+	 *
+	 * @param file
+	 *            file to save content to
+	 * @param append
+	 *            <code>true</code> if the content should be appended, otherwise
+	 *            the file is overwritten.
+	 * @param compressed
+	 *            <code>true</code> if the content should be compressed
+	 * @throws IOException
+	 *             in case of problems while writing to the stream
+	 */
+	public void save(final File file, final boolean append,
+			final boolean compressed) throws IOException {
+		final File folder = file.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		saveLocked(new FileOutputStream(file, append), false, compressed);
+	}
+
+	/**
+	 * Saves the current content with an index into the given file, which
+	 * allows random access with {@link ExecutionDataIndex}. Existing content of
+	 * the file is overwritten as the index must cover the whole file. Parent
+	 * directories are created as needed. Also a file system lock is acquired
+	 * to avoid concurrent write access.
+	 *
+	 * @param file
+	 *            file to save content to
+	 * @throws IOException
+	 *             in case of problems while writing to the stream
+	 */
+	public void saveIndexed(final File file) throws IOException {
 		final File folder = file.getParentFile();
 		if (folder != null) {
 			folder.mkdirs();
 		}
-		final FileOutputStream fileStream = new FileOutputStream(file, append);
+		saveLocked(new FileOutputStream(file), true, false);
+	}
+
+	private void saveLocked(final FileOutputStream fileStream,
+			final boolean indexed, final boolean compressed)
+			throws IOException {
 		// Avoid concurrent writes from other processes.
 		// Note that reference to lock object must be maintained
 		// till the end of writing
@@ -121,7 +219,11 @@ public class ExecFileLoader {
 		final OutputStream bufferedStream = new BufferedOutputStream(
 				fileStream);
 		try {
-			save(bufferedStream);
+			if (indexed) {
+				saveIndexed(bufferedStream);
+			} else {
+				save(bufferedStream, compressed);
+			}
 			bufferedStream.flush();
 		} finally {
 			lock.channel().close();
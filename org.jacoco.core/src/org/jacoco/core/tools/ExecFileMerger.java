@@ -0,0 +1,631 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataBufferReader;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.IPackedExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Merges the content of many *.exec files. In contrast to
+ * {@link ExecFileLoader} session infos are not retained but emitted while the
+ * files are read, and files can be read in parallel.
+ *
+ * Every reader collects the execution data of its files in separate
+ * {@link ExecutionDataStore} partitions which are sharded by class id. After
+ * all files have been read the partitions of the readers are merged pairwise
+ * in a tree reduction, where all partitions of one level are merged
+ * concurrently. The merged execution data is finally emitted partition by
+ * partition.
+ *
+ * Optionally the memory used for execution data can be limited. If a reader
+ * exceeds its share of the limit after a file has been read, the content of its
+ * partitions is sorted by class id and spilled as a run to a temporary file.
+ * Finally all runs are merged in a single streaming pass, where only the
+ * current execution data block of every run is kept in memory.
+ */
+public class ExecFileMerger {
+
+	private final boolean packedProbes;
+
+	private Executor executor;
+
+	private int parallelism = 1;
+
+	private long maxMemory = 0;
+
+	private File tempDirectory;
+
+	private final List<File> runs = Collections
+			.synchronizedList(new ArrayList<File>());
+
+	private ExecutionDataStore[] partitions;
+
+	private int fileCount;
+
+	private long byteCount;
+
+	private int sessionCount;
+
+	private int classCount;
+
+	private int spillCount;
+
+	/**
+	 * New merger which holds the merged execution data in
+	 * {@link ExecutionDataStore}s with probe arrays.
+	 */
+	public ExecFileMerger() {
+		this(false);
+	}
+
+	/**
+	 * New merger which optionally holds the merged execution data in
+	 * {@link ExecutionDataStore}s with probes packed into bit sets to reduce
+	 * memory consumption.
+	 *
+	 * @param packedProbes
+	 *            <code>true</code> if probes should be packed into bit sets
+	 * @see ExecutionDataStore#ExecutionDataStore(boolean)
+	 */
+	public ExecFileMerger(final boolean packedProbes) {
+		this.packedProbes = packedProbes;
+	}
+
+	/**
+	 * Sets an executor that is used to read and merge files in parallel, for
+	 * example a thread pool. The executor is not shut down by the
+	 * {@link ExecFileMerger}. By default or if set to <code>null</code> all
+	 * files are read in the calling thread.
+	 *
+	 * @param executor
+	 *            executor for reading and merging or <code>null</code>
+	 * @param parallelism
+	 *            maximum number of files which are read concurrently, should
+	 *            not exceed the number of threads of the executor
+	 */
+	public void setExecutor(final Executor executor, final int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException(
+					"Parallelism must be positive: " + parallelism);
+		}
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Sets an approximate limit for the memory used by execution data. If the
+	 * limit is exceeded execution data is spilled to temporary files, which
+	 * are deleted by {@link #accept(IExecutionDataVisitor)}. The limit is
+	 * checked after every file, so it should be considerably larger than the
+	 * execution data of a single file. By default or if set to
+	 * <code>0</code> all execution data is kept in memory.
+	 *
+	 * @param maxMemory
+	 *            maximum number of bytes used by execution data or
+	 *            <code>0</code>
+	 * @param tempDirectory
+	 *            directory for temporary files or <code>null</code> for the
+	 *            default temporary directory
+	 */
+	public void setMaxMemory(final long maxMemory, final File tempDirectory) {
+		if (maxMemory < 0) {
+			throw new IllegalArgumentException(
+					"Maximum memory must not be negative: " + maxMemory);
+		}
+		this.maxMemory = maxMemory;
+		this.tempDirectory = tempDirectory;
+	}
+
+	/**
+	 * Reads and merges the execution data of the given files. This method may
+	 * be called multiple times, the execution data of all calls is merged.
+	 * Session infos are emitted to the given visitor while the files are read.
+	 * Calls to the visitor are serialized, but may come from the threads of
+	 * the executor.
+	 *
+	 * @param files
+	 *            execution data files to read
+	 * @param sessionVisitor
+	 *            visitor for the session infos of all files
+	 * @throws IOException
+	 *             in case of problems while reading a file
+	 */
+	public void load(final List<File> files,
+			final ISessionInfoVisitor sessionVisitor) throws IOException {
+		final int partitionCount = getPartitionCount();
+		final Reader[] readers = new Reader[executor == null ? 1
+				: Math.max(1, Math.min(parallelism, files.size()))];
+		final long readerMemory = maxMemory == 0 ? 0
+				: Math.max(1, maxMemory / readers.length);
+		final AtomicInteger next = new AtomicInteger();
+		final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < readers.length; i++) {
+			readers[i] = new Reader(partitionCount, readerMemory, files, next,
+					sessionVisitor);
+			tasks.add(readers[i]);
+		}
+		if (partitions != null) {
+			// Content of previous calls is merged like another reader
+			System.arraycopy(partitions, 0, readers[0].partitions, 0,
+					partitionCount);
+		}
+		run(tasks);
+		partitions = reduce(readers);
+
+		classCount = 0;
+		for (final ExecutionDataStore partition : partitions) {
+			classCount += partition.size();
+		}
+		spillCount = runs.size();
+		for (final Reader reader : readers) {
+			fileCount += reader.fileCount;
+			byteCount += reader.byteCount;
+			sessionCount += reader.sessionCount;
+		}
+	}
+
+	/**
+	 * Emits the merged execution data of all files loaded so far to the given
+	 * visitor. Afterwards the merged execution data is released. If execution
+	 * data has been spilled to temporary files it is emitted in the order of
+	 * class ids.
+	 *
+	 * @param visitor
+	 *            visitor for the merged execution data
+	 * @throws IOException
+	 *             in case of problems with temporary files
+	 */
+	public void accept(final IExecutionDataVisitor visitor)
+			throws IOException {
+		if (partitions == null) {
+			return;
+		}
+		if (runs.isEmpty()) {
+			for (int i = 0; i < partitions.length; i++) {
+				partitions[i].accept(visitor);
+				partitions[i] = null;
+			}
+			partitions = null;
+			return;
+		}
+		try {
+			runs.add(spill(partitions));
+			partitions = null;
+			classCount = mergeRuns(visitor);
+		} finally {
+			for (final File run : runs) {
+				run.delete();
+			}
+			runs.clear();
+		}
+	}
+
+	/**
+	 * Sorts the content of the given partitions by class id and writes it to
+	 * a temporary file. The partitions are replaced by empty ones.
+	 */
+	private File spill(final ExecutionDataStore[] partitions)
+			throws IOException {
+		final List<ExecutionData> contents = new ArrayList<ExecutionData>();
+		for (int p = 0; p < partitions.length; p++) {
+			contents.addAll(partitions[p].getContents());
+			partitions[p] = new ExecutionDataStore(packedProbes);
+		}
+		Collections.sort(contents, new Comparator<ExecutionData>() {
+			public int compare(final ExecutionData d1,
+					final ExecutionData d2) {
+				return compareIds(d1, d2);
+			}
+		});
+		final File file = File.createTempFile("jacoco", ".exec",
+				tempDirectory);
+		file.deleteOnExit();
+		final OutputStream output = new BufferedOutputStream(
+				new FileOutputStream(file));
+		try {
+			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
+			for (final ExecutionData data : contents) {
+				writer.visitClassExecution(data);
+			}
+		} finally {
+			output.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Merges all sorted runs in a single pass.
+	 *
+	 * @return number of emitted classes
+	 */
+	private int mergeRuns(final IExecutionDataVisitor visitor)
+			throws IOException {
+		final PriorityQueue<Run> queue = new PriorityQueue<Run>(runs.size(),
+				new Comparator<Run>() {
+					public int compare(final Run r1, final Run r2) {
+						return compareIds(r1.current, r2.current);
+					}
+				});
+		try {
+			for (final File file : runs) {
+				advance(new Run(file), queue);
+			}
+			int count = 0;
+			while (!queue.isEmpty()) {
+				final Run run = queue.poll();
+				final ExecutionData data = run.current;
+				advance(run, queue);
+				while (!queue.isEmpty()
+						&& queue.peek().current.getId() == data.getId()) {
+					final Run other = queue.poll();
+					data.merge(other.current);
+					advance(other, queue);
+				}
+				visitor.visitClassExecution(data);
+				count++;
+			}
+			return count;
+		} finally {
+			for (final Run run : queue) {
+				run.close();
+			}
+		}
+	}
+
+	private static void advance(final Run run, final PriorityQueue<Run> queue)
+			throws IOException {
+		if (run.next()) {
+			queue.add(run);
+		} else {
+			run.close();
+		}
+	}
+
+	private static int compareIds(final ExecutionData d1,
+			final ExecutionData d2) {
+		final long id1 = d1.getId();
+		final long id2 = d2.getId();
+		return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+	}
+
+	/**
+	 * Sequential access to the execution data blocks of a spilled run.
+	 */
+	private static class Run extends ExecutionDataReader
+			implements IExecutionDataVisitor {
+
+		private final InputStream input;
+
+		ExecutionData current;
+
+		Run(final File file) throws IOException {
+			this(new BufferedInputStream(new FileInputStream(file)));
+		}
+
+		private Run(final InputStream input) {
+			super(input);
+			this.input = input;
+			setExecutionDataVisitor(this);
+		}
+
+		/**
+		 * Reads the next execution data block.
+		 *
+		 * @return <code>false</code> if the end of the run has been reached
+		 */
+		boolean next() throws IOException {
+			current = null;
+			read();
+			return current != null;
+		}
+
+		void close() throws IOException {
+			input.close();
+		}
+
+		@Override
+		protected boolean readBlock(final byte blocktype)
+				throws IOException {
+			super.readBlock(blocktype);
+			// Stop after every execution data block
+			return current == null;
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			current = data;
+		}
+
+	}
+
+	/**
+	 * Returns the number of files read so far.
+	 *
+	 * @return number of files
+	 */
+	public int getFileCount() {
+		return fileCount;
+	}
+
+	/**
+	 * Returns the total size of the files read so far.
+	 *
+	 * @return number of bytes
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * Returns the number of session infos read so far.
+	 *
+	 * @return number of sessions
+	 */
+	public int getSessionCount() {
+		return sessionCount;
+	}
+
+	/**
+	 * Returns the number of different classes in the merged execution data.
+	 * If execution data has been spilled to temporary files the number is only
+	 * known after {@link #accept(IExecutionDataVisitor)}.
+	 *
+	 * @return number of classes
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Returns the number of temporary files execution data has been spilled
+	 * to so far.
+	 *
+	 * @return number of temporary files
+	 */
+	public int getSpillCount() {
+		return spillCount;
+	}
+
+	/**
+	 * Uses the next power of two of the parallelism, so all partitions of a
+	 * level of the reduction can be merged concurrently.
+	 */
+	private int getPartitionCount() {
+		if (partitions != null) {
+			return partitions.length;
+		}
+		int count = 1;
+		while (count < parallelism) {
+			count <<= 1;
+		}
+		return count;
+	}
+
+	private ExecutionDataStore[] reduce(final Reader[] readers)
+			throws IOException {
+		for (int step = 1; step < readers.length; step <<= 1) {
+			final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int i = 0; i + step < readers.length; i += step << 1) {
+				final Reader target = readers[i];
+				final Reader source = readers[i + step];
+				for (int p = 0; p < target.partitions.length; p++) {
+					final int partition = p;
+					tasks.add(new Callable<Void>() {
+						public Void call() {
+							target.merge(source, partition);
+							return null;
+						}
+					});
+				}
+			}
+			run(tasks);
+		}
+		return readers[0].partitions;
+	}
+
+	private void run(final List<Callable<Void>> tasks) throws IOException {
+		if (executor == null) {
+			for (final Callable<Void> task : tasks) {
+				call(task);
+			}
+			return;
+		}
+		final List<FutureTask<Void>> futures = new ArrayList<FutureTask<Void>>();
+		for (final Callable<Void> task : tasks) {
+			final FutureTask<Void> future = new FutureTask<Void>(task);
+			futures.add(future);
+			executor.execute(future);
+		}
+		try {
+			for (final FutureTask<Void> future : futures) {
+				get(future);
+			}
+		} finally {
+			for (final FutureTask<Void> future : futures) {
+				future.cancel(false);
+			}
+		}
+	}
+
+	private static void call(final Callable<Void> task) throws IOException {
+		try {
+			task.call();
+		} catch (final IOException e) {
+			throw e;
+		} catch (final RuntimeException e) {
+			throw e;
+		} catch (final Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static void get(final FutureTask<Void> future) throws IOException {
+		try {
+			future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			final IOException ex = new IOException(
+					"Interrupted while merging execution data.");
+			ex.initCause(e);
+			throw ex;
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		}
+	}
+
+	/**
+	 * Roughly estimates the memory used for the execution data of a class.
+	 */
+	private long estimateSize(final String name, final int probeCount) {
+		return 128 + 2 * name.length()
+				+ (packedProbes ? probeCount >>> 3 : probeCount);
+	}
+
+	/**
+	 * Reads files until no more files are left and collects their execution
+	 * data in partitions.
+	 */
+	private class Reader
+			implements Callable<Void>, IPackedExecutionDataVisitor,
+			ISessionInfoVisitor {
+
+		final ExecutionDataStore[] partitions;
+
+		private final List<File> files;
+
+		private final AtomicInteger next;
+
+		private final ISessionInfoVisitor sessionVisitor;
+
+		int fileCount;
+
+		long byteCount;
+
+		int sessionCount;
+
+		/** Memory limit of this reader or 0 */
+		private final long maxMemory;
+
+		/** Estimated memory used by the partitions */
+		private long memory;
+
+		Reader(final int partitionCount, final long maxMemory,
+				final List<File> files, final AtomicInteger next,
+				final ISessionInfoVisitor sessionVisitor) {
+			this.partitions = new ExecutionDataStore[partitionCount];
+			for (int i = 0; i < partitionCount; i++) {
+				partitions[i] = new ExecutionDataStore(packedProbes);
+			}
+			this.maxMemory = maxMemory;
+			this.files = files;
+			this.next = next;
+			this.sessionVisitor = sessionVisitor;
+		}
+
+		public Void call() throws IOException {
+			int i;
+			while ((i = next.getAndIncrement()) < files.size()) {
+				read(files.get(i));
+				if (maxMemory > 0 && memory > maxMemory) {
+					runs.add(spill(partitions));
+					memory = 0;
+				}
+			}
+			return null;
+		}
+
+		private void read(final File file) throws IOException {
+			final FileInputStream stream = new FileInputStream(file);
+			try {
+				final FileChannel channel = stream.getChannel();
+				byteCount += channel.size();
+				final ExecutionDataBufferReader reader = new ExecutionDataBufferReader(
+						channel);
+				reader.setSessionInfoVisitor(this);
+				reader.setPackedExecutionDataVisitor(this);
+				reader.read();
+				fileCount++;
+			} catch (final IOException e) {
+				final IOException ex = new IOException(String.format(
+						"Error while reading execution data file %s.", file));
+				ex.initCause(e);
+				throw ex;
+			} finally {
+				stream.close();
+			}
+		}
+
+		void merge(final Reader source, final int partition) {
+			source.partitions[partition]
+					.accept((IExecutionDataVisitor) partitions[partition]);
+			// Release memory as early as possible
+			source.partitions[partition] = null;
+		}
+
+		public void visitSessionInfo(final SessionInfo info) {
+			sessionCount++;
+			synchronized (sessionVisitor) {
+				sessionVisitor.visitSessionInfo(info);
+			}
+		}
+
+		public void visitClassExecution(final long id, final String name,
+				final int probeCount, final ByteBuffer probes) {
+			// Class ids are CRC64 checksums, so the lower bits are distributed
+			// evenly
+			final ExecutionDataStore partition = partitions[(int) id
+					& (partitions.length - 1)];
+			final int size = partition.size();
+			partition.visitClassExecution(id, name, probeCount, probes);
+			if (partition.size() != size) {
+				memory += estimateSize(name, probeCount);
+			}
+		}
+
+	}
+
+}
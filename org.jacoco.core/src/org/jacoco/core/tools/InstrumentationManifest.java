@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2026 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * https://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.InputStreams;
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Record of files created by offline instrumentation which allows tools to
+ * skip the instrumentation of unchanged files. For every output file the
+ * identifiers of the source file and of the instrumented output are recorded.
+ * Identifiers are calculated with the same checksum used for class ids. A
+ * manifest created by a different JaCoCo build is considered empty.
+ *
+ * Typically a tool loads the manifest of the previous run, checks every file
+ * with {@link #contains(String, long, long)} and records all files of the
+ * current run in a new manifest which is saved at the end. So entries of files
+ * which do not exist any more are dropped. The methods of this class are
+ * thread safe.
+ */
+public class InstrumentationManifest {
+
+	private static final String CHARSET = "UTF-8";
+
+	private static final String HEADER = "JaCoCo " + JaCoCo.VERSION + "/"
+			+ JaCoCo.COMMITID;
+
+	private final Map<String, long[]> entries = new TreeMap<String, long[]>();
+
+	/**
+	 * Creates a new empty manifest.
+	 */
+	public InstrumentationManifest() {
+		super();
+	}
+
+	/**
+	 * Calculates the identifier of the content of the given file.
+	 *
+	 * @param file
+	 *            file to read
+	 * @return identifier of the file content
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public static long id(final File file) throws IOException {
+		final InputStream in = new FileInputStream(file);
+		try {
+			return CRC64.classId(InputStreams.readFully(in));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Checks whether the given file has been recorded for exactly the given
+	 * source and output content.
+	 *
+	 * @param name
+	 *            name of the output file
+	 * @param sourceId
+	 *            identifier of the source file content
+	 * @param outputId
+	 *            identifier of the instrumented output file content
+	 * @return <code>true</code> if the output is up to date
+	 */
+	public synchronized boolean contains(final String name,
+			final long sourceId, final long outputId) {
+		final long[] entry = entries.get(name);
+		return entry != null && entry[0] == sourceId && entry[1] == outputId;
+	}
+
+	/**
+	 * Records the given file.
+	 *
+	 * @param name
+	 *            name of the output file
+	 * @param sourceId
+	 *            identifier of the source file content
+	 * @param outputId
+	 *            identifier of the instrumented output file content
+	 */
+	public synchronized void put(final String name, final long sourceId,
+			final long outputId) {
+		entries.put(name, new long[] { sourceId, outputId });
+	}
+
+	/**
+	 * Returns the number of recorded files.
+	 *
+	 * @return number of recorded files
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Adds the entries of the given manifest file. Nothing is added if the
+	 * file does not exist or has been written by a different JaCoCo build.
+	 *
+	 * @param file
+	 *            manifest file to read
+	 * @throws IOException
+	 *             if the file can't be read or has an invalid format
+	 */
+	public synchronized void load(final File file) throws IOException {
+		if (!file.isFile()) {
+			return;
+		}
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), CHARSET));
+		try {
+			if (!HEADER.equals(reader.readLine())) {
+				return;
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				final String[] parts = line.split(" ", 3);
+				if (parts.length != 3) {
+					throw new IOException(String.format(
+							"Invalid instrumentation manifest %s.", file));
+				}
+				try {
+					put(parts[2], parseId(parts[0]), parseId(parts[1]));
+				} catch (final NumberFormatException e) {
+					throw new IOException(String.format(
+							"Invalid instrumentation manifest %s.", file));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Writes all entries to the given file. Existing content is replaced.
+	 *
+	 * @param file
+	 *            manifest file to write
+	 * @throws IOException
+	 *             if the file can't be written
+	 */
+	public synchronized void save(final File file) throws IOException {
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final Writer writer = new OutputStreamWriter(
+				new FileOutputStream(file), CHARSET);
+		try {
+			writer.write(HEADER + "\n");
+			for (final Map.Entry<String, long[]> e : entries.entrySet()) {
+				writer.write(String.format("%016x %016x %s\n",
+						Long.valueOf(e.getValue()[0]),
+						Long.valueOf(e.getValue()[1]), e.getKey()));
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static long parseId(final String hex) {
+		if (hex.length() != 16) {
+			throw new NumberFormatException(hex);
+		}
+		// Parse in two halves as ids use all 64 bits
+		return Long.parseLong(hex.substring(0, 8), 16) << 32
+				| Long.parseLong(hex.substring(8), 16);
+	}
+
+}